@@ -0,0 +1,51 @@
+package com.example.auth;
+
+/**
+ * The verified contents of a token issued by {@link TokenService}.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public final class AuthToken {
+
+    private final long tokenId;
+    private final int accountId;
+    private final long issuedAt;
+    private final long expiresAt;
+
+    AuthToken(long tokenId, int accountId, long issuedAt, long expiresAt) {
+        this.tokenId = tokenId;
+        this.accountId = accountId;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return the random ID of the token, used to revoke it
+     */
+    public long getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * @return the ID of the account the token was issued to
+     */
+    public int getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * @return the time the token was issued, in epoch milliseconds
+     */
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * @return the time the token expires, in epoch milliseconds
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
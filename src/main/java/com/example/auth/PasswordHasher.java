@@ -0,0 +1,117 @@
+package com.example.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted PBKDF2-HMAC-SHA256 password hashes in a self-describing format,
+ * {@code $pbkdf2-sha256$<iterations>$<salt>$<hash>} with Base64 salt and hash.
+ *
+ * <p>The iteration count is the cost factor. It is stored with every hash, so raising it only
+ * affects new hashes, and {@link #needsRehash(String)} tells when a stored hash was made with a
+ * different count or is still a plaintext password from before hashing was introduced.</p>
+ *
+ * <p>Hashing is deliberately slow; callers run it on the {@link PasswordHashingExecutor} rather
+ * than on request threads.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class PasswordHasher {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "$pbkdf2-sha256$";
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Creates a hasher producing hashes with the given cost factor.
+     *
+     * @param iterations the PBKDF2 iteration count for new hashes
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Hashes a password with a fresh salt.
+     *
+     * @param password the plaintext password
+     * @return the encoded hash
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * Checks a password against a stored hash. A stored value that is not a hash is treated as a
+     * plaintext password and compared in constant time.
+     *
+     * @param password the plaintext password to check
+     * @param stored the stored hash or legacy plaintext password
+     * @return true if the password matches
+     */
+    public boolean matches(String password, String stored) {
+        if (!isHash(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] expected = decoder.decode(parts[2]);
+        return MessageDigest.isEqual(derive(password, decoder.decode(parts[1]), Integer.parseInt(parts[0])), expected);
+    }
+
+    /**
+     * Returns whether a stored password should be replaced by a fresh hash after the next
+     * successful login.
+     *
+     * @param stored the stored hash or legacy plaintext password
+     * @return true if the value is plaintext or was hashed with a different cost factor
+     */
+    public boolean needsRehash(String stored) {
+        return !isHash(stored) || !stored.startsWith(PREFIX + iterations + "$");
+    }
+
+    /**
+     * Returns the iteration count used for new hashes.
+     *
+     * @return the cost factor
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    private static boolean isHash(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive " + ALGORITHM + " hash", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
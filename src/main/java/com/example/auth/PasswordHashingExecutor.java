@@ -0,0 +1,177 @@
+package com.example.auth;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.example.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs password hashing and verification on a dedicated, bounded pool of CPU threads, so a burst
+ * of logins cannot tie up request threads or starve other requests of CPU.
+ *
+ * <p>The pool has one thread per core unless {@code socialmedia.password.pool-size} says
+ * otherwise, and a fixed-size queue in front of it. When the queue is full, new work is refused
+ * with a {@link ServiceUnavailableException}, which tells clients to back off instead of letting
+ * waiting times grow without bound.</p>
+ *
+ * <p>The cost factor, {@code socialmedia.password.iterations}, is checked at startup by timing one
+ * hash against {@code socialmedia.password.latency-budget}; a warning is logged when a single
+ * hash already exceeds the budget. {@code PasswordHashBenchmark} in the test sources measures
+ * the latency of other iteration counts on the target hardware.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    /**
+     * PBKDF2 iteration count for new hashes.
+     */
+    @Value("${socialmedia.password.iterations:210000}")
+    private int iterations;
+
+    /**
+     * Number of hashing threads; 0 means one per available core.
+     */
+    @Value("${socialmedia.password.pool-size:0}")
+    private int poolSize;
+
+    /**
+     * Number of hashing tasks that may wait for a thread; 0 means eight per thread.
+     */
+    @Value("${socialmedia.password.queue-capacity:0}")
+    private int queueCapacity;
+
+    /**
+     * Longest acceptable time for a single hash.
+     */
+    @Value("${socialmedia.password.latency-budget:PT0.25S}")
+    private Duration latencyBudget;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private PasswordHasher hasher;
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+    private String decoyHash;
+
+    /**
+     * Starts the pool, registers its metrics and times one hash against the latency budget. The
+     * hash is timed after a first one has warmed up the code path.
+     */
+    @PostConstruct
+    void init() {
+        hasher = new PasswordHasher(iterations);
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        int capacity = queueCapacity > 0 ? queueCapacity : threads * 8;
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("socialmedia.password-hashing.queued", executor, pool -> pool.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("socialmedia.password-hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks running")
+                .register(meterRegistry);
+        rejected = Counter.builder("socialmedia.password-hashing.rejected")
+                .description("Password hashing tasks refused because the queue was full")
+                .register(meterRegistry);
+
+        decoyHash = hasher.hash(UUID.randomUUID().toString());
+        long start = System.nanoTime();
+        hasher.hash(UUID.randomUUID().toString());
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        if (elapsed.compareTo(latencyBudget) > 0) {
+            LOGGER.warn("One password hash with {} iterations took {} ms, above the {} ms budget - PasswordHashingExecutor.init() method.",
+                    iterations, elapsed.toMillis(), latencyBudget.toMillis());
+        } else {
+            LOGGER.info("One password hash with {} iterations took {} ms, {} threads, queue of {} - PasswordHashingExecutor.init() method.",
+                    iterations, elapsed.toMillis(), threads, capacity);
+        }
+    }
+
+    /**
+     * Hashes a password on the hashing pool.
+     *
+     * @param password the plaintext password
+     * @return a future completed with the encoded hash
+     * @throws ServiceUnavailableException if the hashing queue is full
+     */
+    public CompletableFuture<String> hash(String password) {
+        return submit(() -> hasher.hash(password));
+    }
+
+    /**
+     * Runs a task that hashes or verifies passwords on the hashing pool.
+     *
+     * @param <T> the result type
+     * @param task the task, which uses {@link #getHasher()}
+     * @return a future completed with the result of the task
+     * @throws ServiceUnavailableException if the hashing queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many password checks in progress. Try again later.", e);
+        }
+    }
+
+    /**
+     * Returns the hasher with the configured cost factor, to be used only from tasks run by
+     * {@link #submit(Supplier)}.
+     *
+     * @return the password hasher
+     */
+    public PasswordHasher getHasher() {
+        return hasher;
+    }
+
+    /**
+     * Returns a hash with the configured cost factor that no password is expected to match.
+     * Checking a login for an unknown username against it takes as long as checking a wrong
+     * password, so response times do not reveal which usernames exist.
+     *
+     * @return the decoy hash
+     */
+    public String getDecoyHash() {
+        return decoyHash;
+    }
+
+    /**
+     * Stops the hashing threads once queued work is done.
+     */
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
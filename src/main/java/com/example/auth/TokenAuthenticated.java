@@ -0,0 +1,24 @@
+package com.example.auth;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method that accepts a bearer token issued by {@link TokenService}.
+ *
+ * <p>A token sent in the {@code Authorization} header is verified before the method runs and
+ * passed to it as the {@link TokenAuthenticationInterceptor#TOKEN_ATTRIBUTE} request attribute.
+ * Requests without a token are only rejected when {@code socialmedia.auth.require-token} is set.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TokenAuthenticated {
+}
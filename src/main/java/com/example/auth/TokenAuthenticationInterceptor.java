@@ -0,0 +1,67 @@
+package com.example.auth;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import com.example.exception.AuthenticationException;
+import com.example.tracing.RequestTrace;
+
+/**
+ * Verifies the bearer token of requests to controller methods annotated with
+ * {@link TokenAuthenticated} and exposes it as a request attribute.
+ *
+ * <p>A missing token is accepted unless {@code socialmedia.auth.require-token} is set, so clients
+ * that identify themselves only by account ID keep working while they move to tokens. A token
+ * that is present but invalid is always rejected with a
+ * {@link AuthenticationException} handled by the global exception handler. The account of a
+ * valid token is recorded as the user of the {@link RequestTrace}.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class TokenAuthenticationInterceptor implements HandlerInterceptor {
+
+    /**
+     * Name of the request attribute holding the verified {@link AuthToken}.
+     */
+    public static final String TOKEN_ATTRIBUTE = "com.example.auth.token";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final AuthenticationException TOKEN_REQUIRED = new AuthenticationException("A bearer token is required.");
+
+    @Autowired
+    private TokenService tokenService;
+
+    /**
+     * Whether requests to token authenticated endpoints must carry a token.
+     */
+    @Value("${socialmedia.auth.require-token:false}")
+    private boolean requireToken;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)
+                || !((HandlerMethod) handler).hasMethodAnnotation(TokenAuthenticated.class)) {
+            return true;
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            if (requireToken) {
+                throw TOKEN_REQUIRED;
+            }
+            return true;
+        }
+        AuthToken token = tokenService.verify(authorization.substring(BEARER_PREFIX.length()).trim());
+        request.setAttribute(TOKEN_ATTRIBUTE, token);
+        RequestTrace.userIdentified(token.getAccountId());
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.auth;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * In-memory list of revoked tokens.
+ *
+ * <p>A single token is revoked by its ID and stays listed only until it would have expired
+ * anyway, so the list holds no more than the tokens revoked within one token lifetime. All
+ * tokens of an account are revoked at once by recording the revocation time for the account,
+ * which rejects every token issued up to then.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+class TokenDenyList {
+
+    /**
+     * Expiry time in epoch milliseconds, keyed by the ID of each revoked token.
+     */
+    private final Cache<Long, Long> revokedTokens = Caffeine.newBuilder()
+            .expireAfter(new Expiry<Long, Long>() {
+                @Override
+                public long expireAfterCreate(Long tokenId, Long expiresAt, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresAt - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(Long tokenId, Long expiresAt, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(Long tokenId, Long expiresAt, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+    /**
+     * Revocation time in epoch milliseconds, keyed by account ID.
+     */
+    private final Cache<Integer, Long> revokedAccounts;
+
+    /**
+     * Creates a deny list for tokens with the given lifetime.
+     *
+     * @param tokenTtl the lifetime of issued tokens
+     */
+    TokenDenyList(Duration tokenTtl) {
+        revokedAccounts = Caffeine.newBuilder().expireAfterWrite(tokenTtl).build();
+    }
+
+    /**
+     * Revokes one token.
+     *
+     * @param token the token to revoke
+     */
+    void revoke(AuthToken token) {
+        revokedTokens.put(token.getTokenId(), token.getExpiresAt());
+    }
+
+    /**
+     * Revokes every token issued to an account up to now.
+     *
+     * @param accountId the account ID
+     */
+    void revokeAll(int accountId) {
+        revokedAccounts.put(accountId, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns whether a token has been revoked.
+     *
+     * @param token the verified token
+     * @return true if the token or all tokens of its account were revoked
+     */
+    boolean isRevoked(AuthToken token) {
+        if (revokedTokens.getIfPresent(token.getTokenId()) != null) {
+            return true;
+        }
+        Long revokedAt = revokedAccounts.getIfPresent(token.getAccountId());
+        return revokedAt != null && token.getIssuedAt() <= revokedAt;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.auth;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.example.entity.Account;
+import com.example.exception.AuthenticationException;
+
+/**
+ * Issues and verifies signed, self-contained access tokens.
+ *
+ * <p>A token carries its own ID, the account ID, and the issue and expiry times, followed by an
+ * HMAC-SHA256 signature over them, both Base64url encoded and joined by a dot. Verifying a token
+ * is a signature check with a per-thread {@link Mac} that already holds the key, plus a lookup in
+ * the in-memory {@link TokenDenyList}; no database query is involved.</p>
+ *
+ * <p>The key is taken from {@code socialmedia.auth.token-secret} (Base64, at least 32 bytes).
+ * Without it a random key is generated at startup, so tokens do not survive a restart and are
+ * not accepted by other instances.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class TokenService {
+
+    /**
+     * Name of the login response header carrying the issued token.
+     */
+    public static final String HEADER = "X-Auth-Token";
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int PAYLOAD_LENGTH = 1 + Long.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private static final AuthenticationException MALFORMED = new AuthenticationException("Token is malformed.");
+    private static final AuthenticationException INVALID_SIGNATURE = new AuthenticationException("Token signature is invalid.");
+    private static final AuthenticationException EXPIRED = new AuthenticationException("Token has expired.");
+    private static final AuthenticationException REVOKED = new AuthenticationException("Token has been revoked.");
+
+    /**
+     * Base64 encoded signing key; a random key is used when blank.
+     */
+    @Value("${socialmedia.auth.token-secret:}")
+    private String tokenSecret;
+
+    /**
+     * How long an issued token is valid.
+     */
+    @Value("${socialmedia.auth.token-ttl:PT1H}")
+    private Duration tokenTtl;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private final Base64.Decoder decoder = Base64.getUrlDecoder();
+
+    private SecretKeySpec key;
+    private ThreadLocal<Mac> macs;
+    private TokenDenyList denyList;
+
+    /**
+     * Prepares the signing key once the configuration is injected.
+     */
+    @PostConstruct
+    void init() {
+        byte[] secret;
+        if (tokenSecret == null || tokenSecret.isBlank()) {
+            secret = new byte[MIN_KEY_LENGTH];
+            random.nextBytes(secret);
+            LOGGER.warn("No socialmedia.auth.token-secret configured, signing tokens with a random key - TokenService.init() method.");
+        } else {
+            secret = Base64.getDecoder().decode(tokenSecret.trim());
+            if (secret.length < MIN_KEY_LENGTH) {
+                throw new IllegalStateException("socialmedia.auth.token-secret must be at least " + MIN_KEY_LENGTH + " bytes");
+            }
+        }
+        key = new SecretKeySpec(secret, ALGORITHM);
+        macs = ThreadLocal.withInitial(this::newMac);
+        denyList = new TokenDenyList(tokenTtl);
+    }
+
+    /**
+     * Issues a token for an authenticated account.
+     *
+     * @param account the account, with its ID
+     * @return the encoded token
+     */
+    public String issue(Account account) {
+        long now = System.currentTimeMillis();
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .put(VERSION)
+                .putLong(random.nextLong())
+                .putInt(account.getAccountId())
+                .putLong(now)
+                .putLong(now + tokenTtl.toMillis());
+        byte[] payloadBytes = payload.array();
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * Verifies a token.
+     *
+     * @param token the encoded token
+     * @return the verified token contents
+     * @throws AuthenticationException if the token is malformed, forged, expired or revoked
+     */
+    public AuthToken verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            throw MALFORMED;
+        }
+        String encodedPayload = token.substring(0, dot);
+        byte[] payloadBytes;
+        try {
+            payloadBytes = decoder.decode(encodedPayload);
+        } catch (IllegalArgumentException e) {
+            throw MALFORMED;
+        }
+        // The last base64 character may carry unused bits; only the canonical encoding is accepted,
+        // so a token cannot be altered without the change being detected.
+        if (payloadBytes.length != PAYLOAD_LENGTH || payloadBytes[0] != VERSION || !encoder.encodeToString(payloadBytes).equals(encodedPayload)) {
+            throw MALFORMED;
+        }
+        byte[] expectedSignature = encoder.encode(sign(payloadBytes));
+        if (!MessageDigest.isEqual(expectedSignature, token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII))) {
+            throw INVALID_SIGNATURE;
+        }
+        ByteBuffer payload = ByteBuffer.wrap(payloadBytes, 1, PAYLOAD_LENGTH - 1);
+        AuthToken authToken = new AuthToken(payload.getLong(), payload.getInt(), payload.getLong(), payload.getLong());
+        if (authToken.getExpiresAt() <= System.currentTimeMillis()) {
+            throw EXPIRED;
+        }
+        if (denyList.isRevoked(authToken)) {
+            throw REVOKED;
+        }
+        return authToken;
+    }
+
+    /**
+     * Revokes a single token, as on logout.
+     *
+     * @param token the verified token
+     */
+    public void revoke(AuthToken token) {
+        denyList.revoke(token);
+        LOGGER.info("Revoked token of account: {} - TokenService.revoke(AuthToken token) method.", token.getAccountId());
+    }
+
+    /**
+     * Revokes every token issued to an account so far, as when the account is deleted.
+     *
+     * @param accountId the account ID
+     */
+    public void revokeAll(int accountId) {
+        denyList.revokeAll(accountId);
+        LOGGER.info("Revoked all tokens of account: {} - TokenService.revokeAll(int accountId) method.", accountId);
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.cache;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import com.example.entity.Account;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes hit and miss counts and the hit ratio of the account second-level cache regions,
+ * taken from the Hibernate statistics.
+ *
+ * <p>Meters are tagged with the region: {@code account} for lookups by ID and
+ * {@code account-natural-id} for lookups by username. Registered only when
+ * {@code socialmedia.account-cache.metrics-enabled} is true, which also turns the statistics on.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+@ConditionalOnProperty(name = "socialmedia.account-cache.metrics-enabled", havingValue = "true")
+public class AccountCacheMetrics {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    /**
+     * Registers the meters of both account cache regions.
+     */
+    @PostConstruct
+    void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        register(Account.CACHE_REGION);
+        register(Account.NATURAL_ID_CACHE_REGION);
+    }
+
+    /**
+     * Returns the share of lookups in a region that were answered from the cache.
+     *
+     * @param region the cache region
+     * @return the hit ratio, or 0 before the first lookup
+     */
+    public double getHitRatio(String region) {
+        CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+        long lookups = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return lookups == 0 ? 0 : (double) regionStatistics.getHitCount() / lookups;
+    }
+
+    private void register(String region) {
+        FunctionCounter.builder("socialmedia.account-cache.requests", statistics,
+                        stats -> stats.getDomainDataRegionStatistics(region).getHitCount())
+                .tag("region", region)
+                .tag("result", "hit")
+                .description("Second-level cache lookups answered from the cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("socialmedia.account-cache.requests", statistics,
+                        stats -> stats.getDomainDataRegionStatistics(region).getMissCount())
+                .tag("region", region)
+                .tag("result", "miss")
+                .description("Second-level cache lookups that went to the database")
+                .register(meterRegistry);
+        Gauge.builder("socialmedia.account-cache.hit-ratio", this, metrics -> metrics.getHitRatio(region))
+                .tag("region", region)
+                .description("Share of second-level cache lookups answered from the cache")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Short-lived set of IDs that were recently looked up and found not to exist.
+ *
+ * <p>A lookup takes a {@link #stamp()} before it reads the database and passes it to
+ * {@link #markMissing(Integer, long)} when nothing was found. Every {@link #created(Integer)} call
+ * moves the stamp on, so a miss that raced with the creation of some ID is never cached. The
+ * entries also expire on their own, which bounds how long an ID created behind the application's
+ * back is reported missing.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class MissingIdCache {
+
+    private final Cache<Integer, Boolean> missingIds;
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param ttl how long an ID is remembered as missing
+     * @param maxEntries maximum number of IDs remembered
+     */
+    public MissingIdCache(Duration ttl, long maxEntries) {
+        this.missingIds = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Returns whether the ID was recently found not to exist.
+     *
+     * @param id the ID
+     * @return true if the ID is known to be missing
+     */
+    public boolean isMissing(Integer id) {
+        return missingIds.getIfPresent(id) != null;
+    }
+
+    /**
+     * Returns the stamp to take before reading the database.
+     *
+     * @return the current stamp
+     */
+    public long stamp() {
+        return generation.get();
+    }
+
+    /**
+     * Remembers an ID as missing, unless an ID was created since the stamp was taken.
+     *
+     * @param id the ID that was not found
+     * @param stamp the stamp taken before the database read
+     */
+    public void markMissing(Integer id, long stamp) {
+        if (generation.get() != stamp) {
+            return;
+        }
+        missingIds.put(id, Boolean.TRUE);
+        if (generation.get() != stamp) {
+            missingIds.invalidate(id);
+        }
+    }
+
+    /**
+     * Forgets an ID that has just been created. When called inside a transaction, the ID is
+     * forgotten again after commit, since a lookup in between cannot see the new row yet.
+     *
+     * @param id the new ID
+     */
+    public void created(Integer id) {
+        forget(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the number of IDs currently remembered as missing.
+     *
+     * @return the approximate entry count
+     */
+    public long size() {
+        return missingIds.estimatedSize();
+    }
+
+    private void forget(Integer id) {
+        generation.incrementAndGet();
+        missingIds.invalidate(id);
+    }
+}
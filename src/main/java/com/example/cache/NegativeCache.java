@@ -0,0 +1,63 @@
+package com.example.cache;
+
+import java.time.Duration;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Negative cache of message and account IDs that do not exist.
+ *
+ * <p>Repeated lookups of an ID that was just found missing are answered from memory for
+ * {@code socialmedia.negative-cache.ttl}, without a database round trip. Creating a message or
+ * an account removes its ID from the cache.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class NegativeCache {
+
+    /**
+     * How long an ID is remembered as missing.
+     */
+    @Value("${socialmedia.negative-cache.ttl:PT30S}")
+    private Duration ttl;
+
+    /**
+     * Maximum number of IDs remembered per kind.
+     */
+    @Value("${socialmedia.negative-cache.max-entries:100000}")
+    private long maxEntries;
+
+    private MissingIdCache messages;
+    private MissingIdCache accounts;
+
+    /**
+     * Creates the caches once the configuration is injected.
+     */
+    @PostConstruct
+    void init() {
+        messages = new MissingIdCache(ttl, maxEntries);
+        accounts = new MissingIdCache(ttl, maxEntries);
+    }
+
+    /**
+     * Returns the cache of missing message IDs.
+     *
+     * @return the missing message IDs
+     */
+    public MissingIdCache getMessages() {
+        return messages;
+    }
+
+    /**
+     * Returns the cache of missing account IDs.
+     *
+     * @return the missing account IDs
+     */
+    public MissingIdCache getAccounts() {
+        return accounts;
+    }
+}
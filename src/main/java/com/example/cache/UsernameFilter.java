@@ -0,0 +1,149 @@
+package com.example.cache;
+
+import java.sql.PreparedStatement;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory {@link BloomFilter} of every username, used to answer "is this name taken?" without
+ * a database query whenever the name is definitely free.
+ *
+ * <p>The filter is filled from the account table once the application has started and is
+ * updated by the account service for every account it creates. Until it has been filled, every
+ * name is reported as possibly taken, so callers fall back to the database. Deleted accounts stay
+ * in the filter until the next restart, which only costs an extra database check for their names.</p>
+ *
+ * <p>The filter's memory footprint, its expected false-positive rate for the current number of
+ * names and the false-positive rate actually observed by callers are published as the
+ * {@code socialmedia.username-filter.*} metrics.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class UsernameFilter implements SmartInitializingSingleton {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(UsernameFilter.class);
+
+    /**
+     * Number of usernames the filter is sized for.
+     */
+    @Value("${socialmedia.username-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    /**
+     * Target false-positive probability at the expected number of usernames.
+     */
+    @Value("${socialmedia.username-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BloomFilter filter;
+    private volatile boolean loaded;
+    private Counter definitelyFree;
+    private Counter maybeTaken;
+    private Counter falsePositives;
+
+    /**
+     * Allocates the filter and registers its metrics.
+     */
+    @PostConstruct
+    void init() {
+        filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        Gauge.builder("socialmedia.username-filter.memory", filter, BloomFilter::getSizeInBytes)
+                .description("Size of the username Bloom filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("socialmedia.username-filter.entries", filter, BloomFilter::getInsertions)
+                .description("Usernames added to the Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("socialmedia.username-filter.expected-false-positive-rate", filter, BloomFilter::getExpectedFalsePositiveRate)
+                .description("False-positive probability expected for the current number of usernames")
+                .register(meterRegistry);
+        Gauge.builder("socialmedia.username-filter.observed-false-positive-rate", this, UsernameFilter::getObservedFalsePositiveRate)
+                .description("Share of free usernames the filter reported as possibly taken")
+                .register(meterRegistry);
+        definitelyFree = Counter.builder("socialmedia.username-filter.lookups").tag("result", "definitely-free").register(meterRegistry);
+        maybeTaken = Counter.builder("socialmedia.username-filter.lookups").tag("result", "maybe-taken").register(meterRegistry);
+        falsePositives = Counter.builder("socialmedia.username-filter.false-positives").register(meterRegistry);
+    }
+
+    /**
+     * Fills the filter from the account table. Runs once all singletons, including the database
+     * initializer, are ready.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement("select username from account");
+            statement.setFetchSize(1000);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> filter.put(resultSet.getString(1)));
+        loaded = true;
+        LOGGER.info("Username filter loaded with {} names in {} ms, {} bytes, {} hash functions, expected false-positive rate {} - UsernameFilter.afterSingletonsInstantiated() method.",
+                filter.getInsertions(), (System.nanoTime() - start) / 1_000_000, filter.getSizeInBytes(), filter.getHashCount(),
+                String.format("%.5f", filter.getExpectedFalsePositiveRate()));
+    }
+
+    /**
+     * Returns whether the username may be taken.
+     *
+     * @param username the username
+     * @return false if no account has the username, true if one may have it
+     */
+    public boolean mightBeTaken(String username) {
+        if (loaded && !filter.mightContain(username)) {
+            definitelyFree.increment();
+            return false;
+        }
+        maybeTaken.increment();
+        return true;
+    }
+
+    /**
+     * Records that a username reported as possibly taken turned out to be free.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * Adds the username of a newly created account.
+     *
+     * @param username the username
+     */
+    public void add(String username) {
+        filter.put(username);
+    }
+
+    /**
+     * Returns the share of free usernames that were reported as possibly taken, as far as callers
+     * have confirmed against the database.
+     *
+     * @return the observed false-positive rate, or 0 before any free name was looked up
+     */
+    public double getObservedFalsePositiveRate() {
+        double free = definitelyFree.count() + falsePositives.count();
+        return free == 0 ? 0 : falsePositives.count() / free;
+    }
+}
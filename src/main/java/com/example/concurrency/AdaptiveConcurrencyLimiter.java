@@ -0,0 +1,169 @@
+package com.example.concurrency;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.example.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Caps the number of in-flight requests per {@link EndpointClass} with a {@link GradientLimit}.
+ *
+ * <p>A request over the limit of its class is rejected straight away rather than queued, so a
+ * slow database results in fast 503 responses instead of exhausted Tomcat threads. Bulk listings
+ * additionally give way to point reads: they are rejected while point reads use more than
+ * {@code bulkReadYieldThreshold} of their own limit.</p>
+ *
+ * <p>The current limit, the in-flight count and the rejections of every class are published as
+ * the {@code socialmedia.concurrency.limit}, {@code socialmedia.concurrency.in-flight} and
+ * {@code socialmedia.concurrency.rejected} metrics, tagged with the endpoint class.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    /**
+     * Concurrency limit configuration.
+     */
+    @Autowired
+    private ConcurrencyLimitProperties properties;
+
+    /**
+     * Registry the limit metrics are published to.
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<EndpointClass, Partition> partitions = new EnumMap<>(EndpointClass.class);
+
+    /**
+     * Creates the limit of every endpoint class and registers its metrics.
+     */
+    @PostConstruct
+    void init() {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            ConcurrencyLimitProperties.Limit bounds = properties.getEndpoints().getOrDefault(endpointClass, new ConcurrencyLimitProperties.Limit());
+            GradientLimit limit = new GradientLimit(bounds.getInitialLimit(), bounds.getMinLimit(), bounds.getMaxLimit(),
+                    properties.getRttTolerance(), properties.getSmoothing());
+            Counter rejected = Counter.builder("socialmedia.concurrency.rejected")
+                    .description("Requests rejected by the adaptive concurrency limit")
+                    .tag("class", endpointClass.getTagValue())
+                    .register(meterRegistry);
+            Partition partition = new Partition(limit, rejected);
+            Gauge.builder("socialmedia.concurrency.limit", limit, GradientLimit::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("class", endpointClass.getTagValue())
+                    .register(meterRegistry);
+            Gauge.builder("socialmedia.concurrency.in-flight", partition.inFlight, AtomicInteger::get)
+                    .description("Requests currently in flight")
+                    .tag("class", endpointClass.getTagValue())
+                    .register(meterRegistry);
+            partitions.put(endpointClass, partition);
+        }
+    }
+
+    /**
+     * Admits a request of the given endpoint class.
+     *
+     * @param endpointClass the class of the endpoint being called
+     * @return the permit, which must be released when the request completes
+     * @throws ServiceUnavailableException if the class is at its limit
+     */
+    public Permit acquire(EndpointClass endpointClass) {
+        Partition partition = partitions.get(endpointClass);
+        if (endpointClass == EndpointClass.BULK_READ) {
+            Partition pointReads = partitions.get(EndpointClass.POINT_READ);
+            if (pointReads.inFlight.get() > pointReads.limit.getLimit() * properties.getBulkReadYieldThreshold()) {
+                return reject(endpointClass, partition);
+            }
+        }
+
+        int limit = partition.limit.getLimit();
+        int inFlight;
+        do {
+            inFlight = partition.inFlight.get();
+            if (inFlight >= limit) {
+                return reject(endpointClass, partition);
+            }
+        } while (!partition.inFlight.compareAndSet(inFlight, inFlight + 1));
+        return new Permit(partition, inFlight + 1, System.nanoTime());
+    }
+
+    /**
+     * Returns the current limit of an endpoint class.
+     *
+     * @param endpointClass the endpoint class
+     * @return the current limit
+     */
+    public int getLimit(EndpointClass endpointClass) {
+        return partitions.get(endpointClass).limit.getLimit();
+    }
+
+    private Permit reject(EndpointClass endpointClass, Partition partition) {
+        partition.rejected.increment();
+        LOGGER.warn("Shedding {} request at limit {} - AdaptiveConcurrencyLimiter.acquire(EndpointClass endpointClass) method.",
+                endpointClass.getTagValue(), partition.limit.getLimit());
+        throw new ServiceUnavailableException("The server is at capacity. Please try again later.");
+    }
+
+    /**
+     * Admission of one request. Releasing it feeds the request latency back into the limit.
+     */
+    public static final class Permit {
+
+        private final Partition partition;
+        private final int inFlightAtStart;
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(Partition partition, int inFlightAtStart, long startNanos) {
+            this.partition = partition;
+            this.inFlightAtStart = inFlightAtStart;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Ends the request. Later calls have no effect.
+         *
+         * @param failed whether the request failed on the server side
+         */
+        public void release(boolean failed) {
+            if (released) {
+                return;
+            }
+            released = true;
+            partition.inFlight.decrementAndGet();
+            partition.limit.onSample(System.nanoTime() - startNanos, inFlightAtStart, failed);
+        }
+    }
+
+    /**
+     * Limit and in-flight count of one endpoint class.
+     */
+    private static final class Partition {
+
+        private final GradientLimit limit;
+        private final Counter rejected;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Partition(GradientLimit limit, Counter rejected) {
+            this.limit = limit;
+            this.rejected = rejected;
+        }
+    }
+}
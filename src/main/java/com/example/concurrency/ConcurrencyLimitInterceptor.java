@@ -0,0 +1,55 @@
+package com.example.concurrency;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Applies the {@link AdaptiveConcurrencyLimiter} to controller methods annotated with
+ * {@link ConcurrencyLimited}, before any argument binding or service work happens.
+ *
+ * <p>The permit is kept as a request attribute until the request completes, including the
+ * second dispatch of asynchronous requests, and a rejection surfaces as a
+ * {@link com.example.exception.ServiceUnavailableException} handled by the global exception handler.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @Autowired
+    private ConcurrencyLimitProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!properties.isEnabled() || !(handler instanceof HandlerMethod)
+                || request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+        ConcurrencyLimited limited = ((HandlerMethod) handler).getMethodAnnotation(ConcurrencyLimited.class);
+        if (limited != null) {
+            request.setAttribute(PERMIT_ATTRIBUTE, limiter.acquire(limited.value()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception exception) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit instanceof AdaptiveConcurrencyLimiter.Permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            boolean failed = exception != null || response.getStatus() >= 500;
+            ((AdaptiveConcurrencyLimiter.Permit) permit).release(failed);
+        }
+    }
+}
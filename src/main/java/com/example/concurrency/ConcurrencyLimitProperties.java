@@ -0,0 +1,151 @@
+package com.example.concurrency;
+
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the adaptive concurrency limits, bound from {@code socialmedia.concurrency-limit.*}.
+ *
+ * <p>Limits are configured per endpoint class, for example
+ * {@code socialmedia.concurrency-limit.endpoints.bulk-read.max-limit=50}.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+@ConfigurationProperties(prefix = "socialmedia.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * Whether requests are limited at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How much slower than the long-term average a request may be before a limit shrinks.
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * Weight of each new limit estimate, between 0 and 1.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Share of the point read limit in use above which bulk listings are rejected, so that
+     * listings give way to point reads.
+     */
+    private double bulkReadYieldThreshold = 0.5;
+
+    /**
+     * Limits keyed by endpoint class.
+     */
+    private Map<EndpointClass, Limit> endpoints = new EnumMap<>(EndpointClass.class);
+
+    /**
+     * Creates the properties with defaults for every endpoint class.
+     */
+    public ConcurrencyLimitProperties() {
+        endpoints.put(EndpointClass.POINT_READ, new Limit(50, 10, 500));
+        endpoints.put(EndpointClass.WRITE, new Limit(20, 5, 200));
+        endpoints.put(EndpointClass.BULK_READ, new Limit(10, 2, 50));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    public void setRttTolerance(double rttTolerance) {
+        this.rttTolerance = rttTolerance;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public double getBulkReadYieldThreshold() {
+        return bulkReadYieldThreshold;
+    }
+
+    public void setBulkReadYieldThreshold(double bulkReadYieldThreshold) {
+        this.bulkReadYieldThreshold = bulkReadYieldThreshold;
+    }
+
+    public Map<EndpointClass, Limit> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<EndpointClass, Limit> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * Bounds of the limit of a single endpoint class.
+     */
+    public static class Limit {
+
+        /**
+         * Limit before any latency has been measured.
+         */
+        private int initialLimit;
+
+        /**
+         * Lowest the limit can go.
+         */
+        private int minLimit;
+
+        /**
+         * Highest the limit can go.
+         */
+        private int maxLimit;
+
+        public Limit() {
+            this(20, 5, 200);
+        }
+
+        public Limit(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method as subject to the adaptive concurrency limit of an endpoint class.
+ * Handlers without this annotation are not limited.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimited {
+
+    /**
+     * The endpoint class whose limit applies.
+     *
+     * @return the endpoint class
+     */
+    EndpointClass value();
+}
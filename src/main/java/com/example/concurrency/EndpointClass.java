@@ -0,0 +1,41 @@
+package com.example.concurrency;
+
+/**
+ * Groups of endpoints that share an adaptive concurrency limit.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public enum EndpointClass {
+
+    /**
+     * Lookups of a single resource by ID. These have priority over bulk listings.
+     */
+    POINT_READ("point-read"),
+
+    /**
+     * Requests that create, change or delete data.
+     */
+    WRITE("write"),
+
+    /**
+     * Listings that can return any number of rows.
+     */
+    BULK_READ("bulk-read");
+
+    private final String tagValue;
+
+    EndpointClass(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    /**
+     * Returns the name used for this class in configuration and metric tags.
+     *
+     * @return the tag value
+     */
+    public String getTagValue() {
+        return tagValue;
+    }
+}
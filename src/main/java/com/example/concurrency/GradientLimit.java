@@ -0,0 +1,97 @@
+package com.example.concurrency;
+
+/**
+ * Concurrency limit that adapts to measured latency, following the gradient approach.
+ *
+ * <p>Two round trip times are tracked: a slow moving average that stands for the latency of a
+ * healthy service, and the latest sample. While the latest sample stays within
+ * {@code rttTolerance} of the average the limit grows by roughly its square root per sample.
+ * Once requests take longer, the limit is scaled down by the ratio of the two, which is at most
+ * halved per sample, so in-flight work shrinks as soon as the database slows down instead of
+ * piling up. A failed request backs the limit off multiplicatively.</p>
+ *
+ * <p>The limit is not raised from samples taken while less than half of it is in use, since
+ * those say nothing about whether the service could take more.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class GradientLimit {
+
+    /**
+     * Number of samples over which the long-term round trip time is averaged.
+     */
+    private static final int LONG_RTT_WINDOW = 100;
+
+    /**
+     * Factor applied to the limit when a request fails.
+     */
+    private static final double FAILURE_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+
+    private double limit;
+    private double longRttNanos;
+
+    /**
+     * Creates a limit.
+     *
+     * @param initialLimit the limit before any latency has been measured
+     * @param minLimit the lowest the limit can go
+     * @param maxLimit the highest the limit can go
+     * @param rttTolerance how much slower than the long-term average a request may be before the limit shrinks
+     * @param smoothing weight of each new estimate, between 0 and 1
+     */
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return the maximum number of requests that may be in flight
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Updates the limit with a completed request.
+     *
+     * @param rttNanos how long the request took
+     * @param inFlight how many requests were in flight when it started, including itself
+     * @param failed whether the request failed on the server side
+     */
+    public synchronized void onSample(long rttNanos, int inFlight, boolean failed) {
+        if (failed) {
+            limit = Math.max(minLimit, limit * FAILURE_BACKOFF);
+            return;
+        }
+
+        double shortRtt = Math.max(1, rttNanos);
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += (shortRtt - longRttNanos) / LONG_RTT_WINDOW;
+        }
+        if (longRttNanos > 2 * shortRtt) {
+            // Latency has recovered well below the old average, let the baseline catch up faster
+            longRttNanos *= 0.95;
+        }
+        if (inFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + estimate * smoothing));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import com.example.diagnostics.AdminTokenFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Protects the administrative actuator endpoints with the admin token.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Configuration
+public class DiagnosticsConfig {
+
+    /**
+     * Registers the {@link AdminTokenFilter} on the flight recorder endpoint, at the path the
+     * actuator serves it from. A separate management port is served by a child context that this
+     * filter does not reach, so the endpoint cannot be enabled together with one.
+     *
+     * @param adminToken the configured admin token
+     * @param basePath the base path of the actuator endpoints
+     * @param jfrPath the path of the flight recorder endpoint below the base path
+     * @param jfrEnabled whether the flight recorder endpoint is enabled
+     * @param managementPort the separate management port, if any
+     * @param serverPort the application port
+     * @param objectMapper the application's object mapper
+     * @return the filter registration
+     */
+    @Bean
+    public FilterRegistrationBean<AdminTokenFilter> adminTokenFilter(@Value("${socialmedia.admin.token:}") String adminToken,
+            @Value("${management.endpoints.web.base-path:/actuator}") String basePath,
+            @Value("${management.endpoints.web.path-mapping.jfr:jfr}") String jfrPath,
+            @Value("${management.endpoint.jfr.enabled:false}") boolean jfrEnabled,
+            @Value("${management.server.port:}") String managementPort,
+            @Value("${server.port:8080}") String serverPort,
+            ObjectMapper objectMapper) {
+        if (jfrEnabled && !managementPort.isBlank() && !managementPort.equals(serverPort)) {
+            throw new IllegalStateException("management.endpoint.jfr.enabled cannot be combined with a separate management.server.port, "
+                    + "where the admin token would not be checked.");
+        }
+        String prefix = StringUtils.trimTrailingCharacter(basePath, '/') + "/" + StringUtils.trimLeadingCharacter(jfrPath, '/');
+        FilterRegistrationBean<AdminTokenFilter> registration = new FilterRegistrationBean<>(new AdminTokenFilter(adminToken, objectMapper));
+        registration.addUrlPatterns(prefix, prefix + "/*");
+        return registration;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.example.id.MessageIdGenerator;
+import com.example.id.SnowflakeIdGenerator;
+import com.example.writebehind.MessageIdAllocator;
+
+/**
+ * Selects the {@link MessageIdGenerator} used for messages whose ID is assigned by the
+ * application rather than by JPA, as on the write-behind path.
+ *
+ * <p>{@code socialmedia.id.generator} picks the implementation. Only {@code sequence}, the
+ * default, is offered: it reserves blocks of {@code socialmedia.id.block-size} IDs from the
+ * database sequence. {@link SnowflakeIdGenerator} issues IDs that do not fit the current
+ * {@code Integer} message ID, so selecting {@code snowflake} fails startup until the message ID
+ * has been widened, as described in {@link MessageIdGenerator}.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Configuration
+public class MessageIdConfig {
+
+    /**
+     * Creates the sequence backed generator.
+     *
+     * @param jdbcTemplate template on the database that owns the sequence
+     * @param generator the configured generator, which must be {@code sequence}
+     * @param blockSize number of IDs reserved from the sequence at a time
+     * @return the generator
+     * @throws IllegalStateException if another generator is configured or the block size is not positive
+     */
+    @Bean
+    public MessageIdGenerator messageIdGenerator(JdbcTemplate jdbcTemplate,
+            @Value("${socialmedia.id.generator:sequence}") String generator,
+            @Value("${socialmedia.id.block-size:${socialmedia.write-behind.id-block-size:100}}") int blockSize) {
+        if ("snowflake".equals(generator)) {
+            throw new IllegalStateException("socialmedia.id.generator=snowflake needs 64-bit message IDs, but the message ID is still an Integer.");
+        }
+        if (!"sequence".equals(generator)) {
+            throw new IllegalStateException("Unknown socialmedia.id.generator: " + generator);
+        }
+        if (blockSize <= 0) {
+            throw new IllegalStateException("socialmedia.id.block-size must be positive: " + blockSize);
+        }
+        return new MessageIdAllocator(jdbcTemplate, blockSize);
+    }
+}
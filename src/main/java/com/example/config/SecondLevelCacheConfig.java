@@ -0,0 +1,99 @@
+package com.example.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.SharedCacheMode;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import com.example.entity.Account;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Configuration of the Hibernate second-level cache, which keeps {@link Account} entities and the
+ * username-to-ID natural-id lookups in bounded Caffeine caches behind the JCache API.
+ *
+ * <p>Only entities marked {@link javax.persistence.Cacheable} are cached. Their regions use the
+ * read-write strategy, so Hibernate updates and evicts entries when the owning transaction
+ * commits, including deletes. Each region holds at most {@code socialmedia.account-cache.max-entries}
+ * entries, and entries expire after {@code socialmedia.account-cache.ttl} as a bound on staleness
+ * from writes that bypass Hibernate.</p>
+ *
+ * <p>Hibernate statistics, which feed the cache hit and miss metrics, add bookkeeping to every
+ * session and query. They are therefore only collected when
+ * {@code socialmedia.account-cache.metrics-enabled} is true.</p>
+ *
+ * <p>The cache manager belongs to this application context and is closed with it, so contexts
+ * started one after another in the same JVM never see each other's entries.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    /**
+     * Maximum number of entries per cache region.
+     */
+    @Value("${socialmedia.account-cache.max-entries:10000}")
+    private long maxEntries;
+
+    /**
+     * Time after which a cached entry is dropped and read again from the database.
+     */
+    @Value("${socialmedia.account-cache.ttl:PT10M}")
+    private Duration ttl;
+
+    /**
+     * Whether Hibernate statistics are collected for the cache metrics.
+     */
+    @Value("${socialmedia.account-cache.metrics-enabled:false}")
+    private boolean metricsEnabled;
+
+    /**
+     * Creates the JCache manager and the account cache regions.
+     *
+     * @return the cache manager used by Hibernate
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("socialmedia-second-level-cache-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : List.of(Account.CACHE_REGION, Account.NATURAL_ID_CACHE_REGION)) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            configuration.setStoreByValue(false);
+            cacheManager.createCache(region, configuration);
+        }
+        return cacheManager;
+    }
+
+    /**
+     * Turns on the second-level cache, backed by {@link #secondLevelCacheManager()}.
+     *
+     * @param secondLevelCacheManager the cache manager holding the cache regions
+     * @return the customizer of the Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.JPA_SHARED_CACHE_MODE, SharedCacheMode.ENABLE_SELECTIVE);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, metricsEnabled);
+        };
+    }
+}
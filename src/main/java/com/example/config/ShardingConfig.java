@@ -0,0 +1,93 @@
+package com.example.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import com.example.repository.shard.ShardedMessageRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configuration that enables horizontal sharding of the message table.
+ *
+ * <p>Sharding is off by default. Setting {@code socialmedia.message.shards} to a positive number
+ * creates that many shard databases from {@code socialmedia.message.shard-url-template}, where
+ * {@code {shard}} is replaced by the shard index. The default template points at embedded
+ * in-memory H2 databases so the setup can be exercised locally. On startup the schema of each
+ * shard is created with {@code message-shard-schema.sql} where it does not exist yet, so existing
+ * messages survive a restart. Setting {@code socialmedia.message.shard-reset-on-startup} drops the
+ * shard tables first, which is only meant for throwaway databases such as in tests.</p>
+ *
+ * <p>The shard data sources are deliberately not exposed as beans so that the primary
+ * {@code spring.datasource} keeps being auto-configured for accounts.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Configuration
+@ConditionalOnExpression("${socialmedia.message.shards:0} > 0")
+public class ShardingConfig {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardingConfig.class);
+
+    /**
+     * Number of message shards.
+     */
+    @Value("${socialmedia.message.shards}")
+    private int shardCount;
+
+    /**
+     * JDBC URL template of a shard, with {@code {shard}} as the placeholder for the shard index.
+     */
+    @Value("${socialmedia.message.shard-url-template:jdbc:h2:mem:message_shard_{shard};DB_CLOSE_DELAY=-1}")
+    private String shardUrlTemplate;
+
+    /**
+     * Maximum connection pool size of each shard.
+     */
+    @Value("${socialmedia.message.shard-pool-size:8}")
+    private int shardPoolSize;
+
+    /**
+     * Whether every shard's message table is dropped and recreated on startup.
+     */
+    @Value("${socialmedia.message.shard-reset-on-startup:false}")
+    private boolean resetOnStartup;
+
+    /**
+     * Creates the sharded message repository and initialises the schema of every shard.
+     *
+     * @return the sharded message repository
+     */
+    @Bean(destroyMethod = "close")
+    public ShardedMessageRepository shardedMessageRepository() {
+        List<DataSource> shardDataSources = new ArrayList<>(shardCount);
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+        if (resetOnStartup) {
+            populator.addScript(new ClassPathResource("message-shard-reset.sql"));
+        }
+        populator.addScript(new ClassPathResource("message-shard-schema.sql"));
+        for (int shard = 0; shard < shardCount; shard++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("message-shard-" + shard);
+            dataSource.setJdbcUrl(shardUrlTemplate.replace("{shard}", String.valueOf(shard)));
+            dataSource.setUsername("sa");
+            dataSource.setMaximumPoolSize(shardPoolSize);
+            populator.execute(dataSource);
+            shardDataSources.add(dataSource);
+        }
+        LOGGER.info("Message table sharded across {} shards - ShardingConfig.shardedMessageRepository() method.", shardCount);
+        return new ShardedMessageRepository(shardDataSources);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.config;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import com.example.tracing.TracingFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Request tracing: request IDs and user context in the MDC, and span timings per layer with a
+ * summary of slow requests. Turned off with {@code socialmedia.tracing.enabled=false}.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Configuration
+@ConditionalOnProperty(name = "socialmedia.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    /**
+     * Registers the {@link TracingFilter} ahead of every other filter but the request cost filter
+     * of the performance budget tests, so the trace is in place before any other filter logs.
+     *
+     * @param slowThreshold duration from which a request is summarized
+     * @param untimedPaths path prefixes of streamed downloads, which are never summarized
+     * @param objectMapper the application's object mapper
+     * @return the filter registration
+     */
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(@Value("${socialmedia.tracing.slow-threshold:500ms}") Duration slowThreshold,
+            @Value("${socialmedia.tracing.untimed-paths:/export/}") List<String> untimedPaths,
+            ObjectMapper objectMapper) {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(slowThreshold.toNanos(), untimedPaths, objectMapper));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import com.example.auth.TokenAuthenticationInterceptor;
+import com.example.concurrency.ConcurrencyLimitInterceptor;
+import com.example.diagnostics.ControllerRequestEventInterceptor;
+
+/**
+ * Spring MVC configuration that registers the application's handler interceptors.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Sheds load per endpoint class before the controller runs.
+     */
+    @Autowired
+    private ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+    /**
+     * Verifies bearer tokens on the token authenticated endpoints.
+     */
+    @Autowired
+    private TokenAuthenticationInterceptor tokenAuthenticationInterceptor;
+
+    /**
+     * Records controller requests as flight recorder events.
+     */
+    @Autowired
+    private ControllerRequestEventInterceptor controllerRequestEventInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(controllerRequestEventInterceptor);
+        registry.addInterceptor(concurrencyLimitInterceptor);
+        registry.addInterceptor(tokenAuthenticationInterceptor);
+    }
+}
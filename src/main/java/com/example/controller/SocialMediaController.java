@@ -1,19 +1,46 @@
 package com.example.controller;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import com.example.auth.AuthToken;
+import com.example.auth.TokenAuthenticated;
+import com.example.auth.TokenAuthenticationInterceptor;
+import com.example.auth.TokenService;
+import com.example.concurrency.ConcurrencyLimited;
+import com.example.concurrency.EndpointClass;
 import com.example.entity.Account;
+import com.example.entity.AccountView;
 import com.example.entity.Message;
+import com.example.entity.MessageView;
+import com.example.exception.AuthenticationException;
+import com.example.exception.InvalidInputException;
+import com.example.export.ExportFormat;
+import com.example.export.ExportTarget;
+import com.example.idempotency.IdempotencyStore;
+import com.example.ratelimit.RateLimitProperties;
+import com.example.ratelimit.RateLimiter;
+import com.example.scheduling.ScheduledMessageDispatcher;
 import com.example.service.AccountService;
+import com.example.service.ExportService;
 import com.example.service.MessageService;
+import com.example.stream.MessageStreamBroker;
 
 /**
  * REST Controller for the Social Media application that handles all REST API endpoints.
@@ -45,6 +72,43 @@ public class SocialMediaController {
     @Autowired
     private MessageService messageService;
 
+    /**
+     * Service layer component that streams messages and accounts out for bulk consumers.
+     */
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * Per-account and per-client-IP rate limiter applied to the write endpoints.
+     */
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    /**
+     * Store of responses keyed by the Idempotency-Key header, used to replay retried create requests.
+     */
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    /**
+     * Broker that pushes message changes to Server-Sent Events subscribers.
+     */
+    @Autowired
+    private MessageStreamBroker messageStreamBroker;
+
+    /**
+     * Issues, verifies and revokes the access tokens handed out on login.
+     */
+    @Autowired
+    private TokenService tokenService;
+
+    /**
+     * Holds back messages posted with a future time, present unless
+     * {@code socialmedia.scheduled-messages.enabled} is false.
+     */
+    @Autowired(required = false)
+    private ScheduledMessageDispatcher scheduledMessageDispatcher;
+
     /**
      * Handles the root endpoint request and returns a welcome message.
      * 
@@ -58,66 +122,143 @@ public class SocialMediaController {
 
     /**
      * Handles user registration requests by creating a new account in the system.
+     * A retried request carrying the same Idempotency-Key gets the original response back.
      * 
      * @param account The account object containing username and password to be registered
+     * @param idempotencyKey The optional Idempotency-Key header
      * @return ResponseEntity containing the registered Account object with its generated ID
      */
     @PostMapping("/register")
-    public ResponseEntity<Account> registerUser(@RequestBody Account account) {
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    public ResponseEntity<Account> registerUser(@RequestBody Account account,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         LOGGER.info("Received request to register a new user.");
-        account = accountService.save(account);
-        return ResponseEntity.ok().body(account);
+        return idempotencyStore.execute("register:" + account.getUsername(), idempotencyKey, account,
+                () -> ResponseEntity.ok().body(accountService.save(account)));
     }
     
     /**
      * Handles user login requests by validating credentials against the database.
+     * A successful login also issues an access token in the X-Auth-Token header, which the
+     * write endpoints accept as a bearer token instead of trusting the account ID in the request.
+     * The password is checked on the password hashing pool, so the request thread is released
+     * while the check runs.
      * 
      * @param account The account object containing username and password to be validated
-     * @return ResponseEntity containing the Account object if login is successful, 
-     *         or a 401 Unauthorized status if credentials are invalid
+     * @return future of the ResponseEntity containing the Account object and the access token if login
+     *         is successful, failed with a 401 Unauthorized error if credentials are invalid
      */
     @PostMapping("/login")
-    public ResponseEntity<Account> login(@RequestBody Account account) {
-        boolean accountExists = accountService.existsByUsernameAndPassword(account);
-        
-        if (accountExists) {
-            accountService.loginAccount(account);
-            Account loggedInAccount = accountService.findByUsernameAndPassword(account);
-            return ResponseEntity.ok().body(loggedInAccount);
-        }
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    public CompletableFuture<ResponseEntity<Account>> login(@RequestBody Account account) {
+        return accountService.authenticate(account).thenApply(loggedInAccount -> ResponseEntity.ok()
+                .header(TokenService.HEADER, tokenService.issue(loggedInAccount))
+                .body(loggedInAccount));
+    }
 
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+    /**
+     * Revokes the access token the request is authenticated with.
+     * 
+     * @param token The verified bearer token
+     * @return ResponseEntity containing a message confirming the logout
+     */
+    @PostMapping("/logout")
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @TokenAuthenticated
+    public ResponseEntity<Map<String, String>> logout(
+            @RequestAttribute(name = TokenAuthenticationInterceptor.TOKEN_ATTRIBUTE, required = false) AuthToken token) {
+        if (token == null) {
+            throw new AuthenticationException("A bearer token is required to log out.");
+        }
+        tokenService.revoke(token);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Logged out successfully.");
+        return ResponseEntity.ok(response);
     }
     
     
     /**
      * Creates a new message in the system.
+     * A retried request carrying the same Idempotency-Key gets the original response back
+     * without creating a second message. A message whose time lies in the future is scheduled
+     * instead: it is answered with 202 Accepted and stays hidden from every read until its time.
      * 
      * @param message The message object to be created
+     * @param idempotencyKey The optional Idempotency-Key header
+     * @param token The optional bearer token, which must belong to the posting account
+     * @param request The HTTP request, used to identify the client for rate limiting
      * @return ResponseEntity containing the created Message object with its generated ID,
+     *         a 202 Accepted status with the message, without ID, if it was scheduled,
      *         or a 400 Bad Request status if the message is invalid
      */
     @PostMapping("/messages")
-    public ResponseEntity<Message> createMessage(@RequestBody Message message) {
-        Message createdMessage = messageService.postMessage(message);
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @TokenAuthenticated
+    public ResponseEntity<Message> createMessage(@RequestBody Message message,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestAttribute(name = TokenAuthenticationInterceptor.TOKEN_ATTRIBUTE, required = false) AuthToken token,
+            HttpServletRequest request) {
+        checkTokenOwner(token, message.getPostedBy());
+        return idempotencyStore.execute("messages:" + message.getPostedBy(), idempotencyKey, message, () -> {
+            rateLimiter.acquire(RateLimitProperties.CREATE_MESSAGE, message.getPostedBy(), request.getRemoteAddr());
+            if (scheduledMessageDispatcher != null && scheduledMessageDispatcher.isScheduled(message)) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(scheduledMessageDispatcher.schedule(message));
+            }
+            Message createdMessage = messageService.postMessage(message);
 
-        if (createdMessage == null) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
-        }
+            if (createdMessage == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+            }
 
-        return ResponseEntity.status(HttpStatus.OK).body(createdMessage);
+            return ResponseEntity.status(HttpStatus.OK).body(createdMessage);
+        });
     }
 
     /**
-     * Retrieves all messages from the system.
+     * Retrieves all messages from the system, or one page of them when a cursor or a page size is
+     * given. Pages are ordered by message ID; to get the next page, pass the ID of the last
+     * message of the current one as {@code after}.
      * 
-     * @return List of all Message objects in the system
+     * @param after Optional message ID the page starts after, 0 when only a page size is given
+     * @param limit Optional page size, {@code socialmedia.messages.max-page-size} when only a cursor is given
+     * @return List of views of all messages in the system, or of one page of them
      */
     @GetMapping("/messages")
-    public List<Message> getMessages() {
-        return messageService.getAllMessages();
+    @ConcurrencyLimited(EndpointClass.BULK_READ)
+    public List<MessageView> getMessages(@RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return messageService.getAllMessages();
+        }
+        return messageService.getMessagesAfter(after == null ? 0 : after, limit);
     }
     
+    /**
+     * Retrieves several messages by ID in one request, for clients rendering a thread or a
+     * notification list.
+     * 
+     * @param ids Comma-separated message IDs, at most socialmedia.multi-get.max-ids of them
+     * @return List of the messages found, in the order of the given IDs; missing IDs are left out
+     */
+    @GetMapping(value = "/messages", params = "ids")
+    @ConcurrencyLimited(EndpointClass.POINT_READ)
+    public List<Message> getMessagesByIds(@RequestParam String ids) {
+        return messageService.getByIds(parseIds(ids));
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of message changes. Each event is named
+     * {@code created}, {@code updated} or {@code deleted}, carries the message ID as its
+     * event ID and the message as JSON data.
+     * 
+     * @param postedBy Optional account ID; when given, only changes to that account's messages are sent
+     * @return ResponseBodyEmitter streaming the message events as text/event-stream
+     */
+    @GetMapping(value = "/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseBodyEmitter streamMessages(@RequestParam(required = false) Integer postedBy) {
+        return messageStreamBroker.subscribe(postedBy);
+    }
+
     /**
      * Retrieves a specific message by its ID.
      * 
@@ -125,6 +266,7 @@ public class SocialMediaController {
      * @return ResponseEntity containing the Message object if found, or null if not found
      */
     @GetMapping("/messages/{messageId}")
+    @ConcurrencyLimited(EndpointClass.POINT_READ)
     public ResponseEntity<Message> getMessageById(@PathVariable Integer messageId) {
         Optional<Message> messageByIdOptional = messageService.getById(messageId);
 
@@ -140,17 +282,23 @@ public class SocialMediaController {
      * Deletes a message by its ID.
      * 
      * @param messageId The ID of the message to delete
+     * @param token The optional bearer token, which must belong to the message's author
      * @return ResponseEntity containing the number of rows affected by the delete operation,
      *         or null if the message was not found
      */
     @DeleteMapping("/messages/{messageId}")
-    public ResponseEntity<Integer> deleteMessageById(@PathVariable Integer messageId) {
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @TokenAuthenticated
+    public ResponseEntity<Integer> deleteMessageById(@PathVariable Integer messageId,
+            @RequestAttribute(name = TokenAuthenticationInterceptor.TOKEN_ATTRIBUTE, required = false) AuthToken token) {
         Optional<Message> messageByIdOptional = messageService.getById(messageId);
 
         if (messageByIdOptional.isEmpty()) {
             return ResponseEntity.ok().body(null);
         }
 
+        checkTokenOwner(token, messageByIdOptional.get().getPostedBy());
+
         int rowsAffected = messageService.deleteById(messageId);
         return ResponseEntity.ok().body(rowsAffected);
     }
@@ -160,13 +308,31 @@ public class SocialMediaController {
      * 
      * @param messageId The ID of the message to update
      * @param messageRequest The message object containing the new message text
+     * @param token The optional bearer token, which must belong to the message's author
+     * @param request The HTTP request, used to identify the client for rate limiting; the
+     *        author's limit is keyed on the token's account, or on the stored message's author
+     *        when no token is sent
      * @return ResponseEntity containing the number of rows affected by the update operation,
      *         or a 400 Bad Request status if the update was unsuccessful
      */
     @PatchMapping("/messages/{messageId}")
-    public ResponseEntity<Integer> updateMessage(@PathVariable Integer messageId, @RequestBody Message messageRequest) {
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @TokenAuthenticated
+    public ResponseEntity<Integer> updateMessage(@PathVariable Integer messageId, @RequestBody Message messageRequest,
+            @RequestAttribute(name = TokenAuthenticationInterceptor.TOKEN_ATTRIBUTE, required = false) AuthToken token,
+            HttpServletRequest request) {
+        // Everything known before the read is charged before it. Without a token the author is
+        // only known from the stored message, so the author's bucket is charged once the message
+        // has been read; that one read is then reused by the update.
+        rateLimiter.acquire(RateLimitProperties.UPDATE_MESSAGE, token != null ? token.getAccountId() : null, request.getRemoteAddr());
+        Optional<Message> storedMessage = messageService.getById(messageId);
+        if (token != null) {
+            storedMessage.ifPresent(message -> checkTokenOwner(token, message.getPostedBy()));
+        } else {
+            storedMessage.ifPresent(message -> rateLimiter.acquire(RateLimitProperties.UPDATE_MESSAGE, message.getPostedBy(), null));
+        }
         String updatedMessageText = messageRequest.getMessageText();
-        int rowsAffected = messageService.updateMessage(messageId, updatedMessageText);
+        int rowsAffected = messageService.updateMessage(messageId, storedMessage, updatedMessageText);
 
         if (rowsAffected == 0) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
@@ -178,39 +344,77 @@ public class SocialMediaController {
     /**
      * Retrieves all user accounts from the system.
      * 
-     * @return ResponseEntity containing a list of all Account objects in the system
+     * @return ResponseEntity containing a list of views of all accounts in the system
      */
     @GetMapping("/accounts")
-    public ResponseEntity<List<Account>> getAllUsers() {
-        List<Account> accounts = accountService.getAllAccounts();
+    @ConcurrencyLimited(EndpointClass.BULK_READ)
+    public ResponseEntity<List<AccountView>> getAllUsers() {
+        List<AccountView> accounts = accountService.getAllAccounts();
         return ResponseEntity.ok(accounts);
     }
     
+    /**
+     * Retrieves several accounts by ID in one request.
+     * 
+     * @param ids Comma-separated account IDs, at most socialmedia.multi-get.max-ids of them
+     * @return ResponseEntity containing the accounts found, in the order of the given IDs; missing IDs are left out
+     */
+    @GetMapping(value = "/accounts", params = "ids")
+    @ConcurrencyLimited(EndpointClass.POINT_READ)
+    public ResponseEntity<List<Account>> getUsersByIds(@RequestParam String ids) {
+        return ResponseEntity.ok(accountService.getByIds(parseIds(ids)));
+    }
+
+    /**
+     * Checks whether a username is still free to register, for live checks on the signup form.
+     * Names that are definitely free are answered without a database query.
+     * 
+     * @param username The username to check
+     * @return ResponseEntity containing the username and whether it is available
+     */
+    @GetMapping("/accounts/available")
+    @ConcurrencyLimited(EndpointClass.POINT_READ)
+    public ResponseEntity<Map<String, Object>> isUsernameAvailable(@RequestParam String username) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("username", username);
+        response.put("available", accountService.isUsernameAvailable(username));
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Retrieves all messages posted by a specific user.
      * 
      * @param accountId The ID of the user account whose messages to retrieve
-     * @return ResponseEntity containing a list of Message objects posted by the specified user
+     * @return ResponseEntity containing a list of views of the messages posted by the specified user
      */
     @GetMapping("/accounts/{accountId}/messages")
-    public ResponseEntity<List<Message>> getMessagesByUser(@PathVariable Integer accountId) {
-        List<Message> messagesByUser = messageService.getMessagesByUserId(accountId);
+    @ConcurrencyLimited(EndpointClass.BULK_READ)
+    public ResponseEntity<List<MessageView>> getMessagesByUser(@PathVariable Integer accountId) {
+        List<MessageView> messagesByUser = messageService.getMessagesByUserId(accountId);
         return ResponseEntity.ok(messagesByUser);
     }
 
     /**
      * Deletes a user account by its ID.
      * 
+     * Deleting an account revokes every access token issued to it.
+     * 
      * @param accountId The ID of the user account to delete
+     * @param token The optional bearer token, which must belong to the account
      * @return ResponseEntity containing a message indicating success or failure,
      *         with appropriate HTTP status codes
      */
     @DeleteMapping("/accounts/{accountId}")
-    public ResponseEntity<Map<String, String>> deleteUser(@PathVariable Integer accountId) {
+    @ConcurrencyLimited(EndpointClass.WRITE)
+    @TokenAuthenticated
+    public ResponseEntity<Map<String, String>> deleteUser(@PathVariable Integer accountId,
+            @RequestAttribute(name = TokenAuthenticationInterceptor.TOKEN_ATTRIBUTE, required = false) AuthToken token) {
+        checkTokenOwner(token, accountId);
         Map<String, String> response = new HashMap<>();
         boolean isDeleted = accountService.deleteById(accountId);
         
         if (isDeleted) {
+            tokenService.revokeAll(accountId);
             response.put("message", "User deleted successfully.");
             return ResponseEntity.status(HttpStatus.OK).body(response);
         } else {
@@ -218,4 +422,85 @@ public class SocialMediaController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
         }
     }
+
+    /**
+     * Streams messages as NDJSON or CSV for bulk consumers, using a chunked response that is
+     * written while the rows are read from the database.
+     * 
+     * @param format Output format, ndjson (the default) or csv
+     * @param from Optional earliest timePostedEpoch to include
+     * @param to Optional timePostedEpoch to stop before
+     * @param response The response the export is written to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping("/export/messages")
+    public void exportMessages(@RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long from, @RequestParam(required = false) Long to,
+            HttpServletResponse response) throws IOException {
+        exportService.exportMessages(ExportFormat.of(format), from, to, exportTarget(response, "messages"));
+    }
+
+    /**
+     * Streams the ID and username of every account as NDJSON or CSV, using a chunked response.
+     * 
+     * @param format Output format, ndjson (the default) or csv
+     * @param response The response the export is written to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping("/export/accounts")
+    public void exportAccounts(@RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        exportService.exportAccounts(ExportFormat.of(format), exportTarget(response, "accounts"));
+    }
+
+    /**
+     * Returns an export target that sets the content headers of the response and opens its body.
+     * 
+     * @param response The response the export is written to
+     * @param fileName The file name offered to the client, without extension
+     * @return The export target
+     */
+    private static ExportTarget exportTarget(HttpServletResponse response, String fileName) {
+        return format -> {
+            response.setContentType(format.getMediaType());
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "." + format.getName() + "\"");
+            return response.getOutputStream();
+        };
+    }
+
+    /**
+     * Parses a comma-separated list of IDs from a query parameter. Blank entries are ignored.
+     * 
+     * @param ids The comma-separated IDs
+     * @return The IDs in the given order
+     * @throws InvalidInputException if an entry is not an integer
+     */
+    private static List<Integer> parseIds(String ids) {
+        List<Integer> parsedIds = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            if (id.isBlank()) {
+                continue;
+            }
+            try {
+                parsedIds.add(Integer.valueOf(id.trim()));
+            } catch (NumberFormatException exception) {
+                throw new InvalidInputException("ID: " + id.trim() + " is not a valid ID.");
+            }
+        }
+        return parsedIds;
+    }
+
+    /**
+     * Rejects a request whose bearer token was issued to a different account than the one it acts for.
+     * 
+     * @param token The verified bearer token, or null if the request carried none
+     * @param accountId The ID of the account the request acts for
+     * @throws AuthenticationException if the token belongs to another account
+     */
+    private static void checkTokenOwner(AuthToken token, Integer accountId) {
+        if (token != null && !Integer.valueOf(token.getAccountId()).equals(accountId)) {
+            throw new AuthenticationException("Token was not issued to account: " + accountId + ".");
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package com.example.diagnostics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import com.example.exception.handlers.ApiError;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Admits requests to administrative endpoints only with {@code Authorization: Bearer <admin token>}.
+ *
+ * <p>The admin token is configured with {@code socialmedia.admin.token}. Without one, every request
+ * is refused, so an administrative endpoint that is enabled and exposed by mistake stays closed.
+ * Requests without the right token are answered with 401 and an {@link ApiError} body before they
+ * reach the endpoint.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class AdminTokenFilter extends OncePerRequestFilter {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdminTokenFilter.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final byte[] adminToken;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates the filter.
+     *
+     * @param adminToken the token to require, or blank to refuse every request
+     * @param objectMapper writes the error body
+     */
+    public AdminTokenFilter(String adminToken, ObjectMapper objectMapper) {
+        this.adminToken = adminToken == null || adminToken.isBlank() ? null : adminToken.getBytes(StandardCharsets.UTF_8);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (adminToken != null && authorization != null
+                && authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())
+                && MessageDigest.isEqual(adminToken, authorization.substring(BEARER_PREFIX.length()).trim().getBytes(StandardCharsets.UTF_8))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        LOGGER.warn("Refused {} {} without a valid admin token - AdminTokenFilter.doFilterInternal() method.", request.getMethod(), request.getRequestURI());
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ApiError(HttpStatus.UNAUTHORIZED.value(), adminToken == null ? "No admin token is configured." : "A valid admin token is required."));
+    }
+}
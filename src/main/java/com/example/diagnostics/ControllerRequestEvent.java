@@ -0,0 +1,36 @@
+package com.example.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning one request handled by a controller, so allocation samples and
+ * lock events on the same thread can be attributed to the request they occurred in. It costs next
+ * to nothing while no recording is running.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Name("com.example.ControllerRequest")
+@Label("Controller Request")
+@Category("Social Media")
+@Description("A request handled by a controller method")
+@StackTrace(false)
+public class ControllerRequestEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Handler")
+    String handler;
+
+    @Label("Status")
+    int status;
+}
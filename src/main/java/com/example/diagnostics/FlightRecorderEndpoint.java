@@ -0,0 +1,202 @@
+package com.example.diagnostics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Actuator endpoint that records a Java Flight Recorder profile on demand.
+ *
+ * <ul>
+ *   <li>{@code POST /actuator/jfr} with optional {@code settings} ({@code profile} by default, or
+ *   any other JFR configuration name such as {@code default}) and {@code duration} starts a
+ *   recording. Only one recording runs at a time.</li>
+ *   <li>{@code GET /actuator/jfr} reports the state of the current recording.</li>
+ *   <li>{@code DELETE /actuator/jfr} stops the recording, if it has not reached its duration yet,
+ *   and returns it as a {@code .jfr} file.</li>
+ * </ul>
+ *
+ * <p>The endpoint is disabled unless {@code management.endpoint.jfr.enabled} is set and it is
+ * exposed through {@code management.endpoints.web.exposure.include}; requests to it must also
+ * carry the admin token checked by {@link AdminTokenFilter}, which follows the endpoint's path
+ * mapping and refuses to start with a separate management port. The {@code profile} settings include
+ * allocation samples and lock contention, and every controller request is recorded as a
+ * {@link ControllerRequestEvent}, so samples can be attributed to the requests they happened in.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+@Endpoint(id = "jfr", enableByDefault = false)
+public class FlightRecorderEndpoint {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightRecorderEndpoint.class);
+
+    private static final String RECORDING_NAME = "socialmedia-on-demand";
+
+    /**
+     * Length of a recording when none is requested.
+     */
+    @Value("${socialmedia.jfr.default-duration:PT1M}")
+    private Duration defaultDuration;
+
+    /**
+     * Longest recording that may be requested.
+     */
+    @Value("${socialmedia.jfr.max-duration:PT10M}")
+    private Duration maxDuration;
+
+    /**
+     * Size at which the oldest recorded data is discarded.
+     */
+    @Value("${socialmedia.jfr.max-size:100MB}")
+    private DataSize maxSize;
+
+    private Recording recording;
+
+    /**
+     * Reports the current recording.
+     *
+     * @return the recording state, or 404 if there is none
+     */
+    @ReadOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> status() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(describe(recording));
+    }
+
+    /**
+     * Starts a recording.
+     *
+     * @param settings name of the JFR configuration to record with
+     * @param duration how long to record before stopping on its own
+     * @return the recording state, 400 for unknown settings or a duration out of range, or 409 if
+     *         a recording already exists
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable String settings, @Nullable Duration duration) {
+        if (recording != null) {
+            return new WebEndpointResponse<>(describe(recording), 409);
+        }
+        String configurationName = settings == null ? "profile" : settings;
+        Duration recordingDuration = duration == null ? defaultDuration : duration;
+        if (recordingDuration.isNegative() || recordingDuration.isZero() || recordingDuration.compareTo(maxDuration) > 0) {
+            return new WebEndpointResponse<>(Map.of("error", "duration must be positive and at most " + maxDuration), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(configurationName);
+        } catch (IOException | ParseException exception) {
+            return new WebEndpointResponse<>(Map.of("error", "unknown settings " + configurationName), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        Recording started = new Recording(configuration);
+        started.setName(RECORDING_NAME);
+        started.setDuration(recordingDuration);
+        started.setMaxSize(maxSize.toBytes());
+        started.setToDisk(true);
+        started.start();
+        recording = started;
+        LOGGER.info("Started a {} flight recording for {} - FlightRecorderEndpoint.start(String settings, Duration duration) method.", configurationName, recordingDuration);
+        return new WebEndpointResponse<>(describe(recording));
+    }
+
+    /**
+     * Stops the recording and hands it out. The recording is discarded on the server afterwards.
+     *
+     * @return the {@code .jfr} file, or 404 if there is no recording
+     */
+    @DeleteOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> stop() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        Recording finished = recording;
+        recording = null;
+        try {
+            if (finished.getState() == RecordingState.RUNNING) {
+                finished.stop();
+            }
+            Path file = Files.createTempFile("socialmedia-", ".jfr");
+            finished.dump(file);
+            LOGGER.info("Handing out a flight recording of {} bytes - FlightRecorderEndpoint.stop() method.", Files.size(file));
+            return new WebEndpointResponse<>(new TemporaryFileResource(file));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            finished.close();
+        }
+    }
+
+    /**
+     * Discards a recording still held when the application stops.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("name", recording.getName());
+        state.put("state", recording.getState().name());
+        state.put("startTime", recording.getStartTime());
+        state.put("duration", recording.getDuration());
+        state.put("size", recording.getSize());
+        return state;
+    }
+
+    /**
+     * A recording dump that is deleted once it has been sent.
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(getFile().toPath(), StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+
+        @Override
+        public boolean isFile() {
+            // Keeps the resource from being served by file region transfer, which bypasses getInputStream()
+            return false;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.entity;
 
 import javax.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 /**
  * This is a class that models an Account.
@@ -9,7 +13,18 @@ import javax.persistence.*;
  */
 @Entity
 @Table(name="account")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Account.CACHE_REGION)
+@NaturalIdCache(region = Account.NATURAL_ID_CACHE_REGION)
 public class Account {
+    /**
+     * Second-level cache region of Account entities by ID.
+     */
+    public static final String CACHE_REGION = "account";
+    /**
+     * Second-level cache region resolving usernames to account IDs.
+     */
+    public static final String NATURAL_ID_CACHE_REGION = "account-natural-id";
     /**
      * An id for this Account. You should use this as the Entity's ID.
      */
@@ -20,6 +35,7 @@ public class Account {
     /**
      * A username for this Account (must be unique and not blank)
      */
+    @NaturalId
     private String username;
     /**
      * A password for this account (must be over 4 characters)
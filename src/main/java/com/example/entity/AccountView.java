@@ -0,0 +1,71 @@
+package com.example.entity;
+
+import java.util.Objects;
+
+/**
+ * Immutable, unmanaged view of an account, serialized the same way as {@link Account}.
+ *
+ * <p>The account listing reads accounts straight into views with a JPQL constructor expression,
+ * so no entities are put into the persistence context.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public final class AccountView {
+
+    private final Integer accountId;
+    private final String username;
+    private final String password;
+
+    /**
+     * Creates a view; used by the repository's constructor expressions.
+     *
+     * @param accountId the account ID
+     * @param username the username
+     * @param password the stored password
+     */
+    public AccountView(Integer accountId, String username, String password) {
+        this.accountId = accountId;
+        this.username = username;
+        this.password = password;
+    }
+
+    public Integer getAccountId() {
+        return accountId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof AccountView)) {
+            return false;
+        }
+        AccountView other = (AccountView) obj;
+        return Objects.equals(accountId, other.accountId) && Objects.equals(username, other.username)
+                && Objects.equals(password, other.password);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(accountId, username, password);
+    }
+
+    @Override
+    public String toString() {
+        return "AccountView{" +
+                "accountId=" + accountId +
+                ", username='" + username + '\'' +
+                '}';
+    }
+}
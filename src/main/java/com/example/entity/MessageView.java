@@ -0,0 +1,92 @@
+package com.example.entity;
+
+import java.util.Objects;
+
+/**
+ * Immutable, unmanaged view of a message, serialized the same way as {@link Message}.
+ *
+ * <p>List endpoints read messages straight into views with a JPQL constructor expression, so
+ * no entities are put into the persistence context: no identity map entries, no snapshots for
+ * dirty checking and nothing to flush. Being immutable, a view can also be shared between
+ * threads, as concurrent readers of one coalesced load do.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public final class MessageView {
+
+    private final Integer messageId;
+    private final Integer postedBy;
+    private final String messageText;
+    private final Long timePostedEpoch;
+
+    /**
+     * Creates a view; used by the repository's constructor expressions.
+     *
+     * @param messageId the message ID
+     * @param postedBy the ID of the posting account
+     * @param messageText the message text
+     * @param timePostedEpoch the posting time in epoch seconds
+     */
+    public MessageView(Integer messageId, Integer postedBy, String messageText, Long timePostedEpoch) {
+        this.messageId = messageId;
+        this.postedBy = postedBy;
+        this.messageText = messageText;
+        this.timePostedEpoch = timePostedEpoch;
+    }
+
+    /**
+     * Creates a view of a message that was not read through a projection.
+     *
+     * @param message the message
+     * @return a view of the message's current state
+     */
+    public static MessageView of(Message message) {
+        return new MessageView(message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+    }
+
+    public Integer getMessageId() {
+        return messageId;
+    }
+
+    public Integer getPostedBy() {
+        return postedBy;
+    }
+
+    public String getMessageText() {
+        return messageText;
+    }
+
+    public Long getTimePostedEpoch() {
+        return timePostedEpoch;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MessageView)) {
+            return false;
+        }
+        MessageView other = (MessageView) obj;
+        return Objects.equals(messageId, other.messageId) && Objects.equals(postedBy, other.postedBy)
+                && Objects.equals(messageText, other.messageText) && Objects.equals(timePostedEpoch, other.timePostedEpoch);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(messageId, postedBy, messageText, timePostedEpoch);
+    }
+
+    @Override
+    public String toString() {
+        return "MessageView{" +
+                "messageId=" + messageId +
+                ", postedBy=" + postedBy +
+                ", messageText='" + messageText + '\'' +
+                ", timePostedEpoch=" + timePostedEpoch +
+                '}';
+    }
+}
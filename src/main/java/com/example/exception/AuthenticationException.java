@@ -22,7 +22,7 @@ package com.example.exception;
  * @version 1.0
  * @since 1.0
  */
-public class AuthenticationException extends RuntimeException {
+public class AuthenticationException extends ControlFlowException {
 
     /**
      * Constructs a new exception with the specified detail message.
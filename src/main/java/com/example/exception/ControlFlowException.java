@@ -0,0 +1,43 @@
+package com.example.exception;
+
+/**
+ * Base class of the exceptions used to report expected request failures, such as invalid input,
+ * failed authentication or a missing resource, from the service layer to the exception handler.
+ *
+ * <p>These exceptions describe the request, not a fault in the code, so the place they were
+ * thrown from carries no useful information. They therefore skip capturing a stack trace and do
+ * not record suppressed exceptions, which makes them cheap enough to throw on every rejected
+ * request. Because they carry no mutable state, an instance with a fixed message can also be
+ * created once and thrown repeatedly.</p>
+ *
+ * <p>A cause passed to a constructor keeps its own stack trace.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public abstract class ControlFlowException extends RuntimeException {
+
+    /**
+     * Constructs a new exception with the specified detail message and no stack trace.
+     *
+     * @param message the detail message (which is saved for later retrieval
+     *        by the {@link #getMessage()} method)
+     */
+    protected ControlFlowException(String message) {
+        super(message, null, false, false);
+    }
+
+    /**
+     * Constructs a new exception with the specified detail message and cause, and no stack trace.
+     *
+     * @param message the detail message (which is saved for later retrieval
+     *        by the {@link #getMessage()} method)
+     * @param exception the cause (which is saved for later retrieval by the
+     *        {@link #getCause()} method). A {@code null} value is permitted,
+     *        and indicates that the cause is nonexistent or unknown.
+     */
+    protected ControlFlowException(String message, Throwable exception) {
+        super(message, exception, false, false);
+    }
+}
@@ -19,7 +19,7 @@ package com.example.exception;
  * @version 1.0
  * @since 1.0
  */
-public class DuplicateResourceException extends RuntimeException {
+public class DuplicateResourceException extends ControlFlowException {
 
     /**
      * Constructs a new exception with the specified detail message.
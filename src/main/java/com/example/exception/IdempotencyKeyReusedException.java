@@ -0,0 +1,25 @@
+package com.example.exception;
+
+/**
+ * Thrown when an {@code Idempotency-Key} is sent again with a request body that differs from the
+ * one first sent with it.
+ *
+ * <p>Replaying the stored response would tell the client that its new request succeeded when it
+ * was never processed, so the request is refused instead.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class IdempotencyKeyReusedException extends ControlFlowException {
+
+    /**
+     * Constructs a new exception with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval
+     *        by the {@link #getMessage()} method)
+     */
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
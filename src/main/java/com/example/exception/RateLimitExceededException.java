@@ -0,0 +1,44 @@
+package com.example.exception;
+
+/**
+ * Thrown when a client has sent more requests than its rate limit allows.
+ *
+ * <p>This exception is raised before any service or repository work is done for the
+ * request, so rejecting the request is cheap. It carries the number of seconds after
+ * which the client may try again.</p>
+ *
+ * <p>This exception typically results in a 429 Too Many Requests HTTP response with a
+ * {@code Retry-After} header.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class RateLimitExceededException extends ControlFlowException {
+
+    /**
+     * Seconds after which the client may retry.
+     */
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a new exception with the specified detail message and retry delay.
+     *
+     * @param message the detail message (which is saved for later retrieval
+     *        by the {@link #getMessage()} method)
+     * @param retryAfterSeconds the number of seconds after which the client may retry
+     */
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Returns the number of seconds after which the client may retry.
+     *
+     * @return the retry delay in seconds
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -18,7 +18,7 @@ package com.example.exception;
  * @version 1.0
  * @since 1.0
  */
-public class ResourceNotFoundException extends RuntimeException {
+public class ResourceNotFoundException extends ControlFlowException {
     
     /**
      * Constructs a new exception with the specified detail message.
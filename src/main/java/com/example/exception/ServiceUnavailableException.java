@@ -0,0 +1,50 @@
+package com.example.exception;
+
+/**
+ * Thrown when the server is temporarily unable to take on more work.
+ *
+ * <p>This exception indicates that the request was rejected up front to protect the
+ * service, for example because a capacity limit has been reached. The request has
+ * not been processed and can safely be retried later.</p>
+ *
+ * <p>Examples of scenarios where this exception might be thrown include:</p>
+ * <ul>
+ *   <li>The maximum number of live stream subscribers has been reached</li>
+ *   <li>Too many requests are already in flight for an endpoint</li>
+ *   <li>A bounded worker pool has no room left for another task</li>
+ * </ul>
+ *
+ * <p>This exception typically results in a 503 Service Unavailable HTTP response.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class ServiceUnavailableException extends ControlFlowException {
+
+    /**
+     * Constructs a new exception with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval
+     *        by the {@link #getMessage()} method)
+     */
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new exception with the specified detail message and cause.
+     *
+     * <p>Note that the detail message associated with {@code exception} is
+     * not automatically incorporated in this exception's detail message.</p>
+     *
+     * @param message the detail message (which is saved for later retrieval
+     *        by the {@link #getMessage()} method)
+     * @param exception the cause (which is saved for later retrieval by the
+     *        {@link #getCause()} method). A {@code null} value is permitted,
+     *        and indicates that the cause is nonexistent or unknown.
+     */
+    public ServiceUnavailableException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.exception.handlers;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Objects;
 
 /**
@@ -30,12 +32,17 @@ public class ApiError {
      * The timestamp when the error occurred.
      */
     private LocalDateTime timestamp;
+
+    /**
+     * The most recently created timestamp, shared by all errors created within the same millisecond.
+     */
+    private static volatile Tick lastTick = new Tick(Long.MIN_VALUE, null);
     
     /**
      * Constructs a new ApiError with the specified status and message.
      * 
-     * <p>The timestamp is automatically set to the current time when
-     * this constructor is called.</p>
+     * <p>The timestamp is automatically set to the current time, at millisecond
+     * precision, when this constructor is called.</p>
      * 
      * @param status  the HTTP status code, such as 400, 404, or 500
      * @param message a descriptive message explaining the error
@@ -43,7 +50,24 @@ public class ApiError {
     public ApiError(int status, String message) {
         this.status = status;
         this.message = message;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = now();
+    }
+
+    /**
+     * Returns the current time at millisecond precision. Errors created within the same
+     * millisecond share one immutable LocalDateTime instead of each computing their own,
+     * which keeps a burst of error responses from allocating a timestamp apiece.
+     *
+     * @return the current time
+     */
+    private static LocalDateTime now() {
+        long millis = System.currentTimeMillis();
+        Tick tick = lastTick;
+        if (tick.millis != millis) {
+            tick = new Tick(millis, LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+            lastTick = tick;
+        }
+        return tick.time;
     }
     
     /**
@@ -147,4 +171,18 @@ public class ApiError {
             "', timestamp = " + timestamp +
             "}";
     }
+
+    /**
+     * A millisecond and the LocalDateTime it corresponds to.
+     */
+    private static final class Tick {
+
+        private final long millis;
+        private final LocalDateTime time;
+
+        private Tick(long millis, LocalDateTime time) {
+            this.millis = millis;
+            this.time = time;
+        }
+    }
 }
@@ -20,6 +20,7 @@ import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.dao.PermissionDeniedDataAccessException;
 import org.springframework.dao.RecoverableDataAccessException;
 import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.orm.jpa.JpaSystemException;
@@ -31,6 +32,9 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
  * GlobalExceptionHandler is a controller advice that provides centralized exception handling
  * across the entire application. It intercepts exceptions thrown by controllers and returns appropriate 
  * HTTP responses with error details. The responses include an HTTP status code and a descriptive error message.
+ *
+ * <p>Expected request failures, the {@link ControlFlowException} subclasses, are logged at warn level
+ * with their message only, since they carry no stack trace and are not faults of the application.</p>
  * 
  * @author Micah Hogan
  * @version 1.0
@@ -52,7 +56,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<ApiError> handleResourceNotFoundException(ResourceNotFoundException exception) {
-        LOGGER.error("Resource not found: {}", exception.getMessage(), exception);
+        LOGGER.warn("Resource not found: {}", exception.getMessage());
         ApiError apiError = new ApiError(HttpStatus.NOT_FOUND.value(), exception.getMessage());
         return new ResponseEntity<>(apiError, HttpStatus.NOT_FOUND);
     }
@@ -65,7 +69,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<ApiError> handleBadRequestException(BadRequestException exception) {
-        LOGGER.error("Bad request: {}", exception.getMessage(), exception);
+        LOGGER.warn("Bad request: {}", exception.getMessage());
         ApiError apiError = new ApiError(HttpStatus.BAD_REQUEST.value(), exception.getMessage());
         return new ResponseEntity<>(apiError, HttpStatus.BAD_REQUEST);
     }
@@ -78,7 +82,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<ApiError> handleAuthenticationException(AuthenticationException exception) {
-        LOGGER.error("Authentication failed: {}", exception.getMessage(), exception);
+        LOGGER.warn("Authentication failed: {}", exception.getMessage());
         ApiError apiError = new ApiError(HttpStatus.UNAUTHORIZED.value(), exception.getMessage());
         return new ResponseEntity<>(apiError, HttpStatus.UNAUTHORIZED);
     }
@@ -91,11 +95,39 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(DuplicateResourceException.class)
     public ResponseEntity<ApiError> handleDuplicateResourceException(DuplicateResourceException exception) {
-        LOGGER.error("Duplicate resource: {}", exception.getMessage(), exception);
+        LOGGER.warn("Duplicate resource: {}", exception.getMessage());
         ApiError apiError = new ApiError(HttpStatus.CONFLICT.value(), exception.getMessage());
         return new ResponseEntity<>(apiError, HttpStatus.CONFLICT);
     }
 
+    /**
+     * Handles RateLimitExceededException.
+     * 
+     * @param exception the exception to handle.
+     * @return a ResponseEntity containing the API error details, a Retry-After header and the HTTP status code 429 (Too Many Requests).
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApiError> handleRateLimitExceededException(RateLimitExceededException exception) {
+        LOGGER.warn("Rate limit exceeded: {}", exception.getMessage());
+        ApiError apiError = new ApiError(HttpStatus.TOO_MANY_REQUESTS.value(), exception.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()));
+        return new ResponseEntity<>(apiError, headers, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * Handles ServiceUnavailableException.
+     * 
+     * @param exception the exception to handle.
+     * @return a ResponseEntity containing the API error details and the HTTP status code 503 (Service Unavailable).
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiError> handleServiceUnavailableException(ServiceUnavailableException exception) {
+        LOGGER.warn("Service unavailable: {}", exception.getMessage());
+        ApiError apiError = new ApiError(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getMessage());
+        return new ResponseEntity<>(apiError, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Handles InvalidInputException.
      * 
@@ -104,11 +136,24 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(InvalidInputException.class)
     public ResponseEntity<ApiError> handlerInvalidInputException(InvalidInputException exception) {
-        LOGGER.error("Invalid input: {}", exception.getMessage(), exception);
+        LOGGER.warn("Invalid input: {}", exception.getMessage());
         ApiError apiError = new ApiError(HttpStatus.BAD_REQUEST.value(), exception.getMessage());
         return new ResponseEntity<>(apiError, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles IdempotencyKeyReusedException.
+     * 
+     * @param exception the exception to handle.
+     * @return a ResponseEntity containing the API error details and the HTTP status code 422 (Unprocessable Entity).
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ApiError> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException exception) {
+        LOGGER.warn("Idempotency key reused: {}", exception.getMessage());
+        ApiError apiError = new ApiError(HttpStatus.UNPROCESSABLE_ENTITY.value(), exception.getMessage());
+        return new ResponseEntity<>(apiError, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
     /**
      * Handles DataIntegrityException.
      * 
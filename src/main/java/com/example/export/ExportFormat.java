@@ -0,0 +1,65 @@
+package com.example.export;
+
+import com.example.exception.InvalidInputException;
+
+/**
+ * Output formats of the bulk export endpoints.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public enum ExportFormat {
+
+    /**
+     * Newline-delimited JSON: one JSON object per row, each on its own line.
+     */
+    NDJSON("ndjson", "application/x-ndjson"),
+
+    /**
+     * Comma-separated values as described in RFC 4180, with a header row.
+     */
+    CSV("csv", "text/csv");
+
+    private final String name;
+    private final String mediaType;
+
+    ExportFormat(String name, String mediaType) {
+        this.name = name;
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Looks up a format by the name used in the {@code format} request parameter.
+     *
+     * @param name the format name, {@code ndjson} or {@code csv}, in any case
+     * @return the format
+     * @throws InvalidInputException if no format has the name
+     */
+    public static ExportFormat of(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new InvalidInputException("Unknown export format: " + name + ". Use ndjson or csv.");
+    }
+
+    /**
+     * Returns the name of this format, which is also the file extension of its exports.
+     *
+     * @return the format name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the Content-Type of exports in this format, without a charset.
+     *
+     * @return the media type
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+}
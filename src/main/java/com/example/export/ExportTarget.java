@@ -0,0 +1,25 @@
+package com.example.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Where an export is written. The stream is only opened once the export has been accepted, so a
+ * rejected export can still be answered with an error response.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@FunctionalInterface
+public interface ExportTarget {
+
+    /**
+     * Opens the stream the export is written to.
+     *
+     * @param format the format of the export
+     * @return the output stream
+     * @throws IOException if the stream cannot be opened
+     */
+    OutputStream open(ExportFormat format) throws IOException;
+}
@@ -0,0 +1,229 @@
+package com.example.export;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Writes result set rows to a stream in an {@link ExportFormat}, one row at a time.
+ *
+ * <p>Values are copied from the current row of the result set straight into the output, without
+ * building an object per row, so memory use does not depend on the number of rows. Integer
+ * columns are written as numbers, all other columns as strings. The column names are given by
+ * the caller, in the order of the select list, since databases differ in how they report them.</p>
+ *
+ * <p>{@link #close()} flushes the output but leaves the underlying stream open.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public abstract class ExportWriter implements Closeable {
+
+    private static final int VALUE_INT = 0;
+    private static final int VALUE_LONG = 1;
+    private static final int VALUE_STRING = 2;
+
+    private int[] valueKinds;
+
+    /**
+     * Creates a writer for the given format.
+     *
+     * @param format the output format
+     * @param out the stream to write to
+     * @param jsonFactory the factory of the JSON generator used for NDJSON
+     * @param columns the names of the exported columns, in select-list order
+     * @return the writer
+     * @throws IOException if writing the CSV header fails
+     */
+    public static ExportWriter create(ExportFormat format, OutputStream out, JsonFactory jsonFactory, String... columns) throws IOException {
+        switch (format) {
+            case NDJSON:
+                return new NdjsonWriter(jsonFactory.createGenerator(out), columns);
+            case CSV:
+                return new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), columns);
+            default:
+                throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+    }
+
+    /**
+     * Writes the current row of the result set.
+     *
+     * @param resultSet the result set, positioned on a row
+     * @throws IOException if writing fails, for example because the client went away
+     * @throws SQLException if reading the row fails
+     */
+    public abstract void writeRow(ResultSet resultSet) throws IOException, SQLException;
+
+    /**
+     * Returns how each column is read, determined from the result set metadata of the first row.
+     */
+    int[] valueKinds(ResultSet resultSet) throws SQLException {
+        if (valueKinds == null) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int[] kinds = new int[metaData.getColumnCount()];
+            for (int i = 0; i < kinds.length; i++) {
+                switch (metaData.getColumnType(i + 1)) {
+                    case Types.TINYINT:
+                    case Types.SMALLINT:
+                    case Types.INTEGER:
+                        kinds[i] = VALUE_INT;
+                        break;
+                    case Types.BIGINT:
+                        kinds[i] = VALUE_LONG;
+                        break;
+                    default:
+                        kinds[i] = VALUE_STRING;
+                }
+            }
+            valueKinds = kinds;
+        }
+        return valueKinds;
+    }
+
+    /**
+     * Writes each row as a JSON object followed by a newline.
+     */
+    private static final class NdjsonWriter extends ExportWriter {
+
+        private final JsonGenerator generator;
+        private final SerializedString[] fieldNames;
+
+        private NdjsonWriter(JsonGenerator generator, String[] columns) {
+            this.generator = generator;
+            this.generator.setRootValueSeparator(null);
+            this.fieldNames = new SerializedString[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                fieldNames[i] = new SerializedString(columns[i]);
+            }
+        }
+
+        @Override
+        public void writeRow(ResultSet resultSet) throws IOException, SQLException {
+            int[] kinds = valueKinds(resultSet);
+            generator.writeStartObject();
+            for (int i = 0; i < fieldNames.length; i++) {
+                generator.writeFieldName(fieldNames[i]);
+                switch (kinds[i]) {
+                    case VALUE_INT:
+                        int intValue = resultSet.getInt(i + 1);
+                        if (resultSet.wasNull()) {
+                            generator.writeNull();
+                        } else {
+                            generator.writeNumber(intValue);
+                        }
+                        break;
+                    case VALUE_LONG:
+                        long longValue = resultSet.getLong(i + 1);
+                        if (resultSet.wasNull()) {
+                            generator.writeNull();
+                        } else {
+                            generator.writeNumber(longValue);
+                        }
+                        break;
+                    default:
+                        generator.writeString(resultSet.getString(i + 1));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * Writes a header row followed by one CSV record per row, with CRLF line endings. Text is
+     * quoted when it contains a comma, a quote or a line break; NULL is written as an empty field.
+     */
+    private static final class CsvWriter extends ExportWriter {
+
+        private final Writer writer;
+        private final int columnCount;
+
+        private CsvWriter(Writer writer, String[] columns) throws IOException {
+            this.writer = writer;
+            this.columnCount = columns.length;
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeText(columns[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void writeRow(ResultSet resultSet) throws IOException, SQLException {
+            int[] kinds = valueKinds(resultSet);
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                switch (kinds[i]) {
+                    case VALUE_INT:
+                        int intValue = resultSet.getInt(i + 1);
+                        if (!resultSet.wasNull()) {
+                            writer.write(Integer.toString(intValue));
+                        }
+                        break;
+                    case VALUE_LONG:
+                        long longValue = resultSet.getLong(i + 1);
+                        if (!resultSet.wasNull()) {
+                            writer.write(Long.toString(longValue));
+                        }
+                        break;
+                    default:
+                        String text = resultSet.getString(i + 1);
+                        if (text != null) {
+                            writeText(text);
+                        }
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeText(String text) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < text.length() && !quote; i++) {
+                char c = text.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            int start = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '"') {
+                    writer.write(text, start, i + 1 - start);
+                    writer.write('"');
+                    start = i + 1;
+                }
+            }
+            writer.write(text, start, text.length() - start);
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.id;
+
+/**
+ * Source of new message IDs.
+ *
+ * <p>Two implementations exist: {@link com.example.writebehind.MessageIdAllocator}, which reserves
+ * blocks from the database sequence and therefore yields IDs that fit the current {@code Integer}
+ * message ID, and {@link SnowflakeIdGenerator}, which needs no coordination between instances but
+ * produces 64-bit IDs.</p>
+ *
+ * <p>Moving message IDs to the snowflake generator happens in three steps. The {@code messageId}
+ * columns are {@code bigint} already, so 32-bit IDs written today remain valid. Next, the entity,
+ * the views and the API move to {@code Long} IDs, serialized as JSON strings because clients
+ * cannot represent every 64-bit value as a number. Then each instance gets its own worker ID and
+ * switches to {@link SnowflakeIdGenerator}. Every snowflake ID is larger than any sequence ID
+ * issued before, so ordering by ID keeps working across the switch.</p>
+ *
+ * <p>The generator is chosen with {@code socialmedia.id.generator}, see
+ * {@link com.example.config.MessageIdConfig}, which refuses {@code snowflake} until the second
+ * step is done. Every ID still passes through {@link #toMessageId(long)}, which refuses IDs that
+ * do not fit the {@code Integer} message ID instead of letting them wrap around.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public interface MessageIdGenerator {
+
+    /**
+     * Returns a new message ID that has not been handed out before.
+     *
+     * @return a message ID
+     */
+    long nextId();
+
+    /**
+     * Makes sure no ID at or below one that is already in use is handed out again, as after a
+     * restart that recovered messages with IDs issued before it.
+     *
+     * @param id the highest ID known to be in use
+     */
+    void advancePast(long id);
+
+    /**
+     * Narrows a generated ID to the current {@code Integer} message ID.
+     *
+     * @param id a generated ID
+     * @return the ID as a message ID
+     * @throws IllegalStateException if the ID is larger than {@link Integer#MAX_VALUE}
+     */
+    static int toMessageId(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Message ID " + id + " does not fit the Integer message ID.");
+        }
+        return (int) id;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.id;
+
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * Generates time-ordered 64-bit IDs without coordinating with other instances.
+ *
+ * <p>An ID holds, from the most significant bit down, a zero sign bit, 41 bits of milliseconds
+ * since {@link #EPOCH}, 10 bits of worker ID and a 12-bit sequence within the millisecond. As
+ * long as every instance runs with its own worker ID, IDs are unique across the cluster, and
+ * they sort by creation time to the millisecond (k-sortable), so an ID can serve as the
+ * {@code after} cursor of {@code GET /messages}, and {@link #lowestIdAt(long)} minus one is the
+ * cursor of the page that starts at a point in time.</p>
+ *
+ * <p>Up to 4096 IDs are issued per millisecond. When the sequence runs out, or the clock moves
+ * backwards, the generator continues from its last timestamp rather than reusing one, so IDs
+ * never repeat and never decrease. It only waits once it is more than {@link #MAX_DRIFT_MILLIS}
+ * ahead of the clock.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class SnowflakeIdGenerator implements MessageIdGenerator {
+
+    /**
+     * Start of the timestamp range, 2022-12-01T00:00:00Z, which lasts until 2092.
+     */
+    public static final Instant EPOCH = Instant.ofEpochMilli(1669852800000L);
+
+    /**
+     * Largest worker ID.
+     */
+    public static final int MAX_WORKER_ID = 1023;
+
+    /**
+     * How far the generator may run ahead of the clock before it waits for it.
+     */
+    public static final long MAX_DRIFT_MILLIS = 1000;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int WORKER_BITS = 10;
+    private static final int WORKER_SHIFT = SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + WORKER_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_TIMESTAMP = (1L << 41) - 1;
+
+    private final long workerId;
+    private final Clock clock;
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    /**
+     * Creates a generator on the system clock.
+     *
+     * @param workerId the ID of this instance, unique in the cluster, from 0 to {@link #MAX_WORKER_ID}
+     */
+    public SnowflakeIdGenerator(int workerId) {
+        this(workerId, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param workerId the ID of this instance, unique in the cluster, from 0 to {@link #MAX_WORKER_ID}
+     * @param clock the clock the timestamps are taken from
+     */
+    public SnowflakeIdGenerator(int workerId, Clock clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker ID must be between 0 and " + MAX_WORKER_ID + ": " + workerId);
+        }
+        this.workerId = workerId;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized long nextId() {
+        long now = currentTimestamp();
+        if (now > lastTimestamp) {
+            lastTimestamp = now;
+            sequence = 0;
+        } else {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                lastTimestamp++;
+                awaitClock(lastTimestamp - MAX_DRIFT_MILLIS);
+            }
+        }
+        if (lastTimestamp > MAX_TIMESTAMP) {
+            throw new IllegalStateException("Snowflake timestamp range exhausted");
+        }
+        return (lastTimestamp << TIMESTAMP_SHIFT) | (workerId << WORKER_SHIFT) | sequence;
+    }
+
+    /**
+     * Makes sure no ID at or below one issued before a restart is handed out again, for the case
+     * that the clock is now behind the time that ID was issued at.
+     *
+     * @param id an ID issued by this worker
+     */
+    @Override
+    public synchronized void advancePast(long id) {
+        long timestamp = id >>> TIMESTAMP_SHIFT;
+        if (timestamp > lastTimestamp || (timestamp == lastTimestamp && sequenceOf(id) > sequence)) {
+            lastTimestamp = timestamp;
+            sequence = sequenceOf(id);
+        }
+    }
+
+    /**
+     * Returns the time an ID was issued at.
+     *
+     * @param id a snowflake ID
+     * @return milliseconds since 1970-01-01T00:00:00Z
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH.toEpochMilli();
+    }
+
+    /**
+     * Returns the worker that issued an ID.
+     *
+     * @param id a snowflake ID
+     * @return the worker ID
+     */
+    public static int workerIdOf(long id) {
+        return (int) ((id >>> WORKER_SHIFT) & MAX_WORKER_ID);
+    }
+
+    /**
+     * Returns the position of an ID within its millisecond on its worker.
+     *
+     * @param id a snowflake ID
+     * @return the sequence number
+     */
+    public static int sequenceOf(long id) {
+        return (int) (id & SEQUENCE_MASK);
+    }
+
+    /**
+     * Returns the lowest ID any worker can issue at or after a point in time, for use as a cursor
+     * in queries such as {@code messageId >= ?}.
+     *
+     * @param epochMillis milliseconds since 1970-01-01T00:00:00Z
+     * @return the lowest ID for that millisecond
+     */
+    public static long lowestIdAt(long epochMillis) {
+        long timestamp = Math.max(0, epochMillis - EPOCH.toEpochMilli());
+        return Math.min(timestamp, MAX_TIMESTAMP) << TIMESTAMP_SHIFT;
+    }
+
+    private long currentTimestamp() {
+        return clock.millis() - EPOCH.toEpochMilli();
+    }
+
+    private void awaitClock(long timestamp) {
+        long now;
+        while ((now = currentTimestamp()) < timestamp) {
+            try {
+                Thread.sleep(timestamp - now);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the clock to catch up", exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.idempotency;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import com.example.exception.AuthenticationException;
+import com.example.exception.BadRequestException;
+import com.example.exception.DuplicateResourceException;
+import com.example.exception.IdempotencyKeyReusedException;
+import com.example.exception.InvalidInputException;
+import com.example.exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bounded, expiring store of responses keyed by the client supplied {@code Idempotency-Key} header.
+ *
+ * <p>The first request for a key runs the action and stores its outcome; replays of the same key
+ * within the time-to-live get the stored response back without running the action again, so no
+ * service or repository work is repeated. Concurrent duplicates that arrive while the first
+ * request is still running wait for it and share its outcome.</p>
+ *
+ * <p>Deterministic client errors, such as validation failures or a duplicate username, are stored
+ * and replayed like successful responses. Any other failure is not stored, so the client can retry
+ * the same key once the underlying problem has cleared.</p>
+ *
+ * <p>Each key is stored with a salted SHA-256 fingerprint of the request body it came with. A
+ * replay whose body does not match is refused with an {@link IdempotencyKeyReusedException}
+ * rather than answered with the response to a different request. The body is fingerprinted in its
+ * deserialized form, so the same request sent as JSON, Smile or CBOR, or with different
+ * whitespace, still matches.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class IdempotencyStore {
+
+    /**
+     * Name of the request header carrying the idempotency key.
+     */
+    public static final String HEADER = "Idempotency-Key";
+
+    /**
+     * Name of the response header added to replayed responses.
+     */
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /**
+     * Longest idempotency key accepted.
+     */
+    private static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    /**
+     * How long a stored response can be replayed.
+     */
+    @Value("${socialmedia.idempotency.ttl:PT1H}")
+    private Duration ttl;
+
+    /**
+     * Maximum number of stored responses.
+     */
+    @Value("${socialmedia.idempotency.max-entries:100000}")
+    private long maxEntries;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Outcomes keyed by scope and idempotency key.
+     */
+    private Cache<String, Outcome> outcomes;
+
+    /**
+     * Salt of the body fingerprints, so that stored fingerprints reveal nothing about the bodies,
+     * such as a registration password.
+     */
+    private final byte[] salt = new byte[16];
+
+    /**
+     * Builds the outcome cache once the configuration is injected.
+     */
+    @PostConstruct
+    void init() {
+        outcomes = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * Runs the action at most once per scope and idempotency key.
+     *
+     * @param <T> the response body type
+     * @param scope identifies the endpoint and caller the key belongs to, so keys never collide across them
+     * @param idempotencyKey the client supplied key, or null to run the action without idempotency
+     * @param requestBody the deserialized request body, compared with the body first sent with the key
+     * @param action produces the response
+     * @return the response of the action, or the stored response of an earlier request with the same key
+     * @throws InvalidInputException if the key is blank or too long
+     * @throws IdempotencyKeyReusedException if the key was first sent with a different body
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String scope, String idempotencyKey, Object requestBody, Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidInputException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters.");
+        }
+
+        String cacheKey = scope + '\u0000' + idempotencyKey;
+        // Fingerprinted before the action runs, which may change the body, e.g. by hashing a password.
+        Outcome pending = new Outcome(fingerprint(requestBody));
+        Outcome existing = outcomes.asMap().putIfAbsent(cacheKey, pending);
+        if (existing != null) {
+            if (!MessageDigest.isEqual(existing.fingerprint, pending.fingerprint)) {
+                LOGGER.warn("Idempotency key reused with a different body in scope {} - IdempotencyStore.execute(String scope, String idempotencyKey, Object requestBody, Supplier action) method.", scope);
+                throw new IdempotencyKeyReusedException("Idempotency-Key was already used with a different request body.");
+            }
+            LOGGER.info("Replaying response for idempotency key in scope {} - IdempotencyStore.execute(String scope, String idempotencyKey, Object requestBody, Supplier action) method.", scope);
+            return (ResponseEntity<T>) replay(existing.response);
+        }
+
+        try {
+            ResponseEntity<T> response = action.get();
+            pending.response.complete(response);
+            return response;
+        } catch (RuntimeException exception) {
+            if (!isReplayable(exception)) {
+                outcomes.asMap().remove(cacheKey, pending);
+            }
+            pending.response.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Computes the salted SHA-256 fingerprint of a request body.
+     */
+    private byte[] fingerprint(Object requestBody) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            return digest.digest(objectMapper.writeValueAsBytes(requestBody));
+        } catch (NoSuchAlgorithmException | JsonProcessingException exception) {
+            throw new IllegalStateException("Cannot fingerprint request body", exception);
+        }
+    }
+
+    /**
+     * Waits for a stored or in-flight outcome and returns it marked as a replay.
+     */
+    private static ResponseEntity<?> replay(CompletableFuture<ResponseEntity<?>> outcome) {
+        ResponseEntity<?> response;
+        try {
+            response = outcome.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+
+    /**
+     * Returns whether a failure is a deterministic client error that a replay should reproduce.
+     */
+    private static boolean isReplayable(RuntimeException exception) {
+        return exception instanceof InvalidInputException
+                || exception instanceof BadRequestException
+                || exception instanceof DuplicateResourceException
+                || exception instanceof AuthenticationException
+                || exception instanceof ResourceNotFoundException;
+    }
+
+    /**
+     * The fingerprint of the body a key was first sent with, and the response to it. The response
+     * is a future so in-flight duplicates can wait on it.
+     */
+    private static final class Outcome {
+        final byte[] fingerprint;
+        final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+        Outcome(byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.importer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Progress of an import, kept in a small text file next to the data so that an interrupted
+ * import can be resumed.
+ *
+ * <p>The checkpoint holds the offset up to which the source file has been imported and, while a
+ * batch is being written, the start offset of that batch and the message ID given to each of its
+ * records, keyed by the byte offset of the record's line. If the process dies after the batch was
+ * committed but before the offset moved past it, the resumed import writes every record again
+ * with the ID recorded for its line, replacing the rows instead of duplicating them, even when
+ * some records of the batch validate differently the second time.</p>
+ *
+ * <p>The file is replaced atomically and synced on every update, so it is never seen half
+ * written.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+final class ImportCheckpoint {
+
+    private static final String OFFSET = "offset=";
+    private static final String PENDING = "pending=";
+
+    private final long offset;
+    private final long pendingOffset;
+    private final Map<Long, Integer> pendingIds;
+
+    private ImportCheckpoint(long offset, long pendingOffset, Map<Long, Integer> pendingIds) {
+        this.offset = offset;
+        this.pendingOffset = pendingOffset;
+        this.pendingIds = pendingIds;
+    }
+
+    /**
+     * Returns a checkpoint at the given offset with no batch in progress.
+     *
+     * @param offset the offset imported so far
+     * @return the checkpoint
+     */
+    static ImportCheckpoint at(long offset) {
+        return new ImportCheckpoint(offset, -1, Collections.emptyMap());
+    }
+
+    /**
+     * Returns a checkpoint recording a batch that is about to be written.
+     *
+     * @param offset the offset imported so far, which is where the batch starts
+     * @param ids the message IDs given to the records of the batch, by the byte offset of their line
+     * @return the checkpoint
+     */
+    static ImportCheckpoint writing(long offset, Map<Long, Integer> ids) {
+        return new ImportCheckpoint(offset, offset, Collections.unmodifiableMap(new LinkedHashMap<>(ids)));
+    }
+
+    /**
+     * Reads a checkpoint file.
+     *
+     * @param file the checkpoint file
+     * @return the checkpoint, or a checkpoint at offset 0 if the file does not exist
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    static ImportCheckpoint read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return at(0);
+        }
+        long offset = -1;
+        long pendingOffset = -1;
+        Map<Long, Integer> pendingIds = Collections.emptyMap();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            try {
+                if (line.startsWith(OFFSET)) {
+                    offset = Long.parseLong(line.substring(OFFSET.length()));
+                } else if (line.startsWith(PENDING)) {
+                    String[] batch = line.substring(PENDING.length()).split(":", 2);
+                    pendingOffset = Long.parseLong(batch[0]);
+                    pendingIds = new LinkedHashMap<>();
+                    for (String record : batch[1].split(",")) {
+                        if (!record.isEmpty()) {
+                            String[] lineAndId = record.split("=", 2);
+                            pendingIds.put(Long.valueOf(lineAndId[0]), Integer.valueOf(lineAndId[1]));
+                        }
+                    }
+                }
+            } catch (RuntimeException exception) {
+                throw new IOException("Import checkpoint " + file + " is corrupt: " + line, exception);
+            }
+        }
+        if (offset < 0) {
+            throw new IOException("Import checkpoint " + file + " has no offset.");
+        }
+        return new ImportCheckpoint(offset, pendingOffset, pendingIds);
+    }
+
+    /**
+     * Writes this checkpoint, replacing the file atomically.
+     *
+     * @param file the checkpoint file
+     * @throws IOException if writing fails
+     */
+    void write(Path file) throws IOException {
+        StringBuilder content = new StringBuilder(OFFSET).append(offset).append('\n');
+        if (pendingOffset >= 0) {
+            content.append(PENDING).append(pendingOffset).append(':')
+                    .append(pendingIds.entrySet().stream().map(record -> record.getKey() + "=" + record.getValue()).collect(Collectors.joining(","))).append('\n');
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, content.toString().getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Returns the offset up to which the source file has been imported.
+     *
+     * @return the offset
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the IDs recorded for a batch starting at the given offset, if its write may have
+     * been committed.
+     *
+     * @param batchOffset the start offset of the batch
+     * @return the IDs of the batch by the byte offset of their line, or an empty map if no batch
+     *         starting there was being written
+     */
+    Map<Long, Integer> pendingIdsAt(long batchOffset) {
+        return pendingOffset == batchOffset ? pendingIds : Collections.emptyMap();
+    }
+}
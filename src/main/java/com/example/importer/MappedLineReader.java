@@ -0,0 +1,155 @@
+package com.example.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a newline-delimited file through memory-mapped windows and hands it out in chunks of
+ * whole lines.
+ *
+ * <p>The file is mapped {@code windowSize} bytes at a time, so files larger than 2 GB can be read
+ * and only the window being cut needs address space. A chunk is a view of the mapped window, not
+ * a copy; it stays valid after the reader has moved on to the next window. Every chunk ends with a
+ * newline, except the last one when the file does not end with a newline. A line longer than the
+ * window cannot be read.</p>
+ *
+ * <p>Instances are not thread-safe; the chunks they return may be read from any thread.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+class MappedLineReader implements Closeable {
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    /**
+     * Opens a file for reading from the given offset, which must be the start of a line.
+     *
+     * @param file the file to read
+     * @param startOffset the byte offset to start at
+     * @param windowSize the number of bytes mapped at a time
+     * @throws IOException if the file cannot be opened
+     */
+    MappedLineReader(Path file, long startOffset, int windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        this.position = Math.min(startOffset, size);
+    }
+
+    /**
+     * Returns the size of the file.
+     *
+     * @return the file size in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Returns the next chunk of at most {@code maxLines} lines.
+     *
+     * @param maxLines the maximum number of lines in the chunk
+     * @return the chunk, or null at the end of the file
+     * @throws IOException if mapping fails or a line does not fit into a window
+     */
+    Chunk next(int maxLines) throws IOException {
+        while (position < size) {
+            if (window == null || position >= windowStart + window.limit()) {
+                map(position);
+            }
+            int from = (int) (position - windowStart);
+            int end = from;
+            int lastNewline = -1;
+            int lines = 0;
+            while (end < window.limit() && lines < maxLines) {
+                if (window.get(end++) == '\n') {
+                    lastNewline = end;
+                    lines++;
+                }
+            }
+            boolean windowReachesEnd = windowStart + window.limit() == size;
+            if (lines < maxLines && !windowReachesEnd) {
+                if (lastNewline < 0) {
+                    if (from == 0) {
+                        throw new IOException("Line at byte offset " + position + " is longer than the import window of " + windowSize + " bytes.");
+                    }
+                    map(position);
+                    continue;
+                }
+                end = lastNewline;
+            }
+            ByteBuffer bytes = window.duplicate();
+            bytes.position(from).limit(end);
+            Chunk chunk = new Chunk(position, windowStart + end, bytes.slice());
+            position = windowStart + end;
+            return chunk;
+        }
+        return null;
+    }
+
+    private void map(long offset) throws IOException {
+        windowStart = offset;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, size - offset));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * A run of whole lines and its place in the file.
+     */
+    static final class Chunk {
+
+        private final long startOffset;
+        private final long endOffset;
+        private final ByteBuffer bytes;
+
+        private Chunk(long startOffset, long endOffset, ByteBuffer bytes) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Returns the offset of the first byte of the chunk in the file.
+         *
+         * @return the start offset
+         */
+        long getStartOffset() {
+            return startOffset;
+        }
+
+        /**
+         * Returns the offset just past the last byte of the chunk, where the next chunk starts.
+         *
+         * @return the end offset
+         */
+        long getEndOffset() {
+            return endOffset;
+        }
+
+        /**
+         * Returns the bytes of the chunk as a read-only view positioned at its first byte.
+         *
+         * @return the chunk bytes
+         */
+        ByteBuffer getBytes() {
+            return bytes.duplicate();
+        }
+    }
+}
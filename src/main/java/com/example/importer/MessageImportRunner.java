@@ -0,0 +1,377 @@
+package com.example.importer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.cache.NegativeCache;
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.exception.InvalidInputException;
+import com.example.repository.AccountRepository;
+import com.example.repository.shard.ShardedMessageRepository;
+import com.example.service.MessageService;
+import com.example.writebehind.MessageIdAllocator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * Offline bulk import of messages from an NDJSON dump, one message object per line.
+ *
+ * <p>The import runs on startup when {@code socialmedia.import.file} is set, typically as
+ * {@code java -jar app.jar --socialmedia.import.file=dump.ndjson --spring.main.web-application-type=none},
+ * and the process exits when it is done unless {@code socialmedia.import.exit-on-completion} is
+ * false. The file is read through a {@link MappedLineReader} and cut into batches of
+ * {@code socialmedia.import.batch-size} lines. Batches are parsed and validated in parallel on
+ * {@code socialmedia.import.threads} threads, with the rules of {@link MessageService#postMessage}:
+ * records with blank or overlong text, without a poster or with a poster that does not exist are
+ * rejected and counted. Any {@code messageId} in the dump is ignored; IDs come from the same
+ * sequence as messages posted through the API.</p>
+ *
+ * <p>Batches are written in file order, each with one JDBC batch insert in its own transaction,
+ * and the {@link ImportCheckpoint} is advanced after every batch. Restarting with the same file
+ * resumes after the last written batch without importing any record twice. Progress and
+ * throughput are logged every {@code socialmedia.import.progress-interval}.</p>
+ *
+ * <p>The import writes to the primary database only and cannot be combined with message sharding.
+ * Imported messages are not pushed to message stream subscribers.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+@ConditionalOnProperty(name = "socialmedia.import.file")
+public class MessageImportRunner implements ApplicationRunner {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageImportRunner.class);
+
+    private static final String INSERT_SQL =
+            "insert into message (messageId, postedBy, messageText, timePostedEpoch) values (?, ?, ?, ?)";
+
+    private static final String MERGE_SQL =
+            "merge into message (messageId, postedBy, messageText, timePostedEpoch) key (messageId) values (?, ?, ?, ?)";
+
+    /**
+     * Number of rejected records logged individually; later ones are only counted.
+     */
+    private static final int LOGGED_REJECTS = 100;
+
+    /**
+     * The NDJSON file to import.
+     */
+    @Value("${socialmedia.import.file}")
+    private Path file;
+
+    /**
+     * Location of the checkpoint; next to the imported file when blank.
+     */
+    @Value("${socialmedia.import.checkpoint-file:}")
+    private String checkpointFile;
+
+    /**
+     * Maximum number of lines per batch.
+     */
+    @Value("${socialmedia.import.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Number of parsing threads; one per core when 0.
+     */
+    @Value("${socialmedia.import.threads:0}")
+    private int threads;
+
+    /**
+     * Number of bytes of the file mapped at a time. No line may be longer.
+     */
+    @Value("${socialmedia.import.window-size:67108864}")
+    private int windowSize;
+
+    /**
+     * How often progress is logged.
+     */
+    @Value("${socialmedia.import.progress-interval:PT5S}")
+    private Duration progressInterval;
+
+    /**
+     * Whether the application shuts down once the import has finished.
+     */
+    @Value("${socialmedia.import.exit-on-completion:true}")
+    private boolean exitOnCompletion;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NegativeCache negativeCache;
+
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
+    @Autowired(required = false)
+    private ShardedMessageRepository shardedMessageRepository;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Runs the import, then shuts the application down if so configured.
+     *
+     * @param args the application arguments
+     * @throws Exception if the import fails; the checkpoint then holds the last written batch
+     */
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (shardedMessageRepository != null) {
+            throw new IllegalStateException("Message import writes to the primary database and cannot be combined with socialmedia.message.shards.");
+        }
+        importFile();
+        if (exitOnCompletion) {
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    /**
+     * Imports the file from its checkpoint to the end.
+     *
+     * @return the number of messages imported
+     * @throws Exception if reading, parsing or writing fails
+     */
+    long importFile() throws Exception {
+        Path checkpointPath = checkpointFile.isBlank() ? file.resolveSibling(file.getFileName() + ".checkpoint") : Path.of(checkpointFile);
+        ImportCheckpoint checkpoint = ImportCheckpoint.read(checkpointPath);
+        int parserCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(parserCount, runnable -> {
+            Thread thread = new Thread(runnable, "message-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ObjectReader reader = objectMapper.readerFor(Message.class);
+        MessageIdAllocator idAllocator = new MessageIdAllocator(jdbcTemplate, batchSize);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        long startOffset = checkpoint.getOffset();
+        long imported = 0;
+        long start = System.nanoTime();
+        long nextProgress = start + progressInterval.toNanos();
+        try (MappedLineReader lines = new MappedLineReader(file, startOffset, windowSize)) {
+            LOGGER.info("Importing messages from {} ({} bytes), starting at byte offset {} with {} parser threads - MessageImportRunner.importFile() method.",
+                    file, lines.size(), startOffset, parserCount);
+            Deque<Future<ParsedBatch>> inFlight = new ArrayDeque<>();
+            boolean endOfFile = false;
+            while (true) {
+                while (!endOfFile && inFlight.size() < parserCount * 2) {
+                    MappedLineReader.Chunk chunk = lines.next(batchSize);
+                    if (chunk == null) {
+                        endOfFile = true;
+                    } else {
+                        inFlight.add(parsers.submit(() -> parse(chunk, reader)));
+                    }
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                ParsedBatch batch = join(inFlight.poll());
+                checkpoint = write(batch, checkpoint, checkpointPath, idAllocator, transactionTemplate);
+                imported += batch.messages.size();
+
+                long now = System.nanoTime();
+                if (now >= nextProgress) {
+                    logProgress("Imported", imported, checkpoint.getOffset() - startOffset, checkpoint.getOffset(), lines.size(), now - start);
+                    nextProgress = now + progressInterval.toNanos();
+                }
+            }
+            logProgress("Finished importing", imported, checkpoint.getOffset() - startOffset, checkpoint.getOffset(), lines.size(), System.nanoTime() - start);
+        } finally {
+            parsers.shutdownNow();
+        }
+        return imported;
+    }
+
+    /**
+     * Parses and validates the lines of a chunk. Runs on a parser thread.
+     */
+    private ParsedBatch parse(MappedLineReader.Chunk chunk, ObjectReader reader) {
+        ByteBuffer bytes = chunk.getBytes();
+        List<Message> candidates = new ArrayList<>();
+        List<Long> candidateOffsets = new ArrayList<>();
+        int lineStart = 0;
+        int limit = bytes.limit();
+        for (int i = 0; i <= limit; i++) {
+            if (i < limit && bytes.get(i) != '\n') {
+                continue;
+            }
+            int lineEnd = i > lineStart && bytes.get(i - 1) == '\r' ? i - 1 : i;
+            long lineOffset = chunk.getStartOffset() + lineStart;
+            if (!isBlank(bytes, lineStart, lineEnd)) {
+                ByteBuffer line = bytes.duplicate();
+                line.position(lineStart).limit(lineEnd);
+                try {
+                    Message record = reader.readValue(new ByteBufferBackedInputStream(line));
+                    Message message = new Message(record.getPostedBy(), record.getMessageText(), record.getTimePostedEpoch());
+                    MessageService.validateNewMessage(message);
+                    candidates.add(message);
+                    candidateOffsets.add(lineOffset);
+                } catch (IOException exception) {
+                    reject(lineOffset, "Record is not a valid JSON message.");
+                } catch (InvalidInputException exception) {
+                    reject(lineOffset, exception.getMessage());
+                }
+            }
+            lineStart = i + 1;
+        }
+
+        Set<Integer> posters = new HashSet<>();
+        for (Message message : candidates) {
+            posters.add(message.getPostedBy());
+        }
+        Set<Integer> existingPosters = new HashSet<>();
+        for (Account account : accountRepository.findAllById(posters)) {
+            existingPosters.add(account.getAccountId());
+        }
+        List<Message> messages = new ArrayList<>(candidates.size());
+        List<Long> lineOffsets = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            Message message = candidates.get(i);
+            if (existingPosters.contains(message.getPostedBy())) {
+                messages.add(message);
+                lineOffsets.add(candidateOffsets.get(i));
+            } else {
+                reject(candidateOffsets.get(i), "User with ID " + message.getPostedBy() + " does not exist. Message creation failed.");
+            }
+        }
+        return new ParsedBatch(chunk.getStartOffset(), chunk.getEndOffset(), messages, lineOffsets);
+    }
+
+    /**
+     * Writes a batch in one transaction and advances the checkpoint past it. A batch that was
+     * being written when a previous run stopped is written again, each record with the ID it got
+     * then for its line, so that a record is never stored twice even if other records of the
+     * batch validate differently this time. Records that have become valid get new IDs.
+     */
+    private ImportCheckpoint write(ParsedBatch batch, ImportCheckpoint checkpoint, Path checkpointPath,
+            MessageIdAllocator idAllocator, TransactionTemplate transactionTemplate) throws IOException {
+        if (!batch.messages.isEmpty()) {
+            Map<Long, Integer> recordedIds = checkpoint.pendingIdsAt(batch.startOffset);
+            boolean replay = !recordedIds.isEmpty();
+            Map<Long, Integer> ids = new LinkedHashMap<>();
+            List<Object[]> rows = new ArrayList<>(batch.messages.size());
+            for (int i = 0; i < batch.messages.size(); i++) {
+                Message message = batch.messages.get(i);
+                Long lineOffset = batch.lineOffsets.get(i);
+                Integer id = recordedIds.get(lineOffset);
+                if (id == null) {
+                    id = idAllocator.next();
+                }
+                ids.put(lineOffset, id);
+                rows.add(new Object[] {id, message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch()});
+            }
+            if (replay && !ids.keySet().equals(recordedIds.keySet())) {
+                LOGGER.warn("Batch at byte offset {} now has {} valid records instead of {}; writing the records still valid with their recorded IDs - MessageImportRunner.write(ParsedBatch batch, ImportCheckpoint checkpoint) method.",
+                        batch.startOffset, ids.size(), recordedIds.size());
+            }
+            if (!ids.equals(recordedIds)) {
+                ImportCheckpoint.writing(batch.startOffset, ids).write(checkpointPath);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(replay ? MERGE_SQL : INSERT_SQL, rows);
+                for (Integer id : ids.values()) {
+                    negativeCache.getMessages().created(id);
+                }
+            });
+        }
+        ImportCheckpoint next = ImportCheckpoint.at(batch.endOffset);
+        next.write(checkpointPath);
+        return next;
+    }
+
+    private void reject(long lineOffset, String reason) {
+        if (rejected.incrementAndGet() <= LOGGED_REJECTS) {
+            LOGGER.warn("Rejected record at byte offset {}: {} - MessageImportRunner.parse(MappedLineReader.Chunk chunk, ObjectReader reader) method.", lineOffset, reason);
+        }
+    }
+
+    private void logProgress(String label, long imported, long bytesRead, long offset, long size, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        LOGGER.info("{} {} messages, rejected {}, {} of {} bytes ({}%), {} messages/s, {} MB/s - MessageImportRunner.importFile() method.",
+                label, imported, rejected.get(), offset, size, size == 0 ? 100 : offset * 100 / size,
+                Math.round(imported / seconds), String.format("%.1f", bytesRead / seconds / (1024 * 1024)));
+    }
+
+    private static boolean isBlank(ByteBuffer bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = bytes.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ParsedBatch join(Future<ParsedBatch> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            throw cause instanceof Exception ? (Exception) cause : exception;
+        }
+    }
+
+    /**
+     * The valid messages of a chunk, ready to be written.
+     */
+    private static final class ParsedBatch {
+
+        private final long startOffset;
+        private final long endOffset;
+        private final List<Message> messages;
+        private final List<Long> lineOffsets;
+
+        private ParsedBatch(long startOffset, long endOffset, List<Message> messages, List<Long> lineOffsets) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.messages = messages;
+            this.lineOffsets = lineOffsets;
+        }
+    }
+}
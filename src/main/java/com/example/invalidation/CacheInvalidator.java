@@ -0,0 +1,194 @@
+package com.example.invalidation;
+
+import java.security.SecureRandom;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.example.cache.NegativeCache;
+import com.example.cache.UsernameFilter;
+import com.example.entity.Account;
+import com.example.stream.MessageEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the in-process caches of this instance consistent with writes made by other instances.
+ *
+ * <p>After a write to an account or a message commits, the key is published on the
+ * {@link InvalidationBus}. Events received from other instances drop the matching entries here:</p>
+ * <ul>
+ *   <li>{@code ACCOUNT} evicts the account from the second-level cache and forgets the ID in the
+ *   negative cache. The key is the account ID, followed by {@code :username} when the account
+ *   was deleted; only then is the lookup of that one username evicted as well. Registrations
+ *   and password rehashes leave the username lookups alone, since neither changes what a
+ *   cached username resolves to.</li>
+ *   <li>{@code MESSAGE} forgets the ID in the negative cache.</li>
+ *   <li>{@code USERNAME} adds the name to the username filter.</li>
+ * </ul>
+ *
+ * <p>Published and received events are counted in {@code socialmedia.invalidation.published}
+ * and {@code socialmedia.invalidation.received}, tagged by kind.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class CacheInvalidator {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    @Autowired
+    private InvalidationBus bus;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private NegativeCache negativeCache;
+
+    @Autowired
+    private UsernameFilter usernameFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Random ID of this instance, used to ignore events that come back to their publisher.
+     */
+    private final long instanceId = new SecureRandom().nextLong();
+
+    private Cache secondLevelCache;
+
+    private SessionFactoryImplementor sessionFactory;
+
+    @PostConstruct
+    void init() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        secondLevelCache = sessionFactory.getCache();
+        bus.subscribe(this::onInvalidation);
+    }
+
+    /**
+     * Announces a new or changed account once the current transaction commits.
+     *
+     * @param accountId the ID of the created or changed account
+     */
+    public void accountChanged(Integer accountId) {
+        publishAfterCommit(InvalidationEvent.Kind.ACCOUNT, String.valueOf(accountId));
+    }
+
+    /**
+     * Announces a deleted account once the current transaction commits, so that other instances
+     * also drop the lookup of its username.
+     *
+     * @param accountId the ID of the deleted account
+     * @param username the username of the deleted account
+     */
+    public void accountDeleted(Integer accountId, String username) {
+        publishAfterCommit(InvalidationEvent.Kind.ACCOUNT, accountId + ":" + username);
+    }
+
+    /**
+     * Announces a newly taken username once the current transaction commits.
+     *
+     * @param username the username
+     */
+    public void usernameTaken(String username) {
+        publishAfterCommit(InvalidationEvent.Kind.USERNAME, username);
+    }
+
+    /**
+     * Announces a message change. Message events are published after commit, or right away
+     * outside a transaction.
+     *
+     * @param event the message event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageEvent(MessageEvent event) {
+        publish(InvalidationEvent.Kind.MESSAGE, String.valueOf(event.getMessageId()));
+    }
+
+    private void publishAfterCommit(InvalidationEvent.Kind kind, String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(kind, key);
+                }
+            });
+        } else {
+            publish(kind, key);
+        }
+    }
+
+    private void publish(InvalidationEvent.Kind kind, String key) {
+        try {
+            bus.publish(new InvalidationEvent(kind, key, instanceId));
+            meterRegistry.counter("socialmedia.invalidation.published", "kind", kind.name().toLowerCase()).increment();
+        } catch (RuntimeException exception) {
+            LOGGER.warn("Failed to publish invalidation of {} {}: {} - CacheInvalidator.publish(InvalidationEvent.Kind kind, String key) method.", kind, key, exception.getMessage());
+        }
+    }
+
+    private void onInvalidation(InvalidationEvent event) {
+        if (event.getOrigin() == instanceId) {
+            return;
+        }
+        meterRegistry.counter("socialmedia.invalidation.received", "kind", event.getKind().name().toLowerCase()).increment();
+        try {
+            switch (event.getKind()) {
+                case ACCOUNT:
+                    String key = event.getKey();
+                    int separator = key.indexOf(':');
+                    Integer accountId = Integer.valueOf(separator < 0 ? key : key.substring(0, separator));
+                    secondLevelCache.evictEntityData(Account.class, accountId);
+                    if (separator >= 0) {
+                        evictUsername(key.substring(separator + 1));
+                    }
+                    negativeCache.getAccounts().created(accountId);
+                    break;
+                case MESSAGE:
+                    negativeCache.getMessages().created(Integer.valueOf(event.getKey()));
+                    break;
+                case USERNAME:
+                    usernameFilter.add(event.getKey());
+                    break;
+                default:
+                    break;
+            }
+        } catch (RuntimeException exception) {
+            LOGGER.warn("Failed to apply {}: {} - CacheInvalidator.onInvalidation(InvalidationEvent event) method.", event, exception.getMessage());
+        }
+    }
+
+    /**
+     * Evicts the natural-ID cache entry of one username, leaving the lookups of all other
+     * usernames cached.
+     */
+    private void evictUsername(String username) {
+        EntityPersister persister = sessionFactory.getMetamodel().entityPersister(Account.class);
+        NaturalIdDataAccess naturalIds = persister.getNaturalIdCacheAccessStrategy();
+        if (naturalIds == null) {
+            return;
+        }
+        try (Session session = sessionFactory.openSession()) {
+            naturalIds.evict(naturalIds.generateCacheKey(new Object[] {username}, persister, (SharedSessionContractImplementor) session));
+        }
+    }
+}
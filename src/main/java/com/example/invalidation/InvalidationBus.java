@@ -0,0 +1,34 @@
+package com.example.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport that carries {@link InvalidationEvent}s between the instances of the application
+ * that share one database.
+ *
+ * <p>Delivery is best effort: an event may be lost, in which case the receiver's cache entry
+ * stays stale until it expires. An implementation delivers an event to every other instance and
+ * may deliver it back to the publisher, which is why events carry their origin.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public interface InvalidationBus {
+
+    /**
+     * Sends an event to the other instances. Must not block for long, since it is called on
+     * request threads after commit.
+     *
+     * @param event the event
+     */
+    void publish(InvalidationEvent event);
+
+    /**
+     * Registers the receiver of the events published by other instances. Events may be handed to
+     * it on any thread.
+     *
+     * @param listener the receiver
+     */
+    void subscribe(Consumer<InvalidationEvent> listener);
+}
@@ -0,0 +1,126 @@
+package com.example.invalidation;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Notice that the cached state for one key may be stale because another instance changed it.
+ *
+ * <p>Events are encoded as a version byte, the kind, the 8-byte ID of the originating instance
+ * and the key as length-prefixed UTF-8, about 15 to 30 bytes for typical keys.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public final class InvalidationEvent {
+
+    /**
+     * What the key of an event identifies.
+     */
+    public enum Kind {
+
+        /**
+         * An account ID; the account was created, changed or deleted.
+         */
+        ACCOUNT,
+
+        /**
+         * A message ID; the message was created, changed or deleted.
+         */
+        MESSAGE,
+
+        /**
+         * A username that has been taken by a new account.
+         */
+        USERNAME
+    }
+
+    private static final byte VERSION = 1;
+    private static final Kind[] KINDS = Kind.values();
+
+    /**
+     * Largest encoded key, which keeps every event within one datagram.
+     */
+    static final int MAX_KEY_LENGTH = 1024;
+
+    private final Kind kind;
+    private final String key;
+    private final long origin;
+
+    /**
+     * Creates an event.
+     *
+     * @param kind what the key identifies
+     * @param key the key
+     * @param origin the ID of the instance that made the change
+     */
+    public InvalidationEvent(Kind kind, String key, long origin) {
+        this.kind = kind;
+        this.key = key;
+        this.origin = origin;
+    }
+
+    /**
+     * Decodes an event.
+     *
+     * @param buffer the encoded event, positioned at its first byte
+     * @return the event
+     * @throws IllegalArgumentException if the buffer does not hold an event of a known version
+     */
+    public static InvalidationEvent decode(ByteBuffer buffer) {
+        try {
+            if (buffer.get() != VERSION) {
+                throw new IllegalArgumentException("Unknown invalidation event version.");
+            }
+            int kind = buffer.get();
+            if (kind < 0 || kind >= KINDS.length) {
+                throw new IllegalArgumentException("Unknown invalidation event kind: " + kind);
+            }
+            long origin = buffer.getLong();
+            byte[] key = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(key);
+            return new InvalidationEvent(KINDS[kind], new String(key, StandardCharsets.UTF_8), origin);
+        } catch (BufferUnderflowException exception) {
+            throw new IllegalArgumentException("Truncated invalidation event.", exception);
+        }
+    }
+
+    /**
+     * Encodes this event.
+     *
+     * @return a buffer holding the encoded event, ready to be read
+     * @throws IllegalArgumentException if the key is longer than {@value #MAX_KEY_LENGTH} bytes
+     */
+    public ByteBuffer encode() {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Invalidation key is longer than " + MAX_KEY_LENGTH + " bytes.");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(2 + Long.BYTES + Short.BYTES + keyBytes.length)
+                .put(VERSION)
+                .put((byte) kind.ordinal())
+                .putLong(origin)
+                .putShort((short) keyBytes.length)
+                .put(keyBytes);
+        return buffer.flip();
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public String toString() {
+        return "InvalidationEvent{kind=" + kind + ", key=" + key + ", origin=" + origin + "}";
+    }
+}
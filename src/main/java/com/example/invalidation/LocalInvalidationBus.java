@@ -0,0 +1,68 @@
+package com.example.invalidation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidation bus between application contexts running in the same JVM.
+ *
+ * <p>Every bus joins the group named by {@code socialmedia.invalidation.group} on startup and
+ * leaves it on shutdown. An event is handed directly to the listeners of the other members of
+ * the group, on the publishing thread. This is the default transport; with a single instance it
+ * has nothing to deliver to.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+@ConditionalOnProperty(name = "socialmedia.invalidation.transport", havingValue = "local", matchIfMissing = true)
+public class LocalInvalidationBus implements InvalidationBus, DisposableBean {
+
+    private static final Map<String, List<LocalInvalidationBus>> GROUPS = new ConcurrentHashMap<>();
+
+    /**
+     * Name of the group of contexts that see each other's events.
+     */
+    @Value("${socialmedia.invalidation.group:default}")
+    private String group;
+
+    private final List<Consumer<InvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    void join() {
+        GROUPS.computeIfAbsent(group, name -> new CopyOnWriteArrayList<>()).add(this);
+    }
+
+    @Override
+    public void publish(InvalidationEvent event) {
+        for (LocalInvalidationBus member : GROUPS.getOrDefault(group, List.of())) {
+            if (member != this) {
+                for (Consumer<InvalidationEvent> listener : member.listeners) {
+                    listener.accept(event);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void destroy() {
+        GROUPS.computeIfPresent(group, (name, members) -> {
+            members.remove(this);
+            return members.isEmpty() ? null : members;
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.invalidation;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidation bus over UDP, for instances on one host or one trusted network.
+ *
+ * <p>Each instance listens on {@code socialmedia.invalidation.udp.bind-address} and
+ * {@code socialmedia.invalidation.udp.port} and sends every event as one datagram to each address
+ * in {@code socialmedia.invalidation.udp.peers}, a comma-separated list of {@code host:port}.
+ * The peer list may be identical on all instances; datagrams an instance receives from itself
+ * are dropped by their origin.</p>
+ *
+ * <p>UDP gives no delivery guarantee. A lost event leaves the receiver's entry stale until it
+ * expires from its cache. Datagrams are neither authenticated nor encrypted, so the port must
+ * not be reachable from untrusted networks.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+@ConditionalOnProperty(name = "socialmedia.invalidation.transport", havingValue = "udp")
+public class UdpInvalidationBus implements InvalidationBus, DisposableBean {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(UdpInvalidationBus.class);
+
+    /**
+     * Address the instance receives events on.
+     */
+    @Value("${socialmedia.invalidation.udp.bind-address:127.0.0.1}")
+    private String bindAddress;
+
+    /**
+     * Port the instance receives events on.
+     */
+    @Value("${socialmedia.invalidation.udp.port:9100}")
+    private int port;
+
+    /**
+     * Addresses of the instances events are sent to.
+     */
+    @Value("${socialmedia.invalidation.udp.peers:}")
+    private List<String> peers;
+
+    private final List<Consumer<InvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final List<InetSocketAddress> peerAddresses = new ArrayList<>();
+    private DatagramChannel channel;
+    private Thread receiver;
+
+    /**
+     * Binds the socket and starts the receiver thread.
+     *
+     * @throws IOException if the socket cannot be bound
+     */
+    @PostConstruct
+    void start() throws IOException {
+        for (String peer : peers) {
+            if (!peer.isBlank()) {
+                int colon = peer.lastIndexOf(':');
+                peerAddresses.add(new InetSocketAddress(peer.substring(0, colon).trim(), Integer.parseInt(peer.substring(colon + 1).trim())));
+            }
+        }
+        channel = DatagramChannel.open().bind(new InetSocketAddress(bindAddress, port));
+        receiver = new Thread(this::receive, "invalidation-udp-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+        LOGGER.info("Invalidation bus listening on {}:{} with peers {} - UdpInvalidationBus.start() method.", bindAddress, port, peerAddresses);
+    }
+
+    @Override
+    public void publish(InvalidationEvent event) {
+        ByteBuffer datagram = event.encode();
+        for (InetSocketAddress peer : peerAddresses) {
+            try {
+                channel.send(datagram.duplicate(), peer);
+            } catch (IOException exception) {
+                LOGGER.warn("Failed to send {} to {}: {} - UdpInvalidationBus.publish(InvalidationEvent event) method.", event, peer, exception.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationEvent> listener) {
+        listeners.add(listener);
+    }
+
+    private void receive() {
+        ByteBuffer datagram = ByteBuffer.allocate(64 + InvalidationEvent.MAX_KEY_LENGTH);
+        while (channel.isOpen()) {
+            try {
+                datagram.clear();
+                channel.receive(datagram);
+                datagram.flip();
+                InvalidationEvent event = InvalidationEvent.decode(datagram);
+                for (Consumer<InvalidationEvent> listener : listeners) {
+                    listener.accept(event);
+                }
+            } catch (ClosedChannelException exception) {
+                return;
+            } catch (IOException | RuntimeException exception) {
+                LOGGER.warn("Dropped invalidation datagram: {} - UdpInvalidationBus.receive() method.", exception.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.ratelimit;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the write endpoint rate limits, bound from {@code socialmedia.rate-limit.*}.
+ *
+ * <p>Limits are configured per endpoint name, for example
+ * {@code socialmedia.rate-limit.endpoints.create-message.capacity=20} and
+ * {@code socialmedia.rate-limit.endpoints.create-message.refill-per-second=10}. Every endpoint
+ * keeps one bucket per account and one per client IP address.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+@ConfigurationProperties(prefix = "socialmedia.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Endpoint name of {@code POST /messages}.
+     */
+    public static final String CREATE_MESSAGE = "create-message";
+
+    /**
+     * Endpoint name of {@code PATCH /messages/{messageId}}.
+     */
+    public static final String UPDATE_MESSAGE = "update-message";
+
+    /**
+     * Whether rate limiting is applied at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of buckets kept per endpoint before the least recently used are evicted.
+     */
+    private long maxTrackedKeys = 100_000;
+
+    /**
+     * How long an untouched bucket is kept. A bucket idle this long is full again anyway.
+     */
+    private Duration idleExpiry = Duration.ofMinutes(10);
+
+    /**
+     * Limits keyed by endpoint name.
+     */
+    private Map<String, Limit> endpoints = new LinkedHashMap<>();
+
+    /**
+     * Creates the properties with defaults for the write endpoints.
+     */
+    public RateLimitProperties() {
+        endpoints.put(CREATE_MESSAGE, new Limit());
+        endpoints.put(UPDATE_MESSAGE, new Limit());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxTrackedKeys() {
+        return maxTrackedKeys;
+    }
+
+    public void setMaxTrackedKeys(long maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    public Duration getIdleExpiry() {
+        return idleExpiry;
+    }
+
+    public void setIdleExpiry(Duration idleExpiry) {
+        this.idleExpiry = idleExpiry;
+    }
+
+    public Map<String, Limit> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Limit> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * Token bucket settings of a single endpoint.
+     */
+    public static class Limit {
+
+        /**
+         * Maximum burst of requests.
+         */
+        private long capacity = 20;
+
+        /**
+         * Sustained number of requests per second.
+         */
+        private double refillPerSecond = 10;
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
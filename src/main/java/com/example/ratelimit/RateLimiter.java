@@ -0,0 +1,87 @@
+package com.example.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.example.exception.RateLimitExceededException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Per-account and per-client-IP rate limiter for the write endpoints.
+ *
+ * <p>Each endpoint has its own bounded, expiring map of {@link TokenBucket}s. A request must get
+ * a token from the bucket of its client address and, when the caller is known, from the bucket
+ * of its account. The check is meant to run before any service or repository work.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class RateLimiter {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RateLimiter.class);
+
+    /**
+     * Rate limit configuration.
+     */
+    @Autowired
+    private RateLimitProperties properties;
+
+    /**
+     * Buckets per endpoint name, each keyed by account or client address.
+     */
+    private final Map<String, Cache<String, TokenBucket>> bucketsByEndpoint = new ConcurrentHashMap<>();
+
+    /**
+     * Takes a token for the given caller on the given endpoint.
+     *
+     * @param endpoint the endpoint name, such as {@link RateLimitProperties#CREATE_MESSAGE}
+     * @param accountId the account making the request, or null if unknown
+     * @param clientAddress the client IP address, or null if unknown
+     * @throws RateLimitExceededException if either the account or the client address is over its limit
+     */
+    public void acquire(String endpoint, Integer accountId, String clientAddress) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        RateLimitProperties.Limit limit = properties.getEndpoints().get(endpoint);
+        if (limit == null) {
+            return;
+        }
+
+        Cache<String, TokenBucket> buckets = bucketsByEndpoint.computeIfAbsent(endpoint, name -> Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedKeys())
+                .expireAfterAccess(properties.getIdleExpiry())
+                .build());
+        long now = System.nanoTime();
+
+        if (clientAddress != null) {
+            take(endpoint, buckets, "ip:" + clientAddress, limit, now);
+        }
+        if (accountId != null) {
+            take(endpoint, buckets, "account:" + accountId, limit, now);
+        }
+    }
+
+    /**
+     * Takes a token from one bucket, creating it full if it does not exist yet.
+     */
+    private void take(String endpoint, Cache<String, TokenBucket> buckets, String key, RateLimitProperties.Limit limit, long now) {
+        TokenBucket bucket = buckets.get(key, ignored -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond(), now));
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            LOGGER.warn("Rate limit exceeded for {} on {} - RateLimiter.acquire(String endpoint, Integer accountId, String clientAddress) method.", key, endpoint);
+            throw new RateLimitExceededException("Rate limit exceeded for " + endpoint + ". Retry in " + retryAfterSeconds + " seconds.", retryAfterSeconds);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket.
+ *
+ * <p>The bucket is implemented with the generic cell rate algorithm: instead of storing a token
+ * count and a refill timestamp, it stores a single "theoretical arrival time" in an
+ * {@link AtomicLong}. A request is allowed when the bucket would not overflow its burst capacity,
+ * and the arrival time is then advanced by one emission interval with a compare-and-set. This is
+ * equivalent to a token bucket of the same capacity and refill rate, but needs no lock and no
+ * background refill.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public final class TokenBucket {
+
+    /**
+     * Nanoseconds it takes to refill a single token.
+     */
+    private final long emissionIntervalNanos;
+
+    /**
+     * Nanoseconds covered by a full bucket, i.e. capacity times the emission interval.
+     */
+    private final long burstNanos;
+
+    /**
+     * The time at which the bucket would be completely full again.
+     */
+    private final AtomicLong theoreticalArrivalNanos;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param capacity the maximum number of tokens, which is also the allowed burst
+     * @param refillPerSecond the number of tokens added per second
+     * @param nowNanos the current {@link System#nanoTime()} value
+     * @throws IllegalArgumentException if capacity or refill rate is not positive
+     */
+    public TokenBucket(long capacity, double refillPerSecond, long nowNanos) {
+        if (capacity <= 0 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Token bucket capacity and refill rate must be positive.");
+        }
+        this.emissionIntervalNanos = Math.max(1L, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Attempts to take one token from the bucket.
+     *
+     * @param nowNanos the current {@link System#nanoTime()} value
+     * @return 0 if a token was taken, otherwise the number of nanoseconds until one becomes available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrivalNanos.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long overflow = next - nowNanos - burstNanos;
+            if (overflow > 0) {
+                return overflow;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(current, next)) {
+                return 0L;
+            }
+        }
+    }
+}
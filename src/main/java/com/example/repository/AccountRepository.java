@@ -1,21 +1,28 @@
 package com.example.repository;
 
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.example.entity.Account;
+import com.example.entity.AccountView;
 
 /**
  * Repository interface for accessing and managing Account entities in the database.
- * This interface extends JpaRepository to provide CRUD operations for Account entities.
+ * This interface extends JpaRepository to provide CRUD operations for Account entities,
+ * and CachedAccountLookups for lookups served from the second-level cache.
  *
  * @author Micah Hogan
  * @version 1.0
  * @since 1.0
  */
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Integer> {
+public interface AccountRepository extends JpaRepository<Account, Integer>, CachedAccountLookups {
     
     /**
      * Checks if an account with the specified username exists.
@@ -26,22 +33,27 @@ public interface AccountRepository extends JpaRepository<Account, Integer> {
     boolean existsByUsername(String username);
     
     /**
-     * Finds an account by its username and password.
+     * Replaces the stored password of an account, provided it still has the expected value.
+     * Used to migrate plaintext passwords and outdated hashes after a successful login.
      *
-     * @param username the username of the account
-     * @param password the password of the account
-     * @return an Optional containing the found account, or an empty Optional if no account was found
+     * @param accountId the ID of the account
+     * @param expectedPassword the stored password the new one replaces
+     * @param newPassword the new password hash
+     * @return the number of rows updated, 0 if the password was changed in the meantime
      */
-    Optional<Account> findByUsernameAndPassword(String username, String password);
+    @Modifying
+    @Transactional
+    @Query("update Account a set a.password = :newPassword where a.accountId = :accountId and a.password = :expectedPassword")
+    int updatePassword(@Param("accountId") Integer accountId, @Param("expectedPassword") String expectedPassword,
+            @Param("newPassword") String newPassword);
     
     /**
-     * Checks if an account with the specified username and password exists.
+     * Reads all accounts as unmanaged views, without loading entities into the persistence context.
      *
-     * @param username the username to check
-     * @param password the password to check
-     * @return true if an account with the specified username and password exists, false otherwise
+     * @return views of all accounts
      */
-    boolean existsByUsernameAndPassword(String username, String password);
+    @Query("select new com.example.entity.AccountView(a.accountId, a.username, a.password) from Account a")
+    List<AccountView> findAllViews();
     
     /**
      * Deletes an account by its ID.
@@ -51,5 +63,24 @@ public interface AccountRepository extends JpaRepository<Account, Integer> {
      * @throws IllegalArgumentException if accountId is null
      */
     void deleteById(@NonNull Integer accountId);
+    
+    /**
+     * Checks whether an account exists, through the second-level cache.
+     * Declared here to pick the CachedAccountLookups implementation over the query-based one.
+     *
+     * @param accountId the ID of the account
+     * @return true if the account exists, false otherwise
+     */
+    @Override
+    boolean existsById(Integer accountId);
+    
+    /**
+     * Finds accounts by ID, through the second-level cache.
+     * Declared here to pick the CachedAccountLookups implementation over the query-based one.
+     *
+     * @param accountIds the IDs of the accounts
+     * @return the accounts found, in no particular order
+     */
+    @Override
+    List<Account> findAllById(Iterable<Integer> accountIds);
 }
-
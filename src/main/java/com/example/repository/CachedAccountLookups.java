@@ -0,0 +1,44 @@
+package com.example.repository;
+
+import java.util.List;
+import java.util.Optional;
+import com.example.entity.Account;
+
+/**
+ * Account lookups that go through the Hibernate second-level cache before the database.
+ *
+ * <p>These replace the query-based versions Spring Data would otherwise derive or provide, which
+ * always run SQL. {@link AccountRepository} extends this interface, so callers keep using the
+ * repository as before.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public interface CachedAccountLookups {
+
+    /**
+     * Finds an account by its username through the natural-id cache.
+     *
+     * @param username the username of the account
+     * @return an Optional containing the found account, or an empty Optional if no account was found
+     */
+    Optional<Account> findByUsername(String username);
+
+    /**
+     * Checks whether an account exists through the entity cache.
+     *
+     * @param accountId the ID of the account
+     * @return true if the account exists, false otherwise
+     */
+    boolean existsById(Integer accountId);
+
+    /**
+     * Finds accounts by ID, taking those in the entity cache from there and loading the rest
+     * with one IN-list query.
+     *
+     * @param accountIds the IDs of the accounts
+     * @return the accounts found, in no particular order
+     */
+    List<Account> findAllById(Iterable<Integer> accountIds);
+}
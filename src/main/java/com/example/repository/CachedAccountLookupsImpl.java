@@ -0,0 +1,46 @@
+package com.example.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Session;
+import com.example.entity.Account;
+
+/**
+ * Implementation of {@link CachedAccountLookups} on the Hibernate session API, picked up by
+ * Spring Data as a repository fragment.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+class CachedAccountLookupsImpl implements CachedAccountLookups {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Account> findByUsername(String username) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Account.class).loadOptional(username);
+    }
+
+    @Override
+    public boolean existsById(Integer accountId) {
+        return entityManager.find(Account.class, accountId) != null;
+    }
+
+    @Override
+    public List<Account> findAllById(Iterable<Integer> accountIds) {
+        List<Integer> ids = new ArrayList<>();
+        accountIds.forEach(ids::add);
+        List<Account> accounts = new ArrayList<>(ids.size());
+        for (Account account : entityManager.unwrap(Session.class).byMultipleIds(Account.class).multiLoad(ids)) {
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        return accounts;
+    }
+}
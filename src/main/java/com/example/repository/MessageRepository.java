@@ -1,9 +1,15 @@
 package com.example.repository;
 
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.example.entity.Message;
+import com.example.entity.MessageView;
 
 /**
  * Repository interface for accessing and managing Message entities in the database.
@@ -23,4 +29,49 @@ public interface MessageRepository extends JpaRepository<Message, Integer> {
      * @return a list of messages posted by the specified user
      */
     List<Message> findByPostedBy(Integer postedBy);
+
+    /**
+     * Reads all messages as unmanaged views, without loading entities into the persistence context.
+     *
+     * @return views of all messages
+     */
+    @Query("select new com.example.entity.MessageView(m.messageId, m.postedBy, m.messageText, m.timePostedEpoch) from Message m")
+    List<MessageView> findAllViews();
+
+    /**
+     * Reads one page of messages, in message ID order, as unmanaged views.
+     *
+     * @param afterId the message ID the page starts after
+     * @param page the page size; the offset is always zero, the cursor replaces it
+     * @return views of the messages with an ID above {@code afterId}, lowest IDs first
+     */
+    @Query("select new com.example.entity.MessageView(m.messageId, m.postedBy, m.messageText, m.timePostedEpoch) from Message m where m.messageId > :afterId order by m.messageId")
+    List<MessageView> findViewsAfter(@Param("afterId") Integer afterId, Pageable page);
+    
+    /**
+     * Reads the messages posted by a specific user as unmanaged views, without loading entities
+     * into the persistence context.
+     *
+     * @param postedBy the ID of the user who posted the messages
+     * @return views of the messages posted by the specified user
+     */
+    @Query("select new com.example.entity.MessageView(m.messageId, m.postedBy, m.messageText, m.timePostedEpoch) from Message m where m.postedBy = :postedBy")
+    List<MessageView> findViewsByPostedBy(@Param("postedBy") Integer postedBy);
+
+    /**
+     * Inserts a message under an ID reserved for it beforehand, or replaces the message stored
+     * under that ID, so that writing the same message twice leaves one row. Joins the caller's
+     * transaction if there is one.
+     *
+     * @param messageId the reserved message ID
+     * @param postedBy the ID of the user who posted the message
+     * @param messageText the message text
+     * @param timePostedEpoch the time of the message, in seconds since the epoch
+     * @return the number of rows written
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "merge into message (messageId, postedBy, messageText, timePostedEpoch) key (messageId) values (:messageId, :postedBy, :messageText, :timePostedEpoch)", nativeQuery = true)
+    int merge(@Param("messageId") Integer messageId, @Param("postedBy") Integer postedBy,
+            @Param("messageText") String messageText, @Param("timePostedEpoch") Long timePostedEpoch);
 }
@@ -0,0 +1,401 @@
+package com.example.repository.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import com.example.entity.Message;
+
+/**
+ * Message store that partitions the message table horizontally across N independent databases.
+ *
+ * <p>Rows are placed on a shard chosen by {@code postedBy}, so every message written by one
+ * account lives on the same shard. Each shard draws from its own sequence and the generated
+ * message ID encodes the owning shard ({@code id = sequence * shardCount + shardIndex}), which
+ * lets lookups, updates and deletes by message ID go straight to a single shard without a
+ * directory lookup. Only {@link #findAll()} and {@link #queryEachShard} touch every shard;
+ * findAll queries them in parallel and performs an ordered k-way merge on {@code messageId}.</p>
+ *
+ * <p>Shards are expected to contain the schema from {@code message-shard-schema.sql}. Accounts
+ * are not sharded and remain in the primary database.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class ShardedMessageRepository implements AutoCloseable {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardedMessageRepository.class);
+
+    /**
+     * Maps a row of the shard message table to a detached Message.
+     */
+    private static final RowMapper<Message> MESSAGE_ROW_MAPPER = (resultSet, rowNumber) -> new Message(
+            resultSet.getInt("messageId"),
+            resultSet.getInt("postedBy"),
+            resultSet.getString("messageText"),
+            resultSet.getLong("timePostedEpoch"));
+
+    /**
+     * The shard data sources, closed together with this repository when they are closeable.
+     */
+    private final List<DataSource> shardDataSources;
+
+    /**
+     * One JdbcTemplate per shard, indexed by shard number.
+     */
+    private final List<JdbcTemplate> shards;
+
+    /**
+     * Executor used to query the shards in parallel for scatter-gather reads.
+     */
+    private final ExecutorService scatterExecutor;
+
+    /**
+     * Creates a repository over the given shard data sources. The list order defines the shard index
+     * and must stay stable for the lifetime of the data, since it is encoded into every message ID.
+     *
+     * @param shardDataSources the data sources of the shards, in shard order
+     * @throws IllegalArgumentException if no shard data source is given
+     */
+    public ShardedMessageRepository(List<DataSource> shardDataSources) {
+        if (shardDataSources == null || shardDataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard data source is required.");
+        }
+        this.shardDataSources = List.copyOf(shardDataSources);
+        List<JdbcTemplate> templates = new ArrayList<>(shardDataSources.size());
+        for (DataSource dataSource : shardDataSources) {
+            templates.add(new JdbcTemplate(dataSource));
+        }
+        this.shards = Collections.unmodifiableList(templates);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scatterExecutor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "message-shard-scatter-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the number of shards managed by this repository.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Returns the shard index that owns the messages of the given account.
+     *
+     * @param postedBy the account ID
+     * @return the shard index
+     */
+    public int shardForAccount(int postedBy) {
+        return Math.floorMod(postedBy, shards.size());
+    }
+
+    /**
+     * Returns the shard index encoded in the given message ID.
+     *
+     * @param messageId the message ID
+     * @return the shard index
+     */
+    public int shardForMessage(int messageId) {
+        return Math.floorMod(messageId, shards.size());
+    }
+
+    /**
+     * Inserts a new message, or updates the text of an existing one when it already carries an ID.
+     *
+     * @param message the message to save
+     * @return the saved message, with its generated ID when it was inserted
+     */
+    public Message save(Message message) {
+        if (message.getMessageId() != null) {
+            JdbcTemplate shard = shards.get(shardForMessage(message.getMessageId()));
+            shard.update("update message set messageText = ?, timePostedEpoch = ? where messageId = ?",
+                    message.getMessageText(), message.getTimePostedEpoch(), message.getMessageId());
+            return message;
+        }
+
+        int messageId = nextMessageId(message.getPostedBy());
+        shards.get(shardForMessage(messageId)).update("insert into message (messageId, postedBy, messageText, timePostedEpoch) values (?, ?, ?, ?)",
+                messageId, message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+        message.setMessageId(messageId);
+        return message;
+    }
+
+    /**
+     * Reserves a new message ID on the shard that owns the given account, without writing a message.
+     *
+     * @param postedBy the account ID
+     * @return a message ID that encodes the account's shard
+     */
+    public int nextMessageId(int postedBy) {
+        int shardIndex = shardForAccount(postedBy);
+        Integer sequence = shards.get(shardIndex).queryForObject("select next value for message_seq", Integer.class);
+        return Math.addExact(Math.multiplyExact(sequence, shards.size()), shardIndex);
+    }
+
+    /**
+     * Inserts a message under the ID it already carries, from {@link #nextMessageId(int)}, or
+     * replaces the message stored under that ID.
+     *
+     * @param message the message, with its ID
+     * @return the message
+     */
+    public Message merge(Message message) {
+        shards.get(shardForMessage(message.getMessageId())).update(
+                "merge into message (messageId, postedBy, messageText, timePostedEpoch) key (messageId) values (?, ?, ?, ?)",
+                message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+        return message;
+    }
+
+    /**
+     * Finds a message by its ID on the shard encoded in the ID.
+     *
+     * @param messageId the message ID
+     * @return an Optional containing the message, or an empty Optional if it does not exist
+     */
+    public Optional<Message> findById(int messageId) {
+        List<Message> messages = shards.get(shardForMessage(messageId))
+                .query("select * from message where messageId = ?", MESSAGE_ROW_MAPPER, messageId);
+        return messages.isEmpty() ? Optional.empty() : Optional.of(messages.get(0));
+    }
+
+    /**
+     * Finds messages by ID, with one IN-list query per shard that owns any of the IDs. The shards
+     * are queried in parallel when more than one is involved.
+     *
+     * @param messageIds the message IDs
+     * @return the messages found, in no particular order
+     */
+    public List<Message> findAllById(Collection<Integer> messageIds) {
+        Map<Integer, List<Integer>> idsByShard = new TreeMap<>();
+        for (Integer messageId : messageIds) {
+            idsByShard.computeIfAbsent(shardForMessage(messageId), shardIndex -> new ArrayList<>()).add(messageId);
+        }
+        if (idsByShard.size() == 1) {
+            Map.Entry<Integer, List<Integer>> only = idsByShard.entrySet().iterator().next();
+            return findOnShard(only.getKey(), only.getValue());
+        }
+
+        List<CompletableFuture<List<Message>>> futures = new ArrayList<>(idsByShard.size());
+        for (Map.Entry<Integer, List<Integer>> entry : idsByShard.entrySet()) {
+            futures.add(CompletableFuture.supplyAsync(() -> findOnShard(entry.getKey(), entry.getValue()), scatterExecutor));
+        }
+        List<Message> messages = new ArrayList<>(messageIds.size());
+        for (CompletableFuture<List<Message>> future : futures) {
+            messages.addAll(future.join());
+        }
+        return messages;
+    }
+
+    /**
+     * Checks whether a message with the given ID exists.
+     *
+     * @param messageId the message ID
+     * @return true if the message exists, false otherwise
+     */
+    public boolean existsById(int messageId) {
+        Integer count = shards.get(shardForMessage(messageId))
+                .queryForObject("select count(*) from message where messageId = ?", Integer.class, messageId);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Deletes a message by its ID.
+     *
+     * @param messageId the message ID
+     * @return the number of rows deleted
+     */
+    public int deleteById(int messageId) {
+        return shards.get(shardForMessage(messageId)).update("delete from message where messageId = ?", messageId);
+    }
+
+    /**
+     * Tells whether an account has any messages, reading only the shard that owns the account.
+     *
+     * @param postedBy the account ID
+     * @return true if the account has at least one message
+     */
+    public boolean existsByPostedBy(int postedBy) {
+        List<Integer> found = shards.get(shardForAccount(postedBy))
+                .queryForList("select 1 from message where postedBy = ? limit 1", Integer.class, postedBy);
+        return !found.isEmpty();
+    }
+
+    /**
+     * Finds all messages posted by an account, reading only the shard that owns the account.
+     *
+     * @param postedBy the account ID
+     * @return the messages of the account ordered by message ID
+     */
+    public List<Message> findByPostedBy(int postedBy) {
+        return shards.get(shardForAccount(postedBy))
+                .query("select * from message where postedBy = ? order by messageId", MESSAGE_ROW_MAPPER, postedBy);
+    }
+
+    /**
+     * Reads every shard in parallel and merges the per-shard results into one list ordered by message ID.
+     *
+     * @return all messages ordered by message ID
+     */
+    public List<Message> findAll() {
+        return scatter("select * from message order by messageId");
+    }
+
+    /**
+     * Reads one page of messages in message ID order, asking every shard in parallel for at most
+     * a page and merging the results.
+     *
+     * @param afterId the message ID the page starts after
+     * @param limit the page size
+     * @return the messages with an ID above {@code afterId}, lowest IDs first, at most {@code limit}
+     */
+    public List<Message> findAfter(int afterId, int limit) {
+        List<Message> merged = scatter("select * from message where messageId > ? order by messageId limit ?", afterId, limit);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    /**
+     * Runs a query ordered by message ID on every shard in parallel and merges the results.
+     *
+     * @param sql the query
+     * @param args the query arguments
+     * @return the rows of every shard ordered by message ID
+     */
+    private List<Message> scatter(String sql, Object... args) {
+        List<CompletableFuture<List<Message>>> futures = new ArrayList<>(shards.size());
+        for (JdbcTemplate shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> shard.query(sql, MESSAGE_ROW_MAPPER, args), scatterExecutor));
+        }
+
+        List<List<Message>> shardResults = new ArrayList<>(futures.size());
+        int total = 0;
+        for (CompletableFuture<List<Message>> future : futures) {
+            List<Message> shardResult = future.join();
+            shardResults.add(shardResult);
+            total += shardResult.size();
+        }
+        return merge(shardResults, total);
+    }
+
+    /**
+     * Runs a query on every shard in turn and hands each row to the handler as it is read, for
+     * exports that must not hold the result in memory. Rows arrive shard by shard, so they are
+     * only ordered within a shard.
+     *
+     * @param statementCreator creates the statement, run once per shard
+     * @param rowHandler receives every row of every shard
+     */
+    public void queryEachShard(PreparedStatementCreator statementCreator, RowCallbackHandler rowHandler) {
+        for (JdbcTemplate shard : shards) {
+            shard.query(statementCreator, rowHandler);
+        }
+    }
+
+    /**
+     * Reads the messages with the given IDs from one shard.
+     *
+     * @param shardIndex the shard index
+     * @param messageIds the message IDs, all owned by the shard
+     * @return the messages found
+     */
+    private List<Message> findOnShard(int shardIndex, List<Integer> messageIds) {
+        String placeholders = String.join(", ", Collections.nCopies(messageIds.size(), "?"));
+        return shards.get(shardIndex).query("select * from message where messageId in (" + placeholders + ")",
+                MESSAGE_ROW_MAPPER, messageIds.toArray());
+    }
+
+    /**
+     * Performs a k-way merge of lists that are each sorted by message ID.
+     *
+     * @param sortedRuns the sorted per-shard results
+     * @param total the combined number of messages
+     * @return a single list sorted by message ID
+     */
+    private static List<Message> merge(List<List<Message>> sortedRuns, int total) {
+        List<Message> merged = new ArrayList<>(total);
+        PriorityQueue<Run> heads = new PriorityQueue<>(Math.max(1, sortedRuns.size()));
+        for (List<Message> sortedRun : sortedRuns) {
+            Iterator<Message> iterator = sortedRun.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Run(iterator.next(), iterator));
+            }
+        }
+        while (!heads.isEmpty()) {
+            Run run = heads.poll();
+            merged.add(run.head);
+            if (run.rest.hasNext()) {
+                run.head = run.rest.next();
+                heads.add(run);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Shuts down the scatter executor and closes the shard data sources that hold resources.
+     */
+    @Override
+    public void close() {
+        LOGGER.info("Closing {} message shards - ShardedMessageRepository.close() method.", shards.size());
+        scatterExecutor.shutdownNow();
+        for (DataSource dataSource : shardDataSources) {
+            if (dataSource instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) dataSource).close();
+                } catch (Exception exception) {
+                    LOGGER.warn("Failed to close message shard data source - ShardedMessageRepository.close() method.", exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cursor over one sorted shard result used during the k-way merge.
+     */
+    private static final class Run implements Comparable<Run> {
+
+        /**
+         * The smallest message of this run that has not been merged yet.
+         */
+        private Message head;
+
+        /**
+         * The remaining messages of this run.
+         */
+        private final Iterator<Message> rest;
+
+        private Run(Message head, Iterator<Message> rest) {
+            this.head = head;
+            this.rest = rest;
+        }
+
+        @Override
+        public int compareTo(Run other) {
+            return Integer.compare(head.getMessageId(), other.head.getMessageId());
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.scheduling;
+
+import java.security.SecureRandom;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.entity.Message;
+import com.example.exception.BadRequestException;
+import com.example.exception.InvalidInputException;
+import com.example.repository.AccountRepository;
+import com.example.service.MessageService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Holds back messages posted with a {@code timePostedEpoch} in the future and publishes them when
+ * that time comes.
+ *
+ * <p>A scheduled message is stored in the {@code scheduled_message} table, not in the message
+ * table, so none of the message reads can see it early, together with the message ID it will be
+ * published under, reserved through {@link MessageService#reserveMessageId(Integer)}. Its row ID
+ * is added to a {@link TimingWheel} that a single thread advances once per tick.</p>
+ *
+ * <p>A due message is claimed by setting {@code claimedBy} and {@code claimedAt} on its pending
+ * row; when several instances share the database, only the one whose update wins publishes the
+ * message. It is then written through {@link MessageService#publishScheduledMessage(Message)},
+ * which replaces any message already stored under the reserved ID, and the row is deleted only
+ * after that. When the message is written to the primary database, without write-behind or
+ * sharding, claim, write and delete share one transaction. Otherwise the claim commits first, and
+ * if the instance dies before the delete, the claim goes stale after {@code claim-timeout} and the
+ * message is published again under the same ID, leaving one message. A publish that fails keeps
+ * the claim and is retried on the next tick.</p>
+ *
+ * <p>On startup the wheel is rebuilt from the rows that are unclaimed or whose claim is stale,
+ * and rows whose time passed while the application was down are published right away. Every
+ * {@code reload-interval} those rows are read again up to the next reload, so messages scheduled
+ * or claimed on an instance that has since gone away are still published, at most one reload
+ * interval after they are due or their claim went stale. Messages are otherwise published
+ * within one tick of their time.</p>
+ *
+ * <p>Enabled unless {@code socialmedia.scheduled-messages.enabled} is false; without it, messages
+ * with a future time are published immediately, as before.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+@ConditionalOnProperty(name = "socialmedia.scheduled-messages.enabled", havingValue = "true", matchIfMissing = true)
+public class ScheduledMessageDispatcher implements SmartInitializingSingleton, DisposableBean {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScheduledMessageDispatcher.class);
+
+    private static final String INSERT_SQL =
+            "insert into scheduled_message (postedBy, messageText, timePostedEpoch, messageId) values (?, ?, ?, ?)";
+
+    private static final String CLAIM_SQL =
+            "update scheduled_message set claimedBy = ?, claimedAt = ? where scheduledId = ? and (claimedBy is null or claimedBy = ? or claimedAt < ?)";
+
+    private static final String SELECT_SQL =
+            "select messageId, postedBy, messageText, timePostedEpoch from scheduled_message where scheduledId = ?";
+
+    private static final String SET_MESSAGE_ID_SQL = "update scheduled_message set messageId = ? where scheduledId = ?";
+
+    private static final String DELETE_SQL = "delete from scheduled_message where scheduledId = ? and claimedBy = ?";
+
+    private static final String DUE_BEFORE_SQL =
+            "select scheduledId, timePostedEpoch from scheduled_message where timePostedEpoch < ? and (claimedBy is null or claimedAt < ?)";
+
+    /**
+     * Resolution of the dispatcher; messages are published at most this late.
+     */
+    @Value("${socialmedia.scheduled-messages.tick:PT1S}")
+    private Duration tick;
+
+    /**
+     * How far in the future a message's time must be before it is scheduled rather than published
+     * at once, so that clients with a slightly fast clock are not held back.
+     */
+    @Value("${socialmedia.scheduled-messages.skew-tolerance:PT5S}")
+    private Duration skewTolerance;
+
+    /**
+     * How often the rows due soon are read again, to pick up messages scheduled elsewhere.
+     */
+    @Value("${socialmedia.scheduled-messages.reload-interval:PT1M}")
+    private Duration reloadInterval;
+
+    /**
+     * How long a claim holds before another instance may take the message over, as when the
+     * claiming instance died before it deleted the pending row.
+     */
+    @Value("${socialmedia.scheduled-messages.claim-timeout:PT1M}")
+    private Duration claimTimeout;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * IDs of scheduled messages that are due, waiting for the dispatcher thread.
+     */
+    private final Queue<Integer> due = new ConcurrentLinkedQueue<>();
+
+    /**
+     * IDs of the scheduled messages in the wheel or the due queue, so a reload adds no duplicates.
+     */
+    private final Set<Integer> known = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Random ID of this instance, recorded in the rows it claims.
+     */
+    private final long instanceId = new SecureRandom().nextLong();
+
+    private TimingWheel<Integer> wheel;
+    private TransactionTemplate transactionTemplate;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    /**
+     * Rebuilds the wheel from the pending rows and starts the dispatcher thread. Runs once all
+     * singletons, including the database initializer, are ready.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        wheel = new TimingWheel<>(tick.toMillis(), System.currentTimeMillis());
+        Gauge.builder("socialmedia.scheduled-messages.pending", wheel, TimingWheel::size)
+                .description("Scheduled messages waiting for their time")
+                .register(meterRegistry);
+
+        load(Long.MAX_VALUE);
+
+        running = true;
+        dispatcher = new Thread(this::runDispatcher, "scheduled-message-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        LOGGER.info("Rebuilt scheduling wheel with {} pending and {} overdue messages - ScheduledMessageDispatcher.afterSingletonsInstantiated() method.",
+                wheel.size(), due.size());
+    }
+
+    /**
+     * Stops the dispatcher thread. Pending messages stay in the table for the next startup.
+     *
+     * @throws InterruptedException if interrupted while waiting for the thread
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            dispatcher.join();
+        }
+    }
+
+    /**
+     * Tells whether a new message is to be scheduled rather than published now.
+     *
+     * @param message the new message
+     * @return true if its time is later than now plus the skew tolerance
+     */
+    public boolean isScheduled(Message message) {
+        return message != null && message.getTimePostedEpoch() != null
+                && message.getTimePostedEpoch() * 1000 > System.currentTimeMillis() + skewTolerance.toMillis();
+    }
+
+    /**
+     * Validates a new message like {@link MessageService#postMessage(Message)} and stores it until
+     * its time.
+     *
+     * @param message the message to schedule
+     * @return the message as accepted, still without a message ID; the reserved ID is only
+     *         revealed once the message is published
+     * @throws InvalidInputException if the message text is null, blank, or exceeds maximum length
+     * @throws BadRequestException if the user posting the message doesn't exist
+     */
+    public Message schedule(Message message) {
+        LOGGER.info("Received request to schedule a new message - ScheduledMessageDispatcher.schedule(Message message) method.");
+
+        try {
+            MessageService.validateNewMessage(message);
+        } catch (InvalidInputException exception) {
+            LOGGER.error("{} - ScheduledMessageDispatcher.schedule(Message message) method.", exception.getMessage());
+            throw exception;
+        }
+
+        if (!accountRepository.existsById(message.getPostedBy())) {
+            LOGGER.error("User with ID {} does not exist. Message scheduling failed - ScheduledMessageDispatcher.schedule(Message message) method.", message.getPostedBy());
+            throw new BadRequestException("User with ID " + message.getPostedBy() + " does not exist. Message creation failed.");
+        }
+
+        int messageId = messageService.reserveMessageId(message.getPostedBy());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            statement.setInt(1, message.getPostedBy());
+            statement.setString(2, message.getMessageText());
+            statement.setLong(3, message.getTimePostedEpoch());
+            statement.setInt(4, messageId);
+            return statement;
+        }, keyHolder);
+        int scheduledId = keyHolder.getKey().intValue();
+        enqueue(scheduledId, message.getTimePostedEpoch());
+
+        LOGGER.info("Scheduled message {} for {} - ScheduledMessageDispatcher.schedule(Message message) method.", scheduledId, message.getTimePostedEpoch());
+        message.setMessageId(null);
+        return message;
+    }
+
+    /**
+     * @return the number of scheduled messages waiting in this instance's wheel
+     */
+    public int getPendingCount() {
+        return wheel.size();
+    }
+
+    private void enqueue(int scheduledId, long timePostedEpoch) {
+        if (known.add(scheduledId) && !wheel.add(scheduledId, timePostedEpoch * 1000)) {
+            due.add(scheduledId);
+        }
+    }
+
+    /**
+     * Adds the pending rows due before a time that are not known yet, unless another instance
+     * holds a claim on them that is not stale.
+     *
+     * @param beforeEpoch upper bound of the rows' time, exclusive, in seconds since the epoch
+     */
+    private void load(long beforeEpoch) {
+        List<long[]> pending = jdbcTemplate.query(DUE_BEFORE_SQL,
+                (resultSet, rowNum) -> new long[] {resultSet.getInt(1), resultSet.getLong(2)},
+                beforeEpoch, System.currentTimeMillis() - claimTimeout.toMillis());
+        for (long[] row : pending) {
+            enqueue((int) row[0], row[1]);
+        }
+    }
+
+    private void runDispatcher() {
+        long tickMillis = tick.toMillis();
+        long nextReload = System.currentTimeMillis() + reloadInterval.toMillis();
+        while (running) {
+            long now = System.currentTimeMillis();
+            if (now >= nextReload) {
+                nextReload = now + reloadInterval.toMillis();
+                try {
+                    load(Math.floorDiv(nextReload, 1000) + 1);
+                } catch (RuntimeException exception) {
+                    LOGGER.error("Failed to reload scheduled messages - ScheduledMessageDispatcher.runDispatcher() method.", exception);
+                }
+            }
+            wheel.advance(now, due::add);
+            Integer scheduledId;
+            while (running && (scheduledId = due.poll()) != null) {
+                try {
+                    release(scheduledId);
+                    known.remove(scheduledId);
+                } catch (RuntimeException exception) {
+                    LOGGER.error("Failed to publish scheduled message {}, retrying next tick - ScheduledMessageDispatcher.runDispatcher() method.", scheduledId, exception);
+                    if (!wheel.add(scheduledId, System.currentTimeMillis() + tickMillis)) {
+                        // Not taken back by the wheel: forget it, so the next reload finds it again.
+                        known.remove(scheduledId);
+                    }
+                }
+            }
+            try {
+                Thread.sleep(tickMillis - System.currentTimeMillis() % tickMillis);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publishes one due message unless another instance holds a claim on it. Without write-behind
+     * or sharding, the claim, the write of the message and the delete of the pending row commit
+     * together. Otherwise the claim commits first and the row is deleted once the message is
+     * written; a failure in between leaves the claim in place, so the message is published again
+     * under the same ID, by this instance on the next tick or by another once the claim is stale.
+     */
+    private void release(int scheduledId) {
+        if (messageService.isPublishTransactional()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                Message message = claim(scheduledId);
+                if (message != null) {
+                    messageService.publishScheduledMessage(message);
+                    jdbcTemplate.update(DELETE_SQL, scheduledId, instanceId);
+                }
+            });
+            return;
+        }
+        Message message = transactionTemplate.execute(status -> claim(scheduledId));
+        if (message == null) {
+            return;
+        }
+        messageService.publishScheduledMessage(message);
+        jdbcTemplate.update(DELETE_SQL, scheduledId, instanceId);
+    }
+
+    /**
+     * Claims a pending row for this instance and returns its message with the reserved message ID,
+     * or returns null if the row is gone or claimed by another instance that is not stale. A row
+     * written without a reserved ID gets one now.
+     */
+    private Message claim(int scheduledId) {
+        long now = System.currentTimeMillis();
+        if (jdbcTemplate.update(CLAIM_SQL, instanceId, now, scheduledId, instanceId, now - claimTimeout.toMillis()) == 0) {
+            return null;
+        }
+        Message message = jdbcTemplate.queryForObject(SELECT_SQL, (resultSet, rowNum) -> new Message(
+                getInteger(resultSet, 1), resultSet.getInt(2), resultSet.getString(3), resultSet.getLong(4)), scheduledId);
+        if (message.getMessageId() == null) {
+            message.setMessageId(messageService.reserveMessageId(message.getPostedBy()));
+            jdbcTemplate.update(SET_MESSAGE_ID_SQL, message.getMessageId(), scheduledId);
+        }
+        return message;
+    }
+
+    private static Integer getInteger(ResultSet resultSet, int column) throws SQLException {
+        int value = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel that releases items once their time has come.
+ *
+ * <p>Time advances in ticks of a fixed length. Level 0 has one slot per tick for the next
+ * {@value #SLOTS} ticks, level 1 one slot per {@value #SLOTS} ticks for the next
+ * {@value #SLOTS}&sup2;, and so on, with levels created as far-off items need them. Adding an item
+ * puts it in the slot of the lowest level whose range covers it, computed from the distance to
+ * its tick, so it costs O(1). Each tick empties one level 0 slot; whenever a level's slot
+ * boundary is passed, the items of the next higher slot are moved down to the level below, so
+ * every item is moved at most once per level before it is released.</p>
+ *
+ * <p>Items are released in the tick they are due, not in order within that tick. The wheel is
+ * thread-safe.</p>
+ *
+ * @param <T> the type of the items
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = (Long.SIZE + BITS - 1) / BITS;
+
+    private final long tickMillis;
+    private final ArrayDeque<Entry<T>>[][] levels;
+    private long currentTick;
+    private int size;
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param tickMillis length of a tick
+     * @param nowMillis the current time, in milliseconds since the epoch
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        this.tickMillis = tickMillis;
+        this.levels = new ArrayDeque[LEVELS][];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Adds an item.
+     *
+     * @param item the item
+     * @param dueMillis when the item is due, in milliseconds since the epoch
+     * @return false, without adding it, if the item is due in the current tick or earlier
+     */
+    public synchronized boolean add(T item, long dueMillis) {
+        long dueTick = Math.floorDiv(dueMillis, tickMillis);
+        if (dueTick <= currentTick) {
+            return false;
+        }
+        place(new Entry<>(item, dueTick));
+        size++;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the current time and hands out every item that has become due.
+     *
+     * @param nowMillis the current time, in milliseconds since the epoch
+     * @param due receives the items that are due
+     */
+    public synchronized void advance(long nowMillis, Consumer<T> due) {
+        long nowTick = nowMillis / tickMillis;
+        if (size == 0) {
+            currentTick = Math.max(currentTick, nowTick);
+            return;
+        }
+        while (currentTick < nowTick) {
+            currentTick++;
+            int highest = Math.min(Long.numberOfTrailingZeros(currentTick) / BITS, LEVELS - 1);
+            for (int level = highest; level >= 1; level--) {
+                ArrayDeque<Entry<T>> slot = takeSlot(level, (int) ((currentTick >>> (level * BITS)) & MASK));
+                if (slot != null) {
+                    for (Entry<T> entry : slot) {
+                        place(entry);
+                    }
+                }
+            }
+            ArrayDeque<Entry<T>> slot = takeSlot(0, (int) (currentTick & MASK));
+            if (slot != null) {
+                for (Entry<T> entry : slot) {
+                    size--;
+                    due.accept(entry.item);
+                }
+            }
+            if (size == 0) {
+                currentTick = nowTick;
+            }
+        }
+    }
+
+    /**
+     * @return the number of items waiting
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes every item.
+     */
+    public synchronized void clear() {
+        for (int level = 0; level < LEVELS; level++) {
+            levels[level] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Puts an entry in the lowest level whose range reaches its tick. An entry that is due now,
+     * when cascading, lands in the level 0 slot that is emptied next.
+     */
+    private void place(Entry<T> entry) {
+        long distance = entry.tick - currentTick;
+        int level = distance <= 0 ? 0 : Math.min((Long.SIZE - 1 - Long.numberOfLeadingZeros(distance)) / BITS, LEVELS - 1);
+        long tick = distance <= 0 ? currentTick : entry.tick;
+        int index = (int) ((tick >>> (level * BITS)) & MASK);
+        if (levels[level] == null) {
+            @SuppressWarnings("unchecked")
+            ArrayDeque<Entry<T>>[] slots = new ArrayDeque[SLOTS];
+            levels[level] = slots;
+        }
+        ArrayDeque<Entry<T>> slot = levels[level][index];
+        if (slot == null) {
+            slot = new ArrayDeque<>();
+            levels[level][index] = slot;
+        }
+        slot.add(entry);
+    }
+
+    private ArrayDeque<Entry<T>> takeSlot(int level, int index) {
+        ArrayDeque<Entry<T>>[] slots = levels[level];
+        if (slots == null) {
+            return null;
+        }
+        ArrayDeque<Entry<T>> slot = slots[index];
+        slots[index] = null;
+        return slot;
+    }
+
+    /**
+     * An item with the tick it is due in.
+     */
+    private static final class Entry<T> {
+        final T item;
+        final long tick;
+
+        Entry(T item, long tick) {
+            this.item = item;
+            this.tick = tick;
+        }
+    }
+}
@@ -1,20 +1,41 @@
 package com.example.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.auth.PasswordHasher;
+import com.example.auth.PasswordHashingExecutor;
+import com.example.cache.NegativeCache;
+import com.example.cache.UsernameFilter;
 import com.example.entity.Account;
+import com.example.entity.AccountView;
 import com.example.exception.AuthenticationException;
 import com.example.exception.BadRequestException;
 import com.example.exception.DuplicateResourceException;
 import com.example.exception.InvalidInputException;
 import com.example.exception.ResourceNotFoundException;
+import com.example.invalidation.CacheInvalidator;
 import com.example.repository.AccountRepository;
+import com.example.repository.shard.ShardedMessageRepository;
+import com.example.writebehind.WriteBehindMessageWriter;
 
 /**
  * Service class that provides business logic for managing Account entities.
@@ -41,13 +62,86 @@ public class AccountService {
     private AccountRepository accountRepository;
 
     /**
-     * Creates a new account after validating the input data.
+     * Negative cache of missing IDs, told about every account created here.
+     */
+    @Autowired
+    private NegativeCache negativeCache;
+
+    /**
+     * Bloom filter of all usernames, which answers for names that are definitely free.
+     */
+    @Autowired
+    private UsernameFilter usernameFilter;
+
+    /**
+     * Bounded pool that hashes and verifies passwords off the request threads.
+     */
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    /**
+     * Spring's application task pool, on which a rehashed password is stored so that the
+     * hashing threads never wait on the database.
+     */
+    @Autowired
+    private TaskExecutor applicationTaskExecutor;
+
+    /**
+     * Tells the other instances about account changes, so their caches drop stale entries.
+     */
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    /**
+     * Sharded message store, present only when {@code socialmedia.message.shards} is set. Messages
+     * on the shards are not covered by the foreign key to the account table, so deletes check it.
+     */
+    @Autowired(required = false)
+    private ShardedMessageRepository shardedMessageRepository;
+
+    /**
+     * Write-behind path for new messages, present only when {@code socialmedia.write-behind.enabled}
+     * is true. An account's pending messages are flushed before it is deleted, so the foreign key
+     * sees them.
+     */
+    @Autowired(required = false)
+    private WriteBehindMessageWriter writeBehindMessageWriter;
+
+    /**
+     * Transaction manager used to insert new accounts in a transaction of their own.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Short transaction around the insert of a new account, opened only once its password is hashed.
+     */
+    private TransactionTemplate insertTransaction;
+
+    /**
+     * Largest number of IDs accepted by a single multi-get.
+     */
+    @Value("${socialmedia.multi-get.max-ids:100}")
+    private int maxMultiGetIds;
+
+    /**
+     * Creates the insert transaction template once the transaction manager is injected.
+     */
+    @PostConstruct
+    void init() {
+        insertTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Creates a new account after validating the input data. Like {@link #save(Account)}, it runs
+     * outside any transaction until the final insert.
      * 
      * @param account the account to be created
      * @return the created account with generated ID
      * @throws InvalidInputException if the account is null, username is null/blank, or password is too short
      * @throws DuplicateResourceException if an account with the same username already exists
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Account createAccount(Account account) {
         LOGGER.info("Received request to create a new account -  AccountService.createAccount(Account account) method.");
 
@@ -81,63 +175,120 @@ public class AccountService {
             throw new InvalidInputException("Password is too short. It must be at least 4 characters. Account creation failed.");
         }
 
-        if (accountRepository.existsByUsername(account.getUsername())) {
+        if (isUsernameTaken(account.getUsername())) {
             LOGGER.error("An account for the same user: {} already exists - Account creation failed in AccountRepository layer - AccountService.createAccount(Account account) method.", account.getUsername());
             throw new DuplicateResourceException("An account with the same username: " + account.getUsername()+ " already exists - Account creation failed.");
         }
         
-        account = accountRepository.save(account);
+        account = saveNewAccount(account);
         LOGGER.info("Successfully created account for user: {} - AccountService.createAccount(Account account) method.", account.getUsername());
         return account;
     }
 
     /**
-     * Authenticates an account based on username and password.
+     * Authenticates an account based on username and password, waiting for
+     * {@link #authenticate(Account)} to finish.
      * 
      * @param account the account containing login credentials
-     * @return the authenticated account
+     * @return the authenticated account, carrying the submitted password
      * @throws InvalidInputException if account, username, or password is null/blank
      * @throws AuthenticationException if authentication fails
+     * @throws com.example.exception.ServiceUnavailableException if too many password checks are queued
      */
     @Transactional(readOnly = true)
     public Account loginAccount(Account account) {
+        return await(authenticate(account));
+    }
+
+    /**
+     * Authenticates an account based on username and password. The account is looked up on the
+     * calling thread, while the password is checked on the password hashing pool. A password still
+     * stored in plaintext, or hashed with an outdated cost factor, is replaced by a fresh hash
+     * once it has been verified: the hash is computed on the hashing pool, and stored on the
+     * application task pool, which completes the returned future.
+     * 
+     * @param account the account containing login credentials
+     * @return a future completed with the authenticated account, carrying the submitted password,
+     *         or failed with an AuthenticationException if authentication fails
+     * @throws InvalidInputException if account, username, or password is null/blank
+     * @throws com.example.exception.ServiceUnavailableException if too many password checks are queued
+     */
+    @Transactional(readOnly = true)
+    public CompletableFuture<Account> authenticate(Account account) {
 
         if (account == null) {
-            LOGGER.error("Account object is null. Authentication failed - AccountService.loginAccount(Account account) method.");
+            LOGGER.error("Account object is null. Authentication failed - AccountService.authenticate(Account account) method.");
             throw new InvalidInputException("Account is null. Account creation failed.");
         }
 
         if (account.getUsername() == null) {
-            LOGGER.error("Account username is null. Authentication failed - AccountService.loginAccount(Account account) method.");
+            LOGGER.error("Account username is null. Authentication failed - AccountService.authenticate(Account account) method.");
             throw new InvalidInputException("Account username is null. Account creation failed.");
         }
 
         if (account.getUsername().trim().isBlank()) {
-            LOGGER.error("Account username is blank. Authentication failed - AccountService.loginAccount(Account account) method.");
+            LOGGER.error("Account username is blank. Authentication failed - AccountService.authenticate(Account account) method.");
             throw new InvalidInputException("Account username is blank. Account creation failed.");
         }
 
         if (account.getPassword() == null) {
-            LOGGER.error("Account password is null. Authentication failed - AccountService.loginAccount(Account account) method.");
+            LOGGER.error("Account password is null. Authentication failed - AccountService.authenticate(Account account) method.");
             throw new InvalidInputException("Account password is null. Account creation failed.");
         }
 
         if (account.getPassword().trim().isBlank()) {
-            LOGGER.error("Account password is blank. Authentication failed - AccountService.loginAccount(Account account) method.");
+            LOGGER.error("Account password is blank. Authentication failed - AccountService.authenticate(Account account) method.");
             throw new InvalidInputException("Account password is blank. Account creation failed.");
         }
 
-        LOGGER.info("Received request to authenticate account for user: {} -  AccountService.loginAccount(Account account) method.", account.getUsername());
+        LOGGER.info("Received request to authenticate account for user: {} -  AccountService.authenticate(Account account) method.", account.getUsername());
 
-        Optional<Account> loggedInAccountOptional = accountRepository.findByUsernameAndPassword(account.getUsername(), account.getPassword());
+        String username = account.getUsername();
+        String password = account.getPassword();
+        Optional<Account> storedAccountOptional = accountRepository.findByUsername(username);
+        String storedPassword = storedAccountOptional.map(Account::getPassword).orElse(passwordHashingExecutor.getDecoyHash());
+
+        return passwordHashingExecutor.submit(() -> {
+            PasswordHasher hasher = passwordHashingExecutor.getHasher();
+            if (!hasher.matches(password, storedPassword) || storedAccountOptional.isEmpty()) {
+                LOGGER.error("Authentication failed for account with username: {} - AccountService.authenticate(Account account) method.", username);
+                throw new AuthenticationException("Authentication failed for account with username: " + username + ".");
+            }
+
+            LOGGER.info("Successfully authenticated account with username: {} - AccountService.authenticate(Account account) method.", username);
+            return hasher.needsRehash(storedPassword) ? hasher.hash(password) : null;
+        }).thenCompose(newPasswordHash -> {
+            Account storedAccount = storedAccountOptional.get();
+            Account authenticatedAccount = new Account(storedAccount.getAccountId(), storedAccount.getUsername(), password);
+            if (newPasswordHash == null) {
+                return CompletableFuture.completedFuture(authenticatedAccount);
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                storeRehashedPassword(storedAccount, storedPassword, newPasswordHash);
+                return authenticatedAccount;
+            }, applicationTaskExecutor);
+        });
+    }
 
-        if (loggedInAccountOptional.isEmpty()) {
-            LOGGER.error("Authentication failed for account with username: {} - AccountService.loginAccount(Account account) method.", account.getUsername());
-            throw new AuthenticationException("Authentication failed for account with username: " + account.getUsername() + ".");
+    /**
+     * Replaces a verified password by its fresh hash, unless it was changed in the meantime.
+     * The login does not depend on it, so a failure is only logged and the upgrade is retried
+     * at the next login.
+     *
+     * @param storedAccount the authenticated account
+     * @param storedPassword the stored password that was verified
+     * @param newPasswordHash the fresh hash of the same password
+     */
+    private void storeRehashedPassword(Account storedAccount, String storedPassword, String newPasswordHash) {
+        try {
+            int rowsUpdated = accountRepository.updatePassword(storedAccount.getAccountId(), storedPassword, newPasswordHash);
+            LOGGER.info("Rehashed stored password of user: {}, {} row(s) updated - AccountService.storeRehashedPassword(Account storedAccount, String storedPassword, String newPasswordHash) method.",
+                    storedAccount.getUsername(), rowsUpdated);
+            cacheInvalidator.accountChanged(storedAccount.getAccountId());
+        } catch (RuntimeException exception) {
+            LOGGER.warn("Failed to store rehashed password of user: {}: {} - AccountService.storeRehashedPassword(Account storedAccount, String storedPassword, String newPasswordHash) method.",
+                    storedAccount.getUsername(), exception.getMessage());
         }
-
-        LOGGER.info("Successfully authenticated account with username: {} - AccountService.loginAccount(Account account) method.", account.getUsername());
-        return loggedInAccountOptional.get();
     }
 
      /**
@@ -160,7 +311,7 @@ public class AccountService {
         }
 
         LOGGER.info("Received request to check if user: {} exists - AccountService.usernameExists(String username) method.", username);
-        boolean userExists = accountRepository.existsByUsername(username);
+        boolean userExists = isUsernameTaken(username);
         if (!userExists) {
             LOGGER.warn("User: {} does not exist - AccountService.usernameExists(String username) method.", username);
             return userExists;
@@ -209,7 +360,13 @@ public class AccountService {
 
 
         LOGGER.info("Received request to check if user: {} exists - AccountService.usernameExists(String username) method.", account.getUsername());
-        boolean userExists = accountRepository.existsByUsernameAndPassword(username, password);
+        boolean userExists;
+        try {
+            await(authenticate(new Account(username, password)));
+            userExists = true;
+        } catch (AuthenticationException exception) {
+            userExists = false;
+        }
         if (!userExists) {
             LOGGER.warn("User: {} does not exist - AccountService.usernameExists(String username) method.", username);
             return userExists;
@@ -254,25 +411,28 @@ public class AccountService {
             throw new InvalidInputException("Account password is blank. Search for user failed.");
         }
         LOGGER.info("Received request to find user: {} by username and password - AccountService.findByUsernameAndPassword(Account account) method.", account.getUsername());
-        Optional<Account> foundAccountOptional = accountRepository.findByUsernameAndPassword(account.getUsername(), account.getPassword());
-        if (foundAccountOptional.isEmpty()) {
+        Account foundAccount;
+        try {
+            foundAccount = await(authenticate(account));
+        } catch (AuthenticationException exception) {
             LOGGER.error("Search for user: {} failed - AccountService.findByUsername(Account account) method.", account.getUsername());
             throw new BadRequestException("Search for user: " + account.getUsername() + " failed.");
         }
         
-        LOGGER.info("Successfully found user: {} - AccountService.findByUsername(Account account) method.", foundAccountOptional.get().getUsername());
-        return foundAccountOptional.get();
+        LOGGER.info("Successfully found user: {} - AccountService.findByUsername(Account account) method.", foundAccount.getUsername());
+        return foundAccount;
     }
 
     /**
-     * Saves a new account to the database after validating the input.
+     * Saves a new account to the database after validating the input. Runs outside any
+     * transaction, so that only the final insert holds a connection, not the password hash.
      * 
      * @param account the account to save
      * @return the saved account with generated ID
      * @throws InvalidInputException if account, username, or password is null/blank
      * @throws DuplicateResourceException if an account with the same username already exists
      */
-    @Transactional(isolation = Isolation.SERIALIZABLE, rollbackFor = Exception.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Account save(Account account) {
         if (account == null) {
             LOGGER.error("Account object is null. Saving account failed - AccountService.save(Account account) method.");
@@ -295,21 +455,117 @@ public class AccountService {
             throw new InvalidInputException("Account password is blank. Saving account failed.");
         }
         LOGGER.info("Received request to save user: {} account to database - - AccountService.save(Account account) method.", account.getUsername());
-        if (accountRepository.existsByUsername(account.getUsername())) {
+        if (isUsernameTaken(account.getUsername())) {
             throw new DuplicateResourceException("User: " + account.getUsername() + " already exists.");
         }
+        Account savedAccount = saveNewAccount(account);
         LOGGER.info("Successfully saved user: {} account - AccountService.save(Account account) method.", account.getUsername());
-        return accountRepository.save(account);
+        return savedAccount;
+    }
+
+    /**
+     * Checks whether a username is still free to register. Names that are definitely free are
+     * answered from the in-memory username filter; only possibly taken names are checked in the
+     * database.
+     *
+     * @param username The username to check
+     * @return true if no account has the username, false otherwise
+     * @throws InvalidInputException if username is null or blank
+     */
+    @Transactional(readOnly = true)
+    public boolean isUsernameAvailable(String username) {
+        return !existsByUsername(username);
+    }
+
+    /**
+     * Checks the username filter first and the database only if the filter cannot rule the name out.
+     *
+     * @param username the username to check
+     * @return true if an account has the username
+     */
+    private boolean isUsernameTaken(String username) {
+        if (!usernameFilter.mightBeTaken(username)) {
+            return false;
+        }
+        boolean taken = accountRepository.existsByUsername(username);
+        if (!taken) {
+            usernameFilter.recordFalsePositive();
+        }
+        return taken;
+    }
+
+    /**
+     * Hashes the password of a new account on the password hashing pool, then inserts the account
+     * in a short transaction of its own and records its ID and username in the in-memory caches.
+     * The hash is computed before the transaction opens, so no connection or lock is held while it
+     * runs. Since a name ruled out by the username filter is not checked in the database, a
+     * concurrent registration of the same name is caught by the unique constraint instead.
+     *
+     * @param account the account to insert
+     * @return the saved account with generated ID, carrying the submitted password
+     * @throws DuplicateResourceException if an account with the same username was created concurrently
+     * @throws com.example.exception.ServiceUnavailableException if too many password checks are queued
+     */
+    private Account saveNewAccount(Account account) {
+        String password = account.getPassword();
+        String passwordHash = await(passwordHashingExecutor.submit(() -> passwordHashingExecutor.getHasher().hash(password)));
+        Account savedAccount = insertTransaction.execute(status -> insertAccount(account.getUsername(), passwordHash));
+        return new Account(savedAccount.getAccountId(), savedAccount.getUsername(), password);
+    }
+
+    /**
+     * Inserts an account whose password is already hashed and updates the caches. Runs inside the
+     * insert transaction.
+     *
+     * @param username the username
+     * @param passwordHash the encoded password hash
+     * @return the saved account
+     * @throws DuplicateResourceException if an account with the same username was created concurrently
+     */
+    private Account insertAccount(String username, String passwordHash) {
+        Account savedAccount;
+        try {
+            // Flushed right away: the ID is sequence generated, so a plain save would defer the
+            // INSERT, and with it the unique constraint violation, to the commit.
+            savedAccount = accountRepository.saveAndFlush(new Account(username, passwordHash));
+        } catch (DataIntegrityViolationException exception) {
+            LOGGER.error("User: {} was registered concurrently - AccountService.insertAccount(String username, String passwordHash) method.", username);
+            throw new DuplicateResourceException("User: " + username + " already exists.", exception);
+        }
+        usernameFilter.add(savedAccount.getUsername());
+        negativeCache.getAccounts().created(savedAccount.getAccountId());
+        cacheInvalidator.accountChanged(savedAccount.getAccountId());
+        cacheInvalidator.usernameTaken(savedAccount.getUsername());
+        return savedAccount;
     }
 
     /**
-     * Retrieves all accounts from the database.
+     * Waits for work on the password hashing pool and rethrows its failure unwrapped.
+     *
+     * @param <T> the result type
+     * @param future the pending result
+     * @return the result
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Retrieves all accounts from the database as immutable views, read without loading entities
+     * into the persistence context.
      * 
      * @return a list of all accounts
      */
     @Transactional(readOnly = true)
-    public List<Account> getAllAccounts() {
-        return accountRepository.findAll();
+    public List<AccountView> getAllAccounts() {
+        return accountRepository.findAllViews();
     }
 
     /**
@@ -329,14 +585,81 @@ public class AccountService {
     }
 
     /**
-     * Deletes an account by its ID.
+     * Retrieves the accounts with the given IDs with a single IN-list query. IDs recently found
+     * missing are skipped using the negative cache.
+     * 
+     * @param accountIds the IDs of the accounts to retrieve
+     * @return the accounts found, in the order their IDs were first given; missing IDs are left out
+     * @throws InvalidInputException if the list is null, holds a null ID or more IDs than allowed
+     */
+    @Transactional(readOnly = true)
+    public List<Account> getByIds(List<Integer> accountIds) {
+        if (accountIds == null || accountIds.contains(null)) {
+            LOGGER.error("Account ID list is null or holds a null ID. Account retrieval failed - AccountService.getByIds(List<Integer> accountIds) method.");
+            throw new InvalidInputException("Account ID cannot be null. Account retrieval failed.");
+        }
+
+        if (accountIds.size() > maxMultiGetIds) {
+            LOGGER.error("{} account IDs requested, more than the limit of {}. Account retrieval failed - AccountService.getByIds(List<Integer> accountIds) method.", accountIds.size(), maxMultiGetIds);
+            throw new InvalidInputException("At most " + maxMultiGetIds + " account IDs can be requested at once. Account retrieval failed.");
+        }
+
+        Set<Integer> orderedIds = new LinkedHashSet<>(accountIds);
+        List<Integer> idsToLoad = new ArrayList<>();
+        for (Integer accountId : orderedIds) {
+            if (!negativeCache.getAccounts().isMissing(accountId)) {
+                idsToLoad.add(accountId);
+            }
+        }
+
+        Map<Integer, Account> found = new HashMap<>();
+        if (!idsToLoad.isEmpty()) {
+            long stamp = negativeCache.getAccounts().stamp();
+            for (Account account : accountRepository.findAllById(idsToLoad)) {
+                found.put(account.getAccountId(), account);
+            }
+            for (Integer accountId : idsToLoad) {
+                if (!found.containsKey(accountId)) {
+                    negativeCache.getAccounts().markMissing(accountId, stamp);
+                }
+            }
+        }
+
+        List<Account> accounts = new ArrayList<>(found.size());
+        for (Integer accountId : orderedIds) {
+            Account account = found.get(accountId);
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        LOGGER.info("Successfully retrieved {} of {} accounts - AccountService.getByIds(List<Integer> accountIds) method.", accounts.size(), orderedIds.size());
+        return accounts;
+    }
+
+    /**
+     * Deletes an account by its ID. An account that still has messages is not deleted: the
+     * foreign key of the message table refuses it, and with sharding on, where that key does not
+     * reach the shards, the owning shard is checked first. With write-behind on, the account's
+     * accepted messages are flushed first so that the foreign key sees them.
      * 
      * @param accountId the ID of the account to delete
      * @return true if the account was successfully deleted, false if no account with the given ID exists
+     * @throws DataIntegrityViolationException if the account still has messages
+     * @throws com.example.exception.ServiceUnavailableException if the account's pending messages could not be flushed
      */
     public boolean deleteById(Integer accountId) {
-        if (accountRepository.existsById(accountId)) {
+        Optional<Account> account = accountRepository.findById(accountId);
+        if (account.isPresent()) {
+            if (writeBehindMessageWriter != null) {
+                writeBehindMessageWriter.flushPendingByPostedBy(accountId);
+            }
+            if (shardedMessageRepository != null && shardedMessageRepository.existsByPostedBy(accountId)) {
+                LOGGER.error("User with ID {} still has messages on shard {}. Account deletion failed - AccountService.deleteById(Integer accountId) method.",
+                        accountId, shardedMessageRepository.shardForAccount(accountId));
+                throw new DataIntegrityViolationException("Account " + accountId + " still has messages.");
+            }
             accountRepository.deleteById(accountId);
+            cacheInvalidator.accountDeleted(accountId, account.get().getUsername());
             return true;
         }
         return false;
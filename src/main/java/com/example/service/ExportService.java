@@ -0,0 +1,201 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.exception.InvalidInputException;
+import com.example.exception.ServiceUnavailableException;
+import com.example.export.ExportFormat;
+import com.example.export.ExportTarget;
+import com.example.export.ExportWriter;
+import com.example.repository.shard.ShardedMessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Service that streams whole tables out as NDJSON or CSV for bulk consumers such as analytics.
+ *
+ * <p>Rows are read through a forward-only, read-only JDBC cursor with a fetch size of
+ * {@code socialmedia.export.fetch-size} and written to the output as they arrive, so memory use
+ * stays the same whatever the number of rows. The query runs in a read-only transaction, which
+ * some drivers require before they honour the fetch size instead of reading the whole result.</p>
+ *
+ * <p>An export holds a database connection and a request thread until the client has read the
+ * last row, so at most {@code socialmedia.export.max-concurrent} exports run at a time; further
+ * ones are refused with a {@link ServiceUnavailableException}.</p>
+ *
+ * <p>Exports read what is committed to the database. Messages still waiting in the write-behind
+ * buffer are not included. With sharding on, messages are read shard by shard and are ordered by
+ * message ID within each shard only.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Service
+public class ExportService {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportService.class);
+
+    private static final String[] MESSAGE_COLUMNS = {"messageId", "postedBy", "messageText", "timePostedEpoch"};
+    private static final String[] ACCOUNT_COLUMNS = {"accountId", "username"};
+
+    /**
+     * Number of rows the driver fetches from the database per round trip.
+     */
+    @Value("${socialmedia.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Maximum number of exports running at the same time.
+     */
+    @Value("${socialmedia.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Sharded message store, present only when sharding is enabled.
+     */
+    @Autowired(required = false)
+    private ShardedMessageRepository shardedMessageRepository;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Streams messages, optionally limited to a range of posting times, ordered by message ID.
+     *
+     * @param format the output format
+     * @param from the earliest timePostedEpoch to include, or null for no lower bound
+     * @param to the timePostedEpoch to stop before, or null for no upper bound
+     * @param target where the export is written
+     * @return the number of messages written
+     * @throws InvalidInputException if from is after to
+     * @throws ServiceUnavailableException if the maximum number of exports is already running
+     * @throws IOException if writing fails, for example because the client went away
+     */
+    @Transactional(readOnly = true)
+    public long exportMessages(ExportFormat format, Long from, Long to, ExportTarget target) throws IOException {
+        if (from != null && to != null && from > to) {
+            LOGGER.error("Export range from {} to {} is reversed. Message export failed - ExportService.exportMessages(ExportFormat format, Long from, Long to, ExportTarget target) method.", from, to);
+            throw new InvalidInputException("The start of the export range must not be after its end. Message export failed.");
+        }
+
+        StringBuilder sql = new StringBuilder("select messageId, postedBy, messageText, timePostedEpoch from message");
+        List<Object> parameters = new ArrayList<>(2);
+        if (from != null) {
+            sql.append(" where timePostedEpoch >= ?");
+            parameters.add(from);
+        }
+        if (to != null) {
+            sql.append(parameters.isEmpty() ? " where" : " and").append(" timePostedEpoch < ?");
+            parameters.add(to);
+        }
+        sql.append(" order by messageId");
+        PreparedStatementCreator statement = cursor(sql.toString(), parameters.toArray());
+
+        return export("messages", format, target, MESSAGE_COLUMNS, rowHandler -> {
+            if (shardedMessageRepository != null) {
+                shardedMessageRepository.queryEachShard(statement, rowHandler);
+            } else {
+                jdbcTemplate.query(statement, rowHandler);
+            }
+        });
+    }
+
+    /**
+     * Streams the ID and username of every account, ordered by account ID. Password hashes are
+     * never exported.
+     *
+     * @param format the output format
+     * @param target where the export is written
+     * @return the number of accounts written
+     * @throws ServiceUnavailableException if the maximum number of exports is already running
+     * @throws IOException if writing fails, for example because the client went away
+     */
+    @Transactional(readOnly = true)
+    public long exportAccounts(ExportFormat format, ExportTarget target) throws IOException {
+        PreparedStatementCreator statement = cursor("select accountId, username from account order by accountId");
+        return export("accounts", format, target, ACCOUNT_COLUMNS, rowHandler -> jdbcTemplate.query(statement, rowHandler));
+    }
+
+    /**
+     * Takes an export permit, opens the target and copies every row the query produces into it.
+     */
+    private long export(String table, ExportFormat format, ExportTarget target, String[] columns, RowSource rows) throws IOException {
+        if (!permits.tryAcquire()) {
+            LOGGER.warn("{} exports already running. Export of {} refused - ExportService.export(String table, ExportFormat format, ExportTarget target, String[] columns, RowSource rows) method.", maxConcurrent, table);
+            throw new ServiceUnavailableException("Too many exports are running. Try again later.");
+        }
+        long start = System.nanoTime();
+        long[] count = new long[1];
+        try (ExportWriter writer = ExportWriter.create(format, target.open(format), objectMapper.getFactory(), columns)) {
+            rows.forEachRow(resultSet -> {
+                try {
+                    writer.writeRow(resultSet);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+                count[0]++;
+            });
+        } catch (UncheckedIOException exception) {
+            LOGGER.info("Export of {} stopped after {} rows: {} - ExportService.export(String table, ExportFormat format, ExportTarget target, String[] columns, RowSource rows) method.",
+                    table, count[0], exception.getCause().getMessage());
+            throw exception.getCause();
+        } finally {
+            permits.release();
+        }
+        LOGGER.info("Exported {} {} as {} in {} ms - ExportService.export(String table, ExportFormat format, ExportTarget target, String[] columns, RowSource rows) method.",
+                count[0], table, format.getName(), (System.nanoTime() - start) / 1_000_000);
+        return count[0];
+    }
+
+    /**
+     * Creates a statement that opens a forward-only, read-only cursor with the export fetch size.
+     */
+    private PreparedStatementCreator cursor(String sql, Object... parameters) {
+        return (Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement;
+        };
+    }
+
+    /**
+     * Runs the export query, passing each row to the handler.
+     */
+    @FunctionalInterface
+    private interface RowSource {
+
+        void forEachRow(RowCallbackHandler rowHandler);
+    }
+}
@@ -1,20 +1,42 @@
 package com.example.service;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.cache.NegativeCache;
+import com.example.concurrency.SingleFlight;
 import com.example.entity.Message;
+import com.example.entity.MessageView;
 import com.example.entity.Account;
 import com.example.exception.BadRequestException;
 import com.example.exception.InvalidInputException;
 import com.example.exception.ResourceNotFoundException;
+import com.example.id.MessageIdGenerator;
 import com.example.repository.AccountRepository;
 import com.example.repository.MessageRepository;
+import com.example.repository.shard.ShardedMessageRepository;
+import com.example.stream.MessageEvent;
+import com.example.writebehind.WriteBehindMessageWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service class that handles business logic for Message entities.
@@ -44,6 +66,22 @@ public class MessageService {
      */
     private static final int ROWS_AFFECTED = 1;
 
+    /**
+     * Validation failures with a fixed message, created once and rethrown. They carry no stack
+     * trace or other per-request state, so rejecting a request costs no allocation.
+     */
+    private static final InvalidInputException NULL_MESSAGE = new InvalidInputException("Message object is null. Message creation failed.");
+    private static final InvalidInputException EMPTY_TEXT_ON_CREATE = new InvalidInputException("Message text cannot be empty. Message creation failed.");
+    private static final InvalidInputException TEXT_TOO_LONG_ON_CREATE = new InvalidInputException("Message text exceeds maximum length of " + MAX_MESSAGE_LENGTH + " characters. Message creation failed.");
+    private static final InvalidInputException NULL_POSTED_BY = new InvalidInputException("User ID cannot be null. Message creation failed.");
+    private static final InvalidInputException NULL_ID_ON_RETRIEVAL = new InvalidInputException("Message ID cannot be null. Message retrieval failed.");
+    private static final InvalidInputException NULL_ID_ON_DELETE = new InvalidInputException("Message ID cannot be null. Message deletion failed.");
+    private static final InvalidInputException NULL_ID_ON_UPDATE = new InvalidInputException("Message ID cannot be null. Message update failed.");
+    private static final InvalidInputException EMPTY_TEXT_ON_UPDATE = new InvalidInputException("Message text cannot be empty. Message update failed.");
+    private static final InvalidInputException TEXT_TOO_LONG_ON_UPDATE = new InvalidInputException("Message text exceeds maximum length of " + MAX_MESSAGE_LENGTH + " characters. Message update failed.");
+    private static final InvalidInputException NULL_ACCOUNT_ID = new InvalidInputException("Account ID cannot be null. Message retrieval failed.");
+    private static final InvalidInputException NULL_CURSOR = new InvalidInputException("Cursor cannot be null. Message retrieval failed.");
+
     /**
      * Repository for message data access.
      */
@@ -56,6 +94,81 @@ public class MessageService {
     @Autowired
     private AccountRepository accountRepository;
 
+    /**
+     * Sharded message store, present only when {@code socialmedia.message.shards} is set. When
+     * present, message rows are read from and written to the shards instead of the primary database.
+     */
+    @Autowired(required = false)
+    private ShardedMessageRepository shardedMessageRepository;
+
+    /**
+     * Write-behind path for new messages, present only when {@code socialmedia.write-behind.enabled}
+     * is true. When present, new messages are acknowledged once they are in the append log and
+     * reads merge in the messages that have not been flushed to the database yet.
+     */
+    @Autowired(required = false)
+    private WriteBehindMessageWriter writeBehindMessageWriter;
+
+    /**
+     * Source of message IDs reserved ahead of the write, for scheduled messages in the primary database.
+     */
+    @Autowired
+    private MessageIdGenerator messageIdGenerator;
+
+    /**
+     * Recently looked up message and account IDs that do not exist.
+     */
+    @Autowired
+    private NegativeCache negativeCache;
+
+    /**
+     * Coalesces concurrent lookups of the same message ID into one load.
+     */
+    private final SingleFlight<Integer, Optional<Message>> messageLoads = new SingleFlight<>();
+
+    /**
+     * Coalesces concurrent listings of the same account's messages into one load.
+     */
+    private final SingleFlight<Integer, List<MessageView>> accountMessageLoads = new SingleFlight<>();
+
+    /**
+     * Transaction manager used to run coalesced loads in a read-only transaction.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Read-only transaction around a coalesced load, started only by the caller that runs the load.
+     */
+    private TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Publishes message change events, delivered to listeners after the transaction commits.
+     */
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Largest number of IDs accepted by a single multi-get.
+     */
+    @Value("${socialmedia.multi-get.max-ids:100}")
+    private int maxMultiGetIds;
+
+    /**
+     * Largest page of messages returned for one cursor.
+     */
+    @Value("${socialmedia.messages.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Creates the read-only transaction template once the transaction manager is injected.
+     */
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
     /**
      * Creates a new message in the system.
      * 
@@ -67,66 +180,189 @@ public class MessageService {
     public Message postMessage(Message message) {
         LOGGER.info("Received request to post a new message - MessageService.postMessage(Message message) method.");
 
+        try {
+            validateNewMessage(message);
+        } catch (InvalidInputException exception) {
+            LOGGER.error("{} - MessageService.postMessage(Message message) method.", exception.getMessage());
+            throw exception;
+        }
+
+        if (!accountRepository.existsById(message.getPostedBy())) {
+            LOGGER.error("User with ID {} does not exist. Message creation failed - MessageService.postMessage(Message message) method.", message.getPostedBy());
+            throw new BadRequestException("User with ID " + message.getPostedBy() + " does not exist. Message creation failed.");
+        }
+
+        Message savedMessage = insertMessage(message);
+        LOGGER.info("Successfully created message with ID: {} - MessageService.postMessage(Message message) method.", savedMessage.getMessageId());
+        return savedMessage;
+    }
+
+    /**
+     * Reserves the ID under which a scheduled message will be published, on the shard of its
+     * poster when sharding is on.
+     *
+     * @param postedBy The ID of the user posting the message
+     * @return A message ID that no other message gets
+     * @throws IllegalStateException if the generated ID does not fit the message ID
+     */
+    public int reserveMessageId(Integer postedBy) {
+        if (shardedMessageRepository != null) {
+            return shardedMessageRepository.nextMessageId(postedBy);
+        }
+        return MessageIdGenerator.toMessageId(messageIdGenerator.nextId());
+    }
+
+    /**
+     * Tells whether {@link #publishScheduledMessage(Message)} writes to the primary database in the
+     * caller's transaction, which is the case unless write-behind or sharding is on.
+     *
+     * @return true if the publish joins the caller's transaction
+     */
+    public boolean isPublishTransactional() {
+        return writeBehindMessageWriter == null && shardedMessageRepository == null;
+    }
+
+    /**
+     * Publishes a scheduled message whose time has come, as {@link #postMessage(Message)} would
+     * have done at that time. The message was validated when it was scheduled, and its poster
+     * cannot have been deleted since because the pending row references the account. The message
+     * is written under the ID from {@link #reserveMessageId(Integer)}, replacing any row with that
+     * ID, so that publishing it again after an interrupted dispatch leaves a single message.
+     *
+     * @param message The scheduled message, with its reserved ID
+     * @return The saved message
+     */
+    public Message publishScheduledMessage(Message message) {
+        Message savedMessage;
+        if (writeBehindMessageWriter != null) {
+            savedMessage = writeBehindMessageWriter.write(message);
+        } else if (shardedMessageRepository != null) {
+            savedMessage = shardedMessageRepository.merge(message);
+        } else {
+            messageRepository.merge(message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+            savedMessage = message;
+        }
+        negativeCache.getMessages().created(savedMessage.getMessageId());
+        eventPublisher.publishEvent(new MessageEvent(MessageEvent.Type.CREATED, savedMessage));
+        LOGGER.info("Published scheduled message with ID: {} - MessageService.publishScheduledMessage(Message message) method.", savedMessage.getMessageId());
+        return savedMessage;
+    }
+
+    /**
+     * Checks the fields of a new message against the rules of {@link #postMessage(Message)}: the
+     * text must not be blank or longer than the maximum length, and the poster must be given.
+     * Whether the poster exists is left to the caller.
+     * 
+     * @param message The message to check
+     * @throws InvalidInputException if the message breaks one of the rules
+     */
+    public static void validateNewMessage(Message message) {
         if (message == null) {
-            LOGGER.error("Message object is null. Message creation failed - MessageService.postMessage(Message message) method.");
-            throw new InvalidInputException("Message object is null. Message creation failed.");
+            throw NULL_MESSAGE;
         }
 
         if (message.getMessageText() == null || message.getMessageText().isBlank()) {
-            LOGGER.error("Message text is null or blank. Message creation failed - MessageService.postMessage(Message message) method.");
-            throw new InvalidInputException("Message text cannot be empty. Message creation failed.");
+            throw EMPTY_TEXT_ON_CREATE;
         }
 
         if (message.getMessageText().length() > MAX_MESSAGE_LENGTH) {
-            LOGGER.error("Message text exceeds maximum length of {} characters. Message creation failed - MessageService.postMessage(Message message) method.", MAX_MESSAGE_LENGTH);
-            throw new InvalidInputException("Message text exceeds maximum length of " + MAX_MESSAGE_LENGTH + " characters. Message creation failed.");
+            throw TEXT_TOO_LONG_ON_CREATE;
         }
 
         if (message.getPostedBy() == null) {
-            LOGGER.error("User ID is null. Message creation failed - MessageService.postMessage(Message message) method.");
-            throw new InvalidInputException("User ID cannot be null. Message creation failed.");
-        }
-
-        if (!accountRepository.existsById(message.getPostedBy())) {
-            LOGGER.error("User with ID {} does not exist. Message creation failed - MessageService.postMessage(Message message) method.", message.getPostedBy());
-            throw new BadRequestException("User with ID " + message.getPostedBy() + " does not exist. Message creation failed.");
+            throw NULL_POSTED_BY;
         }
-
-        Message savedMessage = messageRepository.save(message);
-        LOGGER.info("Successfully created message with ID: {} - MessageService.postMessage(Message message) method.", savedMessage.getMessageId());
-        return savedMessage;
     }
 
     /**
-     * Retrieves all messages in the system.
+     * Retrieves all messages in the system as immutable views, read without loading entities into
+     * the persistence context.
      * 
      * @return A list of all messages
      */
     @Transactional(readOnly = true)
-    public List<Message> getAllMessages() {
+    public List<MessageView> getAllMessages() {
         LOGGER.info("Received request to get all messages - MessageService.getAllMessages() method.");
-        List<Message> messages = messageRepository.findAll();
+        List<MessageView> messages = findAllMessages();
         LOGGER.info("Successfully retrieved {} messages - MessageService.getAllMessages() method.", messages.size());
         return messages;
     }
 
     /**
-     * Retrieves a message by its ID.
+     * Retrieves one page of messages in message ID order, starting after a cursor. The ID of the
+     * last message of a page is the cursor of the next one, and a page costs one index range scan
+     * however deep the client has paged. With several instances reserving ID blocks, a message
+     * can get an ID below a cursor that a client has already passed.
+     * 
+     * @param afterId The message ID the page starts after, 0 for the first page
+     * @param limit The page size, at most {@code socialmedia.messages.max-page-size}, which is
+     *        also the size used when it is null
+     * @return The messages with an ID above the cursor, lowest IDs first
+     * @throws InvalidInputException if the cursor is null or the page size is out of range
+     */
+    @Transactional(readOnly = true)
+    public List<MessageView> getMessagesAfter(Integer afterId, Integer limit) {
+        LOGGER.info("Received request to get messages after ID: {} - MessageService.getMessagesAfter(Integer afterId, Integer limit) method.", afterId);
+
+        if (afterId == null) {
+            LOGGER.error("Cursor is null. Message retrieval failed - MessageService.getMessagesAfter(Integer afterId, Integer limit) method.");
+            throw NULL_CURSOR;
+        }
+
+        int pageSize = limit == null ? maxPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            LOGGER.error("Page size {} is not between 1 and {}. Message retrieval failed - MessageService.getMessagesAfter(Integer afterId, Integer limit) method.", pageSize, maxPageSize);
+            throw new InvalidInputException("Page size must be between 1 and " + maxPageSize + ". Message retrieval failed.");
+        }
+
+        List<MessageView> messages;
+        if (writeBehindMessageWriter != null) {
+            List<Message> pendingMessages = writeBehindMessageWriter.getPendingAfter(afterId, pageSize);
+            messages = mergePending(messageRepository.findViewsAfter(afterId, PageRequest.of(0, pageSize)), pendingMessages);
+            if (!pendingMessages.isEmpty()) {
+                messages.sort(Comparator.comparing(MessageView::getMessageId));
+                messages = messages.size() > pageSize ? new ArrayList<>(messages.subList(0, pageSize)) : messages;
+            }
+        } else if (shardedMessageRepository != null) {
+            messages = toViews(shardedMessageRepository.findAfter(afterId, pageSize));
+        } else {
+            messages = messageRepository.findViewsAfter(afterId, PageRequest.of(0, pageSize));
+        }
+        LOGGER.info("Successfully retrieved {} messages after ID: {} - MessageService.getMessagesAfter(Integer afterId, Integer limit) method.", messages.size(), afterId);
+        return messages;
+    }
+
+    /**
+     * Retrieves a message by its ID. Concurrent calls for the same ID share one database load,
+     * which runs in a read-only transaction of its own so that waiting callers hold no connection.
+     * IDs recently found missing are answered from the negative cache.
      * 
      * @param messageId The ID of the message to retrieve
      * @return An Optional containing the message if found, empty otherwise
      * @throws InvalidInputException if the messageId is null
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<Message> getById(Integer messageId) {
         LOGGER.info("Received request to get message with ID: {} - MessageService.getById(Integer messageId) method.", messageId);
         
         if (messageId == null) {
             LOGGER.error("Message ID is null. Message retrieval failed - MessageService.getById(Integer messageId) method.");
-            throw new InvalidInputException("Message ID cannot be null. Message retrieval failed.");
+            throw NULL_ID_ON_RETRIEVAL;
         }
         
-        Optional<Message> message = messageRepository.findById(messageId);
+        if (negativeCache.getMessages().isMissing(messageId)) {
+            LOGGER.info("Message with ID: {} is known to be missing - MessageService.getById(Integer messageId) method.", messageId);
+            return Optional.empty();
+        }
+
+        Optional<Message> message = messageLoads.execute(messageId, () -> {
+            long stamp = negativeCache.getMessages().stamp();
+            Optional<Message> loaded = readOnlyTransaction.execute(status -> findMessageById(messageId));
+            if (loaded.isEmpty()) {
+                negativeCache.getMessages().markMissing(messageId, stamp);
+            }
+            return loaded;
+        });
         if (message.isPresent()) {
             LOGGER.info("Successfully retrieved message with ID: {} - MessageService.getById(Integer messageId) method.", messageId);
         } else {
@@ -135,6 +371,64 @@ public class MessageService {
         return message;
     }
 
+    /**
+     * Retrieves the messages with the given IDs in one round trip. IDs recently found missing are
+     * skipped using the negative cache and messages still waiting for write-behind are served from
+     * memory; the rest are read with a single IN-list query per database.
+     * 
+     * @param messageIds The IDs of the messages to retrieve
+     * @return The messages found, in the order their IDs were first given; missing IDs are left out
+     * @throws InvalidInputException if the list is null, holds a null ID or more IDs than allowed
+     */
+    @Transactional(readOnly = true)
+    public List<Message> getByIds(List<Integer> messageIds) {
+        LOGGER.info("Received request to get {} messages by ID - MessageService.getByIds(List<Integer> messageIds) method.", messageIds == null ? 0 : messageIds.size());
+
+        if (messageIds == null || messageIds.contains(null)) {
+            LOGGER.error("Message ID list is null or holds a null ID. Message retrieval failed - MessageService.getByIds(List<Integer> messageIds) method.");
+            throw NULL_ID_ON_RETRIEVAL;
+        }
+
+        if (messageIds.size() > maxMultiGetIds) {
+            LOGGER.error("{} message IDs requested, more than the limit of {}. Message retrieval failed - MessageService.getByIds(List<Integer> messageIds) method.", messageIds.size(), maxMultiGetIds);
+            throw new InvalidInputException("At most " + maxMultiGetIds + " message IDs can be requested at once. Message retrieval failed.");
+        }
+
+        Set<Integer> orderedIds = new LinkedHashSet<>(messageIds);
+        Map<Integer, Message> found = new HashMap<>();
+        List<Integer> idsToLoad = new ArrayList<>();
+        for (Integer messageId : orderedIds) {
+            Message pendingMessage = writeBehindMessageWriter == null ? null : writeBehindMessageWriter.findPending(messageId);
+            if (pendingMessage != null) {
+                found.put(messageId, pendingMessage);
+            } else if (!negativeCache.getMessages().isMissing(messageId)) {
+                idsToLoad.add(messageId);
+            }
+        }
+
+        if (!idsToLoad.isEmpty()) {
+            long stamp = negativeCache.getMessages().stamp();
+            for (Message message : findMessagesByIds(idsToLoad)) {
+                found.put(message.getMessageId(), message);
+            }
+            for (Integer messageId : idsToLoad) {
+                if (!found.containsKey(messageId)) {
+                    negativeCache.getMessages().markMissing(messageId, stamp);
+                }
+            }
+        }
+
+        List<Message> messages = new ArrayList<>(found.size());
+        for (Integer messageId : orderedIds) {
+            Message message = found.get(messageId);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        LOGGER.info("Successfully retrieved {} of {} messages, {} read from the database - MessageService.getByIds(List<Integer> messageIds) method.", messages.size(), orderedIds.size(), idsToLoad.size());
+        return messages;
+    }
+
     /**
      * Deletes a message by its ID.
      * 
@@ -148,88 +442,267 @@ public class MessageService {
 
         if (messageId == null) {
             LOGGER.error("Message ID is null. Message deletion failed - MessageService.deleteById(Integer messageId) method.");
-            throw new InvalidInputException("Message ID cannot be null. Message deletion failed.");
+            throw NULL_ID_ON_DELETE;
         }
 
-        if (!messageRepository.existsById(messageId)) {
+        Optional<Message> existingMessageOptional = findMessageById(messageId);
+
+        if (existingMessageOptional.isEmpty()) {
             LOGGER.info("No message found with ID: {} - MessageService.deleteById(Integer messageId) method.", messageId);
             throw new BadRequestException("Message with ID " + messageId + " not found. Message deletion failed.");
             
         }
-        messageRepository.deleteById(messageId);
+        deleteMessage(messageId);
+        eventPublisher.publishEvent(new MessageEvent(MessageEvent.Type.DELETED, existingMessageOptional.get()));
         LOGGER.info("Successfully deleted message with ID: {} - MessageService.deleteById(Integer messageId) method.", messageId);
         return ROWS_AFFECTED;
          
     }
 
     /**
-     * Updates a message's text.
+     * Updates a message's text, given the message as the caller already loaded it through
+     * {@link #getById(Integer)}, so that the message is not read a second time. The loaded
+     * message is left unchanged; a copy carrying the new text is saved.
      * 
      * @param messageId The ID of the message to update
+     * @param loadedMessage The message as loaded by the caller, or empty if it was not found
      * @param updatedMessageText The new text for the message
      * @return 1 if update was successful
      * @throws InvalidInputException if the messageId is null, text is blank or too long
      * @throws BadRequestException if the message doesn't exist
      */
-    public int updateMessage(Integer messageId, String updatedMessageText) {
-        LOGGER.info("Received request to update message with ID: {} - MessageService.updateMessage(Integer messageId, String updatedMessageText) method.", messageId);
+    public int updateMessage(Integer messageId, Optional<Message> loadedMessage, String updatedMessageText) {
+        LOGGER.info("Received request to update message with ID: {} - MessageService.updateMessage(Integer messageId, Optional<Message> loadedMessage, String updatedMessageText) method.", messageId);
 
         if (messageId == null) {
-            LOGGER.error("Message ID is null. Message update failed - MessageService.updateMessage(Integer messageId, String updatedMessageText) method.");
-            throw new InvalidInputException("Message ID cannot be null. Message update failed.");
+            LOGGER.error("Message ID is null. Message update failed - MessageService.updateMessage(Integer messageId, Optional<Message> loadedMessage, String updatedMessageText) method.");
+            throw NULL_ID_ON_UPDATE;
         }
 
         if (updatedMessageText == null || updatedMessageText.trim().isEmpty()) {
-            LOGGER.error("Message text is null or blank. Message update failed - MessageService.updateMessage(Integer messageId, String updatedMessageText) method.");
-            throw new InvalidInputException("Message text cannot be empty. Message update failed.");
+            LOGGER.error("Message text is null or blank. Message update failed - MessageService.updateMessage(Integer messageId, Optional<Message> loadedMessage, String updatedMessageText) method.");
+            throw EMPTY_TEXT_ON_UPDATE;
         }
 
         if (updatedMessageText.length() > MAX_MESSAGE_LENGTH) {
-            LOGGER.error("Message text exceeds maximum length of {} characters. Message update failed - MessageService.updateMessage(Integer messageId, String updatedMessageText) method.", MAX_MESSAGE_LENGTH);
-            throw new InvalidInputException("Message text exceeds maximum length of " + MAX_MESSAGE_LENGTH + " characters. Message update failed.");
+            LOGGER.error("Message text exceeds maximum length of {} characters. Message update failed - MessageService.updateMessage(Integer messageId, Optional<Message> loadedMessage, String updatedMessageText) method.", MAX_MESSAGE_LENGTH);
+            throw TEXT_TOO_LONG_ON_UPDATE;
         }
 
-        Optional<Message> validMessageOptional = messageRepository.findById(messageId);
-
-        if (validMessageOptional.isEmpty()) {
-            LOGGER.error("No message found with ID: {}. Message update failed - MessageService.updateMessage(Integer messageId, String updatedMessageText) method.", messageId);
+        if (loadedMessage.isEmpty()) {
+            LOGGER.error("No message found with ID: {}. Message update failed - MessageService.updateMessage(Integer messageId, Optional<Message> loadedMessage, String updatedMessageText) method.", messageId);
             throw new BadRequestException("Message with ID " + messageId + " not found. Message update failed."); 
              
         }
-        Message validMessage = validMessageOptional.get();
-        validMessage.setMessageText(updatedMessageText);
-        messageRepository.save(validMessage);
-        LOGGER.info("Successfully updated message with ID: {} - MessageService.updateMessage(Integer messageId, String updatedMessageText) method.", messageId);
+        Message storedMessage = loadedMessage.get();
+        Message validMessage = new Message(storedMessage.getMessageId(), storedMessage.getPostedBy(),
+                updatedMessageText, storedMessage.getTimePostedEpoch());
+        saveMessage(validMessage);
+        eventPublisher.publishEvent(new MessageEvent(MessageEvent.Type.UPDATED, validMessage));
+        LOGGER.info("Successfully updated message with ID: {} - MessageService.updateMessage(Integer messageId, Optional<Message> loadedMessage, String updatedMessageText) method.", messageId);
 
         return ROWS_AFFECTED;  
     }
 
     /**
-     * Retrieves all messages posted by a specific user.
+     * Retrieves all messages posted by a specific user as immutable views, read without loading
+     * entities into the persistence context. Concurrent calls for the same user share
+     * one database load, which runs in a read-only transaction of its own so that waiting callers
+     * hold no connection. Account IDs recently found missing are rejected from the negative cache.
      * 
      * @param accountId The ID of the user whose messages to retrieve
      * @return A list of messages posted by the specified user
      * @throws InvalidInputException if the accountId is null
      * @throws ResourceNotFoundException if the user doesn't exist
      */
-    @Transactional(readOnly = true)
-    public List<Message> getMessagesByUserId(Integer accountId) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<MessageView> getMessagesByUserId(Integer accountId) {
         LOGGER.info("Received request to get messages for user with ID: {} - MessageService.getMessagesByUserId(Integer accountId) method.", accountId);
 
         if (accountId == null) {
             LOGGER.error("Account ID is null. Message retrieval failed - MessageService.getMessagesByUserId(Integer accountId) method.");
-            throw new InvalidInputException("Account ID cannot be null. Message retrieval failed.");
+            throw NULL_ACCOUNT_ID;
+        }
+
+        if (negativeCache.getAccounts().isMissing(accountId)) {
+            LOGGER.error("User with ID {} is known not to exist. Message retrieval failed - MessageService.getMessagesByUserId(Integer accountId) method.", accountId);
+            throw new ResourceNotFoundException("User with ID " + accountId + " does not exist. Message retrieval failed.");
         }
 
+        List<MessageView> messages = accountMessageLoads.execute(accountId,
+                () -> readOnlyTransaction.execute(status -> loadMessagesOfExistingAccount(accountId)));
+        LOGGER.info("Successfully retrieved {} messages for user with ID: {} - MessageService.getMessagesByUserId(Integer accountId) method.", messages.size(), accountId);
+        return messages;
+    }
+
+    /**
+     * Checks that an account exists and reads its messages.
+     *
+     * @param accountId the ID of the account
+     * @return the messages posted by the account
+     * @throws ResourceNotFoundException if the account doesn't exist
+     */
+    private List<MessageView> loadMessagesOfExistingAccount(Integer accountId) {
+        long stamp = negativeCache.getAccounts().stamp();
         Optional<Account> validAccountOptional = accountRepository.findById(accountId);
 
         if (validAccountOptional.isEmpty()) {
+            negativeCache.getAccounts().markMissing(accountId, stamp);
             LOGGER.error("User with ID {} does not exist. Message retrieval failed - MessageService.getMessagesByUserId(Integer accountId) method.", accountId);
             throw new ResourceNotFoundException("User with ID " + accountId + " does not exist. Message retrieval failed.");
         }
 
-        List<Message> messages = messageRepository.findByPostedBy(accountId);
-        LOGGER.info("Successfully retrieved {} messages for user with ID: {} - MessageService.getMessagesByUserId(Integer accountId) method.", messages.size(), accountId);
+        return findMessagesByPostedBy(accountId);
+    }
+
+    /**
+     * Stores a new message through the write-behind log when it is enabled, or saves it directly,
+     * and announces it.
+     *
+     * @param message the validated message
+     * @return the saved message
+     */
+    private Message insertMessage(Message message) {
+        Message savedMessage = writeBehindMessageWriter != null ? writeBehindMessageWriter.write(message) : saveMessage(message);
+        negativeCache.getMessages().created(savedMessage.getMessageId());
+        eventPublisher.publishEvent(new MessageEvent(MessageEvent.Type.CREATED, savedMessage));
+        return savedMessage;
+    }
+
+    /**
+     * Saves a message to the shard that owns it, or to the primary database when sharding is off.
+     *
+     * @param message the message to save
+     * @return the saved message
+     */
+    private Message saveMessage(Message message) {
+        if (writeBehindMessageWriter != null && message.getMessageId() != null) {
+            writeBehindMessageWriter.flushIfPending(message.getMessageId());
+        }
+        if (shardedMessageRepository != null) {
+            return shardedMessageRepository.save(message);
+        }
+        return messageRepository.save(message);
+    }
+
+    /**
+     * Finds a message by ID on the shard encoded in the ID, or in the primary database when sharding is off.
+     *
+     * @param messageId the ID of the message
+     * @return an Optional containing the message if found, empty otherwise
+     */
+    private Optional<Message> findMessageById(Integer messageId) {
+        if (writeBehindMessageWriter != null) {
+            Message pendingMessage = writeBehindMessageWriter.findPending(messageId);
+            if (pendingMessage != null) {
+                return Optional.of(pendingMessage);
+            }
+        }
+        if (shardedMessageRepository != null) {
+            return shardedMessageRepository.findById(messageId);
+        }
+        return messageRepository.findById(messageId);
+    }
+
+    /**
+     * Finds messages by ID with one IN-list query, per shard when sharding is on.
+     *
+     * @param messageIds the IDs of the messages
+     * @return the messages found, in no particular order
+     */
+    private List<Message> findMessagesByIds(Collection<Integer> messageIds) {
+        if (shardedMessageRepository != null) {
+            return shardedMessageRepository.findAllById(messageIds);
+        }
+        return messageRepository.findAllById(messageIds);
+    }
+
+    /**
+     * Deletes a message from the shard encoded in the ID, or from the primary database when sharding is off.
+     *
+     * @param messageId the ID of the message
+     */
+    private void deleteMessage(Integer messageId) {
+        if (writeBehindMessageWriter != null) {
+            writeBehindMessageWriter.flushIfPending(messageId);
+        }
+        if (shardedMessageRepository != null) {
+            shardedMessageRepository.deleteById(messageId);
+            return;
+        }
+        messageRepository.deleteById(messageId);
+    }
+
+    /**
+     * Reads all messages, scattering the read across every shard when sharding is on.
+     *
+     * @return all messages
+     */
+    private List<MessageView> findAllMessages() {
+        if (writeBehindMessageWriter != null) {
+            List<Message> pendingMessages = writeBehindMessageWriter.getPending();
+            return mergePending(messageRepository.findAllViews(), pendingMessages);
+        }
+        if (shardedMessageRepository != null) {
+            return toViews(shardedMessageRepository.findAll());
+        }
+        return messageRepository.findAllViews();
+    }
+
+    /**
+     * Reads the messages of one account from the shard that owns it, or from the primary database when sharding is off.
+     *
+     * @param accountId the ID of the account
+     * @return the messages posted by the account
+     */
+    private List<MessageView> findMessagesByPostedBy(Integer accountId) {
+        if (writeBehindMessageWriter != null) {
+            List<Message> pendingMessages = writeBehindMessageWriter.getPendingByPostedBy(accountId);
+            return mergePending(messageRepository.findViewsByPostedBy(accountId), pendingMessages);
+        }
+        if (shardedMessageRepository != null) {
+            return toViews(shardedMessageRepository.findByPostedBy(accountId));
+        }
+        return messageRepository.findViewsByPostedBy(accountId);
+    }
+
+    /**
+     * Wraps messages read without JPA, such as from the shards, in views.
+     *
+     * @param messages the detached messages
+     * @return views of the messages, in the same order
+     */
+    private static List<MessageView> toViews(List<Message> messages) {
+        List<MessageView> views = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            views.add(MessageView.of(message));
+        }
+        return views;
+    }
+
+    /**
+     * Appends the write-behind messages that were not in the database when it was read. The pending
+     * messages must be captured before the database read, so a message flushed in between shows up
+     * in at least one of the two lists.
+     *
+     * @param storedMessages the messages read from the database
+     * @param pendingMessages the pending messages captured before the database read
+     * @return the stored messages followed by the pending messages missing from them
+     */
+    private List<MessageView> mergePending(List<MessageView> storedMessages, List<Message> pendingMessages) {
+        if (pendingMessages.isEmpty()) {
+            return storedMessages;
+        }
+        Set<Integer> storedIds = new HashSet<>();
+        for (MessageView message : storedMessages) {
+            storedIds.add(message.getMessageId());
+        }
+        List<MessageView> messages = new ArrayList<>(storedMessages);
+        for (Message message : pendingMessages) {
+            if (!storedIds.contains(message.getMessageId())) {
+                messages.add(MessageView.of(message));
+            }
+        }
         return messages;
     }
 }
@@ -0,0 +1,84 @@
+package com.example.stream;
+
+import com.example.entity.Message;
+
+/**
+ * Application event describing a change to a message, published by the message service.
+ *
+ * <p>Events are delivered to listeners after the surrounding transaction commits, so subscribers
+ * never see changes that were rolled back.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public final class MessageEvent {
+
+    /**
+     * The kind of change.
+     */
+    public enum Type {
+        CREATED("created"),
+        UPDATED("updated"),
+        DELETED("deleted");
+
+        private final String eventName;
+
+        Type(String eventName) {
+            this.eventName = eventName;
+        }
+
+        /**
+         * Returns the name used for this change on the wire.
+         *
+         * @return the event name
+         */
+        public String getEventName() {
+            return eventName;
+        }
+    }
+
+    private final Type type;
+    private final Integer messageId;
+    private final Integer postedBy;
+    private final Message message;
+
+    /**
+     * Creates an event.
+     *
+     * @param type the kind of change
+     * @param message the message after the change, or as it was before being deleted
+     */
+    public MessageEvent(Type type, Message message) {
+        this.type = type;
+        this.messageId = message.getMessageId();
+        this.postedBy = message.getPostedBy();
+        this.message = new Message(message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Integer getMessageId() {
+        return messageId;
+    }
+
+    public Integer getPostedBy() {
+        return postedBy;
+    }
+
+    /**
+     * Returns a snapshot of the message taken when the event was created.
+     *
+     * @return the message snapshot
+     */
+    public Message getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageEvent{type=" + type + ", messageId=" + messageId + ", postedBy=" + postedBy + "}";
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.stream;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.example.exception.ServiceUnavailableException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Fans committed {@link MessageEvent}s out to Server-Sent Events subscribers.
+ *
+ * <p>Subscribers do not own a thread. Each one has a small bounded buffer of pending frames, and
+ * a shared dispatch pool drains a buffer only while it has frames in it, so idle subscribers cost
+ * nothing but their open connection and emitter. Every event is serialized once and the same
+ * frame is handed to all matching subscribers.</p>
+ *
+ * <p>A subscriber whose buffer is full when a new frame arrives is a slow consumer and is
+ * disconnected; the client is expected to reconnect and re-read anything it missed. Periodic
+ * heartbeat comments keep proxies from closing idle streams and surface dead connections.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+public class MessageStreamBroker {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageStreamBroker.class);
+
+    /**
+     * Frame sent every heartbeat interval.
+     */
+    private static final Set<DataWithMediaType> HEARTBEAT = frame(SseEmitter.event().comment("heartbeat"));
+
+    /**
+     * Frame sent once when a subscriber connects, so the response headers are flushed right away.
+     */
+    private static final Set<DataWithMediaType> CONNECTED = frame(SseEmitter.event().comment("connected"));
+
+    /**
+     * Maximum number of concurrent subscribers. Every subscriber holds a Tomcat connection for as
+     * long as its stream is open, so when unset (0) it is half of
+     * {@code server.tomcat.max-connections}, leaving the other half to the REST API.
+     */
+    @Value("${socialmedia.stream.max-subscribers:0}")
+    private int maxSubscribers;
+
+    /**
+     * Maximum number of connections Tomcat accepts, shared by streams and all other requests.
+     */
+    @Value("${server.tomcat.max-connections:8192}")
+    private int maxConnections;
+
+    /**
+     * Number of frames buffered per subscriber before it is treated as a slow consumer.
+     */
+    @Value("${socialmedia.stream.buffer-size:64}")
+    private int bufferSize;
+
+    /**
+     * How long a stream stays open before the client has to reconnect.
+     */
+    @Value("${socialmedia.stream.timeout:PT30M}")
+    private Duration timeout;
+
+    /**
+     * Interval between heartbeat comments.
+     */
+    @Value("${socialmedia.stream.heartbeat-interval:PT15S}")
+    private Duration heartbeatInterval;
+
+    /**
+     * Number of threads writing frames to subscribers.
+     */
+    @Value("${socialmedia.stream.dispatch-threads:4}")
+    private int dispatchThreads;
+
+    /**
+     * Serializes event payloads once per event.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * The connected subscribers.
+     */
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * One permit per subscriber that may still connect, taken before a subscriber is added and
+     * given back when it is removed, so concurrent connects cannot overshoot the limit.
+     */
+    private Semaphore subscriberSlots;
+
+    private ExecutorService dispatchExecutor;
+    private ScheduledExecutorService heartbeatScheduler;
+
+    /**
+     * Settles the subscriber limit and starts the dispatch pool and the heartbeat.
+     */
+    @PostConstruct
+    void start() {
+        if (maxSubscribers <= 0) {
+            maxSubscribers = maxConnections / 2;
+        } else if (maxSubscribers >= maxConnections) {
+            throw new IllegalStateException("socialmedia.stream.max-subscribers (" + maxSubscribers
+                    + ") must be below server.tomcat.max-connections (" + maxConnections + ")");
+        }
+        subscriberSlots = new Semaphore(maxSubscribers);
+        AtomicInteger threadNumber = new AtomicInteger();
+        dispatchExecutor = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "message-stream-dispatch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "message-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long heartbeatMillis = heartbeatInterval.toMillis();
+        heartbeatScheduler.scheduleAtFixedRate(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Closes every open stream and stops the background threads.
+     */
+    @PreDestroy
+    void stop() {
+        heartbeatScheduler.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            disconnect(subscriber);
+        }
+        dispatchExecutor.shutdownNow();
+    }
+
+    /**
+     * Opens a new stream of message events.
+     *
+     * @param postedBy only deliver events for messages of this account, or null for all messages
+     * @return the emitter backing the stream, which writes {@code text/event-stream}
+     * @throws ServiceUnavailableException if the maximum number of subscribers has been reached
+     */
+    public ResponseBodyEmitter subscribe(Integer postedBy) {
+        if (!subscriberSlots.tryAcquire()) {
+            LOGGER.warn("Rejecting stream subscriber, {} subscribers connected - MessageStreamBroker.subscribe(Integer postedBy) method.", maxSubscribers);
+            throw new ServiceUnavailableException("Too many stream subscribers. Please try again later.");
+        }
+
+        FrameEmitter emitter = new FrameEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, postedBy, bufferSize);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> disconnect(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        enqueue(subscriber, CONNECTED);
+        return emitter;
+    }
+
+    /**
+     * Returns the number of connected subscribers.
+     *
+     * @return the subscriber count
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Delivers a committed message change to the subscribers interested in it.
+     *
+     * @param event the message event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageEvent(MessageEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event.getMessage());
+        } catch (JsonProcessingException exception) {
+            LOGGER.error("Failed to serialize {} - MessageStreamBroker.onMessageEvent(MessageEvent event) method.", event, exception);
+            return;
+        }
+        Set<DataWithMediaType> frame = frame(SseEmitter.event()
+                .id(String.valueOf(event.getMessageId()))
+                .name(event.getType().getEventName())
+                .data(payload, MediaType.APPLICATION_JSON));
+
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.accepts(event.getPostedBy())) {
+                enqueue(subscriber, frame);
+            }
+        }
+    }
+
+    /**
+     * Queues a heartbeat on every subscriber.
+     */
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, HEARTBEAT);
+        }
+    }
+
+    /**
+     * Buffers a frame for a subscriber and schedules a drain unless one is already running.
+     * A full buffer disconnects the subscriber.
+     */
+    private void enqueue(Subscriber subscriber, Set<DataWithMediaType> frame) {
+        if (!subscriber.pending.offer(frame)) {
+            LOGGER.warn("Disconnecting slow stream subscriber after {} buffered frames - MessageStreamBroker.enqueue(Subscriber subscriber, Set<DataWithMediaType> frame) method.", bufferSize);
+            disconnect(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            dispatchExecutor.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * Writes the buffered frames of one subscriber to its connection.
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            Set<DataWithMediaType> frame;
+            while ((frame = subscriber.pending.poll()) != null) {
+                subscriber.emitter.send(frame);
+            }
+        } catch (IOException | IllegalStateException exception) {
+            LOGGER.info("Stream subscriber went away: {} - MessageStreamBroker.drain(Subscriber subscriber) method.", exception.getMessage());
+            remove(subscriber);
+            subscriber.emitter.completeWithError(exception);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        if (!subscriber.pending.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    /**
+     * Renders an event once, to be sent as is to every subscriber.
+     */
+    private static Set<DataWithMediaType> frame(SseEmitter.SseEventBuilder event) {
+        return Collections.unmodifiableSet(event.build());
+    }
+
+    /**
+     * Forgets a subscriber and frees its slot, once.
+     *
+     * @return true if the subscriber was still connected
+     */
+    private boolean remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberSlots.release();
+            return true;
+        }
+        return false;
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            try {
+                subscriber.emitter.complete();
+            } catch (RuntimeException exception) {
+                LOGGER.debug("Stream subscriber was already closed - MessageStreamBroker.disconnect(Subscriber subscriber) method.", exception);
+            }
+        }
+    }
+
+    /**
+     * Emitter of an SSE stream that writes frames rendered once by {@link SseEmitter#event()}.
+     * {@link SseEmitter} itself only accepts event builders, which it renders again per send.
+     */
+    private static final class FrameEmitter extends ResponseBodyEmitter {
+
+        private FrameEmitter(long timeoutMillis) {
+            super(timeoutMillis);
+        }
+
+        @Override
+        protected void extendResponse(ServerHttpResponse outputMessage) {
+            super.extendResponse(outputMessage);
+            HttpHeaders headers = outputMessage.getHeaders();
+            if (headers.getContentType() == null) {
+                headers.setContentType(MediaType.TEXT_EVENT_STREAM);
+            }
+        }
+
+        private synchronized void send(Set<DataWithMediaType> frame) throws IOException {
+            for (DataWithMediaType part : frame) {
+                super.send(part.getData(), part.getMediaType());
+            }
+        }
+    }
+
+    /**
+     * A connected stream and its pending frames.
+     */
+    private static final class Subscriber {
+
+        private final FrameEmitter emitter;
+        private final Integer postedBy;
+        private final Queue<Set<DataWithMediaType>> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(FrameEmitter emitter, Integer postedBy, int bufferSize) {
+            this.emitter = emitter;
+            this.postedBy = postedBy;
+            this.pending = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean accepts(Integer eventPostedBy) {
+            return postedBy == null || postedBy.equals(eventPostedBy);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.MDC;
+
+/**
+ * Timings of one request as it passes through the controller, service and repository layers.
+ *
+ * <p>The trace of the request being handled is bound to the handling thread, where
+ * {@link TracingAspect} adds a span for every call into one of the layers. Per layer, the time of
+ * the outermost calls is summed, so a service calling another service is not counted twice. Up
+ * to {@link #MAX_SPANS} spans are kept individually; further ones only count towards the
+ * totals.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class RequestTrace {
+
+    /**
+     * MDC key of the request ID.
+     */
+    public static final String REQUEST_ID_KEY = "requestId";
+
+    /**
+     * MDC key of the authenticated account ID.
+     */
+    public static final String USER_ID_KEY = "userId";
+
+    /**
+     * Most spans kept individually per request.
+     */
+    public static final int MAX_SPANS = 100;
+
+    /**
+     * The layers a span can belong to.
+     */
+    public enum Layer {
+        CONTROLLER, SERVICE, REPOSITORY
+    }
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final String requestId;
+    private final long startNanos = System.nanoTime();
+    private final Map<Layer, long[]> layerTotals = new EnumMap<>(Layer.class);
+    private final int[] openPerLayer = new int[Layer.values().length];
+    private final Deque<Span> open = new ArrayDeque<>();
+    private final List<Span> spans = new ArrayList<>();
+    private int droppedSpans;
+    private Integer userId;
+
+    RequestTrace(String requestId) {
+        this.requestId = requestId;
+    }
+
+    /**
+     * Returns the trace of the request handled by this thread.
+     *
+     * @return the trace, or null outside of a traced request
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Records the account a request is authenticated as, in the trace and in the MDC.
+     *
+     * @param accountId the account ID
+     */
+    public static void userIdentified(int accountId) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.userId = accountId;
+            MDC.put(USER_ID_KEY, Integer.toString(accountId));
+        }
+    }
+
+    void bind() {
+        CURRENT.set(this);
+        MDC.put(REQUEST_ID_KEY, requestId);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+        MDC.remove(REQUEST_ID_KEY);
+        MDC.remove(USER_ID_KEY);
+    }
+
+    /**
+     * Opens a span for a call into a layer.
+     *
+     * @param layer the layer called into
+     * @param name the class and method called
+     * @return the span, to be passed to {@link #close(Span)}
+     */
+    Span open(Layer layer, String name) {
+        Span span = new Span(layer, name, System.nanoTime() - startNanos, open.size());
+        open.push(span);
+        openPerLayer[layer.ordinal()]++;
+        return span;
+    }
+
+    /**
+     * Closes the most recently opened span.
+     *
+     * @param span the span returned by {@link #open(Layer, String)}
+     */
+    void close(Span span) {
+        span.durationNanos = System.nanoTime() - startNanos - span.startNanos;
+        if (open.peek() == span) {
+            open.pop();
+        } else {
+            open.remove(span);
+        }
+        if (--openPerLayer[span.layer.ordinal()] == 0) {
+            long[] total = layerTotals.computeIfAbsent(span.layer, layer -> new long[2]);
+            total[0]++;
+            total[1] += span.durationNanos;
+        }
+        if (spans.size() < MAX_SPANS) {
+            spans.add(span);
+        } else {
+            droppedSpans++;
+        }
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return nanoseconds since the request started
+     */
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Builds the summary record of the request.
+     *
+     * @param method the HTTP method
+     * @param path the request path
+     * @param status the response status
+     * @return the summary, ready to be serialized
+     */
+    Map<String, Object> summary(String method, String path, int status) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requestId", requestId);
+        summary.put("method", method);
+        summary.put("path", path);
+        summary.put("status", status);
+        summary.put("userId", userId);
+        summary.put("totalMs", millis(elapsedNanos()));
+        Map<String, Object> layers = new LinkedHashMap<>();
+        for (Map.Entry<Layer, long[]> total : layerTotals.entrySet()) {
+            Map<String, Object> layer = new LinkedHashMap<>();
+            layer.put("calls", total.getValue()[0]);
+            layer.put("ms", millis(total.getValue()[1]));
+            layers.put(total.getKey().name().toLowerCase(), layer);
+        }
+        summary.put("layers", layers);
+        List<Map<String, Object>> spanSummaries = new ArrayList<>(spans.size());
+        spans.stream().sorted((left, right) -> Long.compare(left.startNanos, right.startNanos)).forEach(span -> {
+            Map<String, Object> spanSummary = new LinkedHashMap<>();
+            spanSummary.put("name", span.name);
+            spanSummary.put("layer", span.layer.name().toLowerCase());
+            spanSummary.put("depth", span.depth);
+            spanSummary.put("startMs", millis(span.startNanos));
+            spanSummary.put("ms", millis(span.durationNanos));
+            spanSummaries.add(spanSummary);
+        });
+        summary.put("spans", spanSummaries);
+        if (droppedSpans > 0) {
+            summary.put("droppedSpans", droppedSpans);
+        }
+        return summary;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * One call into a layer.
+     */
+    static final class Span {
+        final Layer layer;
+        final String name;
+        final long startNanos;
+        final int depth;
+        long durationNanos;
+
+        Span(Layer layer, String name, long startNanos, int depth) {
+            this.layer = layer;
+            this.name = name;
+            this.startNanos = startNanos;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.tracing;
+
+import java.lang.reflect.Proxy;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Adds a span to the current {@link RequestTrace} for every call into a controller, a service or
+ * a repository. Outside of a traced request, calls pass straight through.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "socialmedia.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingAspect {
+
+    /**
+     * Span name prefix per proxy class: the repository interface for Spring Data repositories,
+     * which are JDK proxies, and the user class otherwise.
+     */
+    private static final ClassValue<String> TYPE_NAMES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            if (Proxy.isProxyClass(type)) {
+                for (Class<?> implemented : type.getInterfaces()) {
+                    if (implemented.getName().startsWith("com.example.")) {
+                        return implemented.getSimpleName();
+                    }
+                }
+            }
+            return ClassUtils.getUserClass(type).getSimpleName();
+        }
+    };
+
+    @Around("within(com.example.controller..*)")
+    public Object traceController(ProceedingJoinPoint call) throws Throwable {
+        return trace(RequestTrace.Layer.CONTROLLER, call);
+    }
+
+    @Around("within(com.example.service..*)")
+    public Object traceService(ProceedingJoinPoint call) throws Throwable {
+        return trace(RequestTrace.Layer.SERVICE, call);
+    }
+
+    @Around("within(com.example.repository..*) || this(org.springframework.data.repository.Repository)")
+    public Object traceRepository(ProceedingJoinPoint call) throws Throwable {
+        return trace(RequestTrace.Layer.REPOSITORY, call);
+    }
+
+    private static Object trace(RequestTrace.Layer layer, ProceedingJoinPoint call) throws Throwable {
+        RequestTrace trace = RequestTrace.current();
+        if (trace == null) {
+            return call.proceed();
+        }
+        RequestTrace.Span span = trace.open(layer, TYPE_NAMES.get(call.getThis().getClass()) + "." + call.getSignature().getName());
+        try {
+            return call.proceed();
+        } finally {
+            trace.close(span);
+        }
+    }
+}
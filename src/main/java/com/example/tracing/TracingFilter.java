@@ -0,0 +1,165 @@
+package com.example.tracing;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Starts a {@link RequestTrace} for every request and logs a summary of the slow ones.
+ *
+ * <p>The request ID is taken from a well-formed {@link #HEADER} request header, so a caller's ID
+ * carries over, or generated otherwise; it is returned in the same response header and put in
+ * the MDC for the log lines written while the request is handled. Requests that take at least
+ * {@code socialmedia.tracing.slow-threshold} are logged as a single JSON record with the time
+ * spent per layer and each span.</p>
+ *
+ * <p>The MDC and the spans are bound to the thread that handles the request. Work continued on
+ * other threads, such as the password check of an asynchronous login, is covered by the total
+ * time only; the summary of such a request is written when it completes.</p>
+ *
+ * <p>Streams last as long as the client stays connected, so their total time says nothing about
+ * the server. A {@code text/event-stream} response is timed only until its handler returns and
+ * the stream starts, and requests under one of {@code socialmedia.tracing.untimed-paths}, such
+ * as the exports, are not summarized at all.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    /**
+     * Header carrying the request ID.
+     */
+    public static final String HEADER = "X-Request-Id";
+
+    /**
+     * Logger for this class, which also receives the slow request summaries.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(TracingFilter.class);
+
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final long slowThresholdNanos;
+    private final List<String> untimedPaths;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates the filter.
+     *
+     * @param slowThresholdNanos duration from which a request is summarized
+     * @param untimedPaths path prefixes of requests that are never summarized
+     * @param objectMapper writes the summaries
+     */
+    public TracingFilter(long slowThresholdNanos, List<String> untimedPaths, ObjectMapper objectMapper) {
+        this.slowThresholdNanos = slowThresholdNanos;
+        this.untimedPaths = List.copyOf(untimedPaths);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(HEADER);
+        if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        response.setHeader(HEADER, requestId);
+
+        RequestTrace trace = new RequestTrace(requestId);
+        trace.bind();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            trace.unbind();
+            if (request.isAsyncStarted() && !isEventStream(request, response)) {
+                request.getAsyncContext().addListener(new CompletionListener(trace, request, response));
+            } else {
+                complete(trace, request, response);
+            }
+        }
+    }
+
+    private boolean isUntimed(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        for (String untimedPath : untimedPaths) {
+            if (path.startsWith(untimedPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether a request is answered with an event stream, by the media type its handler
+     * produces; the stream's own headers are only written with its first frame.
+     */
+    private static boolean isEventStream(HttpServletRequest request, HttpServletResponse response) {
+        Object producible = request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+        if (producible instanceof Collection && ((Collection<?>) producible).contains(MediaType.TEXT_EVENT_STREAM)) {
+            return true;
+        }
+        String contentType = response.getContentType();
+        return contentType != null && contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    private void complete(RequestTrace trace, HttpServletRequest request, HttpServletResponse response) {
+        if (trace.elapsedNanos() < slowThresholdNanos || isUntimed(request)) {
+            return;
+        }
+        try {
+            LOGGER.warn("Slow request: {} - TracingFilter.complete() method.",
+                    objectMapper.writeValueAsString(trace.summary(request.getMethod(), request.getRequestURI(), response.getStatus())));
+        } catch (JsonProcessingException exception) {
+            LOGGER.error("Failed to summarize request {}: {} - TracingFilter.complete() method.", trace.getRequestId(), exception.getMessage());
+        }
+    }
+
+    /**
+     * Summarizes an asynchronous request once it has completed.
+     */
+    private final class CompletionListener implements AsyncListener {
+        private final RequestTrace trace;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        CompletionListener(RequestTrace trace, HttpServletRequest request, HttpServletResponse response) {
+            this.trace = trace;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            complete(trace, request, response);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
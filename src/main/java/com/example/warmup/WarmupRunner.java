@@ -0,0 +1,320 @@
+package com.example.warmup;
+
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Warms the JIT up with synthetic traffic before the application reports itself ready.
+ *
+ * <p>When {@code socialmedia.warmup.enabled} is set, this runner keeps the readiness state at
+ * {@link ReadinessState#REFUSING_TRAFFIC} while it sends requests through the application's own
+ * HTTP endpoints: the JSON and Smile reads, message posts, updates and deletes, logins and the
+ * error paths. Spring Boot reports the application ready once the runner returns, which
+ * {@code /actuator/health/readiness} shows when {@code management.endpoint.health.probes.enabled}
+ * is set.</p>
+ *
+ * <p>Traffic runs in rounds of {@code socialmedia.warmup.round-requests} requests on
+ * {@code socialmedia.warmup.threads} threads. After each round the time the JIT compiler threads
+ * spent compiling during it is compared with that of the busiest round so far; once it has stayed
+ * at or below {@code socialmedia.warmup.settle-ratio} of that peak for
+ * {@code socialmedia.warmup.settled-rounds} rounds in a row, compilation has settled and the
+ * warm-up ends. It ends in any case after
+ * {@code socialmedia.warmup.max-duration}, or after the first round that fails, since a warm-up
+ * must never keep the application from starting.</p>
+ *
+ * <p>The requests work on a scratch account with a random name and a few messages of its own,
+ * which are deleted afterwards, so the warm-up leaves no data behind. Message IDs used by it are
+ * skipped, and its posts are pushed to message stream subscribers like any other.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+@ConditionalOnProperty(name = "socialmedia.warmup.enabled", havingValue = "true")
+public class WarmupRunner implements ApplicationRunner {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private static final int SCRATCH_MESSAGES = 3;
+    private static final String SMILE = "application/x-jackson-smile";
+
+    /**
+     * Longest the warm-up may take.
+     */
+    @Value("${socialmedia.warmup.max-duration:PT2M}")
+    private Duration maxDuration;
+
+    /**
+     * Number of requests per round.
+     */
+    @Value("${socialmedia.warmup.round-requests:200}")
+    private int roundRequests;
+
+    /**
+     * Number of threads sending requests.
+     */
+    @Value("${socialmedia.warmup.threads:4}")
+    private int threads;
+
+    /**
+     * Largest compilation time of a round, relative to the busiest round, at which compilation
+     * counts as settled.
+     */
+    @Value("${socialmedia.warmup.settle-ratio:0.1}")
+    private double settleRatio;
+
+    /**
+     * Number of settled rounds in a row that end the warm-up.
+     */
+    @Value("${socialmedia.warmup.settled-rounds:3}")
+    private int settledRounds;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private HttpClient client;
+    private String baseUri;
+    private Account scratchAccount;
+    private String token;
+    private final List<Integer> scratchMessageIds = new ArrayList<>();
+
+    /**
+     * Runs the warm-up and cleans the scratch data up afterwards.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (port == null) {
+            LOGGER.warn("No web server is running, skipping the warm-up - WarmupRunner.run(ApplicationArguments args) method.");
+            return;
+        }
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+        baseUri = "http://localhost:" + port;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "warmup-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        try {
+            createScratchData();
+            warmUp(workers);
+        } catch (IOException | RuntimeException | ExecutionException exception) {
+            LOGGER.warn("Warm-up stopped early: {} - WarmupRunner.run(ApplicationArguments args) method.", exception.toString());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deleteScratchData();
+            workers.shutdownNow();
+        }
+    }
+
+    private void warmUp(ExecutorService workers) throws IOException, InterruptedException, ExecutionException {
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean compilationTimeKnown = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        int rounds = 0;
+        int settled = 0;
+        double peakCompilingMillis = 0;
+        while (settled < settledRounds && System.nanoTime() < deadline) {
+            long roundStart = System.nanoTime();
+            long compilingBefore = compilationTimeKnown ? compiler.getTotalCompilationTime() : 0;
+            runRound(workers);
+            double roundMillis = (System.nanoTime() - roundStart) / 1e6;
+            double compilingMillis = compilationTimeKnown ? compiler.getTotalCompilationTime() - compilingBefore : 0;
+            rounds++;
+            peakCompilingMillis = Math.max(peakCompilingMillis, compilingMillis);
+            settled = compilingMillis <= peakCompilingMillis * settleRatio ? settled + 1 : 0;
+            LOGGER.info("Warm-up round {} took {} ms, {} ms of it compiling - WarmupRunner.warmUp() method.",
+                    rounds, Math.round(roundMillis), Math.round(compilingMillis));
+        }
+        LOGGER.info("Warm-up {} after {} rounds of {} requests in {} ms - WarmupRunner.warmUp() method.",
+                settled >= settledRounds ? "settled" : "reached its time limit", rounds, roundRequests, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void runRound(ExecutorService workers) throws IOException, InterruptedException, ExecutionException {
+        send(post("/login", credentials()));
+        AtomicInteger next = new AtomicInteger();
+        List<Future<Void>> results = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            results.add(workers.submit(() -> {
+                int request;
+                while ((request = next.getAndIncrement()) < roundRequests) {
+                    sendSynthetic(request);
+                }
+                return null;
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get();
+        }
+    }
+
+    /**
+     * Sends one request of the synthetic mix. Every status is fine, as the error, rate limit and
+     * load shedding responses are worth warming up as well.
+     */
+    private void sendSynthetic(int request) throws IOException, InterruptedException {
+        int accountId = scratchAccount.getAccountId();
+        Integer messageId = scratchMessageIds.get(request % scratchMessageIds.size());
+        switch (request % 10) {
+            case 0:
+                send(get("/messages"));
+                break;
+            case 1:
+                send(get("/messages/" + messageId));
+                break;
+            case 2:
+                send(get("/messages?ids=" + scratchMessageIds.stream().map(String::valueOf).collect(Collectors.joining(","))));
+                break;
+            case 3:
+                send(get("/accounts/" + accountId + "/messages"));
+                break;
+            case 4:
+                send(get("/accounts?ids=" + accountId));
+                break;
+            case 5:
+                send(get("/accounts/available?username=" + scratchAccount.getUsername()));
+                break;
+            case 6:
+                send(get("/messages/" + messageId).header("Accept", SMILE));
+                break;
+            case 7:
+                send(request("/messages/" + messageId, "PATCH", new Message(accountId, "warm-up message " + request, now())));
+                break;
+            case 8:
+                HttpResponse<byte[]> posted = send(post("/messages", new Message(accountId, "warm-up message " + request, now())));
+                if (posted.statusCode() == 200) {
+                    send(request("/messages/" + objectMapper.readValue(posted.body(), Message.class).getMessageId(), "DELETE", null));
+                }
+                break;
+            default:
+                send(get("/messages/0"));
+                send(post("/messages", new Message(accountId, "", now())));
+                break;
+        }
+    }
+
+    private void createScratchData() throws IOException, InterruptedException {
+        Account credentials = credentials();
+        HttpResponse<byte[]> registered = send(post("/register", credentials));
+        if (registered.statusCode() != 200) {
+            throw new IllegalStateException("Could not register the scratch account: " + registered.statusCode());
+        }
+        scratchAccount = objectMapper.readValue(registered.body(), Account.class);
+        scratchAccount.setPassword(credentials.getPassword());
+        HttpResponse<byte[]> login = send(post("/login", scratchAccount));
+        token = login.headers().firstValue("X-Auth-Token").orElse(null);
+        for (int i = 0; i < SCRATCH_MESSAGES; i++) {
+            HttpResponse<byte[]> posted = send(post("/messages", new Message(scratchAccount.getAccountId(), "warm-up message", now())));
+            if (posted.statusCode() != 200) {
+                throw new IllegalStateException("Could not post a scratch message: " + posted.statusCode());
+            }
+            scratchMessageIds.add(objectMapper.readValue(posted.body(), Message.class).getMessageId());
+        }
+    }
+
+    private void deleteScratchData() {
+        if (scratchAccount == null) {
+            return;
+        }
+        try {
+            for (Integer messageId : scratchMessageIds) {
+                send(request("/messages/" + messageId, "DELETE", null));
+            }
+            int status = send(request("/accounts/" + scratchAccount.getAccountId(), "DELETE", null)).statusCode();
+            if (status != 200) {
+                LOGGER.warn("Could not delete the warm-up account {}: {} - WarmupRunner.deleteScratchData() method.", scratchAccount.getUsername(), status);
+            }
+        } catch (IOException exception) {
+            LOGGER.warn("Could not delete the warm-up account {}: {} - WarmupRunner.deleteScratchData() method.", scratchAccount.getUsername(), exception.toString());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Account credentials() {
+        if (scratchAccount != null) {
+            return scratchAccount;
+        }
+        String random = UUID.randomUUID().toString().replace("-", "");
+        return new Account("warmup-" + random.substring(0, 16), random.substring(16));
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path, "GET", null);
+    }
+
+    private HttpRequest.Builder post(String path, Object body) {
+        return request(path, "POST", body);
+    }
+
+    private HttpRequest.Builder request(String path, String method, Object body) {
+        HttpRequest.BodyPublisher publisher;
+        try {
+            publisher = body == null ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUri + path))
+                .method(method, publisher)
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.writebehind;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import com.example.entity.Message;
+
+/**
+ * Durable, memory-mapped, append-only log of messages that have been accepted but not yet
+ * written to the database.
+ *
+ * <p>The file starts with a 16 byte header holding a magic number, a format version and the
+ * checkpoint, which is the offset of the first record that has not been flushed to the database
+ * yet. Records follow back to back, each as {@code [length][crc32][payload]}, and the log is
+ * terminated by a zero length. The length is written last, so a record torn by a crash is either
+ * invisible or fails its checksum, and recovery stops there.</p>
+ *
+ * <p>Once everything up to the write position has been checkpointed, the log rewinds to the
+ * start of the file, so a fixed-size mapping is enough as long as the flusher keeps up.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class MessageAppendLog implements AutoCloseable {
+
+    private static final int MAGIC = 0x4D53474C;
+    private static final int VERSION = 1;
+    private static final int CHECKPOINT_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int FIXED_PAYLOAD_SIZE = 4 + 4 + 8 + 4;
+    private static final int TERMINATOR_SIZE = 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean forceOnAppend;
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Offset at which the next record is written.
+     */
+    private int writePosition;
+
+    /**
+     * Opens or creates the log file and maps it into memory.
+     *
+     * @param path the log file
+     * @param capacityBytes the size of the mapping
+     * @param forceOnAppend whether every append is forced to the storage device, which also
+     *        survives an operating system crash at the cost of append latency
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MessageAppendLog(Path path, int capacityBytes, boolean forceOnAppend) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+        this.forceOnAppend = forceOnAppend;
+
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(CHECKPOINT_OFFSET, HEADER_SIZE);
+            buffer.putInt(0, MAGIC);
+            buffer.force();
+        }
+        this.writePosition = HEADER_SIZE;
+        List<Entry> unflushed = readUnflushed();
+        this.writePosition = unflushed.isEmpty() ? (int) getCheckpoint() : (int) unflushed.get(unflushed.size() - 1).getEndOffset();
+    }
+
+    /**
+     * Appends a message to the log.
+     *
+     * @param message the message, which must already carry its ID
+     * @return the offset just past the appended record, or -1 if the log has no room left
+     */
+    public synchronized long append(Message message) {
+        byte[] text = message.getMessageText().getBytes(StandardCharsets.UTF_8);
+        int payloadLength = FIXED_PAYLOAD_SIZE + text.length;
+        int recordEnd = writePosition + RECORD_HEADER_SIZE + payloadLength;
+        if (recordEnd + TERMINATOR_SIZE > buffer.capacity()) {
+            return -1;
+        }
+
+        buffer.putInt(recordEnd, 0);
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(writePosition + RECORD_HEADER_SIZE);
+        payload.putInt(message.getMessageId());
+        payload.putInt(message.getPostedBy());
+        payload.putLong(message.getTimePostedEpoch() == null ? Long.MIN_VALUE : message.getTimePostedEpoch());
+        payload.putInt(text.length);
+        payload.put(text);
+        buffer.putInt(writePosition + 4, checksum(writePosition + RECORD_HEADER_SIZE, payloadLength));
+        buffer.putInt(writePosition, payloadLength);
+        if (forceOnAppend) {
+            buffer.force();
+        }
+        writePosition = recordEnd;
+        return recordEnd;
+    }
+
+    /**
+     * Reads every intact record between the checkpoint and the end of the log.
+     *
+     * @return the unflushed records in append order
+     */
+    public synchronized List<Entry> readUnflushed() {
+        List<Entry> entries = new ArrayList<>();
+        int position = (int) getCheckpoint();
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int payloadLength = buffer.getInt(position);
+            int payloadStart = position + RECORD_HEADER_SIZE;
+            if (payloadLength < FIXED_PAYLOAD_SIZE || payloadStart + payloadLength > buffer.capacity()
+                    || buffer.getInt(position + 4) != checksum(payloadStart, payloadLength)) {
+                break;
+            }
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(payloadStart);
+            int messageId = payload.getInt();
+            int postedBy = payload.getInt();
+            long timePostedEpoch = payload.getLong();
+            byte[] text = new byte[payload.getInt()];
+            payload.get(text);
+            Message message = new Message(messageId, postedBy, new String(text, StandardCharsets.UTF_8),
+                    timePostedEpoch == Long.MIN_VALUE ? null : timePostedEpoch);
+            position = payloadStart + payloadLength;
+            entries.add(new Entry(message, position));
+        }
+        return entries;
+    }
+
+    /**
+     * Marks every record before the given offset as written to the database. When that covers
+     * the whole log, the log rewinds to the start of the file.
+     *
+     * @param offset the end offset of the last flushed record
+     */
+    public synchronized void checkpoint(long offset) {
+        if (offset >= writePosition) {
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.putLong(CHECKPOINT_OFFSET, HEADER_SIZE);
+            writePosition = HEADER_SIZE;
+        } else {
+            buffer.putLong(CHECKPOINT_OFFSET, offset);
+        }
+        if (forceOnAppend) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Returns whether there are records that have not been checkpointed.
+     *
+     * @return true if the log holds unflushed records
+     */
+    public synchronized boolean hasUnflushed() {
+        return getCheckpoint() < writePosition;
+    }
+
+    /**
+     * Forces the mapping to disk and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private long getCheckpoint() {
+        return buffer.getLong(CHECKPOINT_OFFSET);
+    }
+
+    private int checksum(int start, int length) {
+        ByteBuffer region = buffer.duplicate();
+        region.position(start);
+        region.limit(start + length);
+        crc.reset();
+        crc.update(region);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A record read back from the log.
+     */
+    public static final class Entry {
+
+        private final Message message;
+        private final long endOffset;
+
+        Entry(Message message, long endOffset) {
+            this.message = message;
+            this.endOffset = endOffset;
+        }
+
+        public Message getMessage() {
+            return message;
+        }
+
+        /**
+         * Returns the offset just past this record, suitable for {@link MessageAppendLog#checkpoint(long)}.
+         *
+         * @return the end offset of the record
+         */
+        public long getEndOffset() {
+            return endOffset;
+        }
+    }
+}
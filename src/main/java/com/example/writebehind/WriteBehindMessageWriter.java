@@ -0,0 +1,511 @@
+package com.example.writebehind;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.entity.Message;
+import com.example.exception.ServiceUnavailableException;
+import com.example.id.MessageIdGenerator;
+import com.example.repository.shard.ShardedMessageRepository;
+import com.example.stream.MessageEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Write-behind path for new messages.
+ *
+ * <p>When {@code socialmedia.write-behind.enabled} is true, a new message gets its ID from the
+ * configured {@link MessageIdGenerator}, unless it carries an ID reserved for it beforehand, is
+ * appended to the {@link MessageAppendLog} and is acknowledged right away. A background flusher
+ * batch-writes accepted messages into the database with {@code merge}, one transaction per batch,
+ * and then advances the log checkpoint, so a message written twice under its reserved ID, like a
+ * scheduled message published again, leaves a single row. Until a message has been flushed it is
+ * kept in memory so that reads can still see it.</p>
+ *
+ * <p>On startup every record past the checkpoint is replayed with {@code merge}, so a message that
+ * was flushed but not yet checkpointed when the process died is not inserted twice.</p>
+ *
+ * <p>A message that violates a constraint, such as one whose account was deleted after it was
+ * accepted, can never be written. It is appended to the dead-letter log at
+ * {@code socialmedia.write-behind.dead-letter-path}, counted in
+ * {@code socialmedia.write-behind.dead-lettered}, and announced as deleted so that stream
+ * subscribers drop it.</p>
+ *
+ * <p>Write-behind only covers the primary database and cannot be combined with message sharding.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+@Component
+@ConditionalOnProperty(name = "socialmedia.write-behind.enabled", havingValue = "true")
+public class WriteBehindMessageWriter implements SmartInitializingSingleton, DisposableBean {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindMessageWriter.class);
+
+    private static final String MERGE_SQL =
+            "merge into message (messageId, postedBy, messageText, timePostedEpoch) key (messageId) values (?, ?, ?, ?)";
+
+    /**
+     * Location of the append log.
+     */
+    @Value("${socialmedia.write-behind.log-path:data/message-write-behind.log}")
+    private Path logPath;
+
+    /**
+     * Size of the append log in bytes. When it fills up, posting a message waits for a synchronous flush.
+     */
+    @Value("${socialmedia.write-behind.log-capacity:67108864}")
+    private int logCapacity;
+
+    /**
+     * Whether every append is forced to the storage device rather than left to the page cache.
+     */
+    @Value("${socialmedia.write-behind.force-on-append:false}")
+    private boolean forceOnAppend;
+
+    /**
+     * Location of the dead-letter log, one JSON line per message that could not be written.
+     */
+    @Value("${socialmedia.write-behind.dead-letter-path:data/message-dead-letter.log}")
+    private Path deadLetterPath;
+
+    /**
+     * Maximum number of messages inserted per batch.
+     */
+    @Value("${socialmedia.write-behind.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * How long the flusher waits when there is nothing to flush, or after a failed flush.
+     */
+    @Value("${socialmedia.write-behind.flush-interval:PT0.02S}")
+    private Duration flushInterval;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MessageIdGenerator idGenerator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private ShardedMessageRepository shardedMessageRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Accepted messages that are not in the database yet, by ID.
+     */
+    private final ConcurrentNavigableMap<Integer, Message> pending = new ConcurrentSkipListMap<>();
+
+    /**
+     * Accepted messages in log order, waiting for the flusher.
+     */
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * Keeps log order and queue order identical, so checkpointing the last flushed record never skips one.
+     */
+    private final Object appendLock = new Object();
+
+    /**
+     * Serializes flushes between the flusher thread and callers that need a message in the database now.
+     */
+    private final Object flushLock = new Object();
+
+    /**
+     * The batch currently being flushed, kept across attempts when the database is unavailable.
+     */
+    private final List<PendingWrite> inFlight = new ArrayList<>();
+
+    private MessageAppendLog log;
+    private TransactionTemplate transactionTemplate;
+    private Counter deadLettered;
+    private Thread flusher;
+    private volatile boolean running;
+
+    /**
+     * Opens the log, replays what was not flushed before the last shutdown and starts the flusher.
+     * Runs once all singletons, including the database initializer, are ready.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (shardedMessageRepository != null) {
+            throw new IllegalStateException("socialmedia.write-behind.enabled cannot be combined with socialmedia.message.shards.");
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        deadLettered = Counter.builder("socialmedia.write-behind.dead-lettered")
+                .description("Accepted messages that violated a constraint and went to the dead-letter log")
+                .register(meterRegistry);
+        try {
+            log = new MessageAppendLog(logPath, logCapacity, forceOnAppend);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to open write-behind log " + logPath, exception);
+        }
+        recover();
+
+        running = true;
+        flusher = new Thread(this::runFlusher, "message-write-behind-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        LOGGER.info("Write-behind enabled with log {} - WriteBehindMessageWriter.afterSingletonsInstantiated() method.", logPath);
+    }
+
+    /**
+     * Stops the flusher, flushes everything still pending and closes the log.
+     *
+     * @throws Exception if the log cannot be closed
+     */
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        if (flusher != null) {
+            flusher.join();
+        }
+        try {
+            flush();
+        } catch (ServiceUnavailableException exception) {
+            LOGGER.warn("{} pending messages left in the write-behind log for the next startup - WriteBehindMessageWriter.destroy() method.", pending.size());
+        }
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    /**
+     * Assigns an ID to a validated message, makes it durable in the log and queues it for the database.
+     *
+     * @param message the message to write; its ID is set by this method unless it was reserved beforehand
+     * @return the message with its ID
+     * @throws IllegalStateException if the generated ID does not fit the message ID
+     */
+    public Message write(Message message) {
+        if (message.getMessageId() == null) {
+            message.setMessageId(MessageIdGenerator.toMessageId(idGenerator.nextId()));
+        }
+        Message snapshot = copy(message);
+        pending.put(snapshot.getMessageId(), snapshot);
+
+        if (!tryAppend(snapshot)) {
+            flush();
+            if (!tryAppend(snapshot)) {
+                pending.remove(snapshot.getMessageId());
+                throw new IllegalStateException("Message does not fit in the write-behind log of " + logCapacity + " bytes.");
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Returns a message that was accepted but not flushed yet.
+     *
+     * @param messageId the ID of the message
+     * @return a copy of the pending message, or null if it is not pending
+     */
+    public Message findPending(Integer messageId) {
+        Message message = pending.get(messageId);
+        return message == null ? null : copy(message);
+    }
+
+    /**
+     * Returns copies of all pending messages in ID order.
+     *
+     * @return the pending messages
+     */
+    public List<Message> getPending() {
+        return pending.values().stream().map(WriteBehindMessageWriter::copy).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns copies of the first pending messages above an ID, in ID order.
+     *
+     * @param afterId the ID the messages start after
+     * @param limit the largest number of messages returned
+     * @return the pending messages
+     */
+    public List<Message> getPendingAfter(Integer afterId, int limit) {
+        return pending.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(WriteBehindMessageWriter::copy)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns copies of the pending messages of one account in ID order.
+     *
+     * @param postedBy the account ID
+     * @return the pending messages of the account
+     */
+    public List<Message> getPendingByPostedBy(Integer postedBy) {
+        return pending.values().stream()
+                .filter(message -> message.getPostedBy().equals(postedBy))
+                .map(WriteBehindMessageWriter::copy)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Makes sure a message is in the database before it is changed through JPA.
+     *
+     * @param messageId the ID of the message
+     * @throws ServiceUnavailableException if the database rejected the flush
+     */
+    public void flushIfPending(Integer messageId) {
+        if (pending.containsKey(messageId)) {
+            flush();
+        }
+    }
+
+    /**
+     * Makes sure every message of an account is in the database, so the foreign key of the message
+     * table can see them before the account is deleted.
+     *
+     * @param postedBy the account ID
+     * @throws ServiceUnavailableException if the database rejected the flush
+     */
+    public void flushPendingByPostedBy(Integer postedBy) {
+        for (Message message : pending.values()) {
+            if (message.getPostedBy().equals(postedBy)) {
+                flush();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes every queued message to the database and checkpoints the log.
+     *
+     * @throws ServiceUnavailableException if the database rejected the flush; the messages stay
+     *         queued and in the log
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            do {
+                if (!flushBatch()) {
+                    throw new ServiceUnavailableException("Pending messages could not be written to the database. Please try again later.");
+                }
+            } while (!queue.isEmpty());
+        }
+    }
+
+    /**
+     * Returns the number of accepted messages that are not in the database yet.
+     *
+     * @return the pending message count
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private boolean tryAppend(Message snapshot) {
+        synchronized (appendLock) {
+            long endOffset = log.append(snapshot);
+            if (endOffset < 0) {
+                return false;
+            }
+            queue.add(new PendingWrite(snapshot, endOffset));
+            return true;
+        }
+    }
+
+    private void runFlusher() {
+        while (running) {
+            boolean flushed;
+            synchronized (flushLock) {
+                flushed = flushBatch();
+            }
+            if (!flushed || queue.isEmpty()) {
+                try {
+                    Thread.sleep(flushInterval.toMillis());
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts the next batch in its own transaction, independent of any transaction of the caller,
+     * so the log is never checkpointed past rows that could still be rolled back. Must be called holding {@link #flushLock}.
+     *
+     * @return false if the database was unavailable and the batch has to be retried
+     */
+    private boolean flushBatch() {
+        if (inFlight.isEmpty()) {
+            queue.drainTo(inFlight, batchSize);
+            if (inFlight.isEmpty()) {
+                return true;
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(MERGE_SQL, toRows(inFlight)));
+        } catch (DataIntegrityViolationException batchFailure) {
+            return insertOneByOne();
+        } catch (DataAccessException exception) {
+            LOGGER.warn("Write-behind flush of {} messages failed, will retry: {} - WriteBehindMessageWriter.flushBatch() method.", inFlight.size(), exception.getMessage());
+            return false;
+        }
+
+        log.checkpoint(inFlight.get(inFlight.size() - 1).endOffset);
+        for (PendingWrite write : inFlight) {
+            pending.remove(write.message.getMessageId());
+        }
+        inFlight.clear();
+        return true;
+    }
+
+    /**
+     * Falls back to single inserts after a constraint violation, so one bad row (for example a
+     * message whose account was deleted in the meantime) does not hold back the rest of its batch.
+     * Rows that violate a constraint can never be written and go to the dead-letter log.
+     *
+     * @return false if the database was unavailable
+     */
+    private boolean insertOneByOne() {
+        while (!inFlight.isEmpty()) {
+            PendingWrite write = inFlight.get(0);
+            Message message = write.message;
+            try {
+                jdbcTemplate.update(MERGE_SQL, message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+            } catch (DataIntegrityViolationException exception) {
+                deadLetter(message, exception);
+            } catch (DataAccessException exception) {
+                LOGGER.warn("Write-behind flush failed, will retry: {} - WriteBehindMessageWriter.insertOneByOne() method.", exception.getMessage());
+                return false;
+            }
+            log.checkpoint(write.endOffset);
+            pending.remove(message.getMessageId());
+            inFlight.remove(0);
+        }
+        return true;
+    }
+
+    /**
+     * Replays every record past the log checkpoint into the database.
+     */
+    private void recover() {
+        List<MessageAppendLog.Entry> entries = log.readUnflushed();
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        int replayed = 0;
+        int highestId = 0;
+        for (MessageAppendLog.Entry entry : entries) {
+            Message message = entry.getMessage();
+            highestId = Math.max(highestId, message.getMessageId());
+            try {
+                jdbcTemplate.update(MERGE_SQL, message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+                replayed++;
+            } catch (DataIntegrityViolationException exception) {
+                deadLetter(message, exception);
+            }
+        }
+        idGenerator.advancePast(highestId);
+        log.checkpoint(entries.get(entries.size() - 1).getEndOffset());
+        LOGGER.info("Replayed {} of {} unflushed messages from the write-behind log - WriteBehindMessageWriter.recover() method.", replayed, entries.size());
+    }
+
+    /**
+     * Records a message that can never be written in the dead-letter log and retracts it from the
+     * stream subscribers that were told it was created. If the dead-letter log cannot be written,
+     * the message is logged in full instead.
+     *
+     * @param message the message that violates a constraint
+     * @param violation the reason it was rejected
+     */
+    private void deadLetter(Message message, DataIntegrityViolationException violation) {
+        deadLettered.increment();
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("messageId", message.getMessageId());
+        record.put("postedBy", message.getPostedBy());
+        record.put("messageText", message.getMessageText());
+        record.put("timePostedEpoch", message.getTimePostedEpoch());
+        record.put("error", violation.getMostSpecificCause().getMessage());
+        try {
+            byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+            Path parent = deadLetterPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(deadLetterPath, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            LOGGER.error("Message with ID {} violates a constraint and was moved to the dead-letter log {}: {} - WriteBehindMessageWriter.deadLetter(Message message, DataIntegrityViolationException violation) method.",
+                    message.getMessageId(), deadLetterPath, violation.getMostSpecificCause().getMessage());
+        } catch (IOException exception) {
+            LOGGER.error("Message {} violates a constraint and could not be written to the dead-letter log {}: {} - WriteBehindMessageWriter.deadLetter(Message message, DataIntegrityViolationException violation) method.",
+                    record, deadLetterPath, exception.getMessage());
+        }
+        eventPublisher.publishEvent(new MessageEvent(MessageEvent.Type.DELETED, message));
+    }
+
+    private static List<Object[]> toRows(Collection<PendingWrite> writes) {
+        List<Object[]> rows = new ArrayList<>(writes.size());
+        for (PendingWrite write : writes) {
+            Message message = write.message;
+            rows.add(new Object[] {message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch()});
+        }
+        return rows;
+    }
+
+    private static Message copy(Message message) {
+        return new Message(message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+    }
+
+    /**
+     * A message in the log together with the offset just past its record.
+     */
+    private static final class PendingWrite {
+
+        private final Message message;
+        private final long endOffset;
+
+        private PendingWrite(Message message, long endOffset) {
+            this.message = message;
+            this.endOffset = endOffset;
+        }
+    }
+}
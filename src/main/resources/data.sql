@@ -1,3 +1,4 @@
+drop table if exists scheduled_message;
 drop table if exists message;
 drop table if exists account;
 create table account (
@@ -6,12 +7,23 @@ create table account (
     password varchar(255)
 );
 create table message (
-    messageId int primary key auto_increment,
+    messageId bigint primary key auto_increment,
     postedBy int,
     messageText varchar(255),
     timePostedEpoch bigint,
     foreign key (postedBy) references account(accountId)
 );
+create table scheduled_message (
+    scheduledId int primary key auto_increment,
+    postedBy int not null,
+    messageText varchar(255),
+    timePostedEpoch bigint not null,
+    messageId bigint,
+    claimedBy bigint,
+    claimedAt bigint,
+    foreign key (postedBy) references account(accountId)
+);
+create index scheduled_message_due_idx on scheduled_message(timePostedEpoch);
 
 -- Starting test values with ids of 9999 to avoid test issues
 insert into account values (9999, 'testuser1', 'password');
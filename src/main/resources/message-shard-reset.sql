@@ -0,0 +1,2 @@
+drop table if exists message;
+drop sequence if exists message_seq;
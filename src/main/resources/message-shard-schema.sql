@@ -0,0 +1,8 @@
+create sequence if not exists message_seq start with 1;
+create table if not exists message (
+    messageId bigint primary key,
+    postedBy int,
+    messageText varchar(255),
+    timePostedEpoch bigint
+);
+create index if not exists message_postedBy_idx on message(postedBy);
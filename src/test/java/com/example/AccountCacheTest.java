@@ -0,0 +1,122 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Account;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class AccountCacheTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, start the app with the cache metrics on and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--socialmedia.account-cache.metrics-enabled=true"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return webClient.send(request.header("Content-Type", "application/json").build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> login(String username) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + username + "\",\"password\":\"password\"}")));
+    }
+
+    private double cacheRequests(String region, String result) {
+        return app.getBean(MeterRegistry.class).get("socialmedia.account-cache.requests")
+                .tag("region", region).tag("result", result).functionCounter().count();
+    }
+
+    /**
+     * Sending GET localhost:8080/accounts/9999/messages and POST localhost:8080/login repeatedly
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  The account and its username lookup are answered from the second-level cache after the first request
+     */
+    @Test
+    public void repeatedLookupsHitTheCache() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(200, send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/accounts/9999/messages"))).statusCode());
+        }
+        Assertions.assertTrue(cacheRequests(Account.CACHE_REGION, "hit") >= 2);
+        Assertions.assertTrue(app.getBean(MeterRegistry.class).get("socialmedia.account-cache.hit-ratio")
+                .tag("region", Account.CACHE_REGION).gauge().value() > 0);
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(200, login("testuser2").statusCode());
+        }
+        Assertions.assertTrue(cacheRequests(Account.NATURAL_ID_CACHE_REGION, "hit") >= 1);
+    }
+
+    /**
+     * Registering an account, reading it through every cached path, then sending DELETE localhost:8080/accounts/{accountId}
+     *
+     * Expected Response:
+     *  Every lookup afterwards reports the account missing instead of serving the cached copy
+     */
+    @Test
+    public void deletedAccountIsEvicted() throws IOException, InterruptedException {
+        HttpResponse<String> registered = send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"cacheduser\",\"password\":\"password\"}")));
+        Assertions.assertEquals(200, registered.statusCode());
+        int accountId = objectMapper.readValue(registered.body(), Account.class).getAccountId();
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertEquals(200, login("cacheduser").statusCode());
+            Assertions.assertEquals(200, send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/accounts/" + accountId + "/messages"))).statusCode());
+            HttpResponse<String> accounts = send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/accounts?ids=" + accountId)));
+            Assertions.assertEquals(200, accounts.statusCode());
+            Assertions.assertEquals(1, objectMapper.readValue(accounts.body(), new TypeReference<List<Account>>() {}).size());
+        }
+
+        Assertions.assertEquals(200, send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/" + accountId)).DELETE()).statusCode());
+
+        Assertions.assertEquals(401, login("cacheduser").statusCode());
+        Assertions.assertEquals(404, send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/" + accountId + "/messages"))).statusCode());
+        HttpResponse<String> accounts = send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts?ids=" + accountId)));
+        Assertions.assertEquals(200, accounts.statusCode());
+        Assertions.assertEquals(List.of(), objectMapper.readValue(accounts.body(), new TypeReference<List<Account>>() {}));
+        Assertions.assertEquals(400, send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":" + accountId + ",\"messageText\":\"gone\",\"timePostedEpoch\":1669947792}"))).statusCode());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+public class BinaryEncodingTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper smileMapper;
+    ObjectMapper cborMapper;
+
+    private static final String SMILE = "application/x-jackson-smile";
+    private static final String CBOR = "application/cbor";
+
+    /**
+     * Before every test, start the app and create a new webClient and Smile and CBOR ObjectMappers
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        smileMapper = new ObjectMapper(new SmileFactory());
+        cborMapper = new ObjectMapper(new CBORFactory());
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .header("Accept", accept)
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Sending GET localhost:8080/messages with Accept: application/x-jackson-smile
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: all messages, encoded as Smile
+     */
+    @Test
+    public void getMessagesAsSmile() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = get("/messages", SMILE);
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(SMILE, response.headers().firstValue("Content-Type").orElse(null));
+        List<Message> expectedResult = List.of(
+                new Message(9996, 9996, "test message 3", 1669947792L),
+                new Message(9997, 9997, "test message 2", 1669947792L),
+                new Message(9999, 9999, "test message 1", 1669947792L));
+        List<Message> actualResult = smileMapper.readValue(response.body(), new TypeReference<List<Message>>() {});
+        Assertions.assertEquals(expectedResult, actualResult);
+    }
+
+    /**
+     * Sending POST localhost:8080/messages with a CBOR body and Accept: application/cbor
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the created message, encoded as CBOR
+     */
+    @Test
+    public void postMessageAsCbor() throws IOException, InterruptedException {
+        byte[] body = cborMapper.writeValueAsBytes(new Message(9999, "hello cbor", 1669947792L));
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .header("Content-Type", CBOR)
+                .header("Accept", CBOR)
+                .build();
+        HttpResponse<byte[]> response = webClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(CBOR, response.headers().firstValue("Content-Type").orElse(null));
+        Message created = cborMapper.readValue(response.body(), Message.class);
+        Assertions.assertEquals("hello cbor", created.getMessageText());
+        Assertions.assertEquals(9999, created.getPostedBy());
+        Assertions.assertNotNull(created.getMessageId());
+    }
+
+    /**
+     * Sending GET localhost:8080/accounts?ids= with Accept: application/cbor, and without a preference
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the account encoded as CBOR, and as JSON when the client accepts anything
+     */
+    @Test
+    public void jsonRemainsTheDefault() throws IOException, InterruptedException {
+        HttpResponse<byte[]> cbor = get("/accounts?ids=9999", CBOR);
+        Assertions.assertEquals(200, cbor.statusCode());
+        List<Account> accounts = cborMapper.readValue(cbor.body(), new TypeReference<List<Account>>() {});
+        Assertions.assertEquals("testuser1", accounts.get(0).getUsername());
+
+        HttpResponse<byte[]> json = get("/accounts?ids=9999", "*/*");
+        Assertions.assertEquals(200, json.statusCode());
+        Assertions.assertEquals("application/json", json.headers().firstValue("Content-Type").orElse(null));
+        Assertions.assertTrue(json.body().length > cbor.body().length);
+    }
+}
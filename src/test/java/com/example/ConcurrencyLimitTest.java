@@ -0,0 +1,111 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.concurrency.AdaptiveConcurrencyLimiter;
+import com.example.concurrency.EndpointClass;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class ConcurrencyLimitTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    AdaptiveConcurrencyLimiter limiter;
+
+    /**
+     * Before every test, start the app with small fixed limits for point reads and bulk listings,
+     * and create a new webClient for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {
+                "--socialmedia.concurrency-limit.endpoints.point-read.initial-limit=4",
+                "--socialmedia.concurrency-limit.endpoints.point-read.min-limit=4",
+                "--socialmedia.concurrency-limit.endpoints.point-read.max-limit=4",
+                "--socialmedia.concurrency-limit.endpoints.bulk-read.initial-limit=2",
+                "--socialmedia.concurrency-limit.endpoints.bulk-read.min-limit=2",
+                "--socialmedia.concurrency-limit.endpoints.bulk-read.max-limit=2"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        limiter = app.getBean(AdaptiveConcurrencyLimiter.class);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode();
+    }
+
+    private List<AdaptiveConcurrencyLimiter.Permit> hold(EndpointClass endpointClass, int count) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(limiter.acquire(endpointClass));
+        }
+        return permits;
+    }
+
+    /**
+     * Sending GET localhost:8080/messages while every bulk listing slot is taken
+     *
+     * Expected Response:
+     *  Status Code: 503 while the slots are taken, 200 once they are released; point reads are unaffected
+     */
+    @Test
+    public void bulkListingOverLimitIsShed() throws IOException, InterruptedException {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = hold(EndpointClass.BULK_READ, 2);
+
+        Assertions.assertEquals(503, get("/messages"));
+        Assertions.assertEquals(200, get("/messages/9999"));
+
+        permits.forEach(permit -> permit.release(false));
+        Assertions.assertEquals(200, get("/messages"));
+    }
+
+    /**
+     * Sending GET localhost:8080/accounts/9999/messages while point reads use more than half of their limit
+     *
+     * Expected Response:
+     *  Status Code: 503 for the bulk listing while a point read still gets 200
+     */
+    @Test
+    public void bulkListingsYieldToPointReads() throws IOException, InterruptedException {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = hold(EndpointClass.POINT_READ, 3);
+
+        Assertions.assertEquals(503, get("/accounts/9999/messages"));
+        Assertions.assertEquals(200, get("/messages/9999"));
+
+        permits.forEach(permit -> permit.release(false));
+        Assertions.assertEquals(200, get("/accounts/9999/messages"));
+    }
+
+    /**
+     * The current limit of every endpoint class is published as a gauge
+     */
+    @Test
+    public void limitIsExposedAsMetric() {
+        MeterRegistry registry = app.getBean(MeterRegistry.class);
+        Assertions.assertEquals(2.0, registry.get("socialmedia.concurrency.limit").tag("class", "bulk-read").gauge().value());
+        Assertions.assertEquals(4.0, registry.get("socialmedia.concurrency.limit").tag("class", "point-read").gauge().value());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ExportTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, start the app with a small export fetch size,
+     * and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--socialmedia.export.fetch-size=50"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Sending GET localhost:8080/export/messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: one JSON message per line, ordered by message ID, sent chunked
+     */
+    @Test
+    public void exportMessagesAsNdjson() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/export/messages");
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("application/x-ndjson;charset=UTF-8", response.headers().firstValue("Content-Type").orElse(null));
+        Assertions.assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(null));
+        Assertions.assertTrue(response.body().endsWith("\n"));
+
+        List<Message> actualResult = new ArrayList<>();
+        for (String line : response.body().split("\n")) {
+            actualResult.add(objectMapper.readValue(line, Message.class));
+        }
+        List<Message> expectedResult = List.of(
+                new Message(9996, 9996, "test message 3", 1669947792L),
+                new Message(9997, 9997, "test message 2", 1669947792L),
+                new Message(9999, 9999, "test message 1", 1669947792L));
+        Assertions.assertEquals(expectedResult, actualResult);
+    }
+
+    /**
+     * Sending GET localhost:8080/export/messages?format=csv with a time range
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a header row and the messages posted in the range, with text quoted where needed
+     */
+    @Test
+    public void exportMessagesAsCsvInTimeRange() throws IOException, InterruptedException {
+        app.getBean(JdbcTemplate.class).update("insert into message (postedBy, messageText, timePostedEpoch) values (9999, ?, 2000000000)",
+                "hello, \"world\"");
+
+        HttpResponse<String> response = get("/export/messages?format=csv&from=1700000000");
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/csv"));
+        String[] lines = response.body().split("\r\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertEquals("messageId,postedBy,messageText,timePostedEpoch", lines[0]);
+        Assertions.assertTrue(lines[1].endsWith(",9999,\"hello, \"\"world\"\"\",2000000000"), lines[1]);
+
+        response = get("/export/messages?format=csv&from=1669947792&to=1700000000");
+        Assertions.assertEquals(4, response.body().split("\r\n").length);
+        response = get("/export/messages?format=csv&to=1669947792");
+        Assertions.assertEquals("messageId,postedBy,messageText,timePostedEpoch\r\n", response.body());
+    }
+
+    /**
+     * Sending GET localhost:8080/export/accounts
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the ID and username of every account, without passwords
+     */
+    @Test
+    public void exportAccountsOmitsPasswords() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/export/accounts");
+        Assertions.assertEquals(200, response.statusCode());
+        List<Map<String, Object>> accounts = new ArrayList<>();
+        for (String line : response.body().split("\n")) {
+            accounts.add(objectMapper.readValue(line, new TypeReference<Map<String, Object>>() {}));
+        }
+        Assertions.assertEquals(List.of(
+                Map.of("accountId", 9996, "username", "testuser4"),
+                Map.of("accountId", 9997, "username", "testuser3"),
+                Map.of("accountId", 9998, "username", "testuser2"),
+                Map.of("accountId", 9999, "username", "testuser1")), accounts);
+    }
+
+    /**
+     * Exporting more rows than several fetch sizes
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: every row exactly once
+     */
+    @Test
+    public void exportStreamsManyRows() throws IOException, InterruptedException {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(new Object[] {9998, "bulk message " + i, 1669947800L + i});
+        }
+        app.getBean(JdbcTemplate.class).batchUpdate("insert into message (postedBy, messageText, timePostedEpoch) values (?, ?, ?)", rows);
+
+        HttpResponse<String> response = get("/export/messages?format=csv&from=1669947800");
+        Assertions.assertEquals(200, response.statusCode());
+        List<String> lines = response.body().lines().skip(1).collect(Collectors.toList());
+        Assertions.assertEquals(5000, lines.size());
+        Assertions.assertTrue(lines.get(4999).endsWith(",9998,bulk message 4999," + (1669947800L + 4999)));
+    }
+
+    /**
+     * Sending GET localhost:8080/export/messages with an unknown format or a reversed range
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void invalidExportRequestsAreRejected() throws IOException, InterruptedException {
+        Assertions.assertEquals(400, get("/export/messages?format=xml").statusCode());
+        Assertions.assertEquals(400, get("/export/messages?from=20&to=10").statusCode());
+        Assertions.assertEquals(400, get("/export/accounts?format=json").statusCode());
+    }
+}
@@ -0,0 +1,182 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderEndpointTest {
+    ApplicationContext app;
+    HttpClient webClient;
+
+    private static final String ENDPOINT = "http://localhost:8080/actuator/jfr";
+    private static final String ADMIN_TOKEN = "jfr-test-admin-token";
+
+    /**
+     * Before every test, create a new webClient for interacting locally on the web.
+     * The app is started by each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+        if (app != null) {
+            SpringApplication.exit(app);
+        }
+    }
+
+    private void start(String... args) throws InterruptedException {
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    private void startEnabled() throws InterruptedException {
+        start("--management.endpoint.jfr.enabled=true",
+                "--management.endpoints.web.exposure.include=jfr",
+                "--socialmedia.admin.token=" + ADMIN_TOKEN);
+    }
+
+    private HttpRequest.Builder request(String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(ENDPOINT));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> startRecording(String body) throws IOException, InterruptedException {
+        return webClient.send(request(ADMIN_TOKEN)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Starting a profiling recording, sending controller traffic and stopping it
+     *
+     * Expected Response:
+     *  The stopped recording comes back as a .jfr file holding the controller requests and allocation samples
+     */
+    @Test
+    public void recordingIsReturnedAsJfrFile() throws IOException, InterruptedException {
+        startEnabled();
+        HttpResponse<String> started = startRecording("{\"settings\":\"profile\",\"duration\":\"PT30S\"}");
+        Assertions.assertEquals(200, started.statusCode(), started.body());
+        Assertions.assertTrue(started.body().contains("RUNNING"));
+        Assertions.assertEquals(409, startRecording("{}").statusCode());
+
+        for (int i = 0; i < 20; i++) {
+            webClient.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/messages")).build(), HttpResponse.BodyHandlers.discarding());
+        }
+        Assertions.assertEquals(200, webClient.send(request(ADMIN_TOKEN).GET().build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        Path file = Files.createTempFile("recording-test-", ".jfr");
+        try {
+            HttpResponse<Path> stopped = webClient.send(request(ADMIN_TOKEN).DELETE().build(), HttpResponse.BodyHandlers.ofFile(file));
+            Assertions.assertEquals(200, stopped.statusCode());
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            Assertions.assertEquals(20, events.stream()
+                    .filter(event -> event.getEventType().getName().equals("com.example.ControllerRequest"))
+                    .filter(event -> event.getString("path").equals("/messages") && event.getInt("status") == 200)
+                    .count());
+            Assertions.assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().startsWith("jdk.ObjectAllocation")));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        Assertions.assertEquals(404, webClient.send(request(ADMIN_TOKEN).DELETE().build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    /**
+     * Unknown settings or a duration above the maximum
+     *
+     * Expected Response:
+     *  Status Code: 400, and no recording is started
+     */
+    @Test
+    public void invalidRecordingIsRejected() throws IOException, InterruptedException {
+        startEnabled();
+        Assertions.assertEquals(400, startRecording("{\"settings\":\"nonexistent\"}").statusCode());
+        Assertions.assertEquals(400, startRecording("{\"duration\":\"PT11M\"}").statusCode());
+        Assertions.assertEquals(404, webClient.send(request(ADMIN_TOKEN).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    /**
+     * Requests without the admin token or with a wrong one
+     *
+     * Expected Response:
+     *  Status Code: 401
+     */
+    @Test
+    public void recordingRequiresAdminToken() throws IOException, InterruptedException {
+        startEnabled();
+        Assertions.assertEquals(401, webClient.send(request(null).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+        Assertions.assertEquals(401, webClient.send(request("wrong").POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    /**
+     * The endpoint with an admin token but without enabling it, and without any configuration
+     *
+     * Expected Response:
+     *  Status Code: 404 when only the token is configured, 401 when nothing is
+     */
+    @Test
+    public void endpointIsOffByDefault() throws IOException, InterruptedException {
+        start("--socialmedia.admin.token=" + ADMIN_TOKEN);
+        Assertions.assertEquals(404, webClient.send(request(ADMIN_TOKEN).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+        SpringApplication.exit(app);
+
+        start();
+        Assertions.assertEquals(401, webClient.send(request(ADMIN_TOKEN).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    /**
+     * The endpoint moved to another path with management.endpoints.web.path-mapping.jfr
+     *
+     * Expected Response:
+     *  Status Code: 401 without the admin token, 404 with it while there is no recording
+     */
+    @Test
+    public void pathMappedEndpointRequiresAdminToken() throws IOException, InterruptedException {
+        start("--management.endpoint.jfr.enabled=true",
+                "--management.endpoints.web.exposure.include=jfr",
+                "--management.endpoints.web.path-mapping.jfr=flight",
+                "--socialmedia.admin.token=" + ADMIN_TOKEN);
+        HttpRequest.Builder mapped = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/actuator/flight"));
+        Assertions.assertEquals(401, webClient.send(mapped.copy().GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+        Assertions.assertEquals(404, webClient.send(mapped.copy().header("Authorization", "Bearer " + ADMIN_TOKEN).GET().build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    /**
+     * Enabling the endpoint together with a separate management port, which the admin token filter does not cover
+     *
+     * Expected Response:
+     *  Startup fails
+     */
+    @Test
+    public void separateManagementPortIsRefused() {
+        Assertions.assertThrows(Exception.class, () -> start("--management.endpoint.jfr.enabled=true",
+                "--management.endpoints.web.exposure.include=jfr",
+                "--management.server.port=8081",
+                "--socialmedia.admin.token=" + ADMIN_TOKEN));
+    }
+}
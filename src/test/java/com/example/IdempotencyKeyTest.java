@@ -0,0 +1,158 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class IdempotencyKeyTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private List<Message> getAllMessages() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+
+    /**
+     * Sending the same http request to POST localhost:8080/messages twice with one Idempotency-Key
+     *
+     * Expected Response:
+     *  Status Code: 200 for both, the same message in both bodies, and only one message persisted
+     */
+    @Test
+    public void createMessageReplayReturnsOriginal() throws IOException, InterruptedException {
+    	String json = "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", "create-message-replay")
+                .build();
+        HttpResponse<String> first = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, first.statusCode());
+        Assertions.assertEquals(200, second.statusCode());
+        Assertions.assertEquals(objectMapper.readValue(first.body(), Message.class), objectMapper.readValue(second.body(), Message.class));
+        Assertions.assertEquals("true", second.headers().firstValue("Idempotent-Replayed").orElse(null));
+        Assertions.assertEquals(4, getAllMessages().size(), "Expected the 3 seeded messages plus one created message");
+    }
+
+    /**
+     * Sending ten concurrent http requests to POST localhost:8080/messages with one Idempotency-Key
+     *
+     * Expected Response:
+     *  Status Code: 200 for all, every body holding the same message, and only one message persisted
+     */
+    @Test
+    public void concurrentDuplicatesAreCoalesced() throws IOException, InterruptedException {
+    	String json = "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", "create-message-concurrent")
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            responses.add(webClient.sendAsync(postMessageRequest, HttpResponse.BodyHandlers.ofString()));
+        }
+        Message expected = null;
+        for (CompletableFuture<HttpResponse<String>> future : responses) {
+            HttpResponse<String> response = future.join();
+            Assertions.assertEquals(200, response.statusCode());
+            Message actual = objectMapper.readValue(response.body(), Message.class);
+            if (expected == null) {
+                expected = actual;
+            }
+            Assertions.assertEquals(expected, actual);
+        }
+        Assertions.assertEquals(4, getAllMessages().size(), "Expected the 3 seeded messages plus one created message");
+    }
+
+    /**
+     * Sending the same http request to POST localhost:8080/register twice with one Idempotency-Key
+     *
+     * Expected Response:
+     *  Status Code: 200 for both, instead of 409 for the retry
+     */
+    @Test
+    public void registerReplayReturnsOriginal() throws IOException, InterruptedException {
+        String json = "{\"username\":\"user\",\"password\":\"password\"}";
+    	HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", "register-replay")
+                .build();
+        HttpResponse<String> first = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, first.statusCode());
+        Assertions.assertEquals(200, second.statusCode(), "Expected Status Code 200 - Actual Code was: " + second.statusCode());
+        Assertions.assertEquals(first.body(), second.body());
+    }
+
+    /**
+     * Sending two http requests to POST localhost:8080/messages with one Idempotency-Key but different texts
+     *
+     * Expected Response:
+     *  Status Code: 200 for the first, 422 for the second, and only the first message persisted
+     */
+    @Test
+    public void reusedKeyWithDifferentBodyIsRejected() throws IOException, InterruptedException {
+        HttpResponse<String> first = webClient.send(postMessageWithKey("first text", "reused-key"), HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = webClient.send(postMessageWithKey("second text", "reused-key"), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, first.statusCode());
+        Assertions.assertEquals(422, second.statusCode(), "Expected Status Code 422 - Actual Code was: " + second.statusCode());
+        Assertions.assertEquals(4, getAllMessages().size(), "Expected the 3 seeded messages plus one created message");
+    }
+
+    private static HttpRequest postMessageWithKey(String messageText, String idempotencyKey) {
+        String json = "{\"postedBy\":9999,\"messageText\": \"" + messageText + "\",\"timePostedEpoch\": 1669947792}";
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", idempotencyKey)
+                .build();
+    }
+}
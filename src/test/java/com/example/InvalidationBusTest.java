@@ -0,0 +1,147 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Account;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class InvalidationBusTest {
+    ApplicationContext instanceA;
+    ApplicationContext instanceB;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    private static final String A = "http://localhost:8080";
+    private static final String B = "http://localhost:8081";
+
+    /**
+     * Before every test, create a new webClient and ObjectMapper for interacting locally on the web.
+     * The two instances are started by each test, sharing one in-memory database.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+        if (instanceB != null) {
+            SpringApplication.exit(instanceB);
+        }
+        if (instanceA != null) {
+            SpringApplication.exit(instanceA);
+        }
+    }
+
+    private void startInstances(String[] argsA, String[] argsB) throws InterruptedException {
+        instanceA = SpringApplication.run(SocialMediaApp.class, argsA);
+        List<String> args = new ArrayList<>(List.of(argsB));
+        args.add("--server.port=8081");
+        instanceB = SpringApplication.run(SocialMediaApp.class, args.toArray(new String[0]));
+        Thread.sleep(500);
+    }
+
+    private HttpResponse<String> send(String instance, String path, String method, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(instance + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private int register(String instance, String username) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(instance, "/register", "POST", "{\"username\":\"" + username + "\",\"password\":\"password\"}");
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), Account.class).getAccountId();
+    }
+
+    private int login(String instance, String username) throws IOException, InterruptedException {
+        return send(instance, "/login", "POST", "{\"username\":\"" + username + "\",\"password\":\"password\"}").statusCode();
+    }
+
+    private List<Account> getAccounts(String instance, int accountId) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(instance, "/accounts?ids=" + accountId, "GET", null);
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Account>>() {});
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 50 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(100);
+        }
+        Assertions.assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * Caching an account on instance B, then deleting it through instance A
+     */
+    private void deletedAccountConverges() throws IOException, InterruptedException {
+        int accountId = register(A, "bususer");
+        Assertions.assertEquals(1, getAccounts(B, accountId).size());
+        Assertions.assertEquals(200, login(B, "bususer"));
+        Assertions.assertEquals(200, send(B, "/accounts/" + accountId + "/messages", "GET", null).statusCode());
+
+        Assertions.assertEquals(200, send(A, "/accounts/" + accountId, "DELETE", null).statusCode());
+
+        awaitTrue(() -> {
+            try {
+                return send(B, "/accounts/" + accountId + "/messages", "GET", null).statusCode() == 404;
+            } catch (IOException | InterruptedException exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+        Assertions.assertEquals(List.of(), getAccounts(B, accountId));
+        Assertions.assertEquals(401, login(B, "bususer"));
+    }
+
+    /**
+     * Two instances on the in-JVM bus: an account deleted on A and cached on B
+     *
+     * Expected Response:
+     *  B stops serving the account from its caches, and learns about a username taken on A
+     */
+    @Test
+    public void cachesConvergeOverLocalBus() throws IOException, InterruptedException {
+        startInstances(new String[] {}, new String[] {});
+        deletedAccountConverges();
+
+        register(A, "takenonA");
+        HttpResponse<String> response = send(B, "/accounts/available?username=takenonA", "GET", null);
+        Map<String, Object> body = objectMapper.readValue(response.body(), new TypeReference<Map<String, Object>>() {});
+        Assertions.assertEquals(false, body.get("available"));
+    }
+
+    /**
+     * Two instances on the UDP bus, each listing both ports as peers
+     *
+     * Expected Response:
+     *  B stops serving the account deleted on A once the datagram arrives
+     */
+    @Test
+    public void cachesConvergeOverUdpBus() throws IOException, InterruptedException {
+        String peers = "--socialmedia.invalidation.udp.peers=127.0.0.1:9101,127.0.0.1:9102";
+        startInstances(
+                new String[] {"--socialmedia.invalidation.transport=udp", "--socialmedia.invalidation.udp.port=9101", peers},
+                new String[] {"--socialmedia.invalidation.transport=udp", "--socialmedia.invalidation.udp.port=9102", peers});
+        deletedAccountConverges();
+    }
+}
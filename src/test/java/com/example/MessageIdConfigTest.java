@@ -0,0 +1,64 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.id.MessageIdGenerator;
+import com.example.writebehind.MessageIdAllocator;
+
+public class MessageIdConfigTest {
+	ApplicationContext app;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	if (app != null) {
+    	    SpringApplication.exit(app);
+    	}
+    }
+
+    /**
+     * Starting the app without socialmedia.id.generator
+     *
+     * Expected Response:
+     *  The sequence allocator is used
+     */
+    @Test
+    public void sequenceGeneratorIsTheDefault() {
+        app = SpringApplication.run(SocialMediaApp.class);
+        Assertions.assertTrue(app.getBean(MessageIdGenerator.class) instanceof MessageIdAllocator);
+    }
+
+    /**
+     * Starting the app with socialmedia.id.generator=snowflake while the message ID is an Integer
+     *
+     * Expected Response:
+     *  Startup fails, instead of every write-behind insert failing later
+     */
+    @Test
+    public void snowflakeGeneratorFailsStartup() {
+        Exception exception = Assertions.assertThrows(Exception.class, () -> SpringApplication.run(SocialMediaApp.class,
+                "--socialmedia.id.generator=snowflake", "--socialmedia.id.worker-id=17"));
+        Throwable cause = exception;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        Assertions.assertTrue(cause instanceof IllegalStateException);
+        Assertions.assertTrue(cause.getMessage().contains("64-bit message IDs"), cause.getMessage());
+    }
+
+    /**
+     * Starting the app with an unknown socialmedia.id.generator
+     *
+     * Expected Response:
+     *  Startup fails
+     */
+    @Test
+    public void unknownGeneratorFailsStartup() {
+        Assertions.assertThrows(Exception.class, () -> SpringApplication.run(SocialMediaApp.class,
+                "--socialmedia.id.generator=uuid"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.entity.Message;
+
+public class MessageImportTest {
+	ApplicationContext app;
+    Path directory;
+    Path dump;
+    Path checkpoint;
+
+    private static final String DUMP = String.join("\n",
+            "{\"postedBy\":9999,\"messageText\":\"imported 1\",\"timePostedEpoch\":1700000001}",
+            "{\"messageId\":1,\"postedBy\":9998,\"messageText\":\"imported 2\",\"timePostedEpoch\":1700000002}",
+            "",
+            "{\"postedBy\":9997,\"messageText\":\"\",\"timePostedEpoch\":1700000003}",
+            "not json",
+            "{\"postedBy\":404,\"messageText\":\"no such poster\",\"timePostedEpoch\":1700000004}",
+            "{\"messageText\":\"no poster\",\"timePostedEpoch\":1700000005}",
+            "{\"postedBy\":9997,\"messageText\":\"imported 3\",\"timePostedEpoch\":1700000006}\r",
+            "{\"postedBy\":9996,\"messageText\":\"imported 4\",\"timePostedEpoch\":1700000007}",
+            "{\"postedBy\":9999,\"messageText\":\"imported 5\",\"timePostedEpoch\":1700000008}");
+
+    /**
+     * Before every test, write an NDJSON dump with valid and invalid records to a temporary directory.
+     * @throws IOException
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("message-import");
+        dump = directory.resolve("messages.ndjson");
+        checkpoint = directory.resolve("messages.ndjson.checkpoint");
+        Files.write(dump, DUMP.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException, IOException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+        Files.deleteIfExists(checkpoint);
+        Files.deleteIfExists(dump);
+        Files.deleteIfExists(directory);
+    }
+
+    private void startImport() {
+        String[] args = new String[] {"--socialmedia.import.file=" + dump, "--socialmedia.import.exit-on-completion=false",
+                "--socialmedia.import.batch-size=2", "--socialmedia.import.window-size=256", "--socialmedia.import.threads=2"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+    }
+
+    private List<Message> importedMessages() {
+        return app.getBean(JdbcTemplate.class).query(
+                "select * from message where timePostedEpoch >= 1700000000 order by timePostedEpoch",
+                (resultSet, rowNumber) -> new Message(resultSet.getInt("messageId"), resultSet.getInt("postedBy"),
+                        resultSet.getString("messageText"), resultSet.getLong("timePostedEpoch")));
+    }
+
+    /**
+     * Starting the app with socialmedia.import.file pointing at a dump
+     *
+     * Expected Result:
+     *  Valid records are imported in file order with new IDs, invalid ones are skipped,
+     *  and the checkpoint ends at the end of the file
+     */
+    @Test
+    public void importValidRecordsAndSkipInvalidOnes() throws IOException {
+        startImport();
+
+        List<Message> messages = importedMessages();
+        Assertions.assertEquals(List.of("imported 1", "imported 2", "imported 3", "imported 4", "imported 5"),
+                messages.stream().map(Message::getMessageText).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(9999, 9998, 9997, 9996, 9999),
+                messages.stream().map(Message::getPostedBy).collect(Collectors.toList()));
+        Assertions.assertEquals(5, messages.stream().map(Message::getMessageId).distinct().count());
+        Assertions.assertNotEquals(1, messages.get(1).getMessageId());
+        Assertions.assertEquals(List.of("offset=" + Files.size(dump)), Files.readAllLines(checkpoint));
+    }
+
+    /**
+     * Starting the import with a checkpoint left by an interrupted run, whose last batch may have been committed
+     *
+     * Expected Result:
+     *  Records before the checkpoint are not imported again, and the pending batch is written with its recorded IDs
+     */
+    @Test
+    public void resumeFromCheckpoint() throws IOException {
+        String content = Files.readString(dump);
+        long resumeOffset = content.indexOf("{\"postedBy\":9997,\"messageText\":\"imported 3\"");
+        long nextOffset = content.indexOf("{\"postedBy\":9996,\"messageText\":\"imported 4\"");
+        Files.write(checkpoint, List.of("offset=" + resumeOffset, "pending=" + resumeOffset + ":" + resumeOffset + "=70001," + nextOffset + "=70002"));
+
+        startImport();
+
+        List<Message> messages = importedMessages();
+        Assertions.assertEquals(List.of(
+                new Message(70001, 9997, "imported 3", 1700000006L),
+                new Message(70002, 9996, "imported 4", 1700000007L)), messages.subList(0, 2));
+        Assertions.assertEquals(3, messages.size());
+        Assertions.assertEquals("imported 5", messages.get(2).getMessageText());
+    }
+
+    /**
+     * Resuming a pending batch whose checkpoint records an ID for only one of its now valid records
+     *
+     * Expected Result:
+     *  The recorded record keeps its ID, the other one gets a new ID, and no record is written twice
+     */
+    @Test
+    public void resumeKeepsRecordedIdsWhenValidRecordsChanged() throws IOException {
+        String content = Files.readString(dump);
+        long resumeOffset = content.indexOf("{\"postedBy\":9997,\"messageText\":\"imported 3\"");
+        long nextOffset = content.indexOf("{\"postedBy\":9996,\"messageText\":\"imported 4\"");
+        Files.write(checkpoint, List.of("offset=" + resumeOffset, "pending=" + resumeOffset + ":" + nextOffset + "=70002"));
+
+        startImport();
+
+        List<Message> messages = importedMessages();
+        Assertions.assertEquals(List.of("imported 3", "imported 4", "imported 5"),
+                messages.stream().map(Message::getMessageText).collect(Collectors.toList()));
+        Assertions.assertEquals(70002, messages.get(1).getMessageId());
+        Assertions.assertEquals(3, messages.stream().map(Message::getMessageId).distinct().count());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.example.entity.Message;
+import com.example.exception.ServiceUnavailableException;
+import com.example.stream.MessageStreamBroker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageStreamTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private void postMessage(int postedBy, String messageText) throws IOException, InterruptedException {
+        String json = "{\"postedBy\":" + postedBy + ",\"messageText\": \"" + messageText + "\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    /**
+     * Subscribing to GET localhost:8080/messages/stream?postedBy=9997, then posting messages as 9999 and 9997
+     *
+     * Expected Response:
+     *  Status Code: 200 with a text/event-stream whose first event is the "created" event of the 9997 message
+     */
+    @Test
+    public void streamDeliversFilteredCreatedEvent() throws Exception {
+        HttpRequest streamRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/stream?postedBy=9997"))
+                .header("Accept", "text/event-stream")
+                .build();
+        HttpResponse<Stream<String>> response = webClient.sendAsync(streamRequest, HttpResponse.BodyHandlers.ofLines())
+                .get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+
+        postMessage(9999, "not for this stream");
+        postMessage(9997, "streamed message");
+
+        Iterator<String> lines = response.body().iterator();
+        CompletableFuture<String[]> firstEvent = CompletableFuture.supplyAsync(() -> {
+            String eventName = null;
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (line.startsWith("event:")) {
+                    eventName = line.substring("event:".length());
+                } else if (line.startsWith("data:")) {
+                    return new String[] {eventName, line.substring("data:".length())};
+                }
+            }
+            return null;
+        });
+        String[] event = firstEvent.get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals("created", event[0]);
+        Message streamed = objectMapper.readValue(event[1], Message.class);
+        Assertions.assertEquals(9997, streamed.getPostedBy());
+        Assertions.assertEquals("streamed message", streamed.getMessageText());
+        response.body().close();
+    }
+
+    /**
+     * Sixty-four concurrent subscriptions against a limit of eight subscribers
+     *
+     * Expected Response:
+     *  Exactly eight are accepted and the rest are refused
+     */
+    @Test
+    public void concurrentSubscribersCannotExceedTheLimit() throws Exception {
+        SpringApplication.exit(app);
+        app = SpringApplication.run(SocialMediaApp.class, "--socialmedia.stream.max-subscribers=8");
+        MessageStreamBroker broker = app.getBean(MessageStreamBroker.class);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseBodyEmitter>> attempts = new ArrayList<>();
+        for (int attempt = 0; attempt < 64; attempt++) {
+            attempts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return broker.subscribe(null);
+                } catch (ServiceUnavailableException exception) {
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        List<ResponseBodyEmitter> accepted = new ArrayList<>();
+        for (Future<ResponseBodyEmitter> attempt : attempts) {
+            ResponseBodyEmitter emitter = attempt.get(10, TimeUnit.SECONDS);
+            if (emitter != null) {
+                accepted.add(emitter);
+            }
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(8, accepted.size());
+        Assertions.assertEquals(8, broker.getSubscriberCount());
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> broker.subscribe(null));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.repository.MessageRepository;
+import com.example.service.MessageService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MultiGetTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, start the app with a multi-get limit of 5 IDs,
+     * and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--socialmedia.multi-get.max-ids=5"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Sending GET localhost:8080/messages?ids= with existing, missing and repeated IDs
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the existing messages once each, in the order of the IDs, read with one query
+     */
+    @Test
+    public void getMessagesByIdsFollowsInputOrder() throws IOException, InterruptedException {
+        MessageRepository messageRepository = Mockito.mock(MessageRepository.class, AdditionalAnswers.delegatesTo(app.getBean(MessageRepository.class)));
+        MessageService messageService = AopTestUtils.getTargetObject(app.getBean(MessageService.class));
+        ReflectionTestUtils.setField(messageService, "messageRepository", messageRepository);
+
+        HttpResponse<String> response = get("/messages?ids=9997,404,9999,9997");
+        Assertions.assertEquals(200, response.statusCode());
+        List<Message> expectedResult = List.of(
+                new Message(9997, 9997, "test message 2", 1669947792L),
+                new Message(9999, 9999, "test message 1", 1669947792L));
+        List<Message> actualResult = objectMapper.readValue(response.body(), new TypeReference<List<Message>>() {});
+        Assertions.assertEquals(expectedResult, actualResult);
+
+        Mockito.verify(messageRepository, Mockito.times(1)).findAllById(ArgumentMatchers.any());
+        Mockito.verify(messageRepository, Mockito.never()).findById(ArgumentMatchers.any());
+    }
+
+    /**
+     * Sending GET localhost:8080/accounts?ids= with existing and missing IDs
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the existing accounts in the order of the IDs
+     */
+    @Test
+    public void getAccountsByIdsFollowsInputOrder() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/accounts?ids=9998,1,9996,9999");
+        Assertions.assertEquals(200, response.statusCode());
+        List<Account> actualResult = objectMapper.readValue(response.body(), new TypeReference<List<Account>>() {});
+        Assertions.assertEquals(List.of(9998, 9996, 9999), actualResult.stream().map(Account::getAccountId).collect(Collectors.toList()));
+        Assertions.assertEquals("testuser2", actualResult.get(0).getUsername());
+    }
+
+    /**
+     * Sending GET localhost:8080/messages?ids= with more IDs than allowed, or an ID that is not a number
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void invalidIdListsAreRejected() throws IOException, InterruptedException {
+        Assertions.assertEquals(400, get("/messages?ids=1,2,3,4,5,6").statusCode());
+        Assertions.assertEquals(400, get("/accounts?ids=1,2,3,4,5,6").statusCode());
+        Assertions.assertEquals(400, get("/messages?ids=1,abc").statusCode());
+        Assertions.assertEquals(200, get("/messages?ids=").statusCode());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.repository.AccountRepository;
+import com.example.repository.MessageRepository;
+import com.example.service.MessageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class NegativeCacheTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    MessageRepository messageRepository;
+    AccountRepository accountRepository;
+
+    /**
+     * Before every test, start the app with repositories that record their invocations,
+     * and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+
+        messageRepository = Mockito.mock(MessageRepository.class, AdditionalAnswers.delegatesTo(app.getBean(MessageRepository.class)));
+        accountRepository = Mockito.mock(AccountRepository.class, AdditionalAnswers.delegatesTo(app.getBean(AccountRepository.class)));
+        MessageService messageService = AopTestUtils.getTargetObject(app.getBean(MessageService.class));
+        ReflectionTestUtils.setField(messageService, "messageRepository", messageRepository);
+        ReflectionTestUtils.setField(messageService, "accountRepository", accountRepository);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Sending GET localhost:8080/messages/1 repeatedly before message 1 exists, then posting it
+     *
+     * Expected Response:
+     *  The misses cost one repository lookup, and the message is visible right after it is created
+     */
+    @Test
+    public void missingMessageIsCachedUntilCreated() throws IOException, InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            HttpResponse<String> response = get("/messages/1");
+            Assertions.assertEquals(200, response.statusCode());
+            Assertions.assertEquals("", response.body());
+        }
+        Mockito.verify(messageRepository, Mockito.times(1)).findById(1);
+
+        HttpResponse<String> postResponse = post("/messages", "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}");
+        Assertions.assertEquals(200, postResponse.statusCode());
+        Assertions.assertEquals(1, objectMapper.readValue(postResponse.body(), Message.class).getMessageId());
+
+        HttpResponse<String> response = get("/messages/1");
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("hello message", objectMapper.readValue(response.body(), Message.class).getMessageText());
+    }
+
+    /**
+     * Sending GET localhost:8080/accounts/{accountId}/messages repeatedly for the next account ID, then registering it
+     *
+     * Expected Response:
+     *  Status Code: 404 at the cost of one repository lookup, then 200 once the account is registered
+     */
+    @Test
+    public void missingAccountIsCachedUntilRegistered() throws IOException, InterruptedException {
+        HttpResponse<String> firstRegistration = post("/register", "{\"username\":\"negative1\",\"password\":\"password\"}");
+        Assertions.assertEquals(200, firstRegistration.statusCode());
+        int nextAccountId = objectMapper.readValue(firstRegistration.body(), Account.class).getAccountId() + 1;
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(404, get("/accounts/" + nextAccountId + "/messages").statusCode());
+        }
+        Mockito.verify(accountRepository, Mockito.times(1)).findById(nextAccountId);
+
+        HttpResponse<String> secondRegistration = post("/register", "{\"username\":\"negative2\",\"password\":\"password\"}");
+        Assertions.assertEquals(200, secondRegistration.statusCode());
+        Assertions.assertEquals(nextAccountId, objectMapper.readValue(secondRegistration.body(), Account.class).getAccountId());
+
+        HttpResponse<String> response = get("/accounts/" + nextAccountId + "/messages");
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("[]", response.body());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.entity.Account;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class PasswordHashingTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Before every test, start the app with a single hashing thread and a queue of one,
+     * and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {
+                "--socialmedia.password.pool-size=1",
+                "--socialmedia.password.queue-capacity=1"
+        };
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        jdbcTemplate = app.getBean(JdbcTemplate.class);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private HttpRequest post(String path, String username, String password) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+    }
+
+    private String storedPassword(String username) {
+        return jdbcTemplate.queryForObject("select password from account where username = ?", String.class, username);
+    }
+
+    /**
+     * Sending POST localhost:8080/register, then POST localhost:8080/login with the same credentials
+     *
+     * Expected Response:
+     *  Status Code: 200 for both, with only a hash of the password stored
+     */
+    @Test
+    public void registeredPasswordIsStoredHashed() throws IOException, InterruptedException {
+        HttpResponse<String> registration = webClient.send(post("/register", "hashed", "secret"), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, registration.statusCode());
+        Assertions.assertEquals("secret", objectMapper.readValue(registration.body(), Account.class).getPassword());
+
+        String stored = storedPassword("hashed");
+        Assertions.assertTrue(stored.startsWith("$pbkdf2-sha256$"), "Expected a password hash - Actual value was: " + stored);
+
+        Assertions.assertEquals(200, webClient.send(post("/login", "hashed", "secret"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(401, webClient.send(post("/login", "hashed", "wrong"), HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    /**
+     * Sending POST localhost:8080/login for an account whose password is still stored in plaintext
+     *
+     * Expected Response:
+     *  Status Code: 200, with the stored password replaced by a hash that later logins verify against
+     */
+    @Test
+    public void plaintextPasswordIsMigratedOnLogin() throws IOException, InterruptedException {
+        Assertions.assertEquals("password", storedPassword("testuser1"));
+
+        HttpResponse<String> login = webClient.send(post("/login", "testuser1", "password"), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, login.statusCode());
+        Assertions.assertEquals(new Account(9999, "testuser1", "password"), objectMapper.readValue(login.body(), Account.class));
+
+        String stored = storedPassword("testuser1");
+        Assertions.assertTrue(stored.startsWith("$pbkdf2-sha256$"), "Expected a password hash - Actual value was: " + stored);
+
+        Assertions.assertEquals(200, webClient.send(post("/login", "testuser1", "password"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(401, webClient.send(post("/login", "testuser1", "pass404"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(stored, storedPassword("testuser1"));
+    }
+
+    /**
+     * Sending a burst of concurrent POST localhost:8080/login requests to one hashing thread with a queue of one
+     *
+     * Expected Response:
+     *  Status Code: 401 for the checks that fit, 503 for the rest
+     */
+    @Test
+    public void excessLoginsGetBackPressure() {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            responses.add(webClient.sendAsync(post("/login", "testuser2", "wrong" + i), HttpResponse.BodyHandlers.ofString()));
+        }
+
+        int unauthorized = 0;
+        int unavailable = 0;
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            int status = response.join().statusCode();
+            if (status == 401) {
+                unauthorized++;
+            } else if (status == 503) {
+                unavailable++;
+            } else {
+                Assertions.fail("Expected Status Code 401 or 503 - Actual Code was: " + status);
+            }
+        }
+        Assertions.assertTrue(unauthorized >= 1, "Expected some password checks to run");
+        Assertions.assertTrue(unavailable >= 1, "Expected some password checks to be refused");
+    }
+}
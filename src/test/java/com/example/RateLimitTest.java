@@ -0,0 +1,109 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RateLimitTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, start the app with a burst of two and a very slow refill on the write endpoints,
+     * and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {
+                "--socialmedia.rate-limit.endpoints.create-message.capacity=2",
+                "--socialmedia.rate-limit.endpoints.create-message.refill-per-second=0.01",
+                "--socialmedia.rate-limit.endpoints.update-message.capacity=2",
+                "--socialmedia.rate-limit.endpoints.update-message.refill-per-second=0.01"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending three http requests to POST localhost:8080/messages when the burst allows only two
+     *
+     * Expected Response:
+     *  Status Code: 200, 200, then 429 with a Retry-After header, and only two messages persisted
+     */
+    @Test
+    public void createMessageOverLimitIsRejected() throws IOException, InterruptedException {
+    	String json = "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        Assertions.assertEquals(200, webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(429, status, "Expected Status Code 429 - Actual Code was: " + status);
+        Assertions.assertTrue(response.headers().firstValue("Retry-After").isPresent(), "Expected a Retry-After header");
+
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        HttpResponse<String> getResponse = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        List<Message> messages = objectMapper.readValue(getResponse.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(5, messages.size(), "Expected the 3 seeded messages plus the 2 admitted ones");
+    }
+
+    /**
+     * Sending three http requests to PATCH localhost:8080/messages/9999 with only the new text in
+     * the body, when the burst allows only two
+     *
+     * Expected Response:
+     *  Status Code: 200, 200, then 429, and the rejected text is not stored
+     */
+    @Test
+    public void updateMessageWithoutPostedByIsLimited() throws IOException, InterruptedException {
+        for (String text : List.of("first edit", "second edit")) {
+            HttpResponse<String> response = webClient.send(patchMessage(text), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        }
+        HttpResponse<String> response = webClient.send(patchMessage("third edit"), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(429, response.statusCode(), "Expected Status Code 429 - Actual Code was: " + response.statusCode());
+
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .build();
+        Message message = objectMapper.readValue(webClient.send(getRequest, HttpResponse.BodyHandlers.ofString()).body(), Message.class);
+        Assertions.assertEquals("second edit", message.getMessageText());
+    }
+
+    private static HttpRequest patchMessage(String messageText) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"" + messageText + "\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+    }
+}
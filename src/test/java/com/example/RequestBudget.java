@@ -0,0 +1,86 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.springframework.context.ApplicationContext;
+
+import com.example.diagnostics.RequestCost;
+import com.example.diagnostics.RequestCostProbe;
+
+/**
+ * Sends requests with a request cost probe and asserts that they stay within a budget of SQL
+ * statements and bytes allocated by the handling thread.
+ *
+ * <p>The app must run with {@link #ENABLE}. A request is sent a few times before it is measured,
+ * so one-off costs such as class loading and cache warm-up do not count against it; requests that
+ * change state should therefore be built to be repeatable.</p>
+ */
+public class RequestBudget {
+
+    /**
+     * Argument that turns the request cost probe on.
+     */
+    public static final String ENABLE = "--socialmedia.diagnostics.request-cost.enabled=true";
+
+    private static final int WARM_UP = 5;
+    private static final int MEASURED = 5;
+
+    private final HttpClient webClient;
+    private final RequestCostProbe probe;
+
+    public RequestBudget(ApplicationContext app, HttpClient webClient) {
+        this.webClient = webClient;
+        this.probe = app.getBean(RequestCostProbe.class);
+    }
+
+    /**
+     * Measures a single request.
+     *
+     * @param request the request, without the probe header
+     * @return the cost of handling it
+     */
+    public RequestCost measure(HttpRequest.Builder request) throws IOException, InterruptedException, TimeoutException {
+        String name = UUID.randomUUID().toString();
+        HttpResponse<Void> response = webClient.send(request.header(RequestCostProbe.HEADER, name).build(), HttpResponse.BodyHandlers.discarding());
+        Assertions.assertTrue(response.statusCode() < 500, "Status code " + response.statusCode());
+        return probe.await(name, 5000);
+    }
+
+    /**
+     * Warms a request up, measures it several times and asserts it against the budget: the most
+     * SQL statements of any run, which should not vary, and the median of the allocated bytes, so
+     * that a spike in a minority of runs is tolerated as noise while a regular one is not.
+     *
+     * @param request builds the request, once per send
+     * @param maxSqlStatements most SQL statements the request may execute
+     * @param maxAllocatedBytes most bytes the handling thread may allocate
+     * @return the measured cost
+     */
+    public RequestCost assertWithin(Supplier<HttpRequest.Builder> request, int maxSqlStatements, long maxAllocatedBytes)
+            throws IOException, InterruptedException, TimeoutException {
+        for (int i = 0; i < WARM_UP; i++) {
+            measure(request.get());
+        }
+        long[] allocatedBytes = new long[MEASURED];
+        int sqlStatements = 0;
+        for (int i = 0; i < MEASURED; i++) {
+            RequestCost cost = measure(request.get());
+            allocatedBytes[i] = cost.getAllocatedBytes();
+            sqlStatements = Math.max(sqlStatements, cost.getSqlStatements());
+        }
+        Arrays.sort(allocatedBytes);
+        RequestCost measured = new RequestCost(allocatedBytes[MEASURED / 2], sqlStatements);
+        Assertions.assertTrue(sqlStatements <= maxSqlStatements, "SQL statement budget " + maxSqlStatements + " exceeded: " + measured);
+        Assertions.assertTrue(measured.getAllocatedBytes() <= maxAllocatedBytes,
+                "Allocation budget " + maxAllocatedBytes + " exceeded: " + measured + ", runs " + Arrays.toString(allocatedBytes));
+        return measured;
+    }
+}
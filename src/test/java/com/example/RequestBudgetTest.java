@@ -0,0 +1,100 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class RequestBudgetTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    RequestBudget budget;
+
+    /**
+     * Before every test, start the app with request cost probes and create a new webClient for
+     * interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {RequestBudget.ENABLE, "--socialmedia.rate-limit.enabled=false"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        budget = new RequestBudget(app, webClient);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private static HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path)).GET();
+    }
+
+    private static HttpRequest.Builder post(String path, String body) {
+        return HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json");
+    }
+
+    /**
+     * Logging in with valid credentials and with an unknown username
+     *
+     * Expected Response:
+     *  A known account is served from the second-level cache without SQL; an unknown one costs a single lookup
+     */
+    @Test
+    public void loginStaysWithinBudget() throws IOException, InterruptedException, TimeoutException {
+        budget.assertWithin(() -> post("/login", "{\"username\":\"testuser1\",\"password\":\"password\"}"), 0, 96 * 1024);
+        budget.assertWithin(() -> post("/login", "{\"username\":\"nobody\",\"password\":\"password\"}"), 1, 96 * 1024);
+    }
+
+    /**
+     * Registering new accounts
+     *
+     * Expected Response:
+     *  At most two statements: the duplicate check and the insert
+     */
+    @Test
+    public void registrationStaysWithinBudget() throws IOException, InterruptedException, TimeoutException {
+        AtomicInteger accounts = new AtomicInteger();
+        budget.assertWithin(() -> post("/register", "{\"username\":\"budgetuser" + accounts.incrementAndGet() + "\",\"password\":\"password\"}"), 2, 160 * 1024);
+    }
+
+    /**
+     * Posting new messages
+     *
+     * Expected Response:
+     *  At most two statements: the ID and the insert, with the poster found in the second-level cache
+     */
+    @Test
+    public void createMessageStaysWithinBudget() throws IOException, InterruptedException, TimeoutException {
+        budget.assertWithin(() -> post("/messages", "{\"postedBy\":9999,\"messageText\":\"within budget\",\"timePostedEpoch\":1669947792}"), 2, 144 * 1024);
+    }
+
+    /**
+     * Reading single messages, messages by poster, several messages by ID and all messages
+     *
+     * Expected Response:
+     *  One query each, and none for a message known not to exist
+     */
+    @Test
+    public void readsStayWithinBudget() throws IOException, InterruptedException, TimeoutException {
+        budget.assertWithin(() -> get("/messages/9999"), 1, 128 * 1024);
+        budget.assertWithin(() -> get("/messages/12345"), 0, 112 * 1024);
+        budget.assertWithin(() -> get("/accounts/9998/messages"), 1, 160 * 1024);
+        budget.assertWithin(() -> get("/messages?ids=9999,9997"), 1, 144 * 1024);
+        budget.assertWithin(() -> get("/messages"), 1, 128 * 1024);
+    }
+}
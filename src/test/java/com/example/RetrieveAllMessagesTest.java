@@ -59,4 +59,37 @@ public class RetrieveAllMessagesTest {
         List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
         Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
     }
+
+    private List<Message> getPage(String query) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?" + query))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+
+    /**
+     * Paging through GET localhost:8080/messages with the ID of the last message as the next cursor
+     *
+     * Expected Response:
+     *  Status Code: 200 for every page, the pages in message ID order, then an empty page;
+     *  400 for a page size of 0
+     */
+    @Test
+    public void getMessagesPagedByIdCursor() throws IOException, InterruptedException {
+        List<Message> firstPage = getPage("limit=2");
+        Assertions.assertEquals(List.of(new Message(9996, 9996, "test message 3", 1669947792L),
+                new Message(9997, 9997, "test message 2", 1669947792L)), firstPage);
+
+        List<Message> secondPage = getPage("after=" + firstPage.get(1).getMessageId() + "&limit=2");
+        Assertions.assertEquals(List.of(new Message(9999, 9999, "test message 1", 1669947792L)), secondPage);
+
+        Assertions.assertTrue(getPage("after=9999").isEmpty());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?limit=0"))
+                .build();
+        Assertions.assertEquals(400, webClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
 }
@@ -0,0 +1,206 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ScheduledMessageTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Before every test, create a new webClient and ObjectMapper for interacting locally on the web.
+     * The app is started by each test, so a test can seed pending rows first.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private static long nowEpoch() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private List<Map<String, Object>> getMessages(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Map<String, Object>>>() {});
+    }
+
+    private static boolean containsText(List<Map<String, Object>> messages, String messageText) {
+        return messages.stream().anyMatch(message -> messageText.equals(message.get("messageText")));
+    }
+
+    private boolean awaitMessage(String messageText, long timeoutMillis) throws Exception {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            if (containsText(getMessages("/messages"), messageText)) {
+                return true;
+            }
+            Thread.sleep(200);
+        }
+        return false;
+    }
+
+    /**
+     * Posting a message dated a few seconds ahead through POST localhost:8080/messages
+     *
+     * Expected Response:
+     *  Status Code: 202 with the message and no ID; the message is missing from both message
+     *  listings until its time, then it appears with an ID and its pending row is gone
+     */
+    @Test
+    public void futureMessageIsHiddenUntilItsTime() throws Exception {
+        app = SpringApplication.run(SocialMediaApp.class, "--socialmedia.scheduled-messages.skew-tolerance=PT0S");
+        long timePostedEpoch = nowEpoch() + 3;
+        String json = "{\"postedBy\":9999,\"messageText\": \"from the future\",\"timePostedEpoch\": " + timePostedEpoch + "}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(202, response.statusCode(), "Expected Status Code 202 - Actual Code was: " + response.statusCode());
+        Message accepted = objectMapper.readValue(response.body(), Message.class);
+        Assertions.assertNull(accepted.getMessageId());
+        Assertions.assertEquals(timePostedEpoch, accepted.getTimePostedEpoch());
+        Assertions.assertEquals(3, getMessages("/messages").size());
+        Assertions.assertEquals(1, getMessages("/accounts/9999/messages").size());
+
+        Assertions.assertTrue(awaitMessage("from the future", 10000), "Scheduled message was not published");
+        Assertions.assertTrue(nowEpoch() >= timePostedEpoch, "Scheduled message was published early");
+        List<Map<String, Object>> accountMessages = getMessages("/accounts/9999/messages");
+        Assertions.assertEquals(2, accountMessages.size());
+        Assertions.assertTrue(containsText(accountMessages, "from the future"));
+        Assertions.assertEquals(0, app.getBean(JdbcTemplate.class).queryForObject("select count(*) from scheduled_message", Integer.class));
+    }
+
+    /**
+     * Posting a message with an unknown poster and a future time through POST localhost:8080/messages
+     *
+     * Expected Response:
+     *  Status Code: 400, and nothing is scheduled
+     */
+    @Test
+    public void futureMessageFromUnknownUserIsRejected() throws Exception {
+        app = SpringApplication.run(SocialMediaApp.class);
+        String json = "{\"postedBy\":5050,\"messageText\": \"nobody\",\"timePostedEpoch\": " + (nowEpoch() + 3600) + "}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(400, response.statusCode(), "Expected Status Code 400 - Actual Code was: " + response.statusCode());
+        Assertions.assertEquals(0, app.getBean(JdbcTemplate.class).queryForObject("select count(*) from scheduled_message", Integer.class));
+    }
+
+    /**
+     * Starting the app with pending rows left by a previous run, one overdue and one still ahead
+     *
+     * Expected Response:
+     *  The overdue message is published right after startup, the other one only at its time
+     */
+    @Test
+    public void pendingMessagesAreRescheduledOnStartup() throws Exception {
+        long now = nowEpoch();
+        Path seed = tempDir.resolve("scheduled.sql");
+        Files.writeString(seed,
+                "insert into scheduled_message (postedBy, messageText, timePostedEpoch) values (9998, 'overdue', " + (now - 60) + ");\n"
+                + "insert into scheduled_message (postedBy, messageText, timePostedEpoch) values (9998, 'still ahead', " + (now + 15) + ");\n");
+        app = SpringApplication.run(SocialMediaApp.class,
+                "--spring.sql.init.data-locations=classpath:data.sql,file:" + seed);
+
+        Assertions.assertTrue(awaitMessage("overdue", 5000), "Overdue message was not published on startup");
+        Assertions.assertFalse(containsText(getMessages("/accounts/9998/messages"), "still ahead"));
+        Assertions.assertTrue(awaitMessage("still ahead", 25000), "Pending message was not rescheduled");
+        Assertions.assertTrue(nowEpoch() >= now + 15, "Pending message was published early");
+    }
+
+    /**
+     * A pending row written while the app runs, as another instance would schedule a message
+     *
+     * Expected Response:
+     *  The next reload picks the row up and the message is published at its time
+     */
+    @Test
+    public void messagesScheduledElsewhereArePickedUpByReload() throws Exception {
+        app = SpringApplication.run(SocialMediaApp.class, "--socialmedia.scheduled-messages.reload-interval=PT1S");
+        long timePostedEpoch = nowEpoch() + 2;
+        app.getBean(JdbcTemplate.class).update(
+                "insert into scheduled_message (postedBy, messageText, timePostedEpoch) values (9999, 'from elsewhere', ?)",
+                timePostedEpoch);
+
+        Assertions.assertTrue(awaitMessage("from elsewhere", 10000), "Message scheduled elsewhere was not published");
+        Assertions.assertTrue(nowEpoch() >= timePostedEpoch, "Message scheduled elsewhere was published early");
+        Assertions.assertEquals(0, app.getBean(JdbcTemplate.class).queryForObject("select count(*) from scheduled_message", Integer.class));
+    }
+
+    /**
+     * Starting the app with two claimed rows: one claimed by an instance that died after writing the
+     * message under its reserved ID, and one freshly claimed by an instance that is still running
+     *
+     * Expected Response:
+     *  The stale claim is published again under its reserved ID, leaving a single message, and its
+     *  row is deleted; the fresh claim is left to its instance
+     */
+    @Test
+    public void staleClaimsArePublishedOnceUnderTheirReservedId() throws Exception {
+        long now = nowEpoch();
+        Path seed = tempDir.resolve("claimed.sql");
+        Files.writeString(seed,
+                "insert into message (messageId, postedBy, messageText, timePostedEpoch) values (70001, 9998, 'stale claim', " + (now - 60) + ");\n"
+                + "insert into scheduled_message (postedBy, messageText, timePostedEpoch, messageId, claimedBy, claimedAt) values (9998, 'stale claim', "
+                + (now - 60) + ", 70001, 42, " + (now - 600) * 1000 + ");\n"
+                + "insert into scheduled_message (postedBy, messageText, timePostedEpoch, messageId, claimedBy, claimedAt) values (9998, 'fresh claim', "
+                + (now - 60) + ", 70002, 43, " + (now + 3600) * 1000 + ");\n");
+        app = SpringApplication.run(SocialMediaApp.class,
+                "--spring.sql.init.data-locations=classpath:data.sql,file:" + seed, "--socialmedia.scheduled-messages.claim-timeout=PT1M");
+        JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline
+                && jdbcTemplate.queryForObject("select count(*) from scheduled_message where messageText = 'stale claim'", Integer.class) > 0) {
+            Thread.sleep(200);
+        }
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("select count(*) from scheduled_message where messageText = 'stale claim'", Integer.class));
+        Assertions.assertEquals(List.of(70001), jdbcTemplate.queryForList("select messageId from message where messageText = 'stale claim'", Integer.class));
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("select count(*) from scheduled_message where messageText = 'fresh claim'", Integer.class));
+        Assertions.assertFalse(containsText(getMessages("/messages"), "fresh claim"));
+    }
+}
@@ -0,0 +1,191 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ShardedMessagesTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, start the app with the message table split across three embedded H2 shards,
+     * and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--socialmedia.message.shards=3", "--socialmedia.message.shard-reset-on-startup=true"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private Message postMessage(int postedBy, String messageText) throws IOException, InterruptedException {
+        String json = "{\"postedBy\":" + postedBy + ",\"messageText\": \"" + messageText + "\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), Message.class);
+    }
+
+    /**
+     * Messages from accounts on different shards are posted, then read back through GET localhost:8080/messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: every posted message, merged across shards in messageId order
+     */
+    @Test
+    public void getAllMessagesMergesShardsInIdOrder() throws IOException, InterruptedException {
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(postMessage(9999, "shard zero"));
+        expectedResult.add(postMessage(9997, "shard one"));
+        expectedResult.add(postMessage(9998, "shard two"));
+        expectedResult.add(postMessage(9999, "shard zero again"));
+        expectedResult.sort((left, right) -> left.getMessageId().compareTo(right.getMessageId()));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+    }
+
+    /**
+     * Messages from accounts on different shards are read back a page of two at a time through
+     * GET localhost:8080/messages?after={cursor}&limit=2
+     *
+     * Expected Response:
+     *  Status Code: 200 for every page, together the posted messages in messageId order
+     */
+    @Test
+    public void pagesAreMergedAcrossShards() throws IOException, InterruptedException {
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(postMessage(9999, "first"));
+        expectedResult.add(postMessage(9997, "second"));
+        expectedResult.add(postMessage(9998, "third"));
+        expectedResult.add(postMessage(9999, "fourth"));
+        expectedResult.add(postMessage(9998, "fifth"));
+        expectedResult.sort((left, right) -> left.getMessageId().compareTo(right.getMessageId()));
+
+        List<Message> actualResult = new ArrayList<Message>();
+        int cursor = 0;
+        while (true) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages?after=" + cursor + "&limit=2"))
+                    .build();
+            HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode());
+            List<Message> page = objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+            if (page.isEmpty()) {
+                break;
+            }
+            Assertions.assertTrue(page.size() <= 2);
+            actualResult.addAll(page);
+            cursor = page.get(page.size() - 1).getMessageId();
+        }
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+    }
+
+    /**
+     * A message is posted, read, updated and deleted through the endpoints that address a single shard
+     *
+     * Expected Response:
+     *  Status Code: 200 for every call, with the message visible only to its own account until deleted
+     */
+    @Test
+    public void singleShardOperationsRoundTrip() throws IOException, InterruptedException {
+        Message posted = postMessage(9998, "hello shard");
+        postMessage(9999, "other account");
+
+        HttpRequest byUserRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9998/messages"))
+                .build();
+        HttpResponse<String> byUserResponse = webClient.send(byUserRequest, HttpResponse.BodyHandlers.ofString());
+        List<Message> byUser = objectMapper.readValue(byUserResponse.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(List.of(posted), byUser);
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + posted.getMessageId()))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"updated text\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> patchResponse = webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, patchResponse.statusCode());
+        Assertions.assertEquals("1", patchResponse.body());
+
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + posted.getMessageId()))
+                .build();
+        HttpResponse<String> getResponse = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Message updated = objectMapper.readValue(getResponse.body(), Message.class);
+        Assertions.assertEquals("updated text", updated.getMessageText());
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + posted.getMessageId()))
+                .DELETE()
+                .build();
+        HttpResponse<String> deleteResponse = webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals("1", deleteResponse.body());
+
+        HttpResponse<String> afterDelete = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, afterDelete.statusCode());
+        Assertions.assertTrue(afterDelete.body().isEmpty(), "Expected Empty Result, but Result was not Empty");
+    }
+
+    /**
+     * An account whose only message lives on a shard is deleted through DELETE localhost:8080/accounts/9998
+     *
+     * Expected Response:
+     *  Status Code: 409, as the foreign key answers without sharding, and the message is still listed
+     */
+    @Test
+    public void accountWithShardedMessagesIsNotDeleted() throws IOException, InterruptedException {
+        Message posted = postMessage(9998, "keep my author");
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9998"))
+                .DELETE()
+                .build();
+        HttpResponse<String> deleteResponse = webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(409, deleteResponse.statusCode(), "Expected Status Code 409 - Actual Code was: " + deleteResponse.statusCode());
+
+        HttpRequest byUserRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9998/messages"))
+                .build();
+        HttpResponse<String> byUserResponse = webClient.send(byUserRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, byUserResponse.statusCode());
+        Assertions.assertEquals(List.of(posted), objectMapper.readValue(byUserResponse.body(), new TypeReference<List<Message>>(){}));
+    }
+}
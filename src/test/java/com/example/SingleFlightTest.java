@@ -0,0 +1,120 @@
+package com.example;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.entity.Message;
+import com.example.entity.MessageView;
+import com.example.repository.MessageRepository;
+import com.example.service.MessageService;
+
+public class SingleFlightTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    AtomicInteger findByIdCalls;
+    AtomicInteger findByPostedByCalls;
+
+    private static final int BURST = 40;
+    private static final Message VIRAL = new Message(9999, 9999, "test message 1", 1669947792L);
+
+    /**
+     * Before every test, start the app with a message repository whose loads are slow and counted,
+     * and create a new webClient for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String[] args = new String[] {
+                "--socialmedia.concurrency-limit.endpoints.point-read.initial-limit=100",
+                "--socialmedia.concurrency-limit.endpoints.bulk-read.initial-limit=100",
+                "--socialmedia.concurrency-limit.endpoints.bulk-read.max-limit=100"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+
+        findByIdCalls = new AtomicInteger();
+        findByPostedByCalls = new AtomicInteger();
+        MessageRepository slowRepository = Mockito.mock(MessageRepository.class);
+        Mockito.when(slowRepository.findById(9999)).thenAnswer(invocation -> {
+            findByIdCalls.incrementAndGet();
+            Thread.sleep(1000);
+            return Optional.of(VIRAL);
+        });
+        Mockito.when(slowRepository.findViewsByPostedBy(9999)).thenAnswer(invocation -> {
+            findByPostedByCalls.incrementAndGet();
+            Thread.sleep(1000);
+            return List.of(MessageView.of(VIRAL));
+        });
+        MessageService messageService = AopTestUtils.getTargetObject(app.getBean(MessageService.class));
+        ReflectionTestUtils.setField(messageService, "messageRepository", slowRepository);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private List<String> burst(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < BURST; i++) {
+            responses.add(webClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        List<String> bodies = new ArrayList<>();
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            HttpResponse<String> completed = response.get(30, TimeUnit.SECONDS);
+            Assertions.assertEquals(200, completed.statusCode());
+            bodies.add(completed.body());
+        }
+        return bodies;
+    }
+
+    /**
+     * Sending a burst of concurrent GET localhost:8080/messages/9999 requests
+     *
+     * Expected Response:
+     *  Every request gets the same message while the repository is hit only about once
+     */
+    @Test
+    public void concurrentMessageReadsShareOneLoad() throws Exception {
+        List<String> bodies = burst("/messages/9999");
+
+        Assertions.assertEquals(1, bodies.stream().distinct().count());
+        Assertions.assertTrue(findByIdCalls.get() <= 2, "Expected the burst to be coalesced - Actual loads were: " + findByIdCalls.get());
+    }
+
+    /**
+     * Sending a burst of concurrent GET localhost:8080/accounts/9999/messages requests
+     *
+     * Expected Response:
+     *  Every request gets the same list while the repository is hit only about once
+     */
+    @Test
+    public void concurrentAccountListingsShareOneLoad() throws Exception {
+        List<String> bodies = burst("/accounts/9999/messages");
+
+        Assertions.assertEquals(1, bodies.stream().distinct().count());
+        Assertions.assertTrue(findByPostedByCalls.get() <= 2, "Expected the burst to be coalesced - Actual loads were: " + findByPostedByCalls.get());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.example.id.MessageIdGenerator;
+import com.example.id.SnowflakeIdGenerator;
+
+public class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = 1700000000000L;
+
+    /**
+     * A clock that only moves when the test moves it.
+     */
+    private static class ManualClock extends Clock {
+        long millis = NOW;
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    /**
+     * An ID carries the time, the worker ID and the sequence it was issued with.
+     */
+    @Test
+    public void idEncodesTimeWorkerAndSequence() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(42, new ManualClock());
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        Assertions.assertEquals(NOW, SnowflakeIdGenerator.timestampOf(second));
+        Assertions.assertEquals(42, SnowflakeIdGenerator.workerIdOf(second));
+        Assertions.assertEquals(0, SnowflakeIdGenerator.sequenceOf(first));
+        Assertions.assertEquals(1, SnowflakeIdGenerator.sequenceOf(second));
+        Assertions.assertTrue(first >= SnowflakeIdGenerator.lowestIdAt(NOW));
+        Assertions.assertTrue(first < SnowflakeIdGenerator.lowestIdAt(NOW + 1));
+    }
+
+    /**
+     * IDs from different workers in the same millisecond, and IDs across a clock that moves
+     * backwards or a sequence that runs out within one millisecond
+     *
+     * Expected Response:
+     *  All IDs are distinct, and the IDs of one worker keep increasing
+     */
+    @Test
+    public void idsNeverRepeatOrDecrease() {
+        ManualClock clock = new ManualClock();
+        SnowflakeIdGenerator workerOne = new SnowflakeIdGenerator(1, clock);
+        SnowflakeIdGenerator workerTwo = new SnowflakeIdGenerator(2, clock);
+        Assertions.assertNotEquals(workerOne.nextId(), workerTwo.nextId());
+
+        long previous = workerOne.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.millis -= 5;
+            }
+            long id = workerOne.nextId();
+            Assertions.assertTrue(id > previous);
+            previous = id;
+        }
+        clock.millis += 10;
+        Assertions.assertEquals(NOW + 5, SnowflakeIdGenerator.timestampOf(workerOne.nextId()));
+    }
+
+    /**
+     * An ID issued before a restart, when the clock is now behind it
+     *
+     * Expected Response:
+     *  The next ID is above it
+     */
+    @Test
+    public void advancePastSkipsIdsIssuedBeforeRestart() {
+        ManualClock clock = new ManualClock();
+        long issued = new SnowflakeIdGenerator(7, clock).nextId();
+
+        clock.millis -= 100;
+        SnowflakeIdGenerator restarted = new SnowflakeIdGenerator(7, clock);
+        restarted.advancePast(issued);
+        Assertions.assertTrue(restarted.nextId() > issued);
+    }
+
+    /**
+     * Many threads drawing IDs from one generator
+     *
+     * Expected Response:
+     *  No ID is handed out twice
+     */
+    @Test
+    public void concurrentIdsAreUnique() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(threads.submit(() -> {
+                    List<Long> ids = new ArrayList<>();
+                    for (int i = 0; i < 20_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> unique = new HashSet<>();
+            for (Future<List<Long>> result : results) {
+                unique.addAll(result.get());
+            }
+            Assertions.assertEquals(8 * 20_000, unique.size());
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    @Test
+    public void workerIdOutOfRangeIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+    }
+
+    /**
+     * Generated IDs are narrowed to the Integer message ID only while they fit it.
+     */
+    @Test
+    public void idsAboveIntegerRangeAreNotAssigned() {
+        Assertions.assertEquals(Integer.MAX_VALUE, MessageIdGenerator.toMessageId(Integer.MAX_VALUE));
+        Assertions.assertThrows(IllegalStateException.class, () -> MessageIdGenerator.toMessageId(Integer.MAX_VALUE + 1L));
+        Assertions.assertThrows(IllegalStateException.class, () -> MessageIdGenerator.toMessageId(new SnowflakeIdGenerator(1).nextId()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.example.scheduling.TimingWheel;
+
+public class TimingWheelTest {
+
+    private static final long NOW = 1700000000000L;
+    private static final long TICK = 1000;
+
+    /**
+     * An item due in the current tick or earlier is refused, so the caller can release it at once.
+     */
+    @Test
+    public void dueItemIsRefused() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, NOW);
+
+        Assertions.assertFalse(wheel.add("past", NOW - 5000));
+        Assertions.assertFalse(wheel.add("this tick", NOW + TICK - 1));
+        Assertions.assertTrue(wheel.add("next tick", NOW + TICK));
+        Assertions.assertEquals(1, wheel.size());
+    }
+
+    /**
+     * Items spread over every level are each released in exactly the tick they are due in.
+     */
+    @Test
+    public void itemsAreReleasedInTheirTick() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, NOW);
+        Random random = new Random(7);
+        Map<Integer, Long> dueTicks = new HashMap<>();
+        for (int item = 0; item < 5000; item++) {
+            long delay = 1 + (long) Math.pow(random.nextDouble(), 4) * 400000;
+            dueTicks.put(item, NOW / TICK + delay);
+            Assertions.assertTrue(wheel.add(item, (NOW / TICK + delay) * TICK + random.nextInt((int) TICK)));
+        }
+
+        long now = NOW;
+        long lastDue = dueTicks.values().stream().mapToLong(Long::longValue).max().getAsLong();
+        while (now / TICK <= lastDue) {
+            now += TICK;
+            long tick = now / TICK;
+            List<Integer> released = new ArrayList<>();
+            wheel.advance(now, released::add);
+            for (Integer item : released) {
+                Assertions.assertEquals(dueTicks.remove(item), tick, "Item " + item);
+            }
+        }
+        Assertions.assertTrue(dueTicks.isEmpty());
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Advancing over many ticks at once releases everything that became due in between, and an
+     * empty wheel jumps straight to the current time.
+     */
+    @Test
+    public void advanceCatchesUp() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, NOW);
+        wheel.add("soon", NOW + 3 * TICK);
+        wheel.add("later", NOW + 10000 * TICK);
+        wheel.add("much later", NOW + 10000000 * TICK);
+
+        List<String> released = new ArrayList<>();
+        wheel.advance(NOW + 20000 * TICK, released::add);
+        Assertions.assertEquals(List.of("soon", "later"), released);
+
+        wheel.advance(NOW + 20000000L * TICK, released::add);
+        Assertions.assertEquals(List.of("soon", "later", "much later"), released);
+
+        wheel.advance(NOW + 90000000L * TICK, released::add);
+        Assertions.assertFalse(wheel.add("stale", NOW + 30000000L * TICK));
+        Assertions.assertTrue(wheel.add("fresh", NOW + 90000001L * TICK));
+    }
+}
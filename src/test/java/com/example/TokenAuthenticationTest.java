@@ -0,0 +1,153 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.auth.TokenService;
+import com.example.repository.AccountRepository;
+import com.example.service.AccountService;
+
+public class TokenAuthenticationTest {
+	ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, start the app and create a new webClient for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private String login(String username) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + username + "\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        return response.headers().firstValue(TokenService.HEADER).orElseThrow();
+    }
+
+    private HttpResponse<String> postMessage(int postedBy, String token) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":" + postedBy + ",\"messageText\":\"hello token\",\"timePostedEpoch\":1669947792}"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> updateMessage(int messageId, String token) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + messageId))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\":\"updated with token\"}"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> logout(String token) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/logout"))
+                .POST(HttpRequest.BodyPublishers.noBody());
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return webClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Logging in, then sending write requests with the issued bearer token for the token's own account
+     *
+     * Expected Response:
+     *  Status Code: 200, with no account lookup to verify the token
+     */
+    @Test
+    public void tokenAuthenticatesOwnWritesWithoutAccountLookup() throws IOException, InterruptedException {
+        String token = login("testuser1");
+
+        AccountRepository accountRepository = Mockito.mock(AccountRepository.class, AdditionalAnswers.delegatesTo(app.getBean(AccountRepository.class)));
+        AccountService accountService = AopTestUtils.getTargetObject(app.getBean(AccountService.class));
+        ReflectionTestUtils.setField(accountService, "accountRepository", accountRepository);
+
+        Assertions.assertEquals(200, updateMessage(9999, token).statusCode());
+        Assertions.assertEquals(200, postMessage(9999, token).statusCode());
+        Mockito.verifyNoInteractions(accountRepository);
+    }
+
+    /**
+     * Sending write requests with a token issued to another account
+     *
+     * Expected Response:
+     *  Status Code: 401
+     */
+    @Test
+    public void tokenOfAnotherAccountIsRejected() throws IOException, InterruptedException {
+        String token = login("testuser2");
+
+        Assertions.assertEquals(401, postMessage(9999, token).statusCode());
+        Assertions.assertEquals(401, updateMessage(9999, token).statusCode());
+    }
+
+    /**
+     * Sending a write request with a token whose signature was tampered with
+     *
+     * Expected Response:
+     *  Status Code: 401
+     */
+    @Test
+    public void tamperedTokenIsRejected() throws IOException, InterruptedException {
+        String token = login("testuser1");
+        char last = token.charAt(token.length() - 1);
+        String tampered = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        Assertions.assertEquals(401, postMessage(9999, tampered).statusCode());
+        Assertions.assertEquals(401, postMessage(9999, "not-a-token").statusCode());
+    }
+
+    /**
+     * Logging out, then using the revoked token again
+     *
+     * Expected Response:
+     *  Status Code: 200 for the logout, 401 for every later use of the token and for a logout without a token
+     */
+    @Test
+    public void logoutRevokesToken() throws IOException, InterruptedException {
+        String token = login("testuser1");
+        String otherToken = login("testuser1");
+
+        Assertions.assertEquals(200, logout(token).statusCode());
+        Assertions.assertEquals(401, postMessage(9999, token).statusCode());
+        Assertions.assertEquals(401, logout(token).statusCode());
+        Assertions.assertEquals(401, logout(null).statusCode());
+        Assertions.assertEquals(200, postMessage(9999, otherToken).statusCode());
+    }
+}
@@ -0,0 +1,212 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.service.MessageService;
+import com.example.tracing.TracingFilter;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+public class TracingTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    ListAppender<ILoggingEvent> summaries;
+    ListAppender<ILoggingEvent> serviceLogs;
+
+    /**
+     * Before every test, create a new webClient and ObjectMapper for interacting locally on the web.
+     * The app is started by each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+        ((Logger) LoggerFactory.getLogger(TracingFilter.class)).detachAppender(summaries);
+        ((Logger) LoggerFactory.getLogger(MessageService.class)).detachAppender(serviceLogs);
+    	SpringApplication.exit(app);
+    }
+
+    private static ListAppender<ILoggingEvent> capture(Class<?> type) {
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        ((Logger) LoggerFactory.getLogger(type)).addAppender(appender);
+        return appender;
+    }
+
+    /**
+     * Starts the app and captures the slow request summaries and the message service log lines,
+     * once the app has set up logging.
+     */
+    private void start(String... args) throws InterruptedException {
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        summaries = capture(TracingFilter.class);
+        serviceLogs = capture(MessageService.class);
+        Thread.sleep(500);
+    }
+
+    private Optional<Map<String, Object>> summaryOf(String requestId) throws IOException, InterruptedException {
+        for (int attempt = 0; attempt < 20; attempt++) {
+            for (ILoggingEvent event : List.copyOf(summaries.list)) {
+                Map<String, Object> summary = objectMapper.readValue((String) event.getArgumentArray()[0], new TypeReference<Map<String, Object>>() {});
+                if (requestId.equals(summary.get("requestId"))) {
+                    return Optional.of(summary);
+                }
+            }
+            Thread.sleep(100);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Posting a message with a request ID, with every request summarized
+     *
+     * Expected Response:
+     *  The request ID is returned and in the MDC of the service's log lines, and the summary breaks
+     *  the time down into the controller, service and repository layers
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void slowRequestIsSummarizedPerLayer() throws IOException, InterruptedException {
+        start("--socialmedia.tracing.slow-threshold=0ms");
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":9999,\"messageText\":\"traced message\",\"timePostedEpoch\":1669947792}"))
+                .header("Content-Type", "application/json")
+                .header("X-Request-Id", "trace-post-1")
+                .build();
+        HttpResponse<String> response = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(Optional.of("trace-post-1"), response.headers().firstValue("X-Request-Id"));
+
+        Map<String, Object> summary = summaryOf("trace-post-1").orElseThrow();
+        Assertions.assertEquals("POST", summary.get("method"));
+        Assertions.assertEquals("/messages", summary.get("path"));
+        Assertions.assertEquals(200, summary.get("status"));
+        Map<String, Object> layers = (Map<String, Object>) summary.get("layers");
+        Assertions.assertEquals(List.of("controller", "service", "repository"), List.copyOf(layers.keySet()));
+        Assertions.assertEquals(1, ((Map<String, Object>) layers.get("controller")).get("calls"));
+        List<String> spans = ((List<Map<String, Object>>) summary.get("spans")).stream()
+                .map(span -> (String) span.get("name")).collect(Collectors.toList());
+        Assertions.assertEquals("SocialMediaController.createMessage", spans.get(0));
+        Assertions.assertTrue(spans.contains("MessageService.postMessage"));
+        Assertions.assertTrue(spans.contains("MessageRepository.save"), spans.toString());
+
+        List<ILoggingEvent> postLogs = serviceLogs.list.stream()
+                .filter(event -> event.getMessage().contains("MessageService.postMessage"))
+                .collect(Collectors.toList());
+        Assertions.assertFalse(postLogs.isEmpty());
+        postLogs.forEach(event -> Assertions.assertEquals("trace-post-1", event.getMDCPropertyMap().get("requestId")));
+    }
+
+    /**
+     * A token authenticated request, and a request with a malformed request ID
+     *
+     * Expected Response:
+     *  The summary names the authenticated account, and the malformed ID is replaced
+     */
+    @Test
+    public void userAndRequestIdAreRecorded() throws IOException, InterruptedException {
+        start("--socialmedia.tracing.slow-threshold=0ms");
+        HttpResponse<String> login = webClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"testuser1\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String token = login.headers().firstValue("X-Auth-Token").orElseThrow();
+
+        HttpResponse<String> logout = webClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/logout"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .header("Authorization", "Bearer " + token)
+                .header("X-Request-Id", "not a valid id")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, logout.statusCode());
+        String requestId = logout.headers().firstValue("X-Request-Id").orElseThrow();
+        Assertions.assertNotEquals("not a valid id", requestId);
+        Assertions.assertEquals(9999, summaryOf(requestId).orElseThrow().get("userId"));
+    }
+
+    /**
+     * A fast request with the default threshold
+     *
+     * Expected Response:
+     *  A request ID is assigned, but no summary is logged
+     */
+    @Test
+    public void fastRequestIsNotSummarized() throws IOException, InterruptedException {
+        start();
+        HttpResponse<String> response = webClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .header("X-Request-Id", "trace-fast")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(Optional.of("trace-fast"), response.headers().firstValue("X-Request-Id"));
+        Assertions.assertEquals(Optional.empty(), summaryOf("trace-fast"));
+    }
+
+    /**
+     * Holding a GET localhost:8080/messages/stream open for longer than a second, with every
+     * request summarized
+     *
+     * Expected Response:
+     *  The stream is summarized while it is still open, timed only until it started
+     */
+    @Test
+    public void eventStreamIsTimedUntilItStarts() throws IOException, InterruptedException {
+        start("--socialmedia.tracing.slow-threshold=0ms");
+        HttpResponse<InputStream> stream = webClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/stream"))
+                .header("X-Request-Id", "trace-stream")
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = stream.body()) {
+            Assertions.assertEquals(200, stream.statusCode());
+            Thread.sleep(1500);
+            Map<String, Object> summary = summaryOf("trace-stream").orElseThrow();
+            Assertions.assertTrue(((Number) summary.get("totalMs")).doubleValue() < 1000, "Stream was timed while open: " + summary);
+        }
+    }
+
+    /**
+     * Downloading GET localhost:8080/export/accounts with every request summarized
+     *
+     * Expected Response:
+     *  The export is not summarized
+     */
+    @Test
+    public void exportIsNotSummarized() throws IOException, InterruptedException {
+        start("--socialmedia.tracing.slow-threshold=0ms");
+        HttpResponse<String> response = webClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/export/accounts"))
+                .header("X-Request-Id", "trace-export")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(Optional.empty(), summaryOf("trace-export"));
+    }
+}
@@ -6,6 +6,9 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -13,6 +16,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -83,4 +87,38 @@ public class UserRegistrationTest {
         Assertions.assertEquals(200, status1, "Expected Status Code 200 - Actual Code was: " + status1);
         Assertions.assertEquals(409, status2, "Expected Status Code 409 - Actual Code was: " + status2);
     }
+
+    /**
+     * Sending two concurrent http requests to POST localhost:8080/register with the same new username
+     *
+     * Expected Response:
+     *  Status Code: 200 for one and 409 with the duplicate user message for the other, and only
+     *  one account with the username
+     */
+    @Test
+    public void concurrentRegistrationOfSameUsername() throws Exception {
+        String json = "{\"username\":\"racer\",\"password\":\"password\"}";
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            responses.add(webClient.sendAsync(postRequest, HttpResponse.BodyHandlers.ofString()));
+        }
+
+        int created = 0;
+        for (CompletableFuture<HttpResponse<String>> future : responses) {
+            HttpResponse<String> response = future.get();
+            if (response.statusCode() == 200) {
+                created++;
+            } else {
+                Assertions.assertEquals(409, response.statusCode(), "Expected Status Code 409 - Actual Code was: " + response.statusCode());
+                Assertions.assertTrue(response.body().contains("racer already exists"), "Unexpected body: " + response.body());
+            }
+        }
+        Assertions.assertEquals(1, created);
+        Assertions.assertEquals(1, app.getBean(JdbcTemplate.class).queryForObject("select count(*) from account where username = 'racer'", Integer.class));
+    }
 }
@@ -0,0 +1,118 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.repository.AccountRepository;
+import com.example.service.AccountService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class UsernameAvailabilityTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    AccountRepository accountRepository;
+
+    /**
+     * Before every test, start the app with an account repository that records its invocations,
+     * and create a new webClient and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+
+        accountRepository = Mockito.mock(AccountRepository.class, AdditionalAnswers.delegatesTo(app.getBean(AccountRepository.class)));
+        AccountService accountService = AopTestUtils.getTargetObject(app.getBean(AccountService.class));
+        ReflectionTestUtils.setField(accountService, "accountRepository", accountRepository);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private HttpResponse<String> checkAvailability(String username) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/available?username=" + username))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private boolean isAvailable(String username) throws IOException, InterruptedException {
+        HttpResponse<String> response = checkAvailability(username);
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Map<String, Object> body = objectMapper.readValue(response.body(), new TypeReference<Map<String, Object>>() {});
+        Assertions.assertEquals(username, body.get("username"));
+        return (Boolean) body.get("available");
+    }
+
+    /**
+     * Sending GET localhost:8080/accounts/available for a seeded username and a new one, then registering the new one
+     *
+     * Expected Response:
+     *  The seeded name is taken, the new name is available without a database query, and taken once registered
+     */
+    @Test
+    public void availabilityFollowsRegistrations() throws IOException, InterruptedException {
+        Assertions.assertFalse(isAvailable("testuser1"));
+
+        Assertions.assertTrue(isAvailable("freshname"));
+        Mockito.verify(accountRepository, Mockito.never()).existsByUsername("freshname");
+
+        HttpRequest registerRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"freshname\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(registerRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        Assertions.assertFalse(isAvailable("freshname"));
+    }
+
+    /**
+     * Sending GET localhost:8080/accounts/available with a blank username
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void blankUsernameIsRejected() throws IOException, InterruptedException {
+        Assertions.assertEquals(400, checkAvailability("%20").statusCode());
+    }
+
+    /**
+     * The filter's memory footprint and false-positive rates are published as metrics
+     */
+    @Test
+    public void filterStatisticsAreExposedAsMetrics() {
+        MeterRegistry registry = app.getBean(MeterRegistry.class);
+        Assertions.assertTrue(registry.get("socialmedia.username-filter.memory").gauge().value() > 0);
+        Assertions.assertEquals(4.0, registry.get("socialmedia.username-filter.entries").gauge().value());
+        double expectedRate = registry.get("socialmedia.username-filter.expected-false-positive-rate").gauge().value();
+        Assertions.assertTrue(expectedRate >= 0 && expectedRate < 0.01);
+        Assertions.assertNotNull(registry.get("socialmedia.username-filter.observed-false-positive-rate").gauge());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class WarmupTest {
+    ConfigurableApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, create a new webClient and ObjectMapper for interacting locally on the web.
+     * The app is started by the test, as startup includes the warm-up.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+        if (app != null) {
+            SpringApplication.exit(app);
+        }
+    }
+
+    private int readiness() {
+        try {
+            return webClient.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/actuator/health/readiness")).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException | InterruptedException exception) {
+            return -1;
+        }
+    }
+
+    /**
+     * Starting the app with the warm-up enabled, while polling the readiness probe
+     *
+     * Expected Response:
+     *  The probe reports 503 while the warm-up traffic runs and 200 once startup has completed,
+     *  and the warm-up leaves no accounts or messages behind
+     */
+    @Test
+    public void readinessWaitsForWarmup() throws Exception {
+        String[] args = new String[] {
+                "--socialmedia.warmup.enabled=true",
+                "--socialmedia.warmup.round-requests=100",
+                "--socialmedia.warmup.settled-rounds=2",
+                "--socialmedia.warmup.settle-ratio=0.9",
+                "--socialmedia.warmup.max-duration=PT30S",
+                "--management.endpoint.health.probes.enabled=true"};
+        CompletableFuture<ConfigurableApplicationContext> started = CompletableFuture.supplyAsync(() -> SpringApplication.run(SocialMediaApp.class, args));
+
+        boolean refusedWhileWarming = false;
+        while (!started.isDone()) {
+            refusedWhileWarming |= readiness() == 503;
+            Thread.sleep(20);
+        }
+        app = started.get(1, TimeUnit.MINUTES);
+        Assertions.assertTrue(refusedWhileWarming);
+        Assertions.assertEquals(200, readiness());
+
+        List<Map<String, Object>> accounts = objectMapper.readValue(webClient.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/accounts")).build(),
+                HttpResponse.BodyHandlers.ofString()).body(), new TypeReference<List<Map<String, Object>>>() {});
+        Assertions.assertEquals(4, accounts.size());
+        List<Map<String, Object>> messages = objectMapper.readValue(webClient.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/messages")).build(),
+                HttpResponse.BodyHandlers.ofString()).body(), new TypeReference<List<Map<String, Object>>>() {});
+        Assertions.assertEquals(3, messages.size());
+    }
+}
@@ -0,0 +1,225 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.entity.Message;
+import com.example.writebehind.MessageAppendLog;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class WriteBehindTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Before every test, create a new webClient and ObjectMapper for interacting locally on the web.
+     * The app is started by each test, so a test can prepare the write-behind log first.
+     */
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    private void startApp(String... extraArgs) throws InterruptedException {
+        List<String> args = new ArrayList<>(List.of(
+                "--socialmedia.write-behind.enabled=true",
+                "--socialmedia.write-behind.log-path=" + tempDir.resolve("messages.log"),
+                "--socialmedia.write-behind.dead-letter-path=" + tempDir.resolve("dead-letter.log")));
+        args.addAll(List.of(extraArgs));
+        app = SpringApplication.run(SocialMediaApp.class, args.toArray(new String[0]));
+        Thread.sleep(500);
+    }
+
+    private HttpResponse<String> getMessage(int messageId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + messageId))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private int countStoredMessages(int messageId) {
+        return app.getBean(JdbcTemplate.class).queryForObject("select count(*) from message where messageId = ?", Integer.class, messageId);
+    }
+
+    /**
+     * Posting a message with write-behind enabled, then reading it back through GET localhost:8080/messages/{messageId}
+     *
+     * Expected Response:
+     *  Status Code: 200 with the message, which is in the message table shortly afterwards
+     */
+    @Test
+    public void postedMessageIsReadableAndFlushed() throws Exception {
+        startApp();
+        String json = "{\"postedBy\":9999,\"messageText\": \"write behind\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> postResponse = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, postResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + postResponse.statusCode());
+        Message posted = objectMapper.readValue(postResponse.body(), Message.class);
+
+        HttpResponse<String> getResponse = getMessage(posted.getMessageId());
+        Assertions.assertEquals(200, getResponse.statusCode());
+        Assertions.assertEquals(posted, objectMapper.readValue(getResponse.body(), Message.class));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (countStoredMessages(posted.getMessageId()) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assertions.assertEquals(1, countStoredMessages(posted.getMessageId()));
+    }
+
+    /**
+     * Starting the app on a write-behind log that holds a message which never reached the database
+     *
+     * Expected Response:
+     *  The message is replayed into the message table and new messages get higher IDs
+     */
+    @Test
+    public void unflushedMessagesAreReplayedOnStartup() throws Exception {
+        Message unflushed = new Message(500, 9998, "survived a crash", 1669947792L);
+        try (MessageAppendLog log = new MessageAppendLog(tempDir.resolve("messages.log"), 1 << 16, true)) {
+            log.append(unflushed);
+        }
+
+        startApp();
+        Assertions.assertEquals(1, countStoredMessages(500));
+        HttpResponse<String> getResponse = getMessage(500);
+        Assertions.assertEquals(200, getResponse.statusCode());
+        Assertions.assertEquals(unflushed, objectMapper.readValue(getResponse.body(), Message.class));
+
+        String json = "{\"postedBy\":9999,\"messageText\": \"after recovery\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> postResponse = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, postResponse.statusCode());
+        Assertions.assertTrue(objectMapper.readValue(postResponse.body(), Message.class).getMessageId() > 500);
+    }
+
+    /**
+     * Deleting an account through DELETE localhost:8080/accounts/9998 while its only message is
+     * still waiting for the flusher
+     *
+     * Expected Response:
+     *  Status Code: 409, as for an account whose messages are in the database, and the message
+     *  is kept
+     */
+    @Test
+    public void accountWithPendingMessagesIsNotDeleted() throws Exception {
+        startApp("--socialmedia.write-behind.flush-interval=PT5S");
+        String json = "{\"postedBy\":9998,\"messageText\": \"not flushed yet\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> postResponse = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, postResponse.statusCode());
+        Message posted = objectMapper.readValue(postResponse.body(), Message.class);
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9998"))
+                .DELETE()
+                .build();
+        HttpResponse<String> deleteResponse = webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(409, deleteResponse.statusCode(), "Expected Status Code 409 - Actual Code was: " + deleteResponse.statusCode());
+        Assertions.assertEquals(1, countStoredMessages(posted.getMessageId()));
+    }
+
+    /**
+     * Paging through GET localhost:8080/messages?after={cursor}&limit=2 while two new messages are
+     * still waiting for the flusher
+     *
+     * Expected Response:
+     *  Status Code: 200 for every page, together every stored and pending message in messageId order
+     */
+    @Test
+    public void pagesIncludePendingMessages() throws Exception {
+        startApp("--socialmedia.write-behind.flush-interval=PT5S");
+        List<Message> expectedResult = new ArrayList<>();
+        expectedResult.add(new Message(9996, 9996, "test message 3", 1669947792L));
+        expectedResult.add(new Message(9997, 9997, "test message 2", 1669947792L));
+        expectedResult.add(new Message(9999, 9999, "test message 1", 1669947792L));
+        for (String messageText : List.of("pending one", "pending two")) {
+            String json = "{\"postedBy\":9999,\"messageText\": \"" + messageText + "\",\"timePostedEpoch\": 1669947792}";
+            HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages"))
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .header("Content-Type", "application/json")
+                    .build();
+            expectedResult.add(objectMapper.readValue(webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString()).body(), Message.class));
+        }
+        expectedResult.sort((left, right) -> left.getMessageId().compareTo(right.getMessageId()));
+
+        List<Message> actualResult = new ArrayList<>();
+        int cursor = 0;
+        while (true) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages?after=" + cursor + "&limit=2"))
+                    .build();
+            List<Message> page = objectMapper.readValue(webClient.send(request, HttpResponse.BodyHandlers.ofString()).body(), new TypeReference<List<Message>>(){});
+            if (page.isEmpty()) {
+                break;
+            }
+            Assertions.assertTrue(page.size() <= 2);
+            actualResult.addAll(page);
+            cursor = page.get(page.size() - 1).getMessageId();
+        }
+        Assertions.assertEquals(expectedResult, actualResult);
+    }
+
+    /**
+     * Starting the app on a write-behind log that holds a message from an account that does not exist
+     *
+     * Expected Response:
+     *  The message is not stored; it is in the dead-letter log and counted
+     */
+    @Test
+    public void messagesViolatingAConstraintAreDeadLettered() throws Exception {
+        try (MessageAppendLog log = new MessageAppendLog(tempDir.resolve("messages.log"), 1 << 16, true)) {
+            log.append(new Message(501, 5050, "orphaned", 1669947792L));
+        }
+
+        startApp();
+        Assertions.assertEquals(0, countStoredMessages(501));
+        List<String> deadLetters = Files.readAllLines(tempDir.resolve("dead-letter.log"));
+        Assertions.assertEquals(1, deadLetters.size());
+        Assertions.assertEquals(501, objectMapper.readTree(deadLetters.get(0)).get("messageId").asInt());
+        Assertions.assertEquals("orphaned", objectMapper.readTree(deadLetters.get(0)).get("messageText").asText());
+        Assertions.assertEquals(1.0, app.getBean(MeterRegistry.class).counter("socialmedia.write-behind.dead-lettered").count());
+    }
+}
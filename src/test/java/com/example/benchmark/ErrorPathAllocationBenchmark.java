@@ -0,0 +1,134 @@
+package com.example.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import com.example.exception.AuthenticationException;
+import com.example.exception.InvalidInputException;
+import com.example.exception.ResourceNotFoundException;
+import com.example.exception.handlers.GlobalExceptionHandler;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Measures the bytes allocated and the time spent per rejected request on the 400, 401 and 404
+ * error paths, from throwing the exception to building the error response.
+ *
+ * <p>Exceptions are thrown from a few dozen frames deep, about as deep as a controller call sits
+ * in a servlet request. The "stack trace" rows model the previous behavior: an exception that
+ * captures its stack, whose trace is materialized for the error log, and a timestamp from
+ * {@link LocalDateTime#now()}. The "stackless" rows go through the current exceptions and
+ * {@link GlobalExceptionHandler}. Log output is switched off for both so only the error path
+ * itself is measured. Run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.benchmark.ErrorPathAllocationBenchmark}.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class ErrorPathAllocationBenchmark {
+
+    private static final int STACK_DEPTH = 60;
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+    private static final InvalidInputException EMPTY_TEXT = new InvalidInputException("Message text cannot be empty. Message creation failed.");
+
+    private static final GlobalExceptionHandler HANDLER = new GlobalExceptionHandler();
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        ((Logger) LoggerFactory.getLogger(GlobalExceptionHandler.class)).setLevel(Level.OFF);
+
+        System.out.printf("%-34s %12s %12s%n", "path", "bytes/op", "ns/op");
+        run("400 stack trace", () -> legacy(HttpStatus.BAD_REQUEST, () -> new StackTraceException("Message text cannot be empty. Message creation failed.")));
+        run("400 stackless", () -> HANDLER.handlerInvalidInputException(
+                throwFromDepth(() -> new InvalidInputException("Message text cannot be empty. Message creation failed."))));
+        run("400 stackless, preallocated", () -> HANDLER.handlerInvalidInputException(throwFromDepth(() -> EMPTY_TEXT)));
+        run("401 stack trace", () -> legacy(HttpStatus.UNAUTHORIZED, () -> new StackTraceException("Authentication failed for account with username: " + username() + ".")));
+        run("401 stackless", () -> HANDLER.handleAuthenticationException(
+                throwFromDepth(() -> new AuthenticationException("Authentication failed for account with username: " + username() + "."))));
+        run("404 stack trace", () -> legacy(HttpStatus.NOT_FOUND, () -> new StackTraceException("User with ID " + accountId() + " does not exist. Message retrieval failed.")));
+        run("404 stackless", () -> HANDLER.handleResourceNotFoundException(
+                throwFromDepth(() -> new ResourceNotFoundException("User with ID " + accountId() + " does not exist. Message retrieval failed."))));
+    }
+
+    private static void run(String name, Supplier<ResponseEntity<?>> errorPath) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink = errorPath.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = errorPath.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.printf("%-34s %12d %12d%n", name, bytes / ITERATIONS, elapsed / ITERATIONS);
+    }
+
+    private static ResponseEntity<?> legacy(HttpStatus status, Supplier<StackTraceException> exception) {
+        StackTraceException thrown = throwFromDepth(exception);
+        sink = thrown.getStackTrace();
+        LegacyError error = new LegacyError(status.value(), thrown.getMessage(), LocalDateTime.now());
+        return new ResponseEntity<>(error, status);
+    }
+
+    private static <E extends RuntimeException> E throwFromDepth(Supplier<E> exception) {
+        try {
+            descend(STACK_DEPTH, exception);
+        } catch (RuntimeException thrown) {
+            @SuppressWarnings("unchecked")
+            E caught = (E) thrown;
+            return caught;
+        }
+        throw new IllegalStateException("Nothing was thrown");
+    }
+
+    private static void descend(int depth, Supplier<? extends RuntimeException> exception) {
+        if (depth == 0) {
+            throw exception.get();
+        }
+        descend(depth - 1, exception);
+    }
+
+    private static String username() {
+        return "user" + (System.nanoTime() & 0xFF);
+    }
+
+    private static int accountId() {
+        return (int) (System.nanoTime() & 0xFFFF);
+    }
+
+    /**
+     * An exception that captures its stack, as the domain exceptions used to.
+     */
+    private static final class StackTraceException extends RuntimeException {
+
+        private StackTraceException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The error body as it used to be built, with a fresh timestamp per error.
+     */
+    @SuppressWarnings("unused")
+    private static final class LegacyError {
+
+        private final int status;
+        private final String message;
+        private final LocalDateTime timestamp;
+
+        private LegacyError(int status, String message, LocalDateTime timestamp) {
+            this.status = status;
+            this.message = message;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.SocialMediaApp;
+import com.example.repository.MessageRepository;
+
+/**
+ * Measures the bytes allocated and the time spent to read a large message table as managed
+ * entities versus as {@link com.example.entity.MessageView} constructor projections.
+ *
+ * <p>The application context is started without a web server and the message table is filled
+ * with {@value #ROWS} rows. Entities are read once in a read-write transaction, where Hibernate
+ * keeps a snapshot of every entity for dirty checking and flushes before commit, and once in a
+ * read-only transaction, where Spring sets the session to read-only with manual flushing. Run it
+ * from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.benchmark.ListProjectionBenchmark}.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class ListProjectionBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext app = SpringApplication.run(SocialMediaApp.class,
+                "--spring.main.web-application-type=none", "--logging.level.root=WARN")) {
+            JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+            List<Object[]> rows = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                rows.add(new Object[] {100_000 + i, 9999, "benchmark message " + i, 1669947792L});
+            }
+            jdbcTemplate.batchUpdate("insert into message (messageId, postedBy, messageText, timePostedEpoch) values (?, ?, ?, ?)", rows);
+
+            MessageRepository repository = app.getBean(MessageRepository.class);
+            PlatformTransactionManager transactionManager = app.getBean(PlatformTransactionManager.class);
+            TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+
+            System.out.printf("%-30s %14s %10s%n", "read path", "bytes/row", "ms/op");
+            run("entities, read-write tx", () -> readWrite.execute(status -> repository.findAll()));
+            run("entities, read-only tx", () -> readOnly.execute(status -> repository.findAll()));
+            run("views, read-only tx", () -> readOnly.execute(status -> repository.findAllViews()));
+        }
+    }
+
+    private static void run(String name, Supplier<List<?>> read) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink = read.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int rows = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<?> result = read.get();
+            rows += result.size();
+            sink = result;
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.printf("%-30s %14d %10.1f%n", name, bytes / rows, elapsed / 1e6 / ITERATIONS);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.example.id.MessageIdGenerator;
+import com.example.id.SnowflakeIdGenerator;
+import com.example.writebehind.MessageIdAllocator;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Compares ID throughput of the database sequence, per ID and in blocks, with the snowflake
+ * generator, with a growing number of writer threads.
+ *
+ * <p>The sequence lives in an embedded H2 database, so the numbers understate the cost of a
+ * network round trip per ID. Run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.benchmark.MessageIdGeneratorBenchmark}.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class MessageIdGeneratorBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+    private static final int IDS_PER_THREAD = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl("jdbc:h2:mem:id_bench;DB_CLOSE_DELAY=-1");
+            dataSource.setUsername("sa");
+            dataSource.setMaximumPoolSize(16);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("create sequence hibernate_sequence start with 1");
+
+            System.out.printf("%-8s %15s %15s %15s%n", "threads", "sequence/s", "block100/s", "snowflake/s");
+            for (int threads : THREAD_COUNTS) {
+                System.out.printf("%-8d %15.0f %15.0f %15.0f%n", threads,
+                        run(new MessageIdAllocator(jdbcTemplate, 1), threads),
+                        run(new MessageIdAllocator(jdbcTemplate, 100), threads),
+                        run(new SnowflakeIdGenerator(1), threads));
+            }
+        }
+    }
+
+    private static double run(MessageIdGenerator generator, int threads) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(workers.submit(() -> {
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        generator.nextId();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return (double) threads * IDS_PER_THREAD / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            workers.shutdown();
+        }
+    }
+}
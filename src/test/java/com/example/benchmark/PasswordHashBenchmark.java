@@ -0,0 +1,47 @@
+package com.example.benchmark;
+
+import java.time.Duration;
+import com.example.auth.PasswordHasher;
+
+/**
+ * Measures the latency of one password hash for a range of PBKDF2 iteration counts, to pick
+ * {@code socialmedia.password.iterations} against a latency budget on the target hardware.
+ *
+ * <p>The first argument is the budget as an ISO-8601 duration, {@code PT0.25S} by default. The
+ * last line reports the largest measured iteration count whose hash stays within it. Run it
+ * from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.benchmark.PasswordHashBenchmark -Dexec.args=PT0.25S}.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class PasswordHashBenchmark {
+
+    private static final int[] ITERATION_COUNTS = {50_000, 100_000, 210_000, 310_000, 600_000, 1_000_000};
+    private static final int WARMUP = 3;
+    private static final int SAMPLES = 10;
+
+    public static void main(String[] args) {
+        Duration budget = Duration.parse(args.length > 0 ? args[0] : "PT0.25S");
+        int bestWithinBudget = 0;
+
+        System.out.printf("%-12s %12s %12s%n", "iterations", "ms/hash", "hashes/s");
+        for (int iterations : ITERATION_COUNTS) {
+            PasswordHasher hasher = new PasswordHasher(iterations);
+            for (int i = 0; i < WARMUP; i++) {
+                hasher.hash("benchmark password");
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < SAMPLES; i++) {
+                hasher.hash("benchmark password");
+            }
+            double millis = (System.nanoTime() - start) / 1e6 / SAMPLES;
+            System.out.printf("%-12d %12.1f %12.1f%n", iterations, millis, 1000 / millis);
+            if (millis <= budget.toMillis()) {
+                bestWithinBudget = iterations;
+            }
+        }
+        System.out.printf("Largest iteration count within %d ms per core: %d%n", budget.toMillis(), bestWithinBudget);
+    }
+}
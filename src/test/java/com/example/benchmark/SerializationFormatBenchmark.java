@@ -0,0 +1,83 @@
+package com.example.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import com.example.entity.Account;
+import com.example.entity.AccountView;
+import com.example.entity.Message;
+import com.example.entity.MessageView;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Compares JSON, Smile and CBOR for the list payloads of the API: the size of the encoded body
+ * and the time to encode and decode it.
+ *
+ * <p>The message list holds {@value #ROWS} {@link MessageView}s with texts of varying length and
+ * is decoded into {@link Message}s, as a client would; the account list holds {@value #ROWS}
+ * {@link AccountView}s with password hashes and is decoded into {@link Account}s. Each format uses a plain {@link ObjectMapper} over
+ * its factory. Run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.benchmark.SerializationFormatBenchmark}.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class SerializationFormatBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws IOException {
+        List<MessageView> messages = new ArrayList<>(ROWS);
+        List<AccountView> accounts = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            messages.add(new MessageView(100_000 + i, 1 + i % 500, "message number " + i + " " + "lorem ipsum ".repeat(i % 12), 1669947792L + i * 37L));
+            accounts.add(new AccountView(1 + i, "user" + i, "$pbkdf2-sha256$210000$c2FsdHNhbHRzYWx0c2FsdA$aGFzaGhhc2hoYXNoaGFzaGhhc2hoYXNoaGFzaGhhc2g" + i));
+        }
+
+        System.out.printf("%-10s %-6s %12s %14s %14s%n", "payload", "format", "bytes", "encode us/op", "decode us/op");
+        for (String format : List.of("json", "smile", "cbor")) {
+            ObjectMapper mapper = new ObjectMapper(factory(format));
+            run("messages", format, mapper, messages, new TypeReference<List<Message>>() {});
+            run("accounts", format, mapper, accounts, new TypeReference<List<Account>>() {});
+        }
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    private static void run(String payload, String format, ObjectMapper mapper, Object value, TypeReference<?> decodedType) throws IOException {
+        byte[] encoded = mapper.writeValueAsBytes(value);
+        for (int i = 0; i < WARMUP; i++) {
+            sink = mapper.writeValueAsBytes(value);
+            sink = mapper.readValue(encoded, decodedType);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = mapper.writeValueAsBytes(value);
+        }
+        long encodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = mapper.readValue(encoded, decodedType);
+        }
+        long decodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        System.out.printf("%-10s %-6s %12d %14d %14d%n", payload, format, encoded.length, encodeNanos / 1000, decodeNanos / 1000);
+    }
+}
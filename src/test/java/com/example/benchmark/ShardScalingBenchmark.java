@@ -0,0 +1,106 @@
+package com.example.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.sql.DataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import com.example.entity.Message;
+import com.example.repository.shard.ShardedMessageRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Measures how message throughput scales as shards are added.
+ *
+ * <p>For each shard count, a fresh set of embedded H2 databases is created and a fixed pool of
+ * writer threads inserts messages for a spread of accounts, followed by per-account reads and
+ * full scatter-gather reads. Run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.benchmark.ShardScalingBenchmark}.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class ShardScalingBenchmark {
+
+    private static final int[] SHARD_COUNTS = {1, 2, 4, 8};
+    private static final int THREADS = 16;
+    private static final int MESSAGES_PER_THREAD = 5_000;
+    private static final int ACCOUNTS = 1_000;
+    private static final int FULL_SCANS = 20;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-7s %15s %15s %15s%n", "shards", "inserts/s", "userReads/s", "findAll ms");
+        for (int shardCount : SHARD_COUNTS) {
+            run(shardCount);
+        }
+    }
+
+    private static void run(int shardCount) throws Exception {
+        List<DataSource> dataSources = new ArrayList<>();
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("message-shard-schema.sql"));
+        for (int shard = 0; shard < shardCount; shard++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:bench_" + shardCount + "_" + shard + ";DB_CLOSE_DELAY=-1");
+            dataSource.setUsername("sa");
+            dataSource.setMaximumPoolSize(THREADS);
+            populator.execute(dataSource);
+            dataSources.add(dataSource);
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        try (ShardedMessageRepository repository = new ShardedMessageRepository(dataSources)) {
+            long insertStart = System.nanoTime();
+            runOnAllThreads(workers, thread -> {
+                for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+                    int postedBy = (thread * MESSAGES_PER_THREAD + i) % ACCOUNTS;
+                    repository.save(new Message(postedBy, "benchmark message " + i, 1669947792L));
+                }
+            });
+            double insertSeconds = (System.nanoTime() - insertStart) / 1e9;
+
+            long readStart = System.nanoTime();
+            runOnAllThreads(workers, thread -> {
+                for (int i = 0; i < ACCOUNTS; i++) {
+                    repository.findByPostedBy((thread + i) % ACCOUNTS);
+                }
+            });
+            double readSeconds = (System.nanoTime() - readStart) / 1e9;
+
+            long scanStart = System.nanoTime();
+            for (int i = 0; i < FULL_SCANS; i++) {
+                repository.findAll();
+            }
+            double scanMillis = (System.nanoTime() - scanStart) / 1e6 / FULL_SCANS;
+
+            System.out.printf("%-7d %15.0f %15.0f %15.1f%n", shardCount,
+                    THREADS * MESSAGES_PER_THREAD / insertSeconds,
+                    THREADS * ACCOUNTS / readSeconds,
+                    scanMillis);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static void runOnAllThreads(ExecutorService workers, ThreadTask task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int threadIndex = thread;
+            futures.add(workers.submit(() -> {
+                task.run(threadIndex);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int threadIndex) throws Exception;
+    }
+}
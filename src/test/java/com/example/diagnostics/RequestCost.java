@@ -0,0 +1,45 @@
+package com.example.diagnostics;
+
+/**
+ * What handling one request cost: the bytes allocated by the thread that handled it and the SQL
+ * statements executed on that thread.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class RequestCost {
+
+    private final long allocatedBytes;
+    private final int sqlStatements;
+
+    /**
+     * Creates a measurement.
+     *
+     * @param allocatedBytes bytes allocated by the handling thread
+     * @param sqlStatements SQL statements executed by the handling thread
+     */
+    public RequestCost(long allocatedBytes, int sqlStatements) {
+        this.allocatedBytes = allocatedBytes;
+        this.sqlStatements = sqlStatements;
+    }
+
+    /**
+     * @return bytes allocated by the handling thread
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return SQL statements executed by the handling thread
+     */
+    public int getSqlStatements() {
+        return sqlStatements;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestCost{allocatedBytes=" + allocatedBytes + ", sqlStatements=" + sqlStatements + '}';
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.diagnostics;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Measures requests that carry the {@link RequestCostProbe#HEADER} header and passes all others
+ * through untouched.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class RequestCostFilter extends OncePerRequestFilter {
+
+    private final RequestCostProbe probe;
+
+    /**
+     * Creates the filter.
+     *
+     * @param probe records the measurements
+     */
+    public RequestCostFilter(RequestCostProbe probe) {
+        this.probe = probe;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String name = request.getHeader(RequestCostProbe.HEADER);
+        if (name == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try {
+            probe.measure(name, () -> chain.doFilter(request, response));
+        } catch (IOException | ServletException | RuntimeException exception) {
+            throw exception;
+        } catch (Exception exception) {
+            throw new ServletException(exception);
+        }
+    }
+}
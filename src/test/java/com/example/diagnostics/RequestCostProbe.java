@@ -0,0 +1,107 @@
+package com.example.diagnostics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Measures the cost of requests that ask for it, for tests that enforce performance budgets.
+ *
+ * <p>A request carrying the {@link #HEADER} header is measured by the {@link RequestCostFilter}: the
+ * bytes its handling thread allocates, taken from the JVM's per-thread allocation counter, and
+ * the SQL statements executed on that thread through the application's {@code DataSource}. Work
+ * handed off to other threads, such as password hashing or the completion of an asynchronous
+ * request, and statements on the message shards are not included. The result is kept under the
+ * header value until it is claimed with {@link #await(String, long)}; results nobody claims expire
+ * after a minute, and at most {@value #MAX_RESULTS} are kept.</p>
+ *
+ * <p>The probe is registered by {@link RequestCostTestConfig}.</p>
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class RequestCostProbe {
+
+    /**
+     * Request header that asks for a measurement; its value names the measurement.
+     */
+    public static final String HEADER = "X-Request-Cost-Probe";
+
+    private static final int MAX_RESULTS = 1000;
+
+    private static final ThreadLocal<int[]> SQL_STATEMENTS = new ThreadLocal<>();
+
+    private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<String, CompletableFuture<RequestCost>> results = Caffeine.newBuilder()
+            .maximumSize(MAX_RESULTS)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .<String, CompletableFuture<RequestCost>>build()
+            .asMap();
+
+    /**
+     * Counts one SQL statement for the request being measured on this thread, if any.
+     */
+    static void statementExecuted() {
+        int[] count = SQL_STATEMENTS.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    /**
+     * Runs a request and records what it cost.
+     *
+     * @param name the name to record the measurement under
+     * @param request the request handling
+     * @throws Exception whatever the request handling throws
+     */
+    void measure(String name, ThrowingRunnable request) throws Exception {
+        CompletableFuture<RequestCost> result = results.computeIfAbsent(name, key -> new CompletableFuture<>());
+        long threadId = Thread.currentThread().getId();
+        int[] count = new int[1];
+        SQL_STATEMENTS.set(count);
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        try {
+            request.run();
+        } finally {
+            long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            SQL_STATEMENTS.remove();
+            result.complete(new RequestCost(allocated, count[0]));
+        }
+    }
+
+    /**
+     * Waits for a measurement and removes it. The response may reach the client shortly before
+     * the handling thread has finished recording it.
+     *
+     * @param name the value the request sent in the {@link #HEADER} header
+     * @param timeoutMillis how long to wait
+     * @return the measurement
+     * @throws TimeoutException if no request with that name completed in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public RequestCost await(String name, long timeoutMillis) throws TimeoutException, InterruptedException {
+        CompletableFuture<RequestCost> result = results.computeIfAbsent(name, key -> new CompletableFuture<>());
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException(exception.getCause());
+        } finally {
+            results.remove(name, result);
+        }
+    }
+
+    /**
+     * Request handling that may throw checked exceptions.
+     */
+    @FunctionalInterface
+    interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.diagnostics;
+
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+/**
+ * Measures the cost of requests that ask for it, for the performance budget tests.
+ *
+ * <p>Lives with the tests so the instrumentation never ships in the application. It is picked up
+ * by the component scan of every app started from the tests, but only takes effect when
+ * {@code socialmedia.diagnostics.request-cost.enabled} is set, as {@code RequestBudget.ENABLE} does.</p>
+ */
+@TestConfiguration
+@ConditionalOnProperty(name = "socialmedia.diagnostics.request-cost.enabled", havingValue = "true")
+public class RequestCostTestConfig {
+
+    /**
+     * Creates the probe that keeps request cost measurements.
+     *
+     * @return the probe
+     */
+    @Bean
+    public RequestCostProbe requestCostProbe() {
+        return new RequestCostProbe();
+    }
+
+    /**
+     * Registers the {@link RequestCostFilter} ahead of every other filter, so the measurement
+     * covers the whole request.
+     *
+     * @param probe the probe that keeps the measurements
+     * @return the filter registration
+     */
+    @Bean
+    public FilterRegistrationBean<RequestCostFilter> requestCostFilter(RequestCostProbe probe) {
+        FilterRegistrationBean<RequestCostFilter> registration = new FilterRegistrationBean<>(new RequestCostFilter(probe));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Wraps the application's data sources so statements executed while measuring are counted.
+     *
+     * @return the post processor
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.diagnostics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Counts executed SQL statements for the {@link RequestCostProbe}. Each {@code execute} call, or
+ * {@code executeBatch} for a batch, counts as one statement.
+ *
+ * @author Micah Hogan
+ * @version 1.0
+ * @since 1.1
+ */
+public class StatementCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    /**
+     * Wraps a data source.
+     *
+     * @param target the data source that executes the statements
+     */
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(Connection.class, super.getConnection(username, password));
+    }
+
+    /**
+     * Closes the target data source, which would otherwise not be shut down with the context.
+     *
+     * @throws Exception if the target fails to close
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable) {
+            ((AutoCloseable) getTargetDataSource()).close();
+        }
+    }
+
+    private static <T> T wrap(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement) {
+                return wrapStatement((Statement) result);
+            }
+            if (method.getName().startsWith("execute")) {
+                RequestCostProbe.statementExecuted();
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    private static Statement wrapStatement(Statement statement) {
+        if (statement instanceof CallableStatement) {
+            return wrap(CallableStatement.class, (CallableStatement) statement);
+        }
+        if (statement instanceof PreparedStatement) {
+            return wrap(PreparedStatement.class, (PreparedStatement) statement);
+        }
+        return wrap(Statement.class, statement);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exception) {
+            throw exception.getCause();
+        }
+    }
+}